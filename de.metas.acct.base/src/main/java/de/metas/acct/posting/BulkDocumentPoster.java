@@ -0,0 +1,409 @@
+package de.metas.acct.posting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.service.ClientId;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.adempiere.util.lang.impl.TableRecordReference;
+import org.compiere.model.I_C_AllocationHdr;
+import org.compiere.model.I_C_Cash;
+import org.compiere.model.I_C_Invoice;
+import org.compiere.model.I_C_Order;
+import org.compiere.model.I_C_Payment;
+import org.compiere.model.I_C_ProjectIssue;
+import org.compiere.model.I_M_InOut;
+import org.compiere.model.I_M_Inventory;
+import org.compiere.model.I_M_MatchInv;
+import org.compiere.model.I_M_MatchPO;
+import org.compiere.model.I_M_Movement;
+import org.compiere.util.Env;
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+
+import de.metas.acct.api.IPostingRequestBuilder.PostImmediate;
+import de.metas.acct.api.IPostingService;
+import de.metas.acct.posting.BulkPostingResult.FailedDocument;
+import de.metas.acct.posting.BulkPostingResult.TablePostingStats;
+import de.metas.logging.LogManager;
+import de.metas.util.ILoggable;
+import de.metas.util.Loggables;
+import de.metas.util.Services;
+import lombok.Builder;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.acct.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Posts a bulk of documents directly (i.e. without the accounting server), using more than one thread.
+ * <p>
+ * The documents are posted in stages: a document table is posted in a later stage than the tables it depends on (see {@link #DEPENDENCIES}),
+ * e.g. {@code M_MatchInv} is posted after all {@code M_InOut}s and {@code C_Invoice}s.
+ * <p>
+ * Within one stage, the documents are split into lanes which are posted in parallel.
+ * The documents of a table are split into as many lanes as we have threads, by their record ID.
+ * The tables whose posting is creating cost details (see {@link #COSTING_TABLE_NAMES}) are the exception: they all share one lane,
+ * so that the costs are still calculated in the order the documents were given.
+ * Within one lane, the documents are posted one by one, each in its own transaction.
+ * <p>
+ * The lanes are logging to the caller's {@link Loggables}.
+ */
+public final class BulkDocumentPoster
+{
+	private static final Logger logger = LogManager.getLogger(BulkDocumentPoster.class);
+
+	private static final String SYSCONFIG_Threads = "de.metas.acct.posting.BulkDocumentPoster.Threads";
+	private static final int DEFAULT_Threads = 4;
+
+	/** Document table name => tables whose documents shall be posted before */
+	private static final ImmutableSetMultimap<String, String> DEPENDENCIES = ImmutableSetMultimap.<String, String> builder()
+			.putAll(I_M_MatchInv.Table_Name, I_M_InOut.Table_Name, I_C_Invoice.Table_Name)
+			.putAll(I_M_MatchPO.Table_Name, I_M_InOut.Table_Name, I_C_Order.Table_Name)
+			.putAll(I_C_AllocationHdr.Table_Name, I_C_Invoice.Table_Name, I_C_Payment.Table_Name, I_C_Cash.Table_Name)
+			.build();
+
+	private static final ImmutableSet<String> COSTING_TABLE_NAMES = ImmutableSet.of(
+			I_M_InOut.Table_Name,
+			I_M_Inventory.Table_Name,
+			I_M_Movement.Table_Name,
+			I_M_MatchInv.Table_Name,
+			I_M_MatchPO.Table_Name,
+			I_C_ProjectIssue.Table_Name,
+			"PP_Cost_Collector"); // manufacturing module, which we don't depend on
+	private static final String COSTING_LANE = "Costing";
+
+	/** Don't keep the error messages of more than that many failed documents per table */
+	private static final int MAX_FAILURES_PER_TABLE = 100;
+
+	private final ClientId clientId;
+	private final boolean force;
+	private final int threads;
+	private final Consumer<TableRecordReference> documentPoster;
+
+	@Builder
+	private BulkDocumentPoster(
+			@NonNull final ClientId clientId,
+			final boolean force,
+			@Nullable final Integer threads,
+			@Nullable final Consumer<TableRecordReference> documentPoster)
+	{
+		this.clientId = clientId;
+		this.force = force;
+		this.threads = threads != null && threads > 0
+				? threads
+				: Math.max(1, Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_Threads, DEFAULT_Threads));
+		this.documentPoster = documentPoster != null ? documentPoster : this::postDocument;
+	}
+
+	/**
+	 * Posts the given documents and waits until all of them were processed.
+	 * <p>
+	 * A document which fails to post does not stop the others; it is reported in the result.
+	 */
+	public BulkPostingResult postAll(@NonNull final Collection<TableRecordReference> documentRefs)
+	{
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+
+		final Set<String> tableNames = documentRefs.stream().map(TableRecordReference::getTableName).collect(ImmutableSet.toImmutableSet());
+		final ImmutableMap<String, Integer> stageNoByTableName = computeStages(tableNames);
+
+		// stageNo => lane => documents, in the given order
+		final TreeMap<Integer, Map<String, List<TableRecordReference>>> lanesByStageNo = new TreeMap<>();
+		for (final TableRecordReference documentRef : documentRefs)
+		{
+			final String tableName = documentRef.getTableName();
+			final String lane = getLane(documentRef);
+			lanesByStageNo.computeIfAbsent(stageNoByTableName.get(tableName), k -> new LinkedHashMap<>())
+					.computeIfAbsent(lane, k -> new ArrayList<>())
+					.add(documentRef);
+		}
+
+		final Map<String, TableStatsCollector> statsByTableName = new LinkedHashMap<>();
+		final Properties ctx = Env.copyCtx(Env.getCtx());
+		final ILoggable loggable = new SynchronizedLoggable(Loggables.get()); // the lanes are logging concurrently
+		final ExecutorService executor = Executors.newFixedThreadPool(threads, CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(BulkDocumentPoster.class.getName())
+				.setDaemon(true)
+				.build());
+		try
+		{
+			for (final Map.Entry<Integer, Map<String, List<TableRecordReference>>> stage : lanesByStageNo.entrySet())
+			{
+				final int stageNo = stage.getKey();
+
+				final List<Future<Collection<TableStatsCollector>>> laneFutures = new ArrayList<>();
+				for (final List<TableRecordReference> laneDocumentRefs : stage.getValue().values())
+				{
+					laneFutures.add(executor.submit(() -> postLane(ctx, loggable, stageNo, laneDocumentRefs)));
+				}
+
+				// wait for the whole stage before starting the next one
+				for (final Future<Collection<TableStatsCollector>> laneFuture : laneFutures)
+				{
+					for (final TableStatsCollector laneTableStats : getResult(laneFuture))
+					{
+						statsByTableName.computeIfAbsent(laneTableStats.getTableName(), tableName -> new TableStatsCollector(tableName, stageNo))
+								.add(laneTableStats);
+					}
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+
+		final BulkPostingResult.BulkPostingResultBuilder result = BulkPostingResult.builder();
+		for (final TableStatsCollector tableStats : statsByTableName.values())
+		{
+			result.tableStats(tableStats.toTablePostingStats());
+			result.failures(tableStats.getFailures());
+		}
+
+		final BulkPostingResult bulkPostingResult = result
+				.durationMillis(stopwatch.elapsed(TimeUnit.MILLISECONDS))
+				.build();
+		logger.info("Posted {} documents ({} failed) in {} stages, using {} threads, in {}ms",
+				bulkPostingResult.getCountPosted(), bulkPostingResult.getCountFailed(), lanesByStageNo.size(), threads, bulkPostingResult.getDurationMillis());
+		return bulkPostingResult;
+	}
+
+	private String getLane(final TableRecordReference documentRef)
+	{
+		final String tableName = documentRef.getTableName();
+		if (COSTING_TABLE_NAMES.contains(tableName))
+		{
+			return COSTING_LANE;
+		}
+
+		return tableName + "#" + Math.floorMod(documentRef.getRecord_ID(), threads);
+	}
+
+	private static <T> T getResult(final Future<T> future)
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw AdempiereException.wrapIfNeeded(e);
+		}
+		catch (final ExecutionException e)
+		{
+			throw AdempiereException.wrapIfNeeded(e.getCause());
+		}
+	}
+
+	private Collection<TableStatsCollector> postLane(
+			final Properties ctx,
+			final ILoggable loggable,
+			final int stageNo,
+			final List<TableRecordReference> documentRefs)
+	{
+		final Map<String, TableStatsCollector> statsByTableName = new LinkedHashMap<>();
+		try (final IAutoCloseable ctxRestorer = Env.switchContext(Env.copyCtx(ctx));
+				final IAutoCloseable loggableRestorer = Loggables.temporarySetLoggable(loggable))
+		{
+			for (final TableRecordReference documentRef : documentRefs)
+			{
+				final TableStatsCollector tableStats = statsByTableName.computeIfAbsent(documentRef.getTableName(), tableName -> new TableStatsCollector(tableName, stageNo));
+
+				final Stopwatch stopwatch = Stopwatch.createStarted();
+				try
+				{
+					documentPoster.accept(documentRef);
+					tableStats.posted(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+				}
+				catch (final Exception ex)
+				{
+					logger.warn("Failed posting {}", documentRef, ex);
+					tableStats.failed(documentRef, ex, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+				}
+			}
+		}
+		return statsByTableName.values();
+	}
+
+	private void postDocument(final TableRecordReference documentRef)
+	{
+		Services.get(IPostingService.class).newPostingRequest()
+				.setClientId(clientId)
+				.setDocumentRef(documentRef)
+				.setForce(force)
+				.setFailOnError(true) // we want to count it
+				.setPostImmediate(PostImmediate.Yes)
+				.setPostWithoutServer()
+				.postIt();
+	}
+
+	/**
+	 * @return table name => stage number, starting with 1; a table's stage is after the stages of the given tables it depends on
+	 */
+	@VisibleForTesting
+	static ImmutableMap<String, Integer> computeStages(@NonNull final Set<String> tableNames)
+	{
+		final Map<String, Integer> stageNoByTableName = new HashMap<>();
+		for (final String tableName : tableNames)
+		{
+			computeStage(tableName, tableNames, stageNoByTableName);
+		}
+		return ImmutableMap.copyOf(stageNoByTableName);
+	}
+
+	private static int computeStage(final String tableName, final Set<String> tableNames, final Map<String, Integer> stageNoByTableName)
+	{
+		final Integer existingStageNo = stageNoByTableName.get(tableName);
+		if (existingStageNo != null)
+		{
+			return existingStageNo;
+		}
+
+		int stageNo = 1;
+		for (final String dependencyTableName : DEPENDENCIES.get(tableName))
+		{
+			if (tableNames.contains(dependencyTableName))
+			{
+				stageNo = Math.max(stageNo, computeStage(dependencyTableName, tableNames, stageNoByTableName) + 1);
+			}
+		}
+
+		stageNoByTableName.put(tableName, stageNo);
+		return stageNo;
+	}
+
+	private static final class TableStatsCollector
+	{
+		private final String tableName;
+		private final int stageNo;
+		private int countPosted = 0;
+		private int countFailed = 0;
+		private long postingMillis = 0;
+		private final List<FailedDocument> failures = new ArrayList<>();
+
+		private TableStatsCollector(final String tableName, final int stageNo)
+		{
+			this.tableName = tableName;
+			this.stageNo = stageNo;
+		}
+
+		public void posted(final long millis)
+		{
+			countPosted++;
+			postingMillis += millis;
+		}
+
+		public void failed(final TableRecordReference documentRef, final Exception ex, final long millis)
+		{
+			countFailed++;
+			postingMillis += millis;
+			if (failures.size() < MAX_FAILURES_PER_TABLE)
+			{
+				failures.add(new FailedDocument(documentRef, AdempiereException.extractMessage(ex)));
+			}
+		}
+
+		public void add(final TableStatsCollector other)
+		{
+			countPosted += other.countPosted;
+			countFailed += other.countFailed;
+			postingMillis += other.postingMillis;
+			for (final FailedDocument failure : other.failures)
+			{
+				if (failures.size() >= MAX_FAILURES_PER_TABLE)
+				{
+					break;
+				}
+				failures.add(failure);
+			}
+		}
+
+		public String getTableName()
+		{
+			return tableName;
+		}
+
+		public List<FailedDocument> getFailures()
+		{
+			return failures;
+		}
+
+		public TablePostingStats toTablePostingStats()
+		{
+			return TablePostingStats.builder()
+					.tableName(tableName)
+					.stageNo(stageNo)
+					.countPosted(countPosted)
+					.countFailed(countFailed)
+					.postingMillis(postingMillis)
+					.build();
+		}
+	}
+
+	/**
+	 * Makes a loggable which is not thread-safe (e.g. the one of a process) usable from more than one thread.
+	 */
+	private static final class SynchronizedLoggable implements ILoggable
+	{
+		private final ILoggable delegate;
+
+		private SynchronizedLoggable(@NonNull final ILoggable delegate)
+		{
+			this.delegate = delegate;
+		}
+
+		@Override
+		public ILoggable addLog(final String msg, final Object... msgParameters)
+		{
+			synchronized (delegate)
+			{
+				delegate.addLog(msg, msgParameters);
+			}
+			return this;
+		}
+	}
+}
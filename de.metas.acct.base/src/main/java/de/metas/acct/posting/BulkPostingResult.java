@@ -0,0 +1,90 @@
+package de.metas.acct.posting;
+
+import org.adempiere.util.lang.impl.TableRecordReference;
+
+import com.google.common.collect.ImmutableList;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.acct.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * What {@link BulkDocumentPoster} did, per document table.
+ */
+@Value
+@Builder
+public class BulkPostingResult
+{
+	@Value
+	@Builder
+	public static class TablePostingStats
+	{
+		@NonNull
+		String tableName;
+		int stageNo;
+		int countPosted;
+		int countFailed;
+		/** Sum of the time spent posting this table's documents */
+		long postingMillis;
+
+		public int getCountDocuments()
+		{
+			return countPosted + countFailed;
+		}
+
+		public long getDocumentsPerSecond()
+		{
+			return getCountDocuments() * 1000L / Math.max(postingMillis, 1);
+		}
+	}
+
+	@Value
+	public static class FailedDocument
+	{
+		@NonNull
+		TableRecordReference documentRef;
+		String errorMessage;
+	}
+
+	@Singular("tableStats")
+	ImmutableList<TablePostingStats> tableStats;
+
+	/** The failed documents; might be incomplete if there were very many, see {@link TablePostingStats#getCountFailed()} */
+	@Singular
+	ImmutableList<FailedDocument> failures;
+
+	long durationMillis;
+
+	public int getCountPosted()
+	{
+		return tableStats.stream().mapToInt(TablePostingStats::getCountPosted).sum();
+	}
+
+	public int getCountFailed()
+	{
+		return tableStats.stream().mapToInt(TablePostingStats::getCountFailed).sum();
+	}
+}
@@ -1,19 +1,23 @@
 package de.metas.acct.process;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 import org.adempiere.service.ClientId;
+import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.model.POInfo;
 import org.compiere.util.TimeUtil;
 
-import de.metas.acct.api.IPostingRequestBuilder.PostImmediate;
-import de.metas.acct.api.IPostingService;
+import de.metas.acct.posting.BulkDocumentPoster;
+import de.metas.acct.posting.BulkPostingResult;
+import de.metas.acct.posting.BulkPostingResult.TablePostingStats;
 import de.metas.acct.posting.IDocumentRepostingSupplierService;
 import de.metas.document.engine.IDocument;
 import de.metas.process.JavaProcess;
 import de.metas.process.Param;
+import de.metas.process.RunOutOfTrx;
 import de.metas.util.ILoggable;
 import de.metas.util.Loggables;
 import de.metas.util.Services;
@@ -43,6 +47,8 @@ import de.metas.util.time.SystemTime;
 
 /**
  * The documents (created one day before) that were marked as posted but have no fact accounts will be reposted by this process
+ * <p>
+ * The documents are reposted in parallel by {@link BulkDocumentPoster}, each one in its own transaction.
  *
  * @author metas-dev <dev@metasfresh.com>
  *
@@ -53,6 +59,7 @@ public class Documents_FactAcct_Creation_For_Posted extends JavaProcess
 	private Date p_Date;
 
 	@Override
+	@RunOutOfTrx // each document is posted in its own transaction
 	protected String doIt() throws Exception
 	{
 		// this process is posting documents that were created one day before the process runs
@@ -79,8 +86,7 @@ public class Documents_FactAcct_Creation_For_Posted extends JavaProcess
 
 		final ILoggable loggable = Loggables.get();
 
-		final IPostingService postingService = Services.get(IPostingService.class);
-
+		final List<TableRecordReference> documentRefs = new ArrayList<>(documentsPostedNoFacts.size());
 		for (final IDocument document : documentsPostedNoFacts)
 		{
 			final int tableID = document.get_Table_ID();
@@ -94,20 +100,30 @@ public class Documents_FactAcct_Creation_For_Posted extends JavaProcess
 
 			// Note: Do not change this message!
 			// The view de_metas_acct.Reposted_Documents is based on it.
+			// Each repost attempt is logged, no matter if the posting succeeds.
 			loggable.addLog("Document Reposted: AD_Table_ID = {}, Record_ID = {}, TableName = {}, DocumentNo = {}.",
 					tableID,
 					recordID,
 					tableName,
 					documentNo);
 
-			postingService.newPostingRequest()
-					.setClientId(ClientId.ofRepoId(getAD_Client_ID()))
-					.setDocument(document) // the document to be posted
-					.setFailOnError(false) // don't fail because we don't want to fail the main document posting because one of it's depending documents are failing
-					.setPostImmediate(PostImmediate.Yes) // yes, post it immediate
-					.setForce(false) // don't force it
-					.setPostWithoutServer() // post directly (don't contact the server) because we want to post on client or server like the main document
-					.postIt(); // do it!
+			documentRefs.add(TableRecordReference.of(tableID, recordID));
+		}
+
+		final BulkPostingResult result = BulkDocumentPoster.builder()
+				.clientId(ClientId.ofRepoId(getAD_Client_ID()))
+				.force(false) // don't force it
+				.build()
+				.postAll(documentRefs);
+		for (final TablePostingStats tableStats : result.getTableStats())
+		{
+			loggable.addLog("{}: posted {}, failed {} documents in stage {} ({}ms, {} documents/second)",
+					tableStats.getTableName(),
+					tableStats.getCountPosted(),
+					tableStats.getCountFailed(),
+					tableStats.getStageNo(),
+					tableStats.getPostingMillis(),
+					tableStats.getDocumentsPerSecond());
 		}
 
 		return MSG_OK;
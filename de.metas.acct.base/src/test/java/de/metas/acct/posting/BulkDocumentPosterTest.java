@@ -0,0 +1,209 @@
+package de.metas.acct.posting;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.service.ClientId;
+import org.adempiere.test.AdempiereTestHelper;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.adempiere.util.lang.impl.TableRecordReference;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.acct.posting.BulkPostingResult.TablePostingStats;
+import de.metas.util.ILoggable;
+import de.metas.util.Loggables;
+import de.metas.util.StringUtils;
+
+/*
+ * #%L
+ * de.metas.acct.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class BulkDocumentPosterTest
+{
+	private static final int RECORD_ID_FAILING = 666;
+
+	private List<TableRecordReference> postedDocumentRefs;
+	private Map<TableRecordReference, String> threadNamesByDocumentRef;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		postedDocumentRefs = Collections.synchronizedList(new ArrayList<>());
+		threadNamesByDocumentRef = new ConcurrentHashMap<>();
+	}
+
+	private BulkDocumentPoster newBulkDocumentPoster()
+	{
+		return newBulkDocumentPosterBuilder().build();
+	}
+
+	private BulkDocumentPoster.BulkDocumentPosterBuilder newBulkDocumentPosterBuilder()
+	{
+		return BulkDocumentPoster.builder()
+				.clientId(ClientId.METASFRESH)
+				.threads(4)
+				.documentPoster(this::postDocument);
+	}
+
+	private void postDocument(final TableRecordReference documentRef)
+	{
+		if (documentRef.getRecord_ID() == RECORD_ID_FAILING)
+		{
+			throw new AdempiereException("failing on purpose");
+		}
+		postedDocumentRefs.add(documentRef);
+		threadNamesByDocumentRef.put(documentRef, Thread.currentThread().getName());
+	}
+
+	@Test
+	public void computeStages()
+	{
+		assertThat(BulkDocumentPoster.computeStages(ImmutableSet.of("M_MatchInv", "M_InOut", "C_Invoice", "C_AllocationHdr", "M_Inventory")))
+				.isEqualTo(ImmutableMap.of(
+						"M_InOut", 1,
+						"C_Invoice", 1,
+						"M_Inventory", 1,
+						"M_MatchInv", 2,
+						"C_AllocationHdr", 2));
+
+		// dependencies which are not posted don't count
+		assertThat(BulkDocumentPoster.computeStages(ImmutableSet.of("M_MatchInv", "GL_Journal")))
+				.isEqualTo(ImmutableMap.of("M_MatchInv", 1, "GL_Journal", 1));
+	}
+
+	@Test
+	public void postAll_matchInvAfterInOutAndInvoice()
+	{
+		final TableRecordReference matchInv = TableRecordReference.of("M_MatchInv", 1);
+		final TableRecordReference inout1 = TableRecordReference.of("M_InOut", 1);
+		final TableRecordReference inventory = TableRecordReference.of("M_Inventory", 1);
+		final TableRecordReference inout2 = TableRecordReference.of("M_InOut", 2);
+		final TableRecordReference invoice = TableRecordReference.of("C_Invoice", 1);
+
+		final BulkPostingResult result = newBulkDocumentPoster().postAll(ImmutableList.of(matchInv, inout1, inventory, inout2, invoice));
+
+		assertThat(result.getCountPosted()).isEqualTo(5);
+		assertThat(result.getCountFailed()).isEqualTo(0);
+		assertThat(postedDocumentRefs.indexOf(matchInv)).isEqualTo(4);
+
+		// costing documents are posted in the given order
+		assertThat(postedDocumentRefs)
+				.filteredOn(documentRef -> !documentRef.getTableName().equals("C_Invoice"))
+				.containsExactly(inout1, inventory, inout2, matchInv);
+	}
+
+	@Test
+	public void postAll_failuresAreCountedPerTable()
+	{
+		final BulkPostingResult result = newBulkDocumentPoster().postAll(ImmutableList.of(
+				TableRecordReference.of("C_Invoice", 1),
+				TableRecordReference.of("C_Invoice", RECORD_ID_FAILING),
+				TableRecordReference.of("C_Payment", 1),
+				TableRecordReference.of("C_AllocationHdr", 1)));
+
+		assertThat(result.getTableStats())
+				.extracting(TablePostingStats::getTableName, TablePostingStats::getStageNo, TablePostingStats::getCountPosted, TablePostingStats::getCountFailed)
+				.containsExactlyInAnyOrder(
+						tuple("C_Invoice", 1, 1, 1),
+						tuple("C_Payment", 1, 1, 0),
+						tuple("C_AllocationHdr", 2, 1, 0));
+
+		assertThat(result.getFailures()).hasSize(1);
+		assertThat(result.getFailures().get(0).getDocumentRef()).isEqualTo(TableRecordReference.of("C_Invoice", RECORD_ID_FAILING));
+		assertThat(result.getFailures().get(0).getErrorMessage()).contains("failing on purpose");
+	}
+
+	@Test
+	public void postAll_documentsOfOneTableArePostedInSeveralLanes()
+	{
+		final List<TableRecordReference> invoices = IntStream.rangeClosed(1, 8)
+				.mapToObj(recordId -> TableRecordReference.of("C_Invoice", recordId))
+				.collect(ImmutableList.toImmutableList());
+
+		final BulkPostingResult result = newBulkDocumentPoster().postAll(invoices);
+
+		assertThat(ImmutableSet.copyOf(threadNamesByDocumentRef.values())).hasSize(4);
+
+		// ..but they are reported as one table
+		assertThat(result.getTableStats())
+				.extracting(TablePostingStats::getTableName, TablePostingStats::getStageNo, TablePostingStats::getCountPosted, TablePostingStats::getCountFailed)
+				.containsExactly(tuple("C_Invoice", 1, 8, 0));
+	}
+
+	@Test
+	public void postAll_costingDocumentsArePostedInOneLane()
+	{
+		final BulkPostingResult result = newBulkDocumentPoster().postAll(ImmutableList.of(
+				TableRecordReference.of("M_InOut", 1),
+				TableRecordReference.of("M_InOut", 2),
+				TableRecordReference.of("M_Inventory", 3),
+				TableRecordReference.of("M_Movement", 4)));
+
+		assertThat(result.getCountPosted()).isEqualTo(4);
+		assertThat(ImmutableSet.copyOf(threadNamesByDocumentRef.values())).hasSize(1);
+	}
+
+	@Test
+	public void postAll_lanesAreLoggingToTheCallersLoggable()
+	{
+		final List<String> logMessages = Collections.synchronizedList(new ArrayList<>());
+		final ILoggable loggable = new ILoggable()
+		{
+			@Override
+			public ILoggable addLog(final String msg, final Object... msgParameters)
+			{
+				logMessages.add(StringUtils.formatMessage(msg, msgParameters));
+				return this;
+			}
+		};
+
+		final BulkDocumentPoster bulkDocumentPoster = newBulkDocumentPosterBuilder()
+				.documentPoster(documentRef -> {
+					Loggables.get().addLog("Posting {}/{}", documentRef.getTableName(), documentRef.getRecord_ID());
+					postDocument(documentRef);
+				})
+				.build();
+		try (final IAutoCloseable loggableRestorer = Loggables.temporarySetLoggable(loggable))
+		{
+			bulkDocumentPoster.postAll(ImmutableList.of(
+					TableRecordReference.of("C_Invoice", 1),
+					TableRecordReference.of("C_Invoice", 2),
+					TableRecordReference.of("M_InOut", 3)));
+		}
+
+		assertThat(logMessages).containsExactlyInAnyOrder("Posting C_Invoice/1", "Posting C_Invoice/2", "Posting M_InOut/3");
+	}
+}
@@ -924,6 +924,33 @@ public class TypedSqlQuery<T> extends AbstractTypedQuery<T>
 
 	}
 
+	@Override
+	public <ET extends T> Iterator<ET> iterateKeyset(final Class<ET> clazz) throws DBException
+	{
+		Check.assumeNull(postQueryFilter, "No post-filter shall be defined when iterating");
+		if (offset > 0)
+		{
+			throw new DBException("Keyset iteration does not support OFFSET: " + this);
+		}
+		if (unions != null && !unions.isEmpty())
+		{
+			throw new DBException("Keyset iteration does not support UNIONs: " + this);
+		}
+
+		final String keyColumnName = getKeyColumnName();
+		if (!Integer.class.equals(getPOInfo().getColumnClass(keyColumnName)))
+		{
+			throw new DBException("Keyset iteration requires a numeric key column, but " + getTableName() + "." + keyColumnName + " is not");
+		}
+
+		final Integer iteratorBufferSize = getOption(OPTION_IteratorBufferSize);
+		final int bufferSize = iteratorBufferSize != null && iteratorBufferSize > 0
+				? iteratorBufferSize
+				: POKeysetBufferedIterator.DEFAULT_BufferSize;
+
+		return POKeysetBufferedIterator.of(this, clazz, bufferSize, limit);
+	}
+
 	/**
 	 * Return a simple wrapper over a JDBC {@link ResultSet}. It is the caller responsibility to call the close method to release the underlying database resources.
 	 *
@@ -72,6 +72,28 @@ public class DB_PostgreSQL implements AdempiereDatabase
 	private static final String CONFIG_UnreturnedConnectionTimeoutMillis = "db.postgresql.unreturnedConnectionTimeoutMillis";
 	private static final int CONFIG_UnreturnedConnectionTimeoutMillis_DefaultValue = 0;
 
+	/**
+	 * How many executions of the same SQL string on one connection it takes until the JDBC driver switches to a server-side prepared statement.
+	 * A negative value means that we keep the driver's default.
+	 */
+	private static final String CONFIG_PrepareThreshold = "org.compiere.db.DB_PostgreSQL.PrepareThreshold";
+	private static final int CONFIG_PrepareThreshold_DefaultValue = -1;
+
+	/**
+	 * How many server-side prepared statements the JDBC driver keeps per connection.
+	 * Statements are matched by their SQL string, so this may be raised if a connection executes more distinct SQL strings than the driver's default can hold.
+	 * A non-positive value means that we keep the driver's default.
+	 */
+	private static final String CONFIG_PreparedStatementCacheQueries = "org.compiere.db.DB_PostgreSQL.PreparedStatementCacheQueries";
+	private static final int CONFIG_PreparedStatementCacheQueries_DefaultValue = -1;
+
+	/**
+	 * How much memory the JDBC driver may use per connection for its server-side prepared statements.
+	 * A non-positive value means that we keep the driver's default.
+	 */
+	private static final String CONFIG_PreparedStatementCacheSizeMiB = "org.compiere.db.DB_PostgreSQL.PreparedStatementCacheSizeMiB";
+	private static final int CONFIG_PreparedStatementCacheSizeMiB_DefaultValue = -1;
+
 	/**
 	 * Statement Converter for external use (i.e. returned by {@link #getConvert()}.
 	 */
@@ -266,6 +288,24 @@ public class DB_PostgreSQL implements AdempiereDatabase
 				.append(dbHost).append(":").append(dbPort)
 				.append("/").append(dbName)
 				.append("?encoding=UNICODE");
+
+		// server-side prepared statements are cached by the driver per connection, for the same SQL string
+		final int prepareThreshold = SystemUtils.getSystemProperty(CONFIG_PrepareThreshold, CONFIG_PrepareThreshold_DefaultValue);
+		if (prepareThreshold >= 0)
+		{
+			sb.append("&prepareThreshold=").append(prepareThreshold);
+		}
+		final int preparedStatementCacheQueries = SystemUtils.getSystemProperty(CONFIG_PreparedStatementCacheQueries, CONFIG_PreparedStatementCacheQueries_DefaultValue);
+		if (preparedStatementCacheQueries > 0)
+		{
+			sb.append("&preparedStatementCacheQueries=").append(preparedStatementCacheQueries);
+		}
+		final int preparedStatementCacheSizeMiB = SystemUtils.getSystemProperty(CONFIG_PreparedStatementCacheSizeMiB, CONFIG_PreparedStatementCacheSizeMiB_DefaultValue);
+		if (preparedStatementCacheSizeMiB > 0)
+		{
+			sb.append("&preparedStatementCacheSizeMiB=").append(preparedStatementCacheSizeMiB);
+		}
+
 		return sb.toString();
 	}	// getConnectionURL
 
@@ -94,6 +94,13 @@ public class MSequence extends X_AD_Sequence
 
 		s_log.trace("{} - AdempiereSys={} [{}]", TableName, adempiereSys, trxName);
 
+		// If enabled, take the ID from the pool of IDs which this node reserved in advance
+		final MSequenceIdPool idPool = MSequenceIdPool.get();
+		if (idPool.isEnabled() && !adempiereSys && !isUseExternalIDSystem(TableName, AD_Client_ID))
+		{
+			return idPool.getNextId(TableName);
+		}
+
 		final String selectSQL = "SELECT CurrentNext, CurrentNextSys, IncrementNo, AD_Sequence_ID "
 				+ "FROM AD_Sequence "
 				+ "WHERE Name=?"
@@ -2923,7 +2923,7 @@ public abstract class PO
 	 *
 	 * @return <code>true</code> if save is needed; <code>false</code> if no save is needed
 	 */
-	private final boolean savePrepare()
+	/* package */ final boolean savePrepare()
 	{
 		MetasfreshLastError.resetLast();
 		final boolean newRecord = is_new();	// save locally as load resets
@@ -2980,6 +2980,29 @@ public abstract class PO
 	{
 		final boolean newRecord = is_new();	// save locally as load resets
 
+		save0_beforeSave(newRecord);
+
+		// Save
+		if (newRecord)
+		{
+			final boolean b = saveNew();
+			if (!b)
+			{
+				throw new AdempiereException("saveNew failed").setParameter("po", this).appendParametersToMessage();
+			}
+		}
+		else
+		{
+			final boolean b = saveUpdate();
+			if (!b)
+			{
+				throw new AdempiereException("saveUpdate failed").setParameter("po", this).appendParametersToMessage();
+			}
+		}
+	}
+
+	private final void save0_beforeSave(final boolean newRecord)
+	{
 		// Before Save
 		if (!isAssignedID)
 		{
@@ -2991,26 +3014,106 @@ public abstract class PO
 
 		// Call ModelValidators TYPE_NEW/TYPE_CHANGE
 		fireModelChange(newRecord ? ModelValidator.TYPE_BEFORE_NEW : ModelValidator.TYPE_BEFORE_CHANGE);
+	}
+
+	/**
+	 * First part of saving this record as a member of a {@link POBatchSaver} batch.
+	 * Does the same as {@link #saveEx()}, but stops right before executing the INSERT/UPDATE statement.
+	 * <p>
+	 * Shall be called after {@link #savePrepare()} returned <code>true</code>, from within the transaction <code>localTrxName</code>.
+	 * If this method returns a statement, the caller needs to execute it and then call {@link #saveBatch_afterExecute(boolean, String, int)}.
+	 *
+	 * @param flushPendingStatements executes the statements of the previous batch members which are not yet executed; called right before this record is inserted on its own
+	 * @return the statement to execute or <code>null</code> if this record was already saved completely, because there was nothing to save or because it needs values returned by the database
+	 */
+	/* package */ final String saveBatch_beforeExecute(final String localTrxName, final Runnable flushPendingStatements) throws Exception
+	{
+		m_trxName = localTrxName;
+
+		final boolean newRecord = is_new();
+		save0_beforeSave(newRecord);
 
-		// Save
 		if (newRecord)
 		{
-			final boolean b = saveNew();
-			if (!b)
+			final SqlInsert sqlInsert = saveNew_buildSqlInsert();
+			if (sqlInsert == null)
 			{
+				saveFinish(true, false);
 				throw new AdempiereException("saveNew failed").setParameter("po", this).appendParametersToMessage();
 			}
+
+			// Case: we need to fetch the values which were generated by the database => we can't do that in batch
+			if (sqlInsert.getLoadAfterInsertProcessor() != null)
+			{
+				// the previous records shall reach the database first, as if they were saved one by one
+				flushPendingStatements.run();
+
+				final int no = DB.executeUpdate(sqlInsert.getSql(),
+						(Object[])null,  // params,
+						OnFail.ThrowException,  // onFail
+						m_trxName,
+						0,  // timeOut,
+						sqlInsert.getLoadAfterInsertProcessor());
+				saveBatch_afterExecute(newRecord, sqlInsert.getSql(), no);
+				return null;
+			}
+
+			return sqlInsert.getSql();
 		}
 		else
 		{
-			final boolean b = saveUpdate();
-			if (!b)
+			final String sqlUpdate = saveUpdate_buildSqlUpdate();
+			if (sqlUpdate == null)
+			{
+				// nothing changed
+				saveFinish(false, true);
+				return null;
+			}
+
+			return sqlUpdate;
+		}
+	}
+
+	/**
+	 * @return the query timeout (seconds) which {@link #saveEx()} would use to execute this record's UPDATE statement, or zero if none
+	 */
+	/* package */ final int saveBatch_getQueryTimeoutSeconds()
+	{
+		return isUseTimeoutForUpdate() ? QUERY_TIME_OUT : 0;
+	}
+
+	/**
+	 * Second part of saving this record as a member of a {@link POBatchSaver} batch.
+	 *
+	 * @param sql the statement returned by {@link #saveBatch_beforeExecute(String, Runnable)}
+	 * @param no how many rows were inserted/updated by <code>sql</code>
+	 */
+	/* package */ final void saveBatch_afterExecute(final boolean newRecord, final String sql, final int no) throws Exception
+	{
+		if (newRecord)
+		{
+			if (!saveNew_afterInsert(sql, no == 1))
+			{
+				throw new AdempiereException("saveNew failed").setParameter("po", this).appendParametersToMessage();
+			}
+		}
+		else
+		{
+			if (!saveUpdate_afterUpdate(no))
 			{
 				throw new AdempiereException("saveUpdate failed").setParameter("po", this).appendParametersToMessage();
 			}
 		}
 	}
 
+	/**
+	 * Restores the "new record" flag after a {@link POBatchSaver} batch failed, same as {@link #saveEx()} does when it fails.
+	 */
+	/* package */ final void saveBatch_restoreNewRecordFlag(final boolean newRecord)
+	{
+		m_createNew = newRecord;
+	}
+
 	/**
 	 * Finish Save Process. Called after {@link #saveNew()} or {@link #saveUpdate()}.
 	 *
@@ -3263,6 +3366,34 @@ public abstract class PO
 	 * @return true if updated
 	 */
 	private final boolean saveUpdate() throws Exception
+	{
+		final String sqlUpdate = saveUpdate_buildSqlUpdate();
+		if (sqlUpdate == null)
+		{
+			// nothing changed, so OK=true
+			return saveFinish(false, true);  // newRecord=false, success=true
+		}
+
+		//
+		// Execute UPDATE SQL
+		log.trace("Save update: SQL={}", sqlUpdate);
+		final int no;
+		if (isUseTimeoutForUpdate())
+		{
+			no = DB.executeUpdateEx(sqlUpdate, m_trxName, QUERY_TIME_OUT);
+		}
+		else
+		{
+			no = DB.executeUpdateEx(sqlUpdate, m_trxName);
+		}
+
+		return saveUpdate_afterUpdate(no);
+	}   // saveUpdate
+
+	/**
+	 * @return the UPDATE statement or <code>null</code> if nothing changed
+	 */
+	private final String saveUpdate_buildSqlUpdate()
 	{
 		final String where = get_WhereClause(true);
 		//
@@ -3442,43 +3573,39 @@ public abstract class PO
 			 * @todo status locking goes here
 			 */
 
-			//
-			// Execute UPDATE SQL
-			log.trace("Save update: SQL={}", sql);
-			final int no;
-			if (isUseTimeoutForUpdate())
-			{
-				no = DB.executeUpdateEx(sql.toString(), m_trxName, QUERY_TIME_OUT);
-			}
-			else
-			{
-				no = DB.executeUpdateEx(sql.toString(), m_trxName);
-			}
-			boolean ok = no == 1;
+			return sql.toString();
+		}
 
-			//
-			// Create change logs
-			if (ok)
-			{
-				createChangeLog(X_AD_ChangeLog.EVENTCHANGELOG_Update);
-				logMigration(X_AD_MigrationStep.ACTION_Update);
-			}
+		// nothing changed
+		return null;
+	}
 
-			if (ok)
-			{
-				ok = lobSave();
-			}
-			else
-			{
-				log.warn("#" + no + " - [" + m_trxName + "] - " + p_info.getTableName() + "." + where);
-			}
+	/**
+	 * @param no how many rows were updated
+	 */
+	private final boolean saveUpdate_afterUpdate(final int no) throws Exception
+	{
+		boolean ok = no == 1;
 
-			return saveFinish(false, ok); // newRecord=false, success=ok
+		//
+		// Create change logs
+		if (ok)
+		{
+			createChangeLog(X_AD_ChangeLog.EVENTCHANGELOG_Update);
+			logMigration(X_AD_MigrationStep.ACTION_Update);
 		}
 
-		// nothing changed, so OK=true
-		return saveFinish(false, true);  // newRecord=false, success=true
-	}   // saveUpdate
+		if (ok)
+		{
+			ok = lobSave();
+		}
+		else
+		{
+			log.warn("#" + no + " - [" + m_trxName + "] - " + p_info.getTableName() + "." + get_WhereClause(true));
+		}
+
+		return saveFinish(false, ok); // newRecord=false, success=ok
+	}
 
 	private final boolean isUseTimeoutForUpdate()
 	{
@@ -3574,14 +3701,63 @@ public abstract class PO
 	 * @return true if new record inserted
 	 */
 	private boolean saveNew() throws Exception
+	{
+		final SqlInsert sqlInsert = saveNew_buildSqlInsert();
+		if (sqlInsert == null)
+		{
+			// Setting new IDs failed.
+			// Execute saveFinish directly
+			return saveFinish(true, false); // newRecord=true, success=false
+		}
+
+		//
+		// Execute actual database INSERT
+		final int no = DB.executeUpdate(sqlInsert.getSql(),
+				(Object[])null,  // params,
+				OnFail.ThrowException,  // onFail
+				m_trxName,
+				0,  // timeOut,
+				sqlInsert.getLoadAfterInsertProcessor());
+
+		return saveNew_afterInsert(sqlInsert.getSql(), no == 1);
+	}   // saveNew
+
+	/** The INSERT statement of a new record, see {@link #saveNew_buildSqlInsert()} */
+	private static final class SqlInsert
+	{
+		private final String sql;
+		private final POReturningAfterInsertLoader loadAfterInsertProcessor;
+
+		private SqlInsert(final String sql, final POReturningAfterInsertLoader loadAfterInsertProcessor)
+		{
+			this.sql = sql;
+			this.loadAfterInsertProcessor = loadAfterInsertProcessor;
+		}
+
+		public String getSql()
+		{
+			return sql;
+		}
+
+		/** @return the processor which loads the values returned by the database or <code>null</code> if there is nothing to load */
+		public POReturningAfterInsertLoader getLoadAfterInsertProcessor()
+		{
+			return loadAfterInsertProcessor;
+		}
+	}
+
+	/**
+	 * Generates the new IDs and builds the INSERT statement.
+	 *
+	 * @return the INSERT statement or <code>null</code> if setting the new IDs failed
+	 */
+	private SqlInsert saveNew_buildSqlInsert() throws Exception
 	{
 		//
 		// Generate and set new IDs
 		if (!retrieveAndSetIds())
 		{
-			// Setting new IDs failed.
-			// Execute saveFinish directly (last line in this method)
-			return saveFinish(true, false); // newRecord=true, success=false
+			return null;
 		}
 
 		final String tableName = p_info.getTableName();
@@ -3845,15 +4021,12 @@ public abstract class PO
 			loadAfterInsertProcessor = null;
 		}
 
-		//
-		// Execute actual database INSERT
-		final int no = DB.executeUpdate(sqlInsert.toString(),
-				(Object[])null,  // params,
-				OnFail.ThrowException,  // onFail
-				m_trxName,
-				0,  // timeOut,
-				loadAfterInsertProcessor);
-		boolean ok = no == 1;
+		return new SqlInsert(sqlInsert.toString(), loadAfterInsertProcessor);
+	}
+
+	private boolean saveNew_afterInsert(final String sqlInsert, final boolean inserted) throws Exception
+	{
+		boolean ok = inserted;
 
 		//
 		// Save LOBs
@@ -3891,7 +4064,7 @@ public abstract class PO
 			String msg = "Not inserted - ";
 			if (LogManager.isLevelFiner())
 			{
-				msg += sqlInsert.toString();
+				msg += sqlInsert;
 			}
 			else
 			{
@@ -3908,7 +4081,7 @@ public abstract class PO
 		}
 
 		return saveFinish(true, ok);
-	}   // saveNew
+	}
 
 	/**
 	 * Get ID for new record during save.
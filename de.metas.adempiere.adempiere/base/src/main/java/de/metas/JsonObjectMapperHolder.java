@@ -5,6 +5,7 @@ import org.adempiere.util.lang.ExtendedMemorizingSupplier;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.google.common.annotations.VisibleForTesting;
 
 import de.metas.util.Check;
@@ -49,12 +50,25 @@ public class JsonObjectMapperHolder
 	private static final ExtendedMemorizingSupplier<ObjectMapper> sharedJsonObjectMapper = ExtendedMemorizingSupplier.of(() -> newJsonObjectMapper());
 
 	public static ObjectMapper newJsonObjectMapper()
+	{
+		return configure(new ObjectMapper());
+	}
+
+	/**
+	 * @return a new object mapper which is configured like the one from {@link #newJsonObjectMapper()}, but reads and writes the binary <a href="https://github.com/FasterXML/smile-format-specification">Smile</a> format.
+	 */
+	public static ObjectMapper newSmileObjectMapper()
+	{
+		return configure(new ObjectMapper(new SmileFactory()));
+	}
+
+	private static ObjectMapper configure(final ObjectMapper objectMapper)
 	{
 		// important to register the jackson-datatype-jsr310 module which we have in our pom and
 		// which is needed to serialize/deserialize java.time.Instant
 		Check.assumeNotNull(com.fasterxml.jackson.datatype.jsr310.JavaTimeModule.class, ""); // just to get a compile error if not present
 
-		return new ObjectMapper()
+		return objectMapper
 				.findAndRegisterModules()
 				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
 				.disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE);
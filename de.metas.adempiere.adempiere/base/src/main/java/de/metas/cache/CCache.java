@@ -101,6 +101,26 @@ public class CCache<K, V> implements CacheInterface
 				.build();
 	}
 
+	/**
+	 * Creates a new cache which is bounded by the estimated memory weight of its entries.
+	 *
+	 * The budget is taken from {@link CacheMgt#getMaximumWeight(String)}, based on the cache's table name.
+	 *
+	 * @param cacheName cache name; shall respect the current naming conventions, see {@link #extractTableNameForCacheName(String)}
+	 * @param expireAfterMinutes if positive, the entries will expire after given number of minutes
+	 * @return new cache instance
+	 * @see CacheMapType#WEIGHTED
+	 */
+	public static final <K, V> CCache<K, V> newWeightedCache(final String cacheName, final int expireAfterMinutes)
+	{
+		return CCache.<K, V> builder()
+				.cacheName(cacheName)
+				// .tableName(null) // auto-detect tableName
+				.expireMinutes(expireAfterMinutes)
+				.cacheMapType(CacheMapType.WEIGHTED)
+				.build();
+	}
+
 	public enum CacheMapType
 	{
 		/**
@@ -113,8 +133,21 @@ public class CCache<K, V> implements CacheInterface
 		 * This means that we can have a have a cache with a defined (limited) size without any expiration time.
 		 */
 		LRU,
+
+		/**
+		 * Data is cached in a map which is bounded by the estimated weight (bytes) of its entries, see {@link CacheWeigher}.
+		 * <p>
+		 * When the cache is full, new keys are admitted only if they were requested recently often enough (TinyLFU like admission),
+		 * so one-time lookups are not pushing out the frequently used entries.
+		 */
+		WEIGHTED,
 	}
 
+	/**
+	 * Minimum estimated frequency a key must have in order to be admitted in a full {@link CacheMapType#WEIGHTED} cache.
+	 */
+	private static final int WEIGHTED_ADMISSION_MIN_FREQUENCY = 2;
+
 	/**
 	 * If active, following informations will be stored:
 	 * <ul>
@@ -129,6 +162,14 @@ public class CCache<K, V> implements CacheInterface
 	/** Internal map that is used as cache */
 	private final Cache<K, V> cache;
 
+	private final CacheMapType cacheMapType;
+	/** Maximum weight (bytes), in case of {@link CacheMapType#WEIGHTED}. Else it's zero */
+	private final long maximumWeight;
+	/** Current weight (bytes), in case of {@link CacheMapType#WEIGHTED}. Else it's always zero */
+	private final CacheWeightTracker weightTracker = new CacheWeightTracker();
+	/** Access frequencies used for admission, in case of {@link CacheMapType#WEIGHTED}. Else it's null */
+	private final CacheFrequencySketch frequencySketch;
+
 	static final AtomicLong NEXT_CACHE_ID = new AtomicLong(1);
 	/** unique cache ID, mainly used for tracking, logging and debugging */
 	private final long cacheId;
@@ -183,6 +224,8 @@ public class CCache<K, V> implements CacheInterface
 				initialCapacity,
 				expireMinutes,
 				CacheMapType.HashMap,
+				(Long)null, // maximumWeight
+				(CacheWeigher<K, V>)null,
 				(CachingKeysMapper<K>)null,
 				(CacheRemovalListener<K, V>)null,
 				(CacheAdditionListener<K, V>)null);
@@ -196,6 +239,8 @@ public class CCache<K, V> implements CacheInterface
 			final Integer initialCapacity,
 			final Integer expireMinutes,
 			final CacheMapType cacheMapType,
+			@Nullable final Long maximumWeight,
+			@Nullable final CacheWeigher<K, V> weigher,
 			@Nullable final CachingKeysMapper<K> invalidationKeysMapper,
 			@Nullable final CacheRemovalListener<K, V> removalListener,
 			@Nullable final CacheAdditionListener<K, V> additionListener)
@@ -244,10 +289,28 @@ public class CCache<K, V> implements CacheInterface
 		this.labels = buildCacheLabels(tableNameEffective, additionalTableNamesToResetFor);
 
 		this.expireMinutes = expireMinutes != null ? expireMinutes : EXPIREMINUTES_Never;
+		this.cacheMapType = cacheMapType != null ? cacheMapType : CacheMapType.HashMap;
+		final int initialCapacityEffective = initialCapacity != null ? initialCapacity : 0;
+		if (this.cacheMapType == CacheMapType.WEIGHTED)
+		{
+			this.maximumWeight = maximumWeight != null && maximumWeight > 0
+					? maximumWeight
+					: CacheMgt.get().getMaximumWeight(tableNameEffective);
+			this.frequencySketch = new CacheFrequencySketch(initialCapacityEffective > 0 ? initialCapacityEffective : 1024);
+		}
+		else
+		{
+			this.maximumWeight = 0;
+			this.frequencySketch = null;
+		}
+
 		this.cache = buildGuavaCache(
-				cacheMapType != null ? cacheMapType : CacheMapType.HashMap,
-				initialCapacity != null ? initialCapacity : 0,
+				this.cacheMapType,
+				initialCapacityEffective,
 				this.expireMinutes,
+				this.maximumWeight,
+				weigher != null ? weigher : DefaultCacheWeigher.instance(),
+				this.weightTracker,
 				removalListener);
 
 		if (DEBUG)
@@ -316,6 +379,9 @@ public class CCache<K, V> implements CacheInterface
 			@NonNull final CacheMapType cacheMapType,
 			final int initialCapacity,
 			final int expireMinutes,
+			final long maximumWeight,
+			@NonNull final CacheWeigher<K, V> weigher,
+			@NonNull final CacheWeightTracker weightTracker,
 			@Nullable final CacheRemovalListener<K, V> removalListener)
 	{
 		CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
@@ -329,6 +395,30 @@ public class CCache<K, V> implements CacheInterface
 			cacheBuilder = cacheBuilder
 					.maximumSize(initialCapacity); // FIXME: this is confusing
 		}
+		else if (cacheMapType == CacheMapType.WEIGHTED)
+		{
+			if (initialCapacity > 0)
+			{
+				cacheBuilder = cacheBuilder.initialCapacity(initialCapacity);
+			}
+			cacheBuilder = cacheBuilder
+					.maximumWeight(maximumWeight)
+					.recordStats();
+
+			// NOTE: guava calls the weigher exactly once, when the entry is added or replaced,
+			// and for each such entry it will notify the removal listener, where we release the weight we charged here.
+			cacheBuilder.weigher((keyObj, valueObj) -> {
+				@SuppressWarnings("unchecked")
+				final K key = (K)keyObj;
+
+				@SuppressWarnings("unchecked")
+				final V value = (V)valueObj;
+
+				final int weight = Math.max(1, weigher.weigh(key, value));
+				weightTracker.charge(key, value, weight);
+				return weight;
+			});
+		}
 		else
 		{
 			throw new AdempiereException("Unknown CacheMapType: " + cacheMapType);
@@ -339,7 +429,8 @@ public class CCache<K, V> implements CacheInterface
 			cacheBuilder = cacheBuilder.expireAfterWrite(expireMinutes, TimeUnit.MINUTES);
 		}
 
-		if (removalListener != null)
+		final boolean trackWeight = cacheMapType == CacheMapType.WEIGHTED;
+		if (removalListener != null || trackWeight)
 		{
 			cacheBuilder.removalListener(notif -> {
 				@SuppressWarnings("unchecked")
@@ -348,7 +439,14 @@ public class CCache<K, V> implements CacheInterface
 				@SuppressWarnings("unchecked")
 				final V value = (V)notif.getValue();
 
-				removalListener.itemRemoved(key, value);
+				if (trackWeight)
+				{
+					weightTracker.release(key, value);
+				}
+				if (removalListener != null)
+				{
+					removalListener.itemRemoved(key, value);
+				}
 			});
 		}
 		return cacheBuilder.build();
@@ -374,6 +472,27 @@ public class CCache<K, V> implements CacheInterface
 		return labels;
 	}
 
+	public final CacheMapType getCacheMapType()
+	{
+		return cacheMapType;
+	}
+
+	/**
+	 * @return estimated weight (bytes) of all cached entries; zero if this is not a {@link CacheMapType#WEIGHTED} cache
+	 */
+	public final long getWeightedSize()
+	{
+		return weightTracker.getWeightedSize();
+	}
+
+	/**
+	 * @return maximum weight (bytes); zero if this is not a {@link CacheMapType#WEIGHTED} cache
+	 */
+	public final long getMaximumWeight()
+	{
+		return maximumWeight;
+	}
+
 	/**
 	 * Cache was just reset.
 	 *
@@ -426,6 +545,11 @@ public class CCache<K, V> implements CacheInterface
 		cache.invalidateAll();
 		cache.cleanUp();
 
+		if (frequencySketch != null)
+		{
+			frequencySketch.clear();
+		}
+
 		m_justReset = true;
 	}	// clear
 
@@ -470,6 +594,11 @@ public class CCache<K, V> implements CacheInterface
 				.append(", size").append(cache.size())
 				.append(", id=").append(cacheId);
 
+		if (cacheMapType == CacheMapType.WEIGHTED)
+		{
+			sb.append(", weightedSize=").append(weightTracker.getWeightedSize()).append("/").append(maximumWeight);
+		}
+
 		if (DEBUG)
 		{
 			sb.append("\ncacheId=").append(debugId);
@@ -504,6 +633,7 @@ public class CCache<K, V> implements CacheInterface
 	@Nullable
 	public V get(final K key)
 	{
+		recordAccess(key);
 		return cache.getIfPresent(key);
 	}	// get
 
@@ -552,11 +682,18 @@ public class CCache<K, V> implements CacheInterface
 	 */
 	public V get(final K key, final Callable<V> valueInitializer)
 	{
+		recordAccess(key);
 		if (valueInitializer == null)
 		{
 			return cache.getIfPresent(key);
 		}
 
+		if (!isAdmitted(key))
+		{
+			final V value = cache.getIfPresent(key);
+			return value != null ? value : loadWithoutCaching(valueInitializer);
+		}
+
 		try
 		{
 			return cache.get(key, valueInitializer);
@@ -582,6 +719,22 @@ public class CCache<K, V> implements CacheInterface
 		}
 	}
 
+	private V loadWithoutCaching(@NonNull final Callable<V> valueInitializer)
+	{
+		try
+		{
+			return valueInitializer.call();
+		}
+		catch (final RuntimeException | Error e)
+		{
+			throw e;
+		}
+		catch (final Exception e)
+		{
+			throw AdempiereException.wrapIfNeeded(e);
+		}
+	}
+
 	/**
 	 * Same as {@link #get(Object, Callable)}. Introduced here to be able to use it with lambdas, without having ambiguous method calls.
 	 *
@@ -627,6 +780,7 @@ public class CCache<K, V> implements CacheInterface
 		final Set<K> keysToLoad = new HashSet<>();
 		for (final K key : ImmutableSet.copyOf(keys))
 		{
+			recordAccess(key);
 			final V value = cache.getIfPresent(key);
 			if (value == null)
 			{
@@ -649,6 +803,10 @@ public class CCache<K, V> implements CacheInterface
 			{
 				final K key = entry.getKey();
 				final V value = entry.getValue();
+				if (!isAdmitted(key))
+				{
+					continue;
+				}
 
 				cache.put(key, value);
 				fireAdditionListener(key, value);
@@ -685,13 +843,47 @@ public class CCache<K, V> implements CacheInterface
 		{
 			cache.invalidate(key);
 		}
-		else
+		else if (isAdmitted(key))
 		{
 			cache.put(key, value);
 			fireAdditionListener(key, value);
 		}
 	}
 
+	/**
+	 * Tracks the access frequency of given key. Applies only for {@link CacheMapType#WEIGHTED}.
+	 */
+	private void recordAccess(final K key)
+	{
+		if (frequencySketch != null && key != null)
+		{
+			frequencySketch.increment(key);
+		}
+	}
+
+	/**
+	 * @return true if the given key is allowed to be added to this cache.
+	 *         For caches other than {@link CacheMapType#WEIGHTED} it's always true.
+	 *         For weighted caches which are almost full, only keys which are already cached or which were requested often enough are admitted.
+	 */
+	private boolean isAdmitted(final K key)
+	{
+		if (frequencySketch == null)
+		{
+			return true;
+		}
+
+		// NOTE: guava splits the maximum weight between it's segments, so we consider the cache full a bit before reaching the maximum
+		final boolean almostFull = weightTracker.getWeightedSize() >= maximumWeight / 10 * 9;
+		if (!almostFull)
+		{
+			return true;
+		}
+
+		return frequencySketch.frequency(key) >= WEIGHTED_ADMISSION_MIN_FREQUENCY
+				|| cache.asMap().containsKey(key);
+	}
+
 	private void fireAdditionListener(final K key, final V value)
 	{
 		if (additionListener != null)
@@ -707,6 +899,12 @@ public class CCache<K, V> implements CacheInterface
 	 */
 	public void putAll(final Map<? extends K, ? extends V> map)
 	{
+		if (frequencySketch != null)
+		{
+			map.forEach(this::put);
+			return;
+		}
+
 		cache.putAll(map);
 
 		for (final Entry<? extends K, ? extends V> entry : map.entrySet())
@@ -764,7 +962,7 @@ public class CCache<K, V> implements CacheInterface
 	 */
 	public CCacheStats stats()
 	{
-		return new CCacheStats(cacheId, cacheName, cache.size(), cache.stats());
+		return new CCacheStats(cacheId, cacheName, cache.size(), weightTracker.getWeightedSize(), maximumWeight, cache.stats());
 	}
 
 	@SuppressWarnings("serial")
@@ -775,14 +973,24 @@ public class CCache<K, V> implements CacheInterface
 		private final long cacheId;
 		private final String name;
 		private final long size;
+		private final long weightedSize;
+		private final long maximumWeight;
 		private final CacheStats guavaStats;
 
-		private CCacheStats(final long cacheId, final String name, final long size, final CacheStats guavaStats)
+		private CCacheStats(
+				final long cacheId,
+				final String name,
+				final long size,
+				final long weightedSize,
+				final long maximumWeight,
+				final CacheStats guavaStats)
 		{
 			super();
 			this.cacheId = cacheId;
 			this.name = name;
 			this.size = size;
+			this.weightedSize = weightedSize;
+			this.maximumWeight = maximumWeight;
 			this.guavaStats = guavaStats;
 		}
 
@@ -792,6 +1000,8 @@ public class CCache<K, V> implements CacheInterface
 			return MoreObjects.toStringHelper(this)
 					.add("name", name)
 					.add("size", size)
+					.add("weightedSize", maximumWeight > 0 ? weightedSize : null)
+					.add("maximumWeight", maximumWeight > 0 ? maximumWeight : null)
 					.add("guavaStats", guavaStats)
 					.add("cacheId", cacheId)
 					.toString();
@@ -800,7 +1010,7 @@ public class CCache<K, V> implements CacheInterface
 		@Override
 		public int hashCode()
 		{
-			return Objects.hash(cacheId, name, size, guavaStats);
+			return Objects.hash(cacheId, name, size, weightedSize, maximumWeight, guavaStats);
 		}
 
 		@Override
@@ -812,6 +1022,8 @@ public class CCache<K, V> implements CacheInterface
 				return cacheId == other.cacheId
 						&& name.equals(other.name)
 						&& size == other.size
+						&& weightedSize == other.weightedSize
+						&& maximumWeight == other.maximumWeight
 						&& guavaStats.equals(other.guavaStats);
 			}
 			return false;
@@ -832,6 +1044,16 @@ public class CCache<K, V> implements CacheInterface
 			return size;
 		}
 
+		public long getWeightedSize()
+		{
+			return weightedSize;
+		}
+
+		public long getMaximumWeight()
+		{
+			return maximumWeight;
+		}
+
 		public CacheStats getGuavaStats()
 		{
 			return guavaStats;
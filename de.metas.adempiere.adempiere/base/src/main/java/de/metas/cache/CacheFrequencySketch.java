@@ -0,0 +1,111 @@
+package de.metas.cache;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Count-min sketch which approximates how often a key was requested recently (TinyLFU style).
+ * <p>
+ * Counters saturate at 15 and are all halved after a sample of <code>10 x width</code> increments, so old popularity fades away.
+ * All methods are synchronized, so that the aging (which is halving all counters) is not racing with the increments.
+ */
+final class CacheFrequencySketch
+{
+	private static final int DEPTH = 4;
+	private static final int MAX_COUNT = 15;
+	private static final int[] SEEDS = { 0x97cb3127, 0xb7e15163, 0x9e3779b9, 0x85ebca6b };
+
+	private final int[] table;
+	private final int widthMask;
+	private final int sampleSize;
+	private int additions = 0;
+
+	CacheFrequencySketch(final int expectedEntries)
+	{
+		final int width = Integer.highestOneBit(Math.max(64, Math.min(expectedEntries, 1 << 24)) - 1) << 1;
+		this.table = new int[width * DEPTH];
+		this.widthMask = width - 1;
+		this.sampleSize = width * 10;
+	}
+
+	public synchronized int frequency(final Object key)
+	{
+		final int hash = spread(key.hashCode());
+		int frequency = MAX_COUNT;
+		for (int row = 0; row < DEPTH; row++)
+		{
+			frequency = Math.min(frequency, table[indexOf(hash, row)]);
+		}
+		return frequency;
+	}
+
+	public synchronized void increment(final Object key)
+	{
+		final int hash = spread(key.hashCode());
+		boolean added = false;
+		for (int row = 0; row < DEPTH; row++)
+		{
+			final int index = indexOf(hash, row);
+			if (table[index] < MAX_COUNT)
+			{
+				table[index]++;
+				added = true;
+			}
+		}
+
+		if (added && ++additions >= sampleSize)
+		{
+			age();
+		}
+	}
+
+	private void age()
+	{
+		for (int i = 0; i < table.length; i++)
+		{
+			table[i] >>>= 1;
+		}
+		additions = additions / 2;
+	}
+
+	public synchronized void clear()
+	{
+		for (int i = 0; i < table.length; i++)
+		{
+			table[i] = 0;
+		}
+		additions = 0;
+	}
+
+	private int indexOf(final int hash, final int row)
+	{
+		int h = (hash ^ SEEDS[row]) * SEEDS[row];
+		h += h >>> 16;
+		return row * (widthMask + 1) + (h & widthMask);
+	}
+
+	private static int spread(final int hashCode)
+	{
+		final int h = hashCode * 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,306 @@
+package de.metas.cache;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+
+import de.metas.cache.model.CacheInvalidateMultiRequest;
+import de.metas.cache.model.CacheInvalidateRequest;
+import de.metas.logging.LogManager;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Collects the cache invalidation requests which shall be broadcasted and sends them as one compact {@link CacheInvalidateMultiRequest} per time window.
+ * <p>
+ * While coalescing:
+ * <ul>
+ * <li>duplicate requests (same table/record) are sent only once
+ * <li>if a "reset all" request was collected, only that one is sent
+ * <li>root record requests of a table for which all records shall be reset are dropped
+ * <li>if there are more than {@link #getCollapseToTableThreshold()} root record requests for the same table, they are replaced by one "all records of table" request
+ * </ul>
+ */
+final class CacheInvalidationRemoteBroadcaster
+{
+	private static final Logger logger = LogManager.getLogger(CacheInvalidationRemoteBroadcaster.class);
+
+	private final Consumer<CacheInvalidateMultiRequest> sender;
+
+	private volatile long windowMillis;
+	private volatile int collapseToTableThreshold;
+
+	private final Object lock = new Object();
+	private List<CacheInvalidateRequest> pendingRequests = new ArrayList<>();
+	private long pendingSinceMillis = 0;
+	private ScheduledExecutorService scheduler; // lazy
+
+	private final AtomicLong countRequestsReceived = new AtomicLong();
+	private final AtomicLong countMultiRequestsReceived = new AtomicLong();
+	private final AtomicLong countMessagesSent = new AtomicLong();
+	private final AtomicLong countRequestsSent = new AtomicLong();
+	private final AtomicLong lastLagMillis = new AtomicLong();
+	private final AtomicLong maxLagMillis = new AtomicLong();
+
+	CacheInvalidationRemoteBroadcaster(
+			@NonNull final Consumer<CacheInvalidateMultiRequest> sender,
+			final long windowMillis,
+			final int collapseToTableThreshold)
+	{
+		this.sender = sender;
+		this.windowMillis = windowMillis;
+		this.collapseToTableThreshold = collapseToTableThreshold;
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("windowMillis", windowMillis)
+				.add("collapseToTableThreshold", collapseToTableThreshold)
+				.add("requestsReceived", countRequestsReceived.get())
+				.add("multiRequestsReceived", countMultiRequestsReceived.get())
+				.add("messagesSent", countMessagesSent.get())
+				.add("messagesSaved", getMessagesSaved())
+				.add("requestsSent", countRequestsSent.get())
+				.add("lastLagMillis", lastLagMillis.get())
+				.add("maxLagMillis", maxLagMillis.get())
+				.toString();
+	}
+
+	/**
+	 * @return true if requests are coalesced. If false, each request is sent right away.
+	 */
+	public boolean isEnabled()
+	{
+		return windowMillis > 0;
+	}
+
+	public long getWindowMillis()
+	{
+		return windowMillis;
+	}
+
+	public void setWindowMillis(final long windowMillis)
+	{
+		this.windowMillis = windowMillis;
+		if (windowMillis <= 0)
+		{
+			flush();
+		}
+	}
+
+	public int getCollapseToTableThreshold()
+	{
+		return collapseToTableThreshold;
+	}
+
+	public void setCollapseToTableThreshold(final int collapseToTableThreshold)
+	{
+		this.collapseToTableThreshold = collapseToTableThreshold;
+	}
+
+	public void add(@NonNull final CacheInvalidateMultiRequest multiRequest)
+	{
+		countMultiRequestsReceived.incrementAndGet();
+		countRequestsReceived.addAndGet(multiRequest.getRequests().size());
+
+		if (!isEnabled())
+		{
+			send(multiRequest, 0);
+			return;
+		}
+
+		synchronized (lock)
+		{
+			if (pendingRequests.isEmpty())
+			{
+				pendingSinceMillis = System.currentTimeMillis();
+				getScheduler().schedule(this::flushNoFail, windowMillis, TimeUnit.MILLISECONDS);
+			}
+			pendingRequests.addAll(multiRequest.getRequests());
+		}
+	}
+
+	private ScheduledExecutorService getScheduler()
+	{
+		ScheduledExecutorService scheduler = this.scheduler;
+		if (scheduler == null)
+		{
+			scheduler = this.scheduler = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+					.setThreadNamePrefix(getClass().getName())
+					.setDaemon(true)
+					.build());
+		}
+		return scheduler;
+	}
+
+	private void flushNoFail()
+	{
+		try
+		{
+			flush();
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed broadcasting pending cache invalidation requests. Ignored.", ex);
+		}
+	}
+
+	/**
+	 * Sends all pending requests right away.
+	 */
+	public void flush()
+	{
+		final List<CacheInvalidateRequest> requests;
+		final long lagMillis;
+		synchronized (lock)
+		{
+			if (pendingRequests.isEmpty())
+			{
+				return;
+			}
+
+			requests = pendingRequests;
+			lagMillis = System.currentTimeMillis() - pendingSinceMillis;
+			pendingRequests = new ArrayList<>();
+		}
+
+		send(coalesce(requests, collapseToTableThreshold), lagMillis);
+	}
+
+	private void send(@NonNull final CacheInvalidateMultiRequest multiRequest, final long lagMillis)
+	{
+		sender.accept(multiRequest);
+
+		countMessagesSent.incrementAndGet();
+		countRequestsSent.addAndGet(multiRequest.getRequests().size());
+		lastLagMillis.set(lagMillis);
+		maxLagMillis.accumulateAndGet(lagMillis, Math::max);
+	}
+
+	@VisibleForTesting
+	static CacheInvalidateMultiRequest coalesce(@NonNull final List<CacheInvalidateRequest> requests, final int collapseToTableThreshold)
+	{
+		if (requests.stream().anyMatch(CacheInvalidateRequest::isAll))
+		{
+			return CacheInvalidateMultiRequest.all();
+		}
+
+		final Set<String> allRecordsTableNames = new HashSet<>();
+		final Map<String, LinkedHashSet<Integer>> rootRecordIdsByTableName = new LinkedHashMap<>();
+		final Map<RequestKey, CacheInvalidateRequest> otherRequests = new LinkedHashMap<>();
+		for (final CacheInvalidateRequest request : requests)
+		{
+			if (request.getChildTableName() == null && request.isAllRecords())
+			{
+				allRecordsTableNames.add(request.getRootTableName());
+			}
+			else if (request.getChildTableName() == null)
+			{
+				rootRecordIdsByTableName
+						.computeIfAbsent(request.getRootTableName(), tableName -> new LinkedHashSet<>())
+						.add(request.getRootRecordId());
+			}
+			else
+			{
+				otherRequests.putIfAbsent(RequestKey.of(request), request);
+			}
+		}
+
+		final List<CacheInvalidateRequest> result = new ArrayList<>();
+		rootRecordIdsByTableName.forEach((tableName, recordIds) -> {
+			if (recordIds.size() > collapseToTableThreshold)
+			{
+				allRecordsTableNames.add(tableName);
+			}
+			else if (!allRecordsTableNames.contains(tableName))
+			{
+				recordIds.forEach(recordId -> result.add(CacheInvalidateRequest.rootRecord(tableName, recordId)));
+			}
+		});
+		allRecordsTableNames.forEach(tableName -> result.add(CacheInvalidateRequest.allRecordsForTable(tableName)));
+		result.addAll(otherRequests.values());
+
+		return CacheInvalidateMultiRequest.of(result);
+	}
+
+	public long getRequestsReceived()
+	{
+		return countRequestsReceived.get();
+	}
+
+	public long getMessagesSent()
+	{
+		return countMessagesSent.get();
+	}
+
+	/**
+	 * @return how many broadcast messages were not sent because they were coalesced
+	 */
+	public long getMessagesSaved()
+	{
+		return countMultiRequestsReceived.get() - countMessagesSent.get();
+	}
+
+	public long getLastLagMillis()
+	{
+		return lastLagMillis.get();
+	}
+
+	public long getMaxLagMillis()
+	{
+		return maxLagMillis.get();
+	}
+
+	@Value
+	private static class RequestKey
+	{
+		String rootTableName;
+		int rootRecordId;
+		String childTableName;
+		int childRecordId;
+
+		static RequestKey of(final CacheInvalidateRequest request)
+		{
+			return new RequestKey(request.getRootTableName(), request.getRootRecordId(), request.getChildTableName(), request.getChildRecordId());
+		}
+	}
+}
@@ -63,6 +63,16 @@ final class CacheInvalidationRemoteHandler implements IEventListener
 
 	private final CacheInvalidateMultiRequestSerializer jsonSerializer = new CacheInvalidateMultiRequestSerializer();
 
+	/** System property: time window (millis) in which the invalidation requests are coalesced before broadcasting them. Zero means no coalescing. */
+	static final String SYSTEM_PROPERTY_CoalesceWindowMillis = "de.metas.cache.remoteInvalidation.coalesceWindowMillis";
+	/** System property: above how many records of the same table, we broadcast a "reset table" instead */
+	static final String SYSTEM_PROPERTY_CollapseToTableThreshold = "de.metas.cache.remoteInvalidation.collapseToTableThreshold";
+
+	private final CacheInvalidationRemoteBroadcaster broadcaster = new CacheInvalidationRemoteBroadcaster(
+			this::postEventNow,
+			Long.getLong(SYSTEM_PROPERTY_CoalesceWindowMillis, 0),
+			Integer.getInteger(SYSTEM_PROPERTY_CollapseToTableThreshold, 100));
+
 	private CacheInvalidationRemoteHandler()
 	{
 	}
@@ -105,6 +115,11 @@ final class CacheInvalidationRemoteHandler implements IEventListener
 		return ImmutableSet.copyOf(tableNamesToBroadcast);
 	}
 
+	CacheInvalidationRemoteBroadcaster getBroadcaster()
+	{
+		return broadcaster;
+	}
+
 	/**
 	 * Broadcast a cache invalidation request.
 	 *
@@ -127,7 +142,12 @@ final class CacheInvalidationRemoteHandler implements IEventListener
 			return;
 		}
 
-		// Broadcast the event.
+		// Broadcast the event (maybe coalesced with other requests)
+		broadcaster.add(request);
+	}
+
+	private void postEventNow(final CacheInvalidateMultiRequest request)
+	{
 		final Event event = createEventFromRequest(request);
 		Services.get(IEventBusFactory.class)
 				.getEventBus(TOPIC_CacheInvalidation)
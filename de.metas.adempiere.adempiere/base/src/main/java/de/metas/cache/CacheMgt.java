@@ -16,6 +16,7 @@
  *****************************************************************************/
 package de.metas.cache;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -43,6 +44,8 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 
+import de.metas.cache.CCache.CCacheStats;
+import de.metas.cache.CCache.CacheMapType;
 import de.metas.cache.model.CacheInvalidateMultiRequest;
 import de.metas.cache.model.CacheInvalidateRequest;
 import de.metas.logging.LogManager;
@@ -77,6 +80,14 @@ public final class CacheMgt
 	private final AtomicBoolean cacheResetRunning = new AtomicBoolean();
 	private final AtomicLong lastCacheReset = new AtomicLong();
 
+	/**
+	 * System property for the default memory budget (bytes) of a {@link CCache.CacheMapType#WEIGHTED} cache.
+	 * Append <code>.TableName</code> to configure the budget for caches of a particular table.
+	 */
+	public static final String SYSTEM_PROPERTY_WeightedCacheMaxBytes = "de.metas.cache.weighted.maxBytes";
+	private static final long DEFAULT_WeightedCacheMaxBytes = 16 * 1024 * 1024;
+	private final ConcurrentHashMap<String, Long> maximumWeightsByTableName = new ConcurrentHashMap<>();
+
 	private CacheMgt()
 	{
 		JMXRegistry.get().registerJMX(new JMXCacheMgt(), OnJMXAlreadyExistsPolicy.Replace);
@@ -137,6 +148,74 @@ public final class CacheMgt
 		return CacheInvalidationRemoteHandler.instance.getTableNamesToBroadcast();
 	}
 
+	/**
+	 * Gets the memory budget (bytes) for a new {@link CCache.CacheMapType#WEIGHTED} cache of given table.
+	 * <p>
+	 * The budget is the first one found from:
+	 * <ul>
+	 * <li>{@link #setMaximumWeight(String, long)}
+	 * <li>system property {@value #SYSTEM_PROPERTY_WeightedCacheMaxBytes}.TableName
+	 * <li>system property {@value #SYSTEM_PROPERTY_WeightedCacheMaxBytes}
+	 * <li>16MB
+	 * </ul>
+	 * NOTE: the budget is applied when the cache is created.
+	 */
+	public long getMaximumWeight(@NonNull final String tableName)
+	{
+		final Long maximumWeight = maximumWeightsByTableName.get(tableName);
+		if (maximumWeight != null)
+		{
+			return maximumWeight;
+		}
+
+		final Long maximumWeightForTable = Long.getLong(SYSTEM_PROPERTY_WeightedCacheMaxBytes + "." + tableName);
+		if (maximumWeightForTable != null && maximumWeightForTable > 0)
+		{
+			return maximumWeightForTable;
+		}
+
+		final Long maximumWeightDefault = Long.getLong(SYSTEM_PROPERTY_WeightedCacheMaxBytes);
+		if (maximumWeightDefault != null && maximumWeightDefault > 0)
+		{
+			return maximumWeightDefault;
+		}
+
+		return DEFAULT_WeightedCacheMaxBytes;
+	}
+
+	/**
+	 * Sets the memory budget (bytes) for {@link CCache.CacheMapType#WEIGHTED} caches of given table, which will be created from now on.
+	 *
+	 * @param maximumWeight budget in bytes; zero or negative to remove the table specific budget
+	 */
+	public void setMaximumWeight(@NonNull final String tableName, final long maximumWeight)
+	{
+		if (maximumWeight <= 0)
+		{
+			maximumWeightsByTableName.remove(tableName);
+		}
+		else
+		{
+			maximumWeightsByTableName.put(tableName, maximumWeight);
+		}
+	}
+
+	/**
+	 * @return statistics of all registered {@link CCache.CacheMapType#WEIGHTED} caches
+	 */
+	public List<CCacheStats> getWeightedCachesStats()
+	{
+		return cachesByLabel.values()
+				.stream()
+				.flatMap(CachesGroup::streamCaches)
+				.filter(cache -> cache instanceof CCache)
+				.map(cache -> (CCache<?, ?>)cache)
+				.filter(cache -> cache.getCacheMapType() == CacheMapType.WEIGHTED)
+				.distinct()
+				.map(CCache::stats)
+				.collect(ImmutableList.toImmutableList());
+	}
+
 	/** @return last time cache reset timestamp */
 	public long getLastCacheReset()
 	{
@@ -568,7 +647,7 @@ public final class CacheMgt
 			caches.remove(cache.getCacheId());
 		}
 
-		private final Stream<CacheInterface> streamCaches()
+		public Stream<CacheInterface> streamCaches()
 		{
 			return caches.values()
 					.stream()
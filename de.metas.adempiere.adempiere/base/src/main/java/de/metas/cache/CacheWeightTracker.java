@@ -0,0 +1,109 @@
+package de.metas.cache;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the total weight of a {@link CCache.CacheMapType#WEIGHTED} cache.
+ * <p>
+ * The weight charged when an entry is added is remembered and exactly that weight is released when the entry is removed,
+ * even if the cached value was changed in the meantime and would be weighed differently now.
+ */
+final class CacheWeightTracker
+{
+	private final AtomicLong weightedSize = new AtomicLong();
+
+	/** cached entry (key and value instance) => weights charged for it, oldest first */
+	private final ConcurrentHashMap<EntryIdentity, Deque<Integer>> chargedWeights = new ConcurrentHashMap<>();
+
+	public void charge(final Object key, final Object value, final int weight)
+	{
+		chargedWeights.compute(new EntryIdentity(key, value), (entry, weights) -> {
+			final Deque<Integer> weightsEffective = weights != null ? weights : new ArrayDeque<>(1);
+			weightsEffective.addLast(weight);
+			return weightsEffective;
+		});
+		weightedSize.addAndGet(weight);
+	}
+
+	public void release(final Object key, final Object value)
+	{
+		final int[] releasedWeight = { 0 };
+		chargedWeights.computeIfPresent(new EntryIdentity(key, value), (entry, weights) -> {
+			releasedWeight[0] = weights.removeFirst();
+			return weights.isEmpty() ? null : weights;
+		});
+		weightedSize.addAndGet(-releasedWeight[0]);
+	}
+
+	public long getWeightedSize()
+	{
+		return weightedSize.get();
+	}
+
+	public int getTrackedEntriesCount()
+	{
+		return chargedWeights.size();
+	}
+
+	/** Identifies a cache entry by its key and value instances */
+	private static final class EntryIdentity
+	{
+		private final Object key;
+		private final Object value;
+		private final int hashCode;
+
+		private EntryIdentity(final Object key, final Object value)
+		{
+			this.key = key;
+			this.value = value;
+			this.hashCode = 31 * System.identityHashCode(key) + System.identityHashCode(value);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof EntryIdentity))
+			{
+				return false;
+			}
+			final EntryIdentity other = (EntryIdentity)obj;
+			return key == other.key && value == other.value;
+		}
+	}
+}
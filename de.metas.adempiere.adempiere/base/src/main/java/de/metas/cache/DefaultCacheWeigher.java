@@ -0,0 +1,113 @@
+package de.metas.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Rough, allocation free byte estimator for cache entries.
+ *
+ * It knows about strings, boxed primitives, collections and maps (one level deep). Everything else is weighted with {@link #DEFAULT_OBJECT_WEIGHT}.
+ * Caches which are holding big objects (e.g. price lists or HU PI structures) are advised to provide their own {@link CacheWeigher}.
+ */
+public final class DefaultCacheWeigher implements CacheWeigher<Object, Object>
+{
+	@SuppressWarnings("unchecked")
+	public static <K, V> CacheWeigher<K, V> instance()
+	{
+		return (CacheWeigher<K, V>)instance;
+	}
+
+	private static final DefaultCacheWeigher instance = new DefaultCacheWeigher();
+
+	private static final int OBJECT_HEADER = 16;
+	private static final int REFERENCE = 8;
+	private static final int ENTRY_OVERHEAD = 64;
+	static final int DEFAULT_OBJECT_WEIGHT = 256;
+
+	private DefaultCacheWeigher()
+	{
+	}
+
+	@Override
+	public int weigh(final Object key, final Object value)
+	{
+		final long weight = ENTRY_OVERHEAD + estimate(key, true) + estimate(value, true);
+		return weight > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)weight;
+	}
+
+	private static long estimate(final Object obj, final boolean deep)
+	{
+		if (obj == null)
+		{
+			return 0;
+		}
+		else if (obj instanceof String)
+		{
+			return OBJECT_HEADER + 24 + 2L * ((String)obj).length();
+		}
+		else if (obj instanceof Number || obj instanceof Boolean || obj instanceof Character || obj instanceof Enum)
+		{
+			return OBJECT_HEADER + 8;
+		}
+		else if (obj instanceof Collection)
+		{
+			final Collection<?> collection = (Collection<?>)obj;
+			long weight = OBJECT_HEADER + (long)REFERENCE * collection.size();
+			if (deep)
+			{
+				for (final Object item : collection)
+				{
+					weight += estimate(item, false);
+				}
+			}
+			else
+			{
+				weight += (long)DEFAULT_OBJECT_WEIGHT * collection.size();
+			}
+			return weight;
+		}
+		else if (obj instanceof Map)
+		{
+			final Map<?, ?> map = (Map<?, ?>)obj;
+			long weight = OBJECT_HEADER + (long)(REFERENCE * 4) * map.size();
+			if (deep)
+			{
+				for (final Map.Entry<?, ?> entry : map.entrySet())
+				{
+					weight += estimate(entry.getKey(), false) + estimate(entry.getValue(), false);
+				}
+			}
+			else
+			{
+				weight += (long)DEFAULT_OBJECT_WEIGHT * map.size();
+			}
+			return weight;
+		}
+		else
+		{
+			return DEFAULT_OBJECT_WEIGHT;
+		}
+	}
+}
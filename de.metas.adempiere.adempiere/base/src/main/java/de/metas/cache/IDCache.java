@@ -47,6 +47,8 @@ public class IDCache<V> extends CCache<Object, V>
 				initialCapacity,
 				expireMinutes,
 				cacheMapType,
+				(Long)null, // maximumWeight
+				(CacheWeigher<Object, V>)null,
 				KEYS_MAPPER,
 				(CacheRemovalListener<Object, V>)null,
 				(CacheAdditionListener<Object, V>)null);
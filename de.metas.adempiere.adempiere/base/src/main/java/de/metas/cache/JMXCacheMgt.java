@@ -101,4 +101,78 @@ public class JMXCacheMgt implements JMXCacheMgtMBean, IJMXNameAware
 		return getCacheMgt().reset(tableName, recordId);
 	}
 
+	@Override
+	public String[] getWeightedCachesStats()
+	{
+		return getCacheMgt()
+				.getWeightedCachesStats()
+				.stream()
+				.map(stats -> stats.getName()
+						+ ": hitRatio=" + stats.getGuavaStats().hitRate()
+						+ ", evictions=" + stats.getGuavaStats().evictionCount()
+						+ ", size=" + stats.getSize()
+						+ ", weightedSize=" + stats.getWeightedSize() + "/" + stats.getMaximumWeight())
+				.sorted()
+				.toArray(size -> new String[size]);
+	}
+
+	@Override
+	public long getWeightedCacheMaxBytes(final String tableName)
+	{
+		return getCacheMgt().getMaximumWeight(tableName);
+	}
+
+	@Override
+	public void setWeightedCacheMaxBytes(final String tableName, final long maxBytes)
+	{
+		getCacheMgt().setMaximumWeight(tableName, maxBytes);
+	}
+
+	private CacheInvalidationRemoteBroadcaster getRemoteBroadcaster()
+	{
+		return CacheInvalidationRemoteHandler.instance.getBroadcaster();
+	}
+
+	@Override
+	public String getRemoteInvalidationSummary()
+	{
+		return getRemoteBroadcaster().toString();
+	}
+
+	@Override
+	public long getRemoteInvalidationMessagesSaved()
+	{
+		return getRemoteBroadcaster().getMessagesSaved();
+	}
+
+	@Override
+	public long getRemoteInvalidationMaxLagMillis()
+	{
+		return getRemoteBroadcaster().getMaxLagMillis();
+	}
+
+	@Override
+	public long getRemoteInvalidationCoalesceWindowMillis()
+	{
+		return getRemoteBroadcaster().getWindowMillis();
+	}
+
+	@Override
+	public void setRemoteInvalidationCoalesceWindowMillis(final long windowMillis)
+	{
+		getRemoteBroadcaster().setWindowMillis(windowMillis);
+	}
+
+	@Override
+	public int getRemoteInvalidationCollapseToTableThreshold()
+	{
+		return getRemoteBroadcaster().getCollapseToTableThreshold();
+	}
+
+	@Override
+	public void setRemoteInvalidationCollapseToTableThreshold(final int threshold)
+	{
+		getRemoteBroadcaster().setCollapseToTableThreshold(threshold);
+	}
+
 }
@@ -25,4 +25,27 @@ public interface JMXCacheMgtMBean
 	long resetForTable(String tableName);
 
 	long resetForRecordId(String tableName, int recordId);
+
+	/**
+	 * @return one line per weighted cache, containing the hit ratio, the eviction count and the weighted size
+	 */
+	String[] getWeightedCachesStats();
+
+	long getWeightedCacheMaxBytes(String tableName);
+
+	void setWeightedCacheMaxBytes(String tableName, long maxBytes);
+
+	String getRemoteInvalidationSummary();
+
+	long getRemoteInvalidationMessagesSaved();
+
+	long getRemoteInvalidationMaxLagMillis();
+
+	long getRemoteInvalidationCoalesceWindowMillis();
+
+	void setRemoteInvalidationCoalesceWindowMillis(long windowMillis);
+
+	int getRemoteInvalidationCollapseToTableThreshold();
+
+	void setRemoteInvalidationCollapseToTableThreshold(int threshold);
 }
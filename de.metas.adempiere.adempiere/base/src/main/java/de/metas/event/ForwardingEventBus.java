@@ -1,5 +1,6 @@
 package de.metas.event;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 import de.metas.util.Check;
@@ -75,6 +76,12 @@ abstract class ForwardingEventBus implements IEventBus
 		delegate().postEvent(event);
 	}
 
+	@Override
+	public void postEvents(final List<Event> events)
+	{
+		delegate().postEvents(events);
+	}
+
 	@Override
 	public void postObject(final Object obj)
 	{
@@ -0,0 +1,39 @@
+package de.metas.event;
+
+import java.util.List;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * {@link IEventListener} which wants to get the events posted via {@link IEventBus#postEvents(List)} as one batch, instead of one by one.
+ */
+public interface IEventBatchListener extends IEventListener
+{
+	/**
+	 * Called when a batch of events was received.
+	 *
+	 * @param eventBus event bus on which the events were received.
+	 * @param events received events, in the order they were posted.
+	 */
+	void onEvents(final IEventBus eventBus, final List<Event> events);
+}
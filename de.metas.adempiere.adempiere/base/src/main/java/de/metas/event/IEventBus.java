@@ -1,5 +1,6 @@
 package de.metas.event;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 /*
@@ -74,6 +75,17 @@ public interface IEventBus
 	 */
 	void postEvent(Event event);
 
+	/**
+	 * Post given events on this bus, in the given order.
+	 * <p>
+	 * Compared to calling {@link #postEvent(Event)} for each event, the events are dispatched as one batch,
+	 * so e.g. for a remote bus they are sent to the other hosts in one message.
+	 */
+	default void postEvents(final List<Event> events)
+	{
+		events.forEach(this::postEvent);
+	}
+
 	void postObject(Object obj);
 
 	/**
@@ -62,6 +62,19 @@ public class QueueableForwardingEventBus extends ForwardingEventBus
 		}
 	}
 
+	@Override
+	public final void postEvents(@NonNull final List<Event> events)
+	{
+		if (queuing)
+		{
+			queuedEvents.addAll(events);
+		}
+		else
+		{
+			super.postEvents(events);
+		}
+	}
+
 	/**
 	 * Start queuing events. From this point on NO events will be sent to bus, but they will be queued until {@link #flush()} is called.
 	 */
@@ -171,9 +184,10 @@ public class QueueableForwardingEventBus extends ForwardingEventBus
 	 */
 	public final void flush()
 	{
-		for (final Event event : getQueuedEventsAndClear())
+		final List<Event> events = getQueuedEventsAndClear();
+		if (!events.isEmpty())
 		{
-			super.postEvent(event);
+			super.postEvents(events);
 		}
 	}
 }
@@ -23,7 +23,8 @@ package de.metas.event.impl;
  */
 
 import java.lang.ref.WeakReference;
-import java.util.concurrent.ExecutorService;
+import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import javax.annotation.Nullable;
@@ -32,13 +33,14 @@ import org.compiere.Adempiere;
 import org.slf4j.Logger;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.eventbus.AsyncEventBus;
+import com.google.common.collect.ImmutableList;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.eventbus.SubscriberExceptionContext;
 import com.google.common.eventbus.SubscriberExceptionHandler;
 
 import de.metas.event.Event;
 import de.metas.event.EventBusConstants;
+import de.metas.event.IEventBatchListener;
 import de.metas.event.IEventBus;
 import de.metas.event.IEventListener;
 import de.metas.event.Type;
@@ -51,6 +53,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.ToString;
+import lombok.Value;
 
 final class EventBus implements IEventBus
 {
@@ -85,25 +88,26 @@ final class EventBus implements IEventBus
 	@Getter
 	private Type type = Type.LOCAL;
 
-	private final ExecutorService executorOrNull;
+	private final EventBusDispatcher dispatcherOrNull;
 
 	/**
-	 * @param executor if not null, the system creates an {@link AsyncEventBus}; also, it shuts down this executor on {@link #destroy()}
+	 * @param dispatchConfig if not null, the events are dispatched asynchronously, by an {@link EventBusDispatcher} which is shut down on {@link #destroy()}.
+	 *            If null, the events are dispatched synchronously, in the posting thread.
 	 */
 	public EventBus(
 			@NonNull final String topicName,
-			@Nullable final ExecutorService executor)
+			@Nullable final EventBusDispatchConfig dispatchConfig)
 	{
-		this.executorOrNull = executor;
 		this.topicName = Check.assumeNotEmpty(topicName, "name not empty");
+		this.eventBus = new com.google.common.eventbus.EventBus(exceptionHandler);
 
-		if (executor == null)
+		if (dispatchConfig == null)
 		{
-			this.eventBus = new com.google.common.eventbus.EventBus(exceptionHandler);
+			this.dispatcherOrNull = null;
 		}
 		else
 		{
-			this.eventBus = new com.google.common.eventbus.AsyncEventBus(executor, exceptionHandler);
+			this.dispatcherOrNull = new EventBusDispatcher(topicName, dispatchConfig, this::dispatchNow, this::spillToEventLog);
 		}
 	}
 
@@ -131,9 +135,9 @@ final class EventBus implements IEventBus
 		this.destroyed = true;
 		this.eventBus = null;
 
-		if (executorOrNull != null)
+		if (dispatcherOrNull != null)
 		{
-			executorOrNull.shutdown(); // not 100% sure it's needed, but better safe than sorry
+			dispatcherOrNull.shutdown();
 		}
 		logger.trace("{0} - Destroyed", this);
 	}
@@ -201,23 +205,110 @@ final class EventBus implements IEventBus
 			return;
 		}
 
-		final Event eventToPost;
+		final Event eventToPost = logEventIfNeeded(event);
 
+		logger.debug("{} - Posting event: {}", this, event);
+		if (dispatcherOrNull != null)
+		{
+			dispatcherOrNull.enqueue(eventToPost);
+		}
+		else
+		{
+			eventBus.post(eventToPost);
+		}
+	}
+
+	@Override
+	public void postEvents(@NonNull final List<Event> events)
+	{
+		// Do nothing if destroyed
+		if (destroyed)
+		{
+			logger.warn("Attempt to post events to a destroyed bus. Ignored. \n Bus: {} \n Events: {}", this, events);
+			return;
+		}
+		if (events.isEmpty())
+		{
+			return;
+		}
+
+		final ImmutableList<Event> eventsToPost = events.stream()
+				.map(this::logEventIfNeeded)
+				.collect(ImmutableList.toImmutableList());
+
+		logger.debug("{} - Posting {} events: {}", this, eventsToPost.size(), eventsToPost);
+		if (dispatcherOrNull != null)
+		{
+			dispatcherOrNull.enqueue(eventsToPost);
+		}
+		else
+		{
+			dispatchNow(eventsToPost);
+		}
+	}
+
+	private Event logEventIfNeeded(@NonNull final Event event)
+	{
 		// as long as we have just one common event-log-DB, we store events only on the machine they were created on, in order to avoid duplicates.
 		if (event.isShallBeLogged() && event.isLocalEvent())
 		{
-			eventToPost = event.withStatusWasLogged();
+			final Event eventToPost = event.withStatusWasLogged();
 
 			final EventLogService eventLogService = Adempiere.getBean(EventLogService.class);
 			eventLogService.saveEvent(eventToPost, this);
+			return eventToPost;
 		}
 		else
 		{
-			eventToPost = event;
+			return event;
 		}
+	}
 
-		logger.debug("{} - Posting event: {}", this, event);
-		eventBus.post(eventToPost);
+	private void dispatchNow(@NonNull final List<Event> events)
+	{
+		final com.google.common.eventbus.EventBus eventBus = this.eventBus;
+		if (eventBus == null)
+		{
+			logger.warn("Attempt to dispatch events on a destroyed bus. Ignored. \n Bus: {} \n Events: {}", this, events);
+			return;
+		}
+
+		if (events.size() == 1)
+		{
+			eventBus.post(events.get(0));
+		}
+		else
+		{
+			eventBus.post(new EventsBatch(ImmutableList.copyOf(events)));
+		}
+	}
+
+	/**
+	 * Stores the event in event log, so it can be reposted later.
+	 *
+	 * @return false if the event was not stored because it was already logged when it was posted; the dispatcher has to dispatch it then
+	 * @see EventBusBackPressurePolicy#SPILL_TO_EVENT_LOG
+	 */
+	private boolean spillToEventLog(@NonNull final Event event)
+	{
+		if (event.isWasLogged())
+		{
+			return false;
+		}
+
+		final EventLogService eventLogService = Adempiere.getBean(EventLogService.class);
+		eventLogService.saveEvent(event, this);
+		return true;
+	}
+
+	/**
+	 * @return info about how the events are dispatched (queue depth, latencies etc) or empty if the events are dispatched synchronously
+	 */
+	public Optional<String> getDispatchInfo()
+	{
+		return dispatcherOrNull != null
+				? Optional.of(dispatcherOrNull.toString())
+				: Optional.empty();
 	}
 
 	private static class TypedConsumerAsEventListener<T> implements IEventListener
@@ -257,6 +348,12 @@ final class EventBus implements IEventBus
 		{
 			invokeEventListener(this.eventListener, event);
 		}
+
+		@Subscribe
+		public void onEvents(@NonNull final EventsBatch eventsBatch)
+		{
+			invokeEventListener(this.eventListener, eventsBatch);
+		}
 	}
 
 	@ToString
@@ -286,6 +383,50 @@ final class EventBus implements IEventBus
 
 			invokeEventListener(eventListener, event);
 		}
+
+		@Subscribe
+		public void onEvents(final EventsBatch eventsBatch)
+		{
+			final IEventListener eventListener = eventListenerRef.get();
+			if (eventListener == null)
+			{
+				return; // will be unregistered on next single event
+			}
+
+			invokeEventListener(eventListener, eventsBatch);
+		}
+	}
+
+	/** Events posted via {@link EventBus#postEvents(List)}, to be dispatched to the guava subscribers in one go. */
+	@Value
+	private static class EventsBatch
+	{
+		ImmutableList<Event> events;
+	}
+
+	private void invokeEventListener(
+			@NonNull final IEventListener eventListener,
+			@NonNull final EventsBatch eventsBatch)
+	{
+		if (eventListener instanceof IEventBatchListener)
+		{
+			((IEventBatchListener)eventListener).onEvents(this, eventsBatch.getEvents());
+		}
+		else
+		{
+			// isolate the events from each other, like guava does it when they are posted one by one
+			for (final Event event : eventsBatch.getEvents())
+			{
+				try
+				{
+					invokeEventListener(eventListener, event);
+				}
+				catch (final RuntimeException ex)
+				{
+					logger.error("Could not dispatch event: {} \n Listener: {} \n Bus: {}", event, eventListener, this, ex);
+				}
+			}
+		}
 	}
 
 	private void invokeEventListener(
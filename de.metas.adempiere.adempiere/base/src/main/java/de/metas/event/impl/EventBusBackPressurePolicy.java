@@ -0,0 +1,58 @@
+package de.metas.event.impl;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * What to do when an event is posted but the event bus' dispatch queue is full.
+ *
+ * @see EventBusDispatchConfig
+ */
+public enum EventBusBackPressurePolicy
+{
+	/**
+	 * Wait until there is room in the queue. The posting thread is slowed down to the pace of the listeners.
+	 * <p>
+	 * If the events are posted by one of the topic's own listeners, they are dispatched right away instead, because waiting would dead-lock the topic.
+	 * <p>
+	 * This is the default policy.
+	 */
+	BLOCK,
+
+	/**
+	 * Discard the oldest queued event, to make room for the new one.
+	 * <p>
+	 * Events which were logged when they were posted are not discarded, but dispatched right away, because they are tracked in the event log.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Don't dispatch the event now, but store it in the event log (<code>AD_EventLog</code>), from where it can be reposted later.
+	 * <p>
+	 * Events which were already logged when they were posted are dispatched right away instead.
+	 * <p>
+	 * Note that the spilled events are not reposted automatically.
+	 *
+	 * @see de.metas.event.log.process.AD_EventLog_RepostEvent
+	 */
+	SPILL_TO_EVENT_LOG,
+}
@@ -0,0 +1,92 @@
+package de.metas.event.impl;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * How the events of one topic are dispatched asynchronously to the topic's listeners.
+ * <p>
+ * The configuration is taken from system properties, where the topic specific property wins over the general one:
+ * <ul>
+ * <li><code>de.metas.event.dispatch.queueCapacity</code> and <code>de.metas.event.dispatch.queueCapacity.TopicName</code>
+ * <li><code>de.metas.event.dispatch.workers</code> and <code>de.metas.event.dispatch.workers.TopicName</code>
+ * <li><code>de.metas.event.dispatch.backPressurePolicy</code> and <code>de.metas.event.dispatch.backPressurePolicy.TopicName</code> (see {@link EventBusBackPressurePolicy}; default is {@link EventBusBackPressurePolicy#BLOCK})
+ * </ul>
+ */
+@Value
+@Builder
+public class EventBusDispatchConfig
+{
+	private static final String SYSTEM_PROPERTY_PREFIX = "de.metas.event.dispatch.";
+
+	private static final int DEFAULT_QueueCapacity = 10000;
+	/** One worker by default, so the events of a topic are dispatched in the order they were posted */
+	private static final int DEFAULT_Workers = 1;
+	/** Slow down the posting threads by default, rather than not delivering the events (e.g. cache invalidations) right away */
+	private static final EventBusBackPressurePolicy DEFAULT_BackPressurePolicy = EventBusBackPressurePolicy.BLOCK;
+
+	public static EventBusDispatchConfig forTopicName(@NonNull final String topicName)
+	{
+		return builder()
+				.queueCapacity(getInt("queueCapacity", topicName, DEFAULT_QueueCapacity))
+				.workers(getInt("workers", topicName, DEFAULT_Workers))
+				.backPressurePolicy(EventBusBackPressurePolicy.valueOf(getString("backPressurePolicy", topicName, DEFAULT_BackPressurePolicy.name())))
+				.build();
+	}
+
+	private static int getInt(final String name, final String topicName, final int defaultValue)
+	{
+		final Integer valueForTopic = Integer.getInteger(SYSTEM_PROPERTY_PREFIX + name + "." + topicName);
+		if (valueForTopic != null && valueForTopic > 0)
+		{
+			return valueForTopic;
+		}
+
+		final Integer value = Integer.getInteger(SYSTEM_PROPERTY_PREFIX + name);
+		if (value != null && value > 0)
+		{
+			return value;
+		}
+
+		return defaultValue;
+	}
+
+	private static String getString(final String name, final String topicName, final String defaultValue)
+	{
+		final String valueForTopic = System.getProperty(SYSTEM_PROPERTY_PREFIX + name + "." + topicName);
+		if (valueForTopic != null && !valueForTopic.trim().isEmpty())
+		{
+			return valueForTopic.trim();
+		}
+
+		return System.getProperty(SYSTEM_PROPERTY_PREFIX + name, defaultValue).trim();
+	}
+
+	int queueCapacity;
+	int workers;
+	@NonNull
+	EventBusBackPressurePolicy backPressurePolicy;
+}
@@ -0,0 +1,345 @@
+package de.metas.event.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import de.metas.event.Event;
+import de.metas.event.EventBusConstants;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Dispatches the events of one topic asynchronously: events are put in a bounded queue and are taken from there by the topic's own worker threads.
+ * <p>
+ * If the queue is full, the configured {@link EventBusBackPressurePolicy} is applied.
+ * <p>
+ * A batch of events (see {@link #enqueue(List)}) occupies one queue slot and is dispatched in one go, so that batch aware listeners (e.g. the remote forwarder) are getting it as a whole.
+ */
+final class EventBusDispatcher
+{
+	private static final transient Logger logger = EventBusConstants.getLogger(EventBusDispatcher.class);
+
+	private final String topicName;
+	private final EventBusDispatchConfig config;
+	private final Consumer<List<Event>> dispatcher;
+	private final Predicate<Event> spiller;
+
+	private final BlockingQueue<QueuedEvents> queue;
+	private final List<Thread> workers;
+	private volatile boolean shutdown = false;
+
+	private final AtomicLong countEnqueued = new AtomicLong();
+	private final AtomicLong countDispatched = new AtomicLong();
+	private final AtomicLong countFailed = new AtomicLong();
+	private final AtomicLong countDropped = new AtomicLong();
+	private final AtomicLong countSpilled = new AtomicLong();
+	private final AtomicLong dispatchLatencyNanosTotal = new AtomicLong();
+	private final AtomicLong dispatchLatencyNanosMax = new AtomicLong();
+	private final AtomicLong listenersExecutionNanosTotal = new AtomicLong();
+	private final AtomicLong listenersExecutionNanosMax = new AtomicLong();
+
+	/**
+	 * @param dispatcher invoked from worker threads, in order to deliver the events to the listeners
+	 * @param spiller invoked from the posting thread when the event could not be queued and the policy is {@link EventBusBackPressurePolicy#SPILL_TO_EVENT_LOG};
+	 *            returns false if the event can't be spilled (e.g. it's already in the event log), in which case it's dispatched right away, in the posting thread
+	 */
+	EventBusDispatcher(
+			@NonNull final String topicName,
+			@NonNull final EventBusDispatchConfig config,
+			@NonNull final Consumer<List<Event>> dispatcher,
+			@NonNull final Predicate<Event> spiller)
+	{
+		this.topicName = topicName;
+		this.config = config;
+		this.dispatcher = dispatcher;
+		this.spiller = spiller;
+		this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+
+		final CustomizableThreadFactory threadFactory = CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(EventBusDispatcher.class.getName() + "-" + topicName)
+				.setDaemon(true)
+				.build();
+		final int workersCount = Math.max(1, config.getWorkers());
+		this.workers = new ArrayList<>(workersCount);
+		for (int i = 0; i < workersCount; i++)
+		{
+			final Thread worker = threadFactory.newThread(this::processQueue);
+			workers.add(worker);
+			worker.start();
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("topicName", topicName)
+				.add("config", config)
+				.add("workers", workers.size())
+				.add("queueDepth", getQueueDepth())
+				.add("enqueued", countEnqueued.get())
+				.add("dispatched", countDispatched.get())
+				.add("failed", countFailed.get())
+				.add("dropped", countDropped.get())
+				.add("spilled", countSpilled.get())
+				.add("avgDispatchLatencyMillis", getAvgDispatchLatencyMillis())
+				.add("maxDispatchLatencyMillis", TimeUnit.NANOSECONDS.toMillis(dispatchLatencyNanosMax.get()))
+				.add("avgListenersExecutionMillis", getAvgListenersExecutionMillis())
+				.add("maxListenersExecutionMillis", TimeUnit.NANOSECONDS.toMillis(listenersExecutionNanosMax.get()))
+				.toString();
+	}
+
+	public void enqueue(@NonNull final Event event)
+	{
+		enqueue(ImmutableList.of(event));
+	}
+
+	public void enqueue(@NonNull final List<Event> events)
+	{
+		if (events.isEmpty())
+		{
+			return;
+		}
+		if (shutdown)
+		{
+			logger.warn("Attempt to enqueue events to a shutdown dispatcher. Ignored. \n Dispatcher: {} \n Events: {}", this, events);
+			return;
+		}
+
+		final QueuedEvents queuedEvents = new QueuedEvents(ImmutableList.copyOf(events), System.nanoTime());
+		final int eventsCount = queuedEvents.getEvents().size();
+		if (queue.offer(queuedEvents))
+		{
+			countEnqueued.addAndGet(eventsCount);
+			return;
+		}
+
+		final EventBusBackPressurePolicy backPressurePolicy = config.getBackPressurePolicy();
+		if (backPressurePolicy == EventBusBackPressurePolicy.BLOCK)
+		{
+			if (isWorkerThread())
+			{
+				// a listener is posting to its own topic; waiting for room in the queue would dead-lock the topic,
+				// because we are blocking the thread which is supposed to make that room
+				logger.warn("Queue of topic {} is full and the events are posted by one of the topic's listeners. Dispatching them right away: {}", topicName, events);
+				dispatch(queuedEvents);
+				return;
+			}
+
+			try
+			{
+				queue.put(queuedEvents);
+				countEnqueued.addAndGet(eventsCount);
+			}
+			catch (final InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				logger.warn("Interrupted while waiting to enqueue events. Events were not dispatched: {}", events, ex);
+			}
+		}
+		else if (backPressurePolicy == EventBusBackPressurePolicy.DROP_OLDEST)
+		{
+			while (!queue.offer(queuedEvents))
+			{
+				final QueuedEvents oldestEvents = queue.poll();
+				if (oldestEvents != null)
+				{
+					dropUnlessLogged(oldestEvents);
+				}
+			}
+			countEnqueued.addAndGet(eventsCount);
+		}
+		else if (backPressurePolicy == EventBusBackPressurePolicy.SPILL_TO_EVENT_LOG)
+		{
+			final List<Event> eventsNotSpilled = new ArrayList<>();
+			for (final Event event : events)
+			{
+				if (spiller.test(event))
+				{
+					countSpilled.incrementAndGet();
+				}
+				else
+				{
+					eventsNotSpilled.add(event);
+				}
+			}
+			logger.warn("Queue of topic {} is full. Spilled {} events to event log: {}", topicName, eventsCount - eventsNotSpilled.size(), events);
+
+			if (!eventsNotSpilled.isEmpty())
+			{
+				// those are already in the event log, but nobody would repost them from there
+				dispatch(new QueuedEvents(ImmutableList.copyOf(eventsNotSpilled), System.nanoTime()));
+			}
+		}
+		else
+		{
+			throw new IllegalStateException("Unknown back pressure policy: " + backPressurePolicy);
+		}
+	}
+
+	private void dropUnlessLogged(final QueuedEvents queuedEvents)
+	{
+		final Map<Boolean, List<Event>> eventsByWasLogged = queuedEvents.getEvents()
+				.stream()
+				.collect(Collectors.partitioningBy(Event::isWasLogged));
+
+		final List<Event> droppedEvents = eventsByWasLogged.get(false);
+		if (!droppedEvents.isEmpty())
+		{
+			countDropped.addAndGet(droppedEvents.size());
+			logger.warn("Queue of topic {} is full. Dropped oldest events: {}", topicName, droppedEvents);
+		}
+
+		final List<Event> loggedEvents = eventsByWasLogged.get(true);
+		if (!loggedEvents.isEmpty())
+		{
+			// those are in the event log, so they may not get lost
+			logger.warn("Queue of topic {} is full. Dispatching the oldest events right away because they were logged: {}", topicName, loggedEvents);
+			dispatch(new QueuedEvents(ImmutableList.copyOf(loggedEvents), queuedEvents.getEnqueuedNanos()));
+		}
+	}
+
+	private boolean isWorkerThread()
+	{
+		return workers.contains(Thread.currentThread());
+	}
+
+	private void processQueue()
+	{
+		while (!shutdown || !queue.isEmpty())
+		{
+			final QueuedEvents queuedEvents;
+			try
+			{
+				queuedEvents = queue.poll(1, TimeUnit.SECONDS);
+			}
+			catch (final InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+
+			if (queuedEvents != null)
+			{
+				dispatch(queuedEvents);
+			}
+		}
+	}
+
+	private void dispatch(final QueuedEvents queuedEvents)
+	{
+		final long startNanos = System.nanoTime();
+		record(startNanos - queuedEvents.getEnqueuedNanos(), dispatchLatencyNanosTotal, dispatchLatencyNanosMax);
+
+		final List<Event> events = queuedEvents.getEvents();
+		try
+		{
+			dispatcher.accept(events);
+			countDispatched.addAndGet(events.size());
+		}
+		catch (final Throwable ex)
+		{
+			countFailed.addAndGet(events.size());
+			logger.error("Failed dispatching {} on topic {}", events, topicName, ex);
+		}
+		finally
+		{
+			record(System.nanoTime() - startNanos, listenersExecutionNanosTotal, listenersExecutionNanosMax);
+		}
+	}
+
+	private static void record(final long durationNanos, final AtomicLong total, final AtomicLong max)
+	{
+		total.addAndGet(durationNanos);
+		max.accumulateAndGet(durationNanos, Math::max);
+	}
+
+	/**
+	 * Stops accepting new events. The worker threads are dispatching the events which are already queued and then they stop.
+	 */
+	public void shutdown()
+	{
+		shutdown = true;
+		logger.trace("Shutdown dispatcher for topic {}. {} events are still to be dispatched.", topicName, queue.size());
+	}
+
+	public String getTopicName()
+	{
+		return topicName;
+	}
+
+	public int getQueueDepth()
+	{
+		return queue.size();
+	}
+
+	public long getDispatchedCount()
+	{
+		return countDispatched.get();
+	}
+
+	public long getDroppedCount()
+	{
+		return countDropped.get();
+	}
+
+	public long getSpilledCount()
+	{
+		return countSpilled.get();
+	}
+
+	public long getAvgDispatchLatencyMillis()
+	{
+		final long count = countDispatched.get() + countFailed.get();
+		return count > 0 ? TimeUnit.NANOSECONDS.toMillis(dispatchLatencyNanosTotal.get() / count) : 0;
+	}
+
+	public long getAvgListenersExecutionMillis()
+	{
+		final long count = countDispatched.get() + countFailed.get();
+		return count > 0 ? TimeUnit.NANOSECONDS.toMillis(listenersExecutionNanosTotal.get() / count) : 0;
+	}
+
+	@Value
+	private static class QueuedEvents
+	{
+		ImmutableList<Event> events;
+		long enqueuedNanos;
+	}
+}
@@ -1,13 +1,12 @@
 package de.metas.event.impl;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.adempiere.exceptions.AdempiereException;
-import org.adempiere.util.concurrent.CustomizableThreadFactory;
 import org.adempiere.util.jmx.JMXRegistry;
 import org.adempiere.util.jmx.JMXRegistry.OnJMXAlreadyExistsPolicy;
 import org.slf4j.Logger;
@@ -19,6 +18,7 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.SetMultimap;
 
@@ -72,7 +72,7 @@ public class EventBusFactory implements IEventBusFactory
 		this.remoteEndpoint = remoteEndpoint;
 		logger.info("Using remote endpoint: {}", remoteEndpoint);
 
-		JMXRegistry.get().registerJMX(new JMXEventBusManager(remoteEndpoint), OnJMXAlreadyExistsPolicy.Replace);
+		JMXRegistry.get().registerJMX(new JMXEventBusManager(remoteEndpoint, this::getEventBusesDispatchInfo), OnJMXAlreadyExistsPolicy.Replace);
 
 		// Setup default user notification topics
 		addAvailableUserNotificationsTopic(EventBusConstants.TOPIC_GeneralUserNotifications);
@@ -135,7 +135,7 @@ public class EventBusFactory implements IEventBusFactory
 	private final EventBus createEventBus(final Topic topic)
 	{
 		// Create the event bus
-		final EventBus eventBus = new EventBus(topic.getName(), createExecutorOrNull(topic.getName()));
+		final EventBus eventBus = new EventBus(topic.getName(), createDispatchConfigOrNull(topic.getName()));
 
 		// Bind the EventBus to remote endpoint (only if the system is enabled).
 		// If is not enabled we will use only local event buses,
@@ -162,19 +162,27 @@ public class EventBusFactory implements IEventBusFactory
 		return eventBus;
 	}
 
-	private ExecutorService createExecutorOrNull(@NonNull final String eventBusName)
+	private EventBusDispatchConfig createDispatchConfigOrNull(@NonNull final String eventBusName)
 	{
-		// Setup EventBus executor
 		if (EventBusConstants.isEventBusPostEventsAsync())
 		{
-			return Executors.newSingleThreadExecutor(CustomizableThreadFactory.builder()
-					.setThreadNamePrefix(getClass().getName() + "-" + eventBusName + "-AsyncExecutor")
-					.setDaemon(true)
-					.build());
+			return EventBusDispatchConfig.forTopicName(eventBusName);
 		}
 		return null;
 	}
 
+	private List<String> getEventBusesDispatchInfo()
+	{
+		return topic2eventBus.asMap()
+				.values()
+				.stream()
+				.map(EventBus::getDispatchInfo)
+				.filter(Optional::isPresent)
+				.map(Optional::get)
+				.sorted()
+				.collect(ImmutableList.toImmutableList());
+	}
+
 	private void destroyEventBus(@NonNull final EventBus eventBus)
 	{
 		eventBus.destroy();
@@ -1,5 +1,8 @@
 package de.metas.event.jmx;
 
+import java.util.List;
+import java.util.function.Supplier;
+
 import org.adempiere.util.jmx.IJMXNameAware;
 
 import de.metas.event.EventBusConstants;
@@ -9,12 +12,16 @@ public class JMXEventBusManager implements JMXEventBusManagerMBean, IJMXNameAwar
 {
 	private final String jmxName;
 	private final IEventBusRemoteEndpoint remoteEndpoint;
+	private final Supplier<List<String>> eventBusesDispatchInfoSupplier;
 
-	public JMXEventBusManager(final IEventBusRemoteEndpoint remoteEndpoint)
+	public JMXEventBusManager(
+			final IEventBusRemoteEndpoint remoteEndpoint,
+			final Supplier<List<String>> eventBusesDispatchInfoSupplier)
 	{
 		super();
 		this.jmxName = EventBusConstants.JMX_BASE_NAME + ":type=EventBusManager";
 		this.remoteEndpoint = remoteEndpoint;
+		this.eventBusesDispatchInfoSupplier = eventBusesDispatchInfoSupplier;
 	}
 
 	@Override
@@ -46,4 +53,11 @@ public class JMXEventBusManager implements JMXEventBusManagerMBean, IJMXNameAwar
 	{
 		return EventBusConstants.getSenderId();
 	}
+
+	@Override
+	public String[] getEventBusesDispatchInfo()
+	{
+		final List<String> infos = eventBusesDispatchInfoSupplier.get();
+		return infos.toArray(new String[infos.size()]);
+	}
 }
@@ -40,4 +40,9 @@ public interface JMXEventBusManagerMBean
 	boolean isRemoteEndpointConnected();
 
 	String getSenderId();
+
+	/**
+	 * @return for each asynchronous event bus: queue depth, dispatch latency, listeners execution time etc
+	 */
+	String[] getEventBusesDispatchInfo();
 }
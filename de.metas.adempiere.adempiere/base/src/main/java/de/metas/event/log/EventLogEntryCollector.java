@@ -67,6 +67,11 @@ public class EventLogEntryCollector implements IAutoCloseable
 				eventLogCollector);
 	}
 
+	public static boolean isThreadLocalPresent()
+	{
+		return threadLocalCollector.get() != null;
+	}
+
 	public static EventLogEntryCollector getThreadLocal()
 	{
 		final EventLogEntryCollector eventLogCollector = threadLocalCollector.get();
@@ -7,7 +7,9 @@ import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
 import org.springframework.amqp.rabbit.connection.ConnectionNameStrategy;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -83,7 +85,16 @@ public class AMQPEventBusConfiguration
 	@Bean
 	public org.springframework.amqp.support.converter.MessageConverter amqpMessageConverter(final ObjectMapper jsonObjectMapper)
 	{
-		return new Jackson2JsonMessageConverter(jsonObjectMapper);
+		final ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(new Jackson2JsonMessageConverter(jsonObjectMapper));
+
+		// event frames are deserialized by RabbitMQEventBusRemoteEndpoint itself, so leave their bodies alone
+		final SimpleMessageConverter passThroughConverter = new SimpleMessageConverter();
+		for (final String eventFrameContentType : EventSerializers.getContentTypes())
+		{
+			converter.addDelegate(eventFrameContentType, passThroughConverter);
+		}
+
+		return converter;
 	}
 
 	@Bean
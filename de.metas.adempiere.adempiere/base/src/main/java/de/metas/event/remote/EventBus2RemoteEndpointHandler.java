@@ -1,8 +1,10 @@
 package de.metas.event.remote;
 
+import java.util.List;
+
 import de.metas.event.Event;
+import de.metas.event.IEventBatchListener;
 import de.metas.event.IEventBus;
-import de.metas.event.IEventListener;
 import lombok.NonNull;
 
 /**
@@ -11,7 +13,7 @@ import lombok.NonNull;
  * @author tsa
  *
  */
-class EventBus2RemoteEndpointHandler implements IEventListener
+class EventBus2RemoteEndpointHandler implements IEventBatchListener
 {
 	public static final EventBus2RemoteEndpointHandler newInstance(final IEventBusRemoteEndpoint remoteEndpoint)
 	{
@@ -31,4 +33,11 @@ class EventBus2RemoteEndpointHandler implements IEventListener
 		final String topicName = eventBus.getTopicName();
 		remoteEndpoint.sendEvent(topicName, event);
 	}
+
+	@Override
+	public void onEvents(final IEventBus eventBus, final List<Event> events)
+	{
+		final String topicName = eventBus.getTopicName();
+		remoteEndpoint.sendEvents(topicName, events);
+	}
 }
@@ -0,0 +1,88 @@
+package de.metas.event.remote;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Decides which {@link IEventSerializer} is used to send the events of a given topic to the other nodes.
+ * <p>
+ * The format is configured by system property {@value #SYSTEM_PROPERTY_Format}, optionally suffixed by <code>.TopicName</code> (which wins), e.g.
+ * <code>-Dde.metas.event.remote.format.de.metas.material.dispo=smile</code>.
+ * Possible values are <code>json</code> (default) and <code>smile</code>.
+ * <p>
+ * The receiver picks the deserializer by the message's content type (see {@link #getByContentTypeOrNull(String)}), so the nodes don't need to share the same config.
+ */
+@UtilityClass
+public class EventSerializers
+{
+	public static final String SYSTEM_PROPERTY_Format = "de.metas.event.remote.format";
+
+	private static final String FORMAT_JSON = "json";
+	private static final String FORMAT_SMILE = "smile";
+
+	private static final ImmutableMap<String, IEventSerializer> serializersByContentType = ImmutableMap.<String, IEventSerializer> builder()
+			.put(JacksonJsonEventSerializer.instance.getContentType(), JacksonJsonEventSerializer.instance)
+			.put(JacksonSmileEventSerializer.instance.getContentType(), JacksonSmileEventSerializer.instance)
+			.build();
+
+	public static IEventSerializer getForTopicName(@NonNull final String topicName)
+	{
+		final String format = getFormat(topicName);
+		if (FORMAT_SMILE.equalsIgnoreCase(format))
+		{
+			return JacksonSmileEventSerializer.instance;
+		}
+		return JacksonJsonEventSerializer.instance;
+	}
+
+	private static String getFormat(final String topicName)
+	{
+		final String formatForTopic = System.getProperty(SYSTEM_PROPERTY_Format + "." + topicName);
+		if (formatForTopic != null && !formatForTopic.trim().isEmpty())
+		{
+			return formatForTopic.trim();
+		}
+		return System.getProperty(SYSTEM_PROPERTY_Format, FORMAT_JSON).trim();
+	}
+
+	/**
+	 * @return the serializer which created payloads of given content type or <code>null</code> if the content type is not one of ours
+	 */
+	@Nullable
+	public static IEventSerializer getByContentTypeOrNull(@Nullable final String contentType)
+	{
+		return contentType != null ? serializersByContentType.get(contentType) : null;
+	}
+
+	public static ImmutableSet<String> getContentTypes()
+	{
+		return serializersByContentType.keySet();
+	}
+}
@@ -1,5 +1,7 @@
 package de.metas.event.remote;
 
+import java.util.List;
+
 import de.metas.event.Event;
 import de.metas.event.IEventBus;
 import de.metas.event.IEventListener;
@@ -20,6 +22,14 @@ public interface IEventBusRemoteEndpoint
 	 */
 	void sendEvent(String topicName, Event event);
 
+	/**
+	 * Same as {@link #sendEvent(String, Event)}, but for many events. Endpoints which are able to do so shall send them in one go.
+	 */
+	default void sendEvents(final String topicName, final List<Event> events)
+	{
+		events.forEach(event -> sendEvent(topicName, event));
+	}
+
 	/**
 	 * Bind given event bus to this remote endpoint, so events the from bus will be forwarded to remote endpoint and vice-versa.<br>
 	 * Binding is done by subscribing an event listener to the given <code>eventBus</code> whose job it is to forward events to a remote topic.<br>
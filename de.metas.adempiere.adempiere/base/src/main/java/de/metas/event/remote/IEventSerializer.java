@@ -25,6 +25,8 @@ import com.google.common.annotations.VisibleForTesting;
  */
 
 
+import java.util.List;
+
 import de.metas.event.Event;
 
 /**
@@ -39,4 +41,19 @@ public interface IEventSerializer
 	String toString(Event event);
 
 	Event fromString(String eventStr);
+
+	/**
+	 * @return the content type of the payloads created by {@link #toBytes(List)}; shall be unique among serializers, because the receiver picks the deserializer by it.
+	 */
+	String getContentType();
+
+	/**
+	 * Serializes the given events into one payload (frame), so that they can be sent in one message.
+	 */
+	byte[] toBytes(List<Event> events);
+
+	/**
+	 * Deserializes the events from a payload created by {@link #toBytes(List)}.
+	 */
+	List<Event> fromBytes(byte[] bytes);
 }
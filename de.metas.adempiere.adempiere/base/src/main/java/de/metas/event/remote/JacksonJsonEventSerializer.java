@@ -1,5 +1,14 @@
 package de.metas.event.remote;
 
+import java.io.IOException;
+import java.util.List;
+
+import org.adempiere.exceptions.AdempiereException;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.metas.JsonObjectMapperHolder;
 import de.metas.event.Event;
 import de.metas.util.JSONObjectMapper;
 
@@ -29,11 +38,19 @@ public class JacksonJsonEventSerializer implements IEventSerializer
 {
 	public static final transient JacksonJsonEventSerializer instance = new JacksonJsonEventSerializer();
 
+	public static final String CONTENT_TYPE = "application/vnd.metasfresh.events+json";
+
 	private final JSONObjectMapper<Event> delegate;
 
+	private final ObjectMapper jsonObjectMapper;
+	private final JavaType eventsListType;
+
 	private JacksonJsonEventSerializer()
 	{
 		delegate = JSONObjectMapper.forClass(Event.class);
+
+		jsonObjectMapper = JsonObjectMapperHolder.sharedJsonObjectMapper();
+		eventsListType = jsonObjectMapper.getTypeFactory().constructCollectionType(List.class, Event.class);
 	}
 
 	@Override
@@ -47,4 +64,37 @@ public class JacksonJsonEventSerializer implements IEventSerializer
 	{
 		return delegate.readValue(eventStr);
 	}
+
+	@Override
+	public String getContentType()
+	{
+		return CONTENT_TYPE;
+	}
+
+	@Override
+	public byte[] toBytes(final List<Event> events)
+	{
+		try
+		{
+			// NOTE: not pretty printed because it's meant to be sent over the wire
+			return jsonObjectMapper.writeValueAsBytes(events);
+		}
+		catch (final IOException ex)
+		{
+			throw new AdempiereException("Failed converting events to json: " + events, ex);
+		}
+	}
+
+	@Override
+	public List<Event> fromBytes(final byte[] bytes)
+	{
+		try
+		{
+			return jsonObjectMapper.readValue(bytes, eventsListType);
+		}
+		catch (final IOException ex)
+		{
+			throw new AdempiereException("Failed converting json to events", ex);
+		}
+	}
 }
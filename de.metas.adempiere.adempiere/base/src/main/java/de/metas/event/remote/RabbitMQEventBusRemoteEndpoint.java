@@ -1,13 +1,18 @@
 package de.metas.event.remote;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 import org.slf4j.Logger;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 import de.metas.event.Event;
 import de.metas.event.EventBusConstants;
@@ -43,12 +48,29 @@ import lombok.NonNull;
  * #L%
  */
 
+/**
+ * Sends and receives {@link Event}s via RabbitMQ.
+ * <p>
+ * Events of topics which use the (default) JSON format are sent as one JSON {@link Event} per message, like it always was, also when they were posted as a batch.
+ * Events of topics with a binary format (see {@link EventSerializers}) are sent as frames:
+ * one message which contains a list of up to {@value #DEFAULT_MaxEventsPerMessage} (see {@value #SYSTEM_PROPERTY_MaxEventsPerMessage}) events,
+ * serialized by the topic's {@link IEventSerializer} and having its content type.
+ * <p>
+ * Batches of JSON events are sent as frames too, if system property {@value #SYSTEM_PROPERTY_SendJsonFrames} is <code>true</code>.
+ * It is off by default, because nodes which don't know about frames can't read them; turn it on only when all nodes are able to receive frames.
+ */
 public class RabbitMQEventBusRemoteEndpoint implements IEventBusRemoteEndpoint
 {
 	private static final Logger logger = LogManager.getLogger(RabbitMQEventBusRemoteEndpoint.class);
 
 	private static final String HEADER_SenderId = "metasfresh-events.SenderId";
 	private static final String HEADER_TopicName = "metasfresh-events.TopicName";
+	private static final String HEADER_EventsCount = "metasfresh-events.EventsCount";
+
+	public static final String SYSTEM_PROPERTY_MaxEventsPerMessage = "de.metas.event.remote.maxEventsPerMessage";
+	private static final int DEFAULT_MaxEventsPerMessage = 1000;
+
+	public static final String SYSTEM_PROPERTY_SendJsonFrames = "de.metas.event.remote.sendJsonFrames";
 
 	private final String senderId;
 	private final AmqpTemplate amqpTemplate;
@@ -61,12 +83,15 @@ public class RabbitMQEventBusRemoteEndpoint implements IEventBusRemoteEndpoint
 		this.amqpTemplate = amqpTemplate;
 	}
 
+	/**
+	 * Receives both single JSON events and event frames. The raw message is taken in order to deserialize it ourselves, according to its content type.
+	 */
 	@RabbitListener(queues = AMQPEventBusConfiguration.EVENTS_QUEUE_NAME_SPEL)
-	public void onRemoteEvent(
-			@Payload final Event event,
-			@Header(HEADER_SenderId) final String senderId,
-			@Header(HEADER_TopicName) final String topicName)
+	public void onRemoteMessage(@NonNull final Message message)
 	{
+		final Map<String, Object> headers = message.getMessageProperties().getHeaders();
+		final String senderId = (String)headers.get(HEADER_SenderId);
+		final String topicName = (String)headers.get(HEADER_TopicName);
 		try
 		{
 			if (Objects.equals(getSenderId(), senderId))
@@ -81,31 +106,70 @@ public class RabbitMQEventBusRemoteEndpoint implements IEventBusRemoteEndpoint
 				return;
 			}
 
-			event.markReceivedByEventBusId(createEventBusId(topicName));
+			final List<Event> events = extractEvents(message);
+			final String eventBusId = createEventBusId(topicName);
+			events.forEach(event -> event.markReceivedByEventBusId(eventBusId));
 
-			eventBus.postEvent(event);
+			if (events.size() == 1)
+			{
+				eventBus.postEvent(events.get(0));
+			}
+			else
+			{
+				eventBus.postEvents(events);
+			}
 
-			final long durationMillis = System.currentTimeMillis() - event.getWhen().toEpochMilli();
-			logger.debug("Received event in {}ms, topic={}: {}", durationMillis, topicName, event);
+			if (logger.isDebugEnabled() && !events.isEmpty())
+			{
+				final long durationMillis = System.currentTimeMillis() - events.get(0).getWhen().toEpochMilli();
+				logger.debug("Received {} events in {}ms, topic={}: {}", events.size(), durationMillis, topicName, events);
+			}
 		}
 		catch (final Exception ex)
 		{
-			logger.warn("Failed forwarding event to topic {}: {}", topicName, event, ex);
+			logger.warn("Failed forwarding events to topic {}: {}", topicName, message, ex);
 		}
 	}
 
+	private static List<Event> extractEvents(final Message message)
+	{
+		final String contentType = message.getMessageProperties().getContentType();
+		final IEventSerializer frameSerializer = EventSerializers.getByContentTypeOrNull(contentType);
+		if (frameSerializer != null)
+		{
+			return frameSerializer.fromBytes(message.getBody());
+		}
+
+		// a single event, sent as JSON
+		final String json = new String(message.getBody(), StandardCharsets.UTF_8);
+		return ImmutableList.of(JacksonJsonEventSerializer.instance.fromString(json));
+	}
+
 	@Override
 	public void sendEvent(final String topicName, final Event event)
 	{
-		try
+		// If the event comes from this bus, don't forward it back
+		final String eventBusId = createEventBusId(topicName);
+		if (event.wasReceivedByEventBusId(eventBusId))
 		{
-			// If the event comes from this bus, don't forward it back
-			final String eventBusId = createEventBusId(topicName);
-			if (event.wasReceivedByEventBusId(eventBusId))
-			{
-				return;
-			}
+			return;
+		}
 
+		final IEventSerializer serializer = EventSerializers.getForTopicName(topicName);
+		if (serializer instanceof JacksonJsonEventSerializer)
+		{
+			sendSingleJsonEvent(topicName, event);
+		}
+		else
+		{
+			sendFrame(topicName, ImmutableList.of(event), serializer);
+		}
+	}
+
+	private void sendSingleJsonEvent(final String topicName, final Event event)
+	{
+		try
+		{
 			amqpTemplate.convertAndSend(AMQPEventBusConfiguration.EVENTS_EXCHANGE_NAME, "", event, message -> {
 				final Map<String, Object> headers = message.getMessageProperties().getHeaders();
 				headers.put(HEADER_SenderId, getSenderId());
@@ -121,6 +185,64 @@ public class RabbitMQEventBusRemoteEndpoint implements IEventBusRemoteEndpoint
 		}
 	}
 
+	@Override
+	public void sendEvents(final String topicName, final List<Event> events)
+	{
+		// If the event comes from this bus, don't forward it back
+		final String eventBusId = createEventBusId(topicName);
+		final List<Event> eventsToSend = events.stream()
+				.filter(event -> !event.wasReceivedByEventBusId(eventBusId))
+				.collect(ImmutableList.toImmutableList());
+		if (eventsToSend.isEmpty())
+		{
+			return;
+		}
+
+		final IEventSerializer serializer = EventSerializers.getForTopicName(topicName);
+		if (serializer instanceof JacksonJsonEventSerializer && !isSendJsonFrames())
+		{
+			eventsToSend.forEach(event -> sendSingleJsonEvent(topicName, event));
+			return;
+		}
+
+		for (final List<Event> frameEvents : Lists.partition(eventsToSend, getMaxEventsPerMessage()))
+		{
+			sendFrame(topicName, frameEvents, serializer);
+		}
+	}
+
+	private void sendFrame(final String topicName, final List<Event> events, final IEventSerializer serializer)
+	{
+		try
+		{
+			final Message message = MessageBuilder.withBody(serializer.toBytes(events))
+					.setContentType(serializer.getContentType())
+					.setHeader(HEADER_SenderId, getSenderId())
+					.setHeader(HEADER_TopicName, topicName)
+					.setHeader(HEADER_EventsCount, events.size())
+					.build();
+
+			amqpTemplate.send(AMQPEventBusConfiguration.EVENTS_EXCHANGE_NAME, "", message);
+
+			logger.debug("Send {} events; topicName={}; contentType={}; bytes={}", events.size(), topicName, serializer.getContentType(), message.getBody().length);
+		}
+		catch (final Exception e)
+		{
+			logger.warn(StringUtils.formatMessage("Failed to send events to topic name. Ignored; topicName={}; events={}", topicName, events), e);
+		}
+	}
+
+	private static boolean isSendJsonFrames()
+	{
+		return Boolean.getBoolean(SYSTEM_PROPERTY_SendJsonFrames);
+	}
+
+	private static int getMaxEventsPerMessage()
+	{
+		final int maxEventsPerMessage = Integer.getInteger(SYSTEM_PROPERTY_MaxEventsPerMessage, DEFAULT_MaxEventsPerMessage);
+		return maxEventsPerMessage > 0 ? maxEventsPerMessage : DEFAULT_MaxEventsPerMessage;
+	}
+
 	private final String createEventBusId(final String topicName)
 	{
 		return getSenderId() + "_" + topicName;
@@ -466,6 +466,25 @@ public class POJOQuery<T> extends AbstractTypedQuery<T>
 		}
 	}
 
+	/**
+	 * Loads all records at once, but returns them the same way as the SQL implementation: ordered by primary key, ignoring the query's ORDER BY.
+	 */
+	@Override
+	public <ET extends T> Iterator<ET> iterateKeyset(final Class<ET> clazz) throws DBException
+	{
+		assertNoUnionQueries();
+		if (offset > 0)
+		{
+			throw new UnsupportedOperationException("Using offset option is not supported by keyset iteration");
+		}
+
+		final List<ET> records = copy().setOrderBy(null).list(clazz);
+		records.sort(Comparator.comparingInt(InterfaceWrapperHelper::getId));
+		return records.stream()
+				.limit(limit > 0 ? limit : Long.MAX_VALUE)
+				.iterator();
+	}
+
 	@Override
 	public boolean match() throws DBException
 	{
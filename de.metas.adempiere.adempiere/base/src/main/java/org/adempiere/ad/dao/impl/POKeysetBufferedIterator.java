@@ -0,0 +1,282 @@
+package org.adempiere.ad.dao.impl;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.lang.Mutable;
+import org.compiere.model.IQuery;
+import org.slf4j.Logger;
+
+import de.metas.logging.LogManager;
+import de.metas.util.Check;
+import de.metas.util.Services;
+import lombok.NonNull;
+
+/**
+ * Buffered {@link Iterator} over a {@link TypedSqlQuery} result, which is paging by primary key ("keyset pagination" or "seek method").
+ * <p>
+ * Instead of <code>OFFSET</code> (see {@link POBufferedIterator}) or building a selection first (see {@link GuaranteedPOBufferedIterator}),
+ * each page is loaded by <code>WHERE KeyColumn > (last key of previous page) ORDER BY KeyColumn LIMIT (page size)</code>,
+ * so loading a page costs the same, no matter how deep we are in the table.
+ * <p>
+ * Things to consider:
+ * <ul>
+ * <li>the records are always returned ordered by primary key. The query's ORDER BY is ignored.
+ * <li>the table shall have exactly one numeric key column. Queries with OFFSET or UNIONs are not supported.
+ * <li>the query's LIMIT is the maximum number of records returned by the whole iteration, not the page size.
+ * <li>this is not a snapshot: records which are changed while iterating are returned as they are when their page is loaded.
+ * <li>if the query is not running in a transaction, the next page is loaded in background (also out of transaction) while the current page is consumed.
+ * <li>the iterator is closed when its end was reached. If you stop iterating earlier, please call {@link #close()}.
+ * </ul>
+ *
+ * @param <ET> model interface
+ */
+/* package */final class POKeysetBufferedIterator<ET> implements Iterator<ET>, Closeable
+{
+	private static final transient Logger logger = LogManager.getLogger(POKeysetBufferedIterator.class);
+
+	/* package */ static final int DEFAULT_BufferSize = 500;
+
+	private static final ExecutorService prefetchExecutor = Executors.newCachedThreadPool(CustomizableThreadFactory.builder()
+			.setThreadNamePrefix(POKeysetBufferedIterator.class.getName() + "-prefetch")
+			.setDaemon(true)
+			.build());
+
+	/** Loads up to <code>pageSize</code> records whose key is greater than <code>afterKey</code> (if not null), ordered by key */
+	@FunctionalInterface
+	/* package */ interface PageLoader<ET>
+	{
+		List<ET> retrievePage(@Nullable Integer afterKey, int pageSize);
+	}
+
+	/* package */ static <T, ET extends T> POKeysetBufferedIterator<ET> of(
+			@NonNull final TypedSqlQuery<T> query,
+			@Nullable final Class<ET> clazz,
+			final int bufferSize,
+			final int limit)
+	{
+		final String keyColumnName = query.getKeyColumnName(); // fails if there is not exactly one key column
+		final String keyColumnNameFQ = query.getTableName() + "." + keyColumnName;
+
+		final TypedSqlQuery<T> queryOrderedByKey = query.copy().setOrderBy(keyColumnNameFQ);
+		final PageLoader<ET> pageLoader = (afterKey, pageSize) -> {
+			final TypedSqlQuery<T> pageQuery = afterKey == null
+					? queryOrderedByKey.copy()
+					: queryOrderedByKey.addWhereClause(true, keyColumnNameFQ + " > " + afterKey);
+			return pageQuery.setLimit(pageSize).list(clazz);
+		};
+
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final boolean prefetch = trxManager.isNull(trxManager.get(query.getTrxName(), OnTrxMissingPolicy.ReturnTrxNone));
+
+		return new POKeysetBufferedIterator<>(pageLoader, InterfaceWrapperHelper::getId, bufferSize, limit, prefetch);
+	}
+
+	private final PageLoader<ET> pageLoader;
+	private final ToIntFunction<ET> keyExtractor;
+	private final int bufferSize;
+	/** Max number of records to return or {@link IQuery#NO_LIMIT} */
+	private final int limit;
+	private final boolean prefetch;
+
+	private Iterator<ET> bufferIterator;
+	/** Last key of the last loaded page or null if no page was loaded yet */
+	private Integer lastKey = null;
+	/** True when the last loaded page was a short one or the limit was reached, i.e. there are no more pages */
+	private boolean lastPageLoaded = false;
+	private CompletableFuture<List<ET>> nextPageFuture;
+	private int recordsLoaded = 0;
+	private int pagesLoaded = 0;
+	private int pagesPrefetched = 0;
+	private boolean closed = false;
+
+	/* package */ POKeysetBufferedIterator(
+			@NonNull final PageLoader<ET> pageLoader,
+			@NonNull final ToIntFunction<ET> keyExtractor,
+			final int bufferSize,
+			final int limit,
+			final boolean prefetch)
+	{
+		Check.assume(bufferSize > 0, "bufferSize > 0");
+
+		this.pageLoader = pageLoader;
+		this.keyExtractor = keyExtractor;
+		this.bufferSize = bufferSize;
+		this.limit = limit > 0 ? limit : IQuery.NO_LIMIT;
+		this.prefetch = prefetch;
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		if (closed)
+		{
+			return false;
+		}
+
+		while (bufferIterator == null || !bufferIterator.hasNext())
+		{
+			if (bufferIterator != null && lastPageLoaded)
+			{
+				close();
+				return false;
+			}
+
+			setCurrentPage(retrieveNextPage());
+		}
+
+		return true;
+	}
+
+	@Override
+	public ET next()
+	{
+		if (!hasNext())
+		{
+			throw new AdempiereException("No more elements in " + this);
+		}
+
+		return bufferIterator.next();
+	}
+
+	@Override
+	public void close()
+	{
+		if (closed)
+		{
+			return;
+		}
+
+		closed = true;
+		bufferIterator = Collections.emptyIterator();
+
+		if (nextPageFuture != null)
+		{
+			nextPageFuture.cancel(false);
+			nextPageFuture = null;
+		}
+
+		logger.debug("Closed {}", this);
+	}
+
+	private List<ET> retrieveNextPage()
+	{
+		final CompletableFuture<List<ET>> nextPageFuture = this.nextPageFuture;
+		this.nextPageFuture = null;
+		if (nextPageFuture == null)
+		{
+			return retrievePage(lastKey, computeNextPageSize());
+		}
+
+		try
+		{
+			return nextPageFuture.get();
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw AdempiereException.wrapIfNeeded(ex);
+		}
+		catch (final ExecutionException ex)
+		{
+			throw AdempiereException.wrapIfNeeded(ex.getCause());
+		}
+	}
+
+	private int computeNextPageSize()
+	{
+		return limit > 0 ? Math.min(bufferSize, limit - recordsLoaded) : bufferSize;
+	}
+
+	private void setCurrentPage(final List<ET> page)
+	{
+		final int pageSize = computeNextPageSize();
+
+		pagesLoaded++;
+		recordsLoaded += page.size();
+		bufferIterator = page.iterator();
+		lastPageLoaded = page.size() < pageSize || (limit > 0 && recordsLoaded >= limit);
+		if (!page.isEmpty())
+		{
+			lastKey = keyExtractor.applyAsInt(page.get(page.size() - 1));
+		}
+
+		logger.debug("Loaded page {}: {} records, lastKey={}, lastPage={}", pagesLoaded, page.size(), lastKey, lastPageLoaded);
+
+		//
+		// Start loading the next page while the current one is consumed
+		if (prefetch && !lastPageLoaded)
+		{
+			final Integer afterKey = lastKey;
+			final int nextPageSize = computeNextPageSize();
+			nextPageFuture = CompletableFuture.supplyAsync(() -> retrievePageOutOfTrx(afterKey, nextPageSize), prefetchExecutor);
+			pagesPrefetched++;
+		}
+	}
+
+	private List<ET> retrievePage(@Nullable final Integer afterKey, final int pageSize)
+	{
+		return pageLoader.retrievePage(afterKey, pageSize);
+	}
+
+	/**
+	 * Loads the page with no thread inherited transaction, because the prefetch thread might have inherited the transaction of the thread which created it.
+	 */
+	private List<ET> retrievePageOutOfTrx(@Nullable final Integer afterKey, final int pageSize)
+	{
+		final Mutable<List<ET>> page = new Mutable<>();
+		Services.get(ITrxManager.class).runOutOfTransaction(localTrxName -> page.setValue(retrievePage(afterKey, pageSize)));
+		return page.getValue();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "POKeysetBufferedIterator [bufferSize=" + bufferSize
+				+ ", limit=" + limit
+				+ ", prefetch=" + prefetch
+				+ ", lastKey=" + lastKey
+				+ ", recordsLoaded=" + recordsLoaded
+				+ ", pagesLoaded=" + pagesLoaded
+				+ ", pagesPrefetched=" + pagesPrefetched
+				+ ", closed=" + closed
+				+ ", pageLoader=" + pageLoader
+				+ "]";
+	}
+}
@@ -22,6 +22,7 @@ package org.adempiere.model;
  * #L%
  */
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -60,6 +61,7 @@ import org.compiere.model.GridField;
 import org.compiere.model.GridTab;
 import org.compiere.model.I_AD_Issue;
 import org.compiere.model.PO;
+import org.compiere.model.POBatchSaver;
 import org.compiere.model.POInfo;
 import org.compiere.util.Env;
 import org.compiere.util.Evaluatee;
@@ -605,6 +607,35 @@ public class InterfaceWrapperHelper
 		models.forEach(InterfaceWrapperHelper::saveRecord);
 	}
 
+	/**
+	 * Saves the given models like {@link #saveAll(Collection)} does, but the INSERT/UPDATE statements of {@link PO} based models are executed in JDBC batches.
+	 * <p>
+	 * Note that the model interceptors are invoked in a different order, see {@link POBatchSaver}. Models which are not PO based are saved one by one, before the PO based ones.
+	 */
+	public static void saveAllBatched(@NonNull final Collection<?> models)
+	{
+		if (models.isEmpty())
+		{
+			return;
+		}
+
+		final List<PO> pos = new ArrayList<>(models.size());
+		for (final Object model : models)
+		{
+			final Object modelToSave = extractModelToSave(model);
+			if (modelToSave != null && POWrapper.isHandled(modelToSave))
+			{
+				pos.add(POWrapper.getStrictPO(modelToSave));
+			}
+			else
+			{
+				save(model);
+			}
+		}
+
+		POBatchSaver.saveAll(pos);
+	}
+
 	/**
 	 * Does the same as {@link #save(Object)},
 	 * but this method can be static-imported into repository implementations which usually have their own method named "save()".
@@ -55,6 +55,7 @@ import com.google.common.collect.ListMultimap;
 import de.metas.dao.selection.pagination.QueryResultPage;
 import de.metas.process.PInstanceId;
 import de.metas.security.permissions.Access;
+import de.metas.util.collections.IteratorUtils;
 import de.metas.util.lang.RepoIdAware;
 import lombok.Getter;
 import lombok.NonNull;
@@ -247,6 +248,31 @@ public interface IQuery<T>
 	 */
 	<ET extends T> Iterator<ET> iterate(Class<ET> clazz) throws DBException;
 
+	/**
+	 * Returns an {@link Iterator} over current query selection, which loads the records page by page, by primary key ("keyset pagination").
+	 *
+	 * Compared to {@link #iterate(Class)}, loading a page costs the same no matter how deep we are in the table, so it's the way to go when walking over big tables.
+	 * But:
+	 * <ul>
+	 * <li>the records are returned ordered by primary key (the query's ORDER BY is ignored)
+	 * <li>the table shall have exactly one numeric key column; queries with OFFSET or UNIONs are not supported
+	 * <li>the query's LIMIT, if any, is the maximum number of records returned by the whole iteration
+	 * <li>it's not a snapshot of the query selection, i.e. records which are changed while iterating are returned as they are when their page is loaded
+	 * </ul>
+	 *
+	 * The page size is taken from {@link #OPTION_IteratorBufferSize}. If the query is not running in a transaction, the next page is loaded in background while the current one is consumed.
+	 * <p>
+	 * The returned iterator is closed when its end was reached. If you stop iterating earlier, close it (e.g. {@link IteratorUtils#close(Iterator)}).
+	 *
+	 * @param clazz model interface class
+	 * @throws UnsupportedOperationException if this query implementation can't guarantee the primary key order
+	 */
+	default <ET extends T> Iterator<ET> iterateKeyset(final Class<ET> clazz) throws DBException
+	{
+		// don't fall back to iterate(), because callers rely on the primary key order
+		throw new UnsupportedOperationException("Keyset iteration is not supported by " + getClass().getName());
+	}
+
 	<ET extends T> QueryResultPage<ET> paginate(Class<ET> clazz, int pageSize) throws DBException;
 
 	/**
@@ -570,4 +596,17 @@ public interface IQuery<T>
 	{
 		return list(clazz).stream();
 	}
+
+	/**
+	 * Streams all records that match the query criteria, using {@link #iterateKeyset(Class)}.
+	 * <p>
+	 * Please use it in a try-with-resources block, so that the underlying iterator is closed when you are done.
+	 */
+	default <ET extends T> Stream<ET> streamKeyset(final Class<ET> clazz) throws DBException
+	{
+		final Iterator<ET> iterator = iterateKeyset(clazz);
+		final boolean parallel = false;
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), parallel)
+				.onClose(() -> IteratorUtils.close(iterator));
+	}
 }
@@ -0,0 +1,431 @@
+package org.compiere.model;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.exceptions.DBException;
+import org.adempiere.util.concurrent.CloseableReentrantLock;
+import org.adempiere.util.jmx.JMXRegistry;
+import org.adempiere.util.jmx.JMXRegistry.OnJMXAlreadyExistsPolicy;
+import org.compiere.util.DB;
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import de.metas.logging.LogManager;
+import lombok.NonNull;
+
+/**
+ * Node-local pool of table IDs, used by {@link MSequence#getNextID(int, String, String)}.
+ * <p>
+ * Instead of locking and updating the table's <code>AD_Sequence</code> record for each single ID, the pool reserves a whole block of IDs with one statement
+ * and then hands them out in-process without any locking. Only the thread which finds the block exhausted has to reserve the next one;
+ * the other threads which need an ID of the same table in the meantime wait for it.
+ * <p>
+ * The size of the reserved blocks adapts to the insert rate: if a table's block was used up quickly, the next block is twice as large, up to {@link #SYSTEM_PROPERTY_BlockSizeMax};
+ * if it lasted long, the next block is half as large, down to {@link #SYSTEM_PROPERTY_BlockSizeMin}.
+ * <p>
+ * Note that the IDs which were reserved but not used when the JVM stops are lost, so there will be gaps. Also, the records which are created concurrently on different nodes
+ * won't have ascending IDs in the order of their creation anymore.
+ * <p>
+ * The pool is disabled by default; set the system property {@link #SYSTEM_PROPERTY_Enabled} to <code>true</code> to enable it.
+ */
+public final class MSequenceIdPool
+{
+	private static final Logger logger = LogManager.getLogger(MSequenceIdPool.class);
+
+	private static final String SYSTEM_PROPERTY_Enabled = "org.compiere.model.MSequenceIdPool.Enabled";
+	private static final String SYSTEM_PROPERTY_BlockSizeMin = "org.compiere.model.MSequenceIdPool.BlockSizeMin";
+	private static final String SYSTEM_PROPERTY_BlockSizeMax = "org.compiere.model.MSequenceIdPool.BlockSizeMax";
+	private static final int DEFAULT_BlockSizeMin = 20;
+	private static final int DEFAULT_BlockSizeMax = 1000;
+
+	/** If a block was used up faster than this, the next block is larger */
+	private static final long GROW_IF_REFILLED_WITHIN_NANOS = TimeUnit.SECONDS.toNanos(1);
+	/** If a block lasted longer than this, the next block is smaller */
+	private static final long SHRINK_IF_REFILLED_AFTER_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+	private static final MSequenceIdPool instance = new MSequenceIdPool(
+			new AD_Sequence_IdBlockAllocator(),
+			System::nanoTime,
+			Boolean.getBoolean(SYSTEM_PROPERTY_Enabled),
+			Integer.getInteger(SYSTEM_PROPERTY_BlockSizeMin, DEFAULT_BlockSizeMin),
+			Integer.getInteger(SYSTEM_PROPERTY_BlockSizeMax, DEFAULT_BlockSizeMax));
+
+	public static MSequenceIdPool get()
+	{
+		return instance;
+	}
+
+	private final IdBlockAllocator allocator;
+	private final LongSupplier nanoTimeSupplier;
+	private volatile boolean enabled;
+	private final int blockSizeMin;
+	private final int blockSizeMax;
+
+	private final ConcurrentHashMap<String, TableIdPool> poolsByTableName = new ConcurrentHashMap<>();
+
+	private final LongAdder idsCount = new LongAdder();
+	private final LongAdder refillsCount = new LongAdder();
+	private final LongAdder waitsCount = new LongAdder();
+	private final LongAdder refillNanosTotal = new LongAdder();
+
+	@VisibleForTesting
+	MSequenceIdPool(
+			@NonNull final IdBlockAllocator allocator,
+			@NonNull final LongSupplier nanoTimeSupplier,
+			final boolean enabled,
+			final int blockSizeMin,
+			final int blockSizeMax)
+	{
+		this.allocator = allocator;
+		this.nanoTimeSupplier = nanoTimeSupplier;
+		this.enabled = enabled;
+		this.blockSizeMin = Math.max(blockSizeMin, 1);
+		this.blockSizeMax = Math.max(blockSizeMax, this.blockSizeMin);
+
+		if (allocator instanceof AD_Sequence_IdBlockAllocator)
+		{
+			JMXRegistry.get().registerJMX(new MSequenceIdPoolJMX(this), OnJMXAlreadyExistsPolicy.Replace);
+		}
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+		logger.info("Set enabled={}", enabled);
+	}
+
+	public int getBlockSizeMin()
+	{
+		return blockSizeMin;
+	}
+
+	public int getBlockSizeMax()
+	{
+		return blockSizeMax;
+	}
+
+	/**
+	 * @return next ID of the given table; never returns a value &lt;= 0
+	 */
+	public int getNextId(@NonNull final String tableName)
+	{
+		final TableIdPool pool = poolsByTableName.computeIfAbsent(tableName, TableIdPool::new);
+		final int id = pool.nextId();
+		idsCount.increment();
+		return id;
+	}
+
+	/**
+	 * Drops all the reserved but not yet used IDs. They won't be handed out anymore.
+	 */
+	public void clear()
+	{
+		poolsByTableName.clear();
+	}
+
+	public long getIdsCount()
+	{
+		return idsCount.sum();
+	}
+
+	public long getRefillsCount()
+	{
+		return refillsCount.sum();
+	}
+
+	public long getWaitsCount()
+	{
+		return waitsCount.sum();
+	}
+
+	public long getRefillMillisTotal()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(refillNanosTotal.sum());
+	}
+
+	public void resetStatistics()
+	{
+		idsCount.reset();
+		refillsCount.reset();
+		waitsCount.reset();
+		refillNanosTotal.reset();
+	}
+
+	/**
+	 * @return one line per table, with the table's current block size and how many reserved IDs are still available
+	 */
+	public List<String> getTablesInfo()
+	{
+		final List<String> infos = new ArrayList<>(poolsByTableName.size());
+		for (final TableIdPool pool : poolsByTableName.values())
+		{
+			infos.add(pool.toInfoString());
+		}
+		infos.sort(null);
+		return infos;
+	}
+
+	@VisibleForTesting
+	int getCurrentBlockSize(final String tableName)
+	{
+		final TableIdPool pool = poolsByTableName.get(tableName);
+		return pool != null ? pool.blockSize : blockSizeMin;
+	}
+
+	private final class TableIdPool
+	{
+		private final String tableName;
+		private final AtomicReference<IdBlock> currentBlock = new AtomicReference<>(IdBlock.EMPTY);
+		private final CloseableReentrantLock refillLock = new CloseableReentrantLock();
+
+		// changed only while holding the refillLock
+		private volatile int blockSize = blockSizeMin;
+		private boolean refilledBefore = false;
+		private long lastRefillNanos = 0;
+
+		private TableIdPool(final String tableName)
+		{
+			this.tableName = tableName;
+		}
+
+		public int nextId()
+		{
+			while (true)
+			{
+				final IdBlock block = currentBlock.get();
+				final int id = block.nextIdOrZero();
+				if (id > 0)
+				{
+					return id;
+				}
+
+				refillIfStillCurrent(block);
+			}
+		}
+
+		private void refillIfStillCurrent(final IdBlock exhaustedBlock)
+		{
+			if (!refillLock.tryLock())
+			{
+				waitsCount.increment();
+				refillLock.lock();
+			}
+
+			try (final CloseableReentrantLock lock = refillLock)
+			{
+				if (currentBlock.get() != exhaustedBlock)
+				{
+					return; // another thread refilled the pool while we were waiting
+				}
+
+				final long nowNanos = nanoTimeSupplier.getAsLong();
+				if (refilledBefore)
+				{
+					updateBlockSize(nowNanos - lastRefillNanos);
+				}
+
+				final IdBlock block = allocator.allocate(tableName, blockSize);
+				final long refillNanos = nanoTimeSupplier.getAsLong() - nowNanos;
+
+				currentBlock.set(block);
+				refilledBefore = true;
+				lastRefillNanos = nowNanos;
+
+				refillsCount.increment();
+				refillNanosTotal.add(refillNanos);
+				logger.debug("Reserved {} for {}", block, tableName);
+			}
+		}
+
+		private void updateBlockSize(final long nanosSinceLastRefill)
+		{
+			if (nanosSinceLastRefill < GROW_IF_REFILLED_WITHIN_NANOS)
+			{
+				blockSize = Math.min(blockSize * 2, blockSizeMax);
+			}
+			else if (nanosSinceLastRefill > SHRINK_IF_REFILLED_AFTER_NANOS)
+			{
+				blockSize = Math.max(blockSize / 2, blockSizeMin);
+			}
+		}
+
+		public String toInfoString()
+		{
+			return tableName + ": blockSize=" + blockSize + ", available=" + currentBlock.get().getAvailableCount();
+		}
+	}
+
+	/**
+	 * A range of reserved IDs: <code>firstId, firstId + increment, ..., firstId + (size - 1) * increment</code>.
+	 */
+	static final class IdBlock
+	{
+		static final IdBlock EMPTY = new IdBlock(0, 1, 0);
+
+		private final int firstId;
+		private final int increment;
+		private final int size;
+
+		private final AtomicInteger nextIndex = new AtomicInteger(0);
+
+		IdBlock(final int firstId, final int increment, final int size)
+		{
+			if (size > 0 && firstId <= 0)
+			{
+				throw new AdempiereException("Invalid firstId=" + firstId);
+			}
+			if (increment <= 0)
+			{
+				throw new AdempiereException("Invalid increment=" + increment);
+			}
+
+			this.firstId = firstId;
+			this.increment = increment;
+			this.size = size;
+		}
+
+		/**
+		 * @return next ID or zero if the block is exhausted
+		 */
+		int nextIdOrZero()
+		{
+			if (nextIndex.get() >= size)
+			{
+				return 0; // don't increment an exhausted block's counter, so it can't overflow
+			}
+
+			final int index = nextIndex.getAndIncrement();
+			return index < size ? firstId + index * increment : 0;
+		}
+
+		int getAvailableCount()
+		{
+			return Math.max(size - nextIndex.get(), 0);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "IdBlock[" + firstId + ", increment=" + increment + ", size=" + size + "]";
+		}
+	}
+
+	@FunctionalInterface
+	interface IdBlockAllocator
+	{
+		IdBlock allocate(String tableName, int blockSize);
+	}
+
+	/**
+	 * Reserves a block of IDs by advancing the table's <code>AD_Sequence.CurrentNext</code> with one statement, out of transaction.
+	 */
+	private static final class AD_Sequence_IdBlockAllocator implements IdBlockAllocator
+	{
+		private static final String SQL_Update = "UPDATE AD_Sequence SET CurrentNext = CurrentNext + IncrementNo * ?"
+				+ " WHERE Name=? AND IsActive='Y' AND IsTableID='Y' AND IsAutoSequence='Y'"
+				+ " RETURNING CurrentNext, IncrementNo";
+
+		@Override
+		public IdBlock allocate(final String tableName, final int blockSize)
+		{
+			Connection conn = null;
+			PreparedStatement pstmt = null;
+			ResultSet rs = null;
+			try
+			{
+				conn = DB.getConnectionID();
+				pstmt = conn.prepareStatement(SQL_Update);
+				pstmt.setInt(1, blockSize);
+				pstmt.setString(2, tableName);
+				if (DB.getDatabase().isQueryTimeoutSupported())
+				{
+					pstmt.setQueryTimeout(MSequence.QUERY_TIME_OUT);
+				}
+
+				rs = pstmt.executeQuery();
+				if (!rs.next())
+				{
+					throw new AdempiereException("No AD_Sequence found for " + tableName);
+				}
+
+				final int currentNextAfterUpdate = rs.getInt(1);
+				final int incrementNo = rs.getInt(2);
+				final IdBlock block = new IdBlock(currentNextAfterUpdate - incrementNo * blockSize, incrementNo, blockSize);
+
+				conn.commit();
+				return block;
+			}
+			catch (final SQLException e)
+			{
+				rollback(conn);
+				throw new DBException(e, SQL_Update);
+			}
+			catch (final RuntimeException e)
+			{
+				rollback(conn);
+				throw e;
+			}
+			finally
+			{
+				DB.close(rs, pstmt);
+				DB.close(conn);
+			}
+		}
+
+		private static void rollback(final Connection conn)
+		{
+			if (conn == null)
+			{
+				return;
+			}
+			try
+			{
+				conn.rollback();
+			}
+			catch (final SQLException e)
+			{
+				logger.warn("Failed rolling back {}", conn, e);
+			}
+		}
+	}
+}
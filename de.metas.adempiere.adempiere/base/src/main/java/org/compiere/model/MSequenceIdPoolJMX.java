@@ -0,0 +1,112 @@
+package org.compiere.model;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import org.adempiere.util.jmx.IJMXNameAware;
+
+import lombok.NonNull;
+
+/**
+ * JMX bean for {@link MSequenceIdPool}.
+ */
+public class MSequenceIdPoolJMX implements MSequenceIdPoolJMXMBean, IJMXNameAware
+{
+	private final MSequenceIdPool idPool;
+
+	MSequenceIdPoolJMX(@NonNull final MSequenceIdPool idPool)
+	{
+		this.idPool = idPool;
+	}
+
+	@Override
+	public String getJMXName()
+	{
+		return "org.compiere.model:type=" + MSequenceIdPool.class.getSimpleName();
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return idPool.isEnabled();
+	}
+
+	@Override
+	public void setEnabled(final boolean enabled)
+	{
+		idPool.setEnabled(enabled);
+	}
+
+	@Override
+	public int getBlockSizeMin()
+	{
+		return idPool.getBlockSizeMin();
+	}
+
+	@Override
+	public int getBlockSizeMax()
+	{
+		return idPool.getBlockSizeMax();
+	}
+
+	@Override
+	public long getIdsCount()
+	{
+		return idPool.getIdsCount();
+	}
+
+	@Override
+	public long getRefillsCount()
+	{
+		return idPool.getRefillsCount();
+	}
+
+	@Override
+	public long getWaitsCount()
+	{
+		return idPool.getWaitsCount();
+	}
+
+	@Override
+	public long getRefillMillisTotal()
+	{
+		return idPool.getRefillMillisTotal();
+	}
+
+	@Override
+	public String[] getTablesInfo()
+	{
+		return idPool.getTablesInfo().toArray(new String[0]);
+	}
+
+	@Override
+	public void clear()
+	{
+		idPool.clear();
+	}
+
+	@Override
+	public void resetStatistics()
+	{
+		idPool.resetStatistics();
+	}
+}
@@ -0,0 +1,66 @@
+package org.compiere.model;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * MBean interface for {@link MSequenceIdPool}.
+ */
+public interface MSequenceIdPoolJMXMBean
+{
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	int getBlockSizeMin();
+
+	int getBlockSizeMax();
+
+	/**
+	 * @return how many IDs were handed out by the pool
+	 */
+	long getIdsCount();
+
+	/**
+	 * @return how many blocks of IDs were reserved in the database
+	 */
+	long getRefillsCount();
+
+	/**
+	 * @return how many times a thread had to wait for another thread which was reserving the next block of IDs
+	 */
+	long getWaitsCount();
+
+	/**
+	 * @return total time spent reserving blocks of IDs
+	 */
+	long getRefillMillisTotal();
+
+	String[] getTablesInfo();
+
+	/**
+	 * Drops all the reserved but not yet used IDs.
+	 */
+	void clear();
+
+	void resetStatistics();
+}
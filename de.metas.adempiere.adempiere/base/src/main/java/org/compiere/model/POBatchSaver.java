@@ -0,0 +1,377 @@
+package org.compiere.model;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+
+import java.sql.BatchUpdateException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.exceptions.DBException;
+import org.compiere.util.DB;
+import org.compiere.util.TrxRunnable2;
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+
+import de.metas.logging.LogManager;
+import de.metas.util.Services;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Saves many {@link PO}s together, executing their INSERT and UPDATE statements as JDBC batches instead of one round trip per record.
+ * <p>
+ * The records are grouped by transaction. For each group, the steps are:
+ * <ol>
+ * <li>for each record, in the given order: before-save and <code>BEFORE_NEW/BEFORE_CHANGE</code> model interceptors; the record's statement is built
+ * <li>all the statements are executed in batches of {@link #SYSTEM_PROPERTY_BatchSize} statements
+ * <li>for each record, in the given order: change log, after-save and <code>AFTER_NEW/AFTER_CHANGE</code> model interceptors
+ * </ol>
+ * So unlike with saving the records one by one, a record's before-save interceptors can't see the previous records in the database.
+ * If a group has no transaction, all its records are saved in one new transaction.
+ * <p>
+ * New records whose INSERT needs to return database generated values (e.g. native sequences) are inserted right away in step 1,
+ * after executing the statements of the previous records, so that the statements still reach the database in the given order.
+ * UPDATEs which shall run with a query timeout (see {@link PO#saveBatch_getQueryTimeoutSeconds()}) are executed one by one, with that timeout, like {@link PO#saveEx()} does.
+ */
+public final class POBatchSaver
+{
+	private static final Logger logger = LogManager.getLogger(POBatchSaver.class);
+
+	private static final String SYSTEM_PROPERTY_BatchSize = "org.compiere.model.POBatchSaver.BatchSize";
+	private static final int DEFAULT_BatchSize = 500;
+
+	private static final POBatchSaver instance = new POBatchSaver(new JdbcStatementsExecutor());
+
+	public static void saveAll(@NonNull final List<PO> pos)
+	{
+		final List<BatchRecord> records = new ArrayList<>(pos.size());
+		for (final PO po : pos)
+		{
+			records.add(new POBatchRecord(po));
+		}
+		instance.saveAllRecords(records);
+	}
+
+	/** The part of a {@link PO} which is needed to save it in a batch */
+	@VisibleForTesting
+	interface BatchRecord
+	{
+		String getTrxName();
+
+		void setTrxName(String trxName);
+
+		boolean isNew();
+
+		/** @see PO#savePrepare() */
+		boolean savePrepare();
+
+		/** @see PO#saveBatch_beforeExecute(String, Runnable) */
+		String beforeExecute(String localTrxName, Runnable flushPendingStatements) throws Exception;
+
+		/** @see PO#saveBatch_getQueryTimeoutSeconds() */
+		int getQueryTimeoutSeconds();
+
+		/** @see PO#saveBatch_afterExecute(boolean, String, int) */
+		void afterExecute(boolean newRecord, String sql, int no) throws Exception;
+
+		/** @see PO#saveBatch_restoreNewRecordFlag(boolean) */
+		void restoreNewRecordFlag(boolean newRecord);
+	}
+
+	@Value
+	@VisibleForTesting
+	static class SqlStatement
+	{
+		@NonNull
+		String sql;
+		/** if positive, the statement shall be executed on its own, with this query timeout */
+		int queryTimeoutSeconds;
+	}
+
+	@FunctionalInterface
+	@VisibleForTesting
+	interface StatementsExecutor
+	{
+		/** @return how many rows were changed by each statement */
+		int[] execute(List<SqlStatement> statements, String trxName);
+	}
+
+	private final StatementsExecutor statementsExecutor;
+
+	@VisibleForTesting
+	POBatchSaver(@NonNull final StatementsExecutor statementsExecutor)
+	{
+		this.statementsExecutor = statementsExecutor;
+	}
+
+	@VisibleForTesting
+	void saveAllRecords(@NonNull final List<BatchRecord> records)
+	{
+		if (records.isEmpty())
+		{
+			return;
+		}
+
+		final Map<String, List<BatchRecord>> recordsByTrxName = new LinkedHashMap<>();
+		for (final BatchRecord record : records)
+		{
+			recordsByTrxName.computeIfAbsent(record.getTrxName(), trxName -> new ArrayList<>()).add(record);
+		}
+
+		recordsByTrxName.forEach(this::saveAllInTrx);
+	}
+
+	private void saveAllInTrx(final String trxName, final List<BatchRecord> records)
+	{
+		//
+		// Check and prepare the saving (this shall happen before running the part which is handled in transaction, like PO.saveEx() does)
+		final List<BatchRecord> recordsToSave = new ArrayList<>(records.size());
+		final List<Boolean> newRecordFlags = new ArrayList<>(records.size());
+		for (final BatchRecord record : records)
+		{
+			if (record.savePrepare())
+			{
+				recordsToSave.add(record);
+				newRecordFlags.add(record.isNew());
+			}
+		}
+		if (recordsToSave.isEmpty())
+		{
+			return;
+		}
+
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		Services.get(ITrxManager.class).run(trxName, new TrxRunnable2()
+		{
+			@Override
+			public void run(final String localTrxName) throws Exception
+			{
+				final List<BatchRecord> recordsToExecute = new ArrayList<>(recordsToSave.size());
+				final List<Boolean> newRecordFlagsToExecute = new ArrayList<>(recordsToSave.size());
+				final List<SqlStatement> statements = new ArrayList<>(recordsToSave.size());
+				final List<Integer> counts = new ArrayList<>(recordsToSave.size());
+				final Runnable flushPendingStatements = () -> {
+					final List<SqlStatement> pendingStatements = statements.subList(counts.size(), statements.size());
+					for (final int count : statementsExecutor.execute(pendingStatements, localTrxName))
+					{
+						counts.add(count);
+					}
+				};
+
+				for (int i = 0; i < recordsToSave.size(); i++)
+				{
+					final BatchRecord record = recordsToSave.get(i);
+					final boolean newRecord = newRecordFlags.get(i);
+					final String sql = record.beforeExecute(localTrxName, flushPendingStatements);
+					if (sql != null)
+					{
+						recordsToExecute.add(record);
+						newRecordFlagsToExecute.add(newRecord);
+						statements.add(new SqlStatement(sql, newRecord ? 0 : record.getQueryTimeoutSeconds()));
+					}
+				}
+
+				flushPendingStatements.run();
+
+				for (int i = 0; i < recordsToExecute.size(); i++)
+				{
+					recordsToExecute.get(i).afterExecute(newRecordFlagsToExecute.get(i), statements.get(i).getSql(), counts.get(i));
+				}
+			}
+
+			@Override
+			public boolean doCatch(final Throwable e) throws Throwable
+			{
+				// restoring flags before failing
+				for (int i = 0; i < recordsToSave.size(); i++)
+				{
+					recordsToSave.get(i).restoreNewRecordFlag(newRecordFlags.get(i));
+				}
+				throw e;
+			}
+
+			@Override
+			public void doFinally()
+			{
+				// restore the transaction name
+				recordsToSave.forEach(record -> record.setTrxName(trxName));
+			}
+		});
+
+		stopwatch.stop();
+		if (logger.isDebugEnabled())
+		{
+			final long millis = Math.max(stopwatch.elapsed(TimeUnit.MILLISECONDS), 1);
+			logger.debug("Saved {} records in {} ({} records/sec)", recordsToSave.size(), stopwatch, recordsToSave.size() * 1000L / millis);
+		}
+	}
+
+	private static final class POBatchRecord implements BatchRecord
+	{
+		private final PO po;
+
+		private POBatchRecord(@NonNull final PO po)
+		{
+			this.po = po;
+		}
+
+		@Override
+		public String getTrxName()
+		{
+			return po.get_TrxName();
+		}
+
+		@Override
+		public void setTrxName(final String trxName)
+		{
+			po.set_TrxName(trxName);
+		}
+
+		@Override
+		public boolean isNew()
+		{
+			return po.is_new();
+		}
+
+		@Override
+		public boolean savePrepare()
+		{
+			return po.savePrepare();
+		}
+
+		@Override
+		public String beforeExecute(final String localTrxName, final Runnable flushPendingStatements) throws Exception
+		{
+			return po.saveBatch_beforeExecute(localTrxName, flushPendingStatements);
+		}
+
+		@Override
+		public int getQueryTimeoutSeconds()
+		{
+			return po.saveBatch_getQueryTimeoutSeconds();
+		}
+
+		@Override
+		public void afterExecute(final boolean newRecord, final String sql, final int no) throws Exception
+		{
+			po.saveBatch_afterExecute(newRecord, sql, no);
+		}
+
+		@Override
+		public void restoreNewRecordFlag(final boolean newRecord)
+		{
+			po.saveBatch_restoreNewRecordFlag(newRecord);
+		}
+	}
+
+	/**
+	 * Executes the statements in JDBC batches, in the given order.
+	 * Statements with a query timeout are executed on their own, because a JDBC query timeout applies to the whole batch.
+	 */
+	private static final class JdbcStatementsExecutor implements StatementsExecutor
+	{
+		@Override
+		public int[] execute(final List<SqlStatement> statements, final String trxName)
+		{
+			final int[] counts = new int[statements.size()];
+			if (statements.isEmpty())
+			{
+				return counts;
+			}
+
+			final int batchSize = getBatchSize();
+			Statement stmt = null;
+			try
+			{
+				stmt = DB.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, trxName);
+
+				final List<Integer> batchIndexes = new ArrayList<>(batchSize);
+				for (int i = 0; i < statements.size(); i++)
+				{
+					final SqlStatement statement = statements.get(i);
+					if (statement.getQueryTimeoutSeconds() > 0)
+					{
+						executeBatch(stmt, batchIndexes, counts);
+						counts[i] = DB.executeUpdateEx(statement.getSql(), trxName, statement.getQueryTimeoutSeconds());
+						continue;
+					}
+
+					stmt.addBatch(statement.getSql());
+					batchIndexes.add(i);
+					if (batchIndexes.size() >= batchSize)
+					{
+						executeBatch(stmt, batchIndexes, counts);
+					}
+				}
+				executeBatch(stmt, batchIndexes, counts);
+
+				return counts;
+			}
+			catch (final BatchUpdateException e)
+			{
+				final SQLException cause = e.getNextException() != null ? e.getNextException() : e;
+				throw new DBException(cause);
+			}
+			catch (final SQLException e)
+			{
+				throw new DBException(e);
+			}
+			finally
+			{
+				DB.close(stmt);
+			}
+		}
+
+		private static void executeBatch(final Statement stmt, final List<Integer> batchIndexes, final int[] counts) throws SQLException
+		{
+			if (batchIndexes.isEmpty())
+			{
+				return;
+			}
+
+			final int[] batchCounts = stmt.executeBatch();
+			for (int i = 0; i < batchCounts.length; i++)
+			{
+				// if the driver does not know, then it was OK; if it failed, it would have thrown an exception
+				counts[batchIndexes.get(i)] = batchCounts[i] == Statement.SUCCESS_NO_INFO ? 1 : batchCounts[i];
+			}
+			batchIndexes.clear();
+		}
+
+		private static int getBatchSize()
+		{
+			final int batchSize = Integer.getInteger(SYSTEM_PROPERTY_BatchSize, DEFAULT_BatchSize);
+			return batchSize > 0 ? batchSize : DEFAULT_BatchSize;
+		}
+	}
+}
@@ -27,6 +27,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import org.junit.Assert;
@@ -34,6 +35,8 @@ import org.junit.Test;
 
 import com.google.common.collect.ImmutableMap;
 
+import de.metas.cache.CCache.CacheMapType;
+
 public class CCacheTest
 {
 	public static class MyUncheckedException extends RuntimeException
@@ -244,4 +247,109 @@ public class CCacheTest
 		cache.remove("k1");
 		assertThat(removedItems).containsEntry("k1", "v1");
 	}
+
+	@Test
+	public void test_weighted_boundedByWeight()
+	{
+		final CCache<String, String> cache = CCache.<String, String> builder()
+				.cacheMapType(CacheMapType.WEIGHTED)
+				.maximumWeight(1000L)
+				.weigher((key, value) -> 10)
+				.build();
+
+		for (int i = 1; i <= 200; i++)
+		{
+			cache.put("key" + i, "value" + i);
+		}
+
+		assertThat(cache.getWeightedSize()).isLessThanOrEqualTo(1000);
+		assertThat(cache.getWeightedSize()).isEqualTo(cache.size() * 10);
+
+		cache.reset();
+		assertThat(cache.getWeightedSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void test_weighted_admitsOnlyFrequentKeysWhenFull()
+	{
+		final CCache<String, String> cache = CCache.<String, String> builder()
+				.cacheMapType(CacheMapType.WEIGHTED)
+				.maximumWeight(1000L)
+				.weigher((key, value) -> 10)
+				.build();
+		for (int i = 1; i <= 200; i++)
+		{
+			cache.put("key" + i, "value" + i);
+		}
+
+		cache.put("cold", "cold");
+		assertThat(cache.containsKey("cold")).isFalse();
+
+		assertThat(cache.get("hot")).isNull();
+		assertThat(cache.get("hot")).isNull();
+		cache.put("hot", "hot");
+		assertThat(cache.containsKey("hot")).isTrue();
+	}
+
+	@Test
+	public void test_weighted_loaderResultNotCachedIfNotAdmitted()
+	{
+		final CCache<String, String> cache = CCache.<String, String> builder()
+				.cacheMapType(CacheMapType.WEIGHTED)
+				.maximumWeight(1000L)
+				.weigher((key, value) -> 10)
+				.build();
+		for (int i = 1; i <= 200; i++)
+		{
+			cache.put("key" + i, "value" + i);
+		}
+
+		assertThat(cache.getOrLoad("cold", () -> "coldValue")).isEqualTo("coldValue");
+		assertThat(cache.containsKey("cold")).isFalse();
+	}
+
+	@Test
+	public void test_weighted_releasesTheWeightChargedAtInsert()
+	{
+		final AtomicInteger currentWeight = new AtomicInteger(10);
+		final CCache<String, String> cache = CCache.<String, String> builder()
+				.cacheMapType(CacheMapType.WEIGHTED)
+				.maximumWeight(1000L)
+				.weigher((key, value) -> currentWeight.get())
+				.build();
+
+		cache.put("k1", "v1");
+		assertThat(cache.getWeightedSize()).isEqualTo(10);
+
+		// replacing the value charges the new weight and releases the old one
+		currentWeight.set(30);
+		cache.put("k1", "v1-changed");
+		assertThat(cache.getWeightedSize()).isEqualTo(30);
+
+		// the value would weigh differently now, but we release what was charged
+		currentWeight.set(50);
+		cache.remove("k1");
+		assertThat(cache.getWeightedSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void test_weighted_resetForgetsFrequencies()
+	{
+		final CCache<String, String> cache = CCache.<String, String> builder()
+				.cacheMapType(CacheMapType.WEIGHTED)
+				.maximumWeight(1000L)
+				.weigher((key, value) -> 10)
+				.build();
+
+		assertThat(cache.get("hot")).isNull();
+		assertThat(cache.get("hot")).isNull();
+		cache.reset();
+
+		for (int i = 1; i <= 200; i++)
+		{
+			cache.put("key" + i, "value" + i);
+		}
+		cache.put("hot", "hot");
+		assertThat(cache.containsKey("hot")).isFalse();
+	}
 }
@@ -0,0 +1,127 @@
+package de.metas.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.cache.model.CacheInvalidateMultiRequest;
+import de.metas.cache.model.CacheInvalidateRequest;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class CacheInvalidationRemoteBroadcasterTest
+{
+	@Test
+	public void coalesce_duplicates()
+	{
+		final CacheInvalidateMultiRequest result = CacheInvalidationRemoteBroadcaster.coalesce(
+				ImmutableList.of(
+						CacheInvalidateRequest.rootRecord("C_BPartner", 1),
+						CacheInvalidateRequest.rootRecord("C_BPartner", 1),
+						CacheInvalidateRequest.rootRecord("C_BPartner", 2)),
+				100);
+
+		assertThat(result.getRequests()).hasSize(2);
+		assertThat(result.getRootRecords()).hasSize(2);
+	}
+
+	@Test
+	public void coalesce_resetAllWins()
+	{
+		final CacheInvalidateMultiRequest result = CacheInvalidationRemoteBroadcaster.coalesce(
+				ImmutableList.of(
+						CacheInvalidateRequest.rootRecord("C_BPartner", 1),
+						CacheInvalidateRequest.all()),
+				100);
+
+		assertThat(result.isResetAll()).isTrue();
+		assertThat(result.getRequests()).hasSize(1);
+	}
+
+	@Test
+	public void coalesce_collapseToTableAboveThreshold()
+	{
+		final List<CacheInvalidateRequest> requests = new ArrayList<>();
+		for (int i = 1; i <= 11; i++)
+		{
+			requests.add(CacheInvalidateRequest.rootRecord("M_HU", i));
+		}
+		requests.add(CacheInvalidateRequest.rootRecord("C_BPartner", 1));
+
+		final CacheInvalidateMultiRequest result = CacheInvalidationRemoteBroadcaster.coalesce(requests, 10);
+
+		assertThat(result.getRequests()).hasSize(2);
+		assertThat(result.getRequests())
+				.filteredOn(CacheInvalidateRequest::isAllRecords)
+				.extracting(CacheInvalidateRequest::getRootTableName)
+				.containsExactly("M_HU");
+	}
+
+	@Test
+	public void coalesce_allRecordsForTableSupersedesRecords()
+	{
+		final CacheInvalidateMultiRequest result = CacheInvalidationRemoteBroadcaster.coalesce(
+				ImmutableList.of(
+						CacheInvalidateRequest.rootRecord("C_BPartner", 1),
+						CacheInvalidateRequest.allRecordsForTable("C_BPartner")),
+				100);
+
+		assertThat(result.getRequests()).hasSize(1);
+		assertThat(result.getRequests().iterator().next().isAllRecords()).isTrue();
+	}
+
+	@Test
+	public void add_coalescingDisabled_sendsRightAway()
+	{
+		final List<CacheInvalidateMultiRequest> sent = new ArrayList<>();
+		final CacheInvalidationRemoteBroadcaster broadcaster = new CacheInvalidationRemoteBroadcaster(sent::add, 0, 100);
+
+		broadcaster.add(CacheInvalidateMultiRequest.rootRecord("C_BPartner", 1));
+		broadcaster.add(CacheInvalidateMultiRequest.rootRecord("C_BPartner", 2));
+
+		assertThat(sent).hasSize(2);
+		assertThat(broadcaster.getMessagesSaved()).isEqualTo(0);
+	}
+
+	@Test
+	public void add_coalescingEnabled_sendsOneMessageOnFlush()
+	{
+		final List<CacheInvalidateMultiRequest> sent = new ArrayList<>();
+		final CacheInvalidationRemoteBroadcaster broadcaster = new CacheInvalidationRemoteBroadcaster(sent::add, 60_000, 100);
+
+		broadcaster.add(CacheInvalidateMultiRequest.rootRecord("C_BPartner", 1));
+		broadcaster.add(CacheInvalidateMultiRequest.rootRecord("C_BPartner", 2));
+		assertThat(sent).isEmpty();
+
+		broadcaster.flush();
+
+		assertThat(sent).hasSize(1);
+		assertThat(sent.get(0).getRequests()).hasSize(2);
+		assertThat(broadcaster.getMessagesSaved()).isEqualTo(1);
+	}
+}
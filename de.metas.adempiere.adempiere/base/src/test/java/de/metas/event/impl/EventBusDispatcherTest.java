@@ -0,0 +1,290 @@
+package de.metas.event.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.event.Event;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class EventBusDispatcherTest
+{
+	private static Event newEvent(final String summary)
+	{
+		return Event.builder().setSummary(summary).build();
+	}
+
+	@Test
+	public void dispatchesInOrder() throws Exception
+	{
+		final int eventsCount = 100;
+		final List<String> dispatched = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch allDispatched = new CountDownLatch(eventsCount);
+
+		final EventBusDispatcher dispatcher = new EventBusDispatcher(
+				"test",
+				EventBusDispatchConfig.builder().queueCapacity(10).workers(1).backPressurePolicy(EventBusBackPressurePolicy.BLOCK).build(),
+				events -> events.forEach(event -> {
+					dispatched.add(event.getSummary());
+					allDispatched.countDown();
+				}),
+				event -> {
+					throw new AssertionError("shall not spill");
+				});
+
+		final List<String> expected = new ArrayList<>();
+		for (int i = 1; i <= eventsCount; i++)
+		{
+			expected.add("event" + i);
+			dispatcher.enqueue(newEvent("event" + i));
+		}
+
+		assertThat(allDispatched.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(dispatched).containsExactlyElementsOf(expected);
+		assertThat(dispatcher.getDispatchedCount()).isEqualTo(eventsCount);
+
+		dispatcher.shutdown();
+	}
+
+	@Test
+	public void spillsWhenQueueIsFull() throws Exception
+	{
+		final CountDownLatch listenerStarted = new CountDownLatch(1);
+		final CountDownLatch releaseListener = new CountDownLatch(1);
+		final List<String> spilled = Collections.synchronizedList(new ArrayList<>());
+
+		final EventBusDispatcher dispatcher = new EventBusDispatcher(
+				"test",
+				EventBusDispatchConfig.builder().queueCapacity(1).workers(1).backPressurePolicy(EventBusBackPressurePolicy.SPILL_TO_EVENT_LOG).build(),
+				events -> {
+					listenerStarted.countDown();
+					awaitQuietly(releaseListener);
+				},
+				event -> spilled.add(event.getSummary()));
+
+		dispatcher.enqueue(newEvent("event1"));
+		assertThat(listenerStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		dispatcher.enqueue(newEvent("event2")); // queued
+		dispatcher.enqueue(newEvent("event3")); // queue is full
+
+		assertThat(spilled).containsExactly("event3");
+		assertThat(dispatcher.getSpilledCount()).isEqualTo(1);
+
+		releaseListener.countDown();
+		dispatcher.shutdown();
+	}
+
+	@Test
+	public void dropsOldestWhenQueueIsFull() throws Exception
+	{
+		final CountDownLatch listenerStarted = new CountDownLatch(1);
+		final CountDownLatch releaseListener = new CountDownLatch(1);
+		final List<String> dispatched = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch twoDispatched = new CountDownLatch(2);
+
+		final EventBusDispatcher dispatcher = new EventBusDispatcher(
+				"test",
+				EventBusDispatchConfig.builder().queueCapacity(1).workers(1).backPressurePolicy(EventBusBackPressurePolicy.DROP_OLDEST).build(),
+				events -> {
+					listenerStarted.countDown();
+					awaitQuietly(releaseListener);
+					events.forEach(event -> dispatched.add(event.getSummary()));
+					twoDispatched.countDown();
+				},
+				event -> {
+					throw new AssertionError("shall not spill");
+				});
+
+		dispatcher.enqueue(newEvent("event1"));
+		assertThat(listenerStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		dispatcher.enqueue(newEvent("event2")); // queued
+		dispatcher.enqueue(newEvent("event3")); // event2 is dropped
+		releaseListener.countDown();
+
+		assertThat(twoDispatched.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(dispatched).containsExactly("event1", "event3");
+		assertThat(dispatcher.getDroppedCount()).isEqualTo(1);
+
+		dispatcher.shutdown();
+	}
+
+	@Test
+	public void dropsOldestButNotLoggedEvents() throws Exception
+	{
+		final CountDownLatch listenerStarted = new CountDownLatch(1);
+		final CountDownLatch releaseListener = new CountDownLatch(1);
+		final List<String> dispatched = Collections.synchronizedList(new ArrayList<>());
+
+		final EventBusDispatcher dispatcher = new EventBusDispatcher(
+				"test",
+				EventBusDispatchConfig.builder().queueCapacity(1).workers(1).backPressurePolicy(EventBusBackPressurePolicy.DROP_OLDEST).build(),
+				events -> {
+					if (events.get(0).getSummary().equals("event1"))
+					{
+						listenerStarted.countDown();
+						awaitQuietly(releaseListener);
+					}
+					events.forEach(event -> dispatched.add(event.getSummary()));
+				},
+				event -> {
+					throw new AssertionError("shall not spill");
+				});
+
+		dispatcher.enqueue(newEvent("event1"));
+		assertThat(listenerStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		dispatcher.enqueue(ImmutableList.of(newEvent("event2"), Event.builder().setSummary("alreadyLogged").wasLogged().build())); // queued
+		dispatcher.enqueue(newEvent("event3")); // queue is full
+
+		// the oldest event which was logged is dispatched right away instead of being dropped
+		assertThat(dispatched).containsExactly("alreadyLogged");
+		assertThat(dispatcher.getDroppedCount()).isEqualTo(1);
+
+		releaseListener.countDown();
+		dispatcher.shutdown();
+	}
+
+	@Test
+	public void blockIsTheDefaultPolicy()
+	{
+		assertThat(EventBusDispatchConfig.forTopicName("test").getBackPressurePolicy()).isEqualTo(EventBusBackPressurePolicy.BLOCK);
+	}
+
+	@Test
+	public void dispatchesBatchInOneGo() throws Exception
+	{
+		final List<List<String>> dispatched = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch batchDispatched = new CountDownLatch(1);
+
+		final EventBusDispatcher dispatcher = new EventBusDispatcher(
+				"test",
+				EventBusDispatchConfig.builder().queueCapacity(1).workers(1).backPressurePolicy(EventBusBackPressurePolicy.BLOCK).build(),
+				events -> {
+					dispatched.add(events.stream().map(Event::getSummary).collect(Collectors.toList()));
+					batchDispatched.countDown();
+				},
+				event -> {
+					throw new AssertionError("shall not spill");
+				});
+
+		// a batch occupies only one queue slot
+		dispatcher.enqueue(ImmutableList.of(newEvent("event1"), newEvent("event2"), newEvent("event3")));
+
+		assertThat(batchDispatched.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(dispatched).containsExactly(ImmutableList.of("event1", "event2", "event3"));
+		assertThat(dispatcher.getDispatchedCount()).isEqualTo(3);
+
+		dispatcher.shutdown();
+	}
+
+	@Test
+	public void spillsOnlyEventsWhichWereNotLogged() throws Exception
+	{
+		final CountDownLatch listenerStarted = new CountDownLatch(1);
+		final CountDownLatch releaseListener = new CountDownLatch(1);
+		final List<String> dispatched = Collections.synchronizedList(new ArrayList<>());
+
+		final EventBusDispatcher dispatcher = new EventBusDispatcher(
+				"test",
+				EventBusDispatchConfig.builder().queueCapacity(1).workers(1).backPressurePolicy(EventBusBackPressurePolicy.SPILL_TO_EVENT_LOG).build(),
+				events -> {
+					if (events.get(0).getSummary().equals("event1"))
+					{
+						listenerStarted.countDown();
+						awaitQuietly(releaseListener);
+					}
+					events.forEach(event -> dispatched.add(event.getSummary()));
+				},
+				event -> !event.getSummary().equals("alreadyLogged"));
+
+		dispatcher.enqueue(newEvent("event1"));
+		assertThat(listenerStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		dispatcher.enqueue(newEvent("event2")); // queued
+		dispatcher.enqueue(ImmutableList.of(newEvent("event3"), newEvent("alreadyLogged"))); // queue is full
+
+		// the event which could not be spilled is dispatched right away
+		assertThat(dispatched).containsExactly("alreadyLogged");
+		assertThat(dispatcher.getSpilledCount()).isEqualTo(1);
+
+		releaseListener.countDown();
+		dispatcher.shutdown();
+	}
+
+	@Test
+	public void block_listenerPostingToItsOwnFullTopic_dispatchesRightAway() throws Exception
+	{
+		final List<String> dispatched = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch allDispatched = new CountDownLatch(3);
+		final AtomicReference<EventBusDispatcher> dispatcherRef = new AtomicReference<>();
+
+		final EventBusDispatcher dispatcher = new EventBusDispatcher(
+				"test",
+				EventBusDispatchConfig.builder().queueCapacity(1).workers(1).backPressurePolicy(EventBusBackPressurePolicy.BLOCK).build(),
+				events -> events.forEach(event -> {
+					dispatched.add(event.getSummary());
+					if (event.getSummary().equals("event1"))
+					{
+						dispatcherRef.get().enqueue(newEvent("event2")); // queued
+						dispatcherRef.get().enqueue(newEvent("event3")); // queue is full
+					}
+					allDispatched.countDown();
+				}),
+				event -> {
+					throw new AssertionError("shall not spill");
+				});
+		dispatcherRef.set(dispatcher);
+
+		dispatcher.enqueue(newEvent("event1"));
+
+		assertThat(allDispatched.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(dispatched).containsExactly("event1", "event3", "event2");
+
+		dispatcher.shutdown();
+	}
+
+	private static void awaitQuietly(final CountDownLatch latch)
+	{
+		try
+		{
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package de.metas.event.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.event.Event;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class EventBusTest
+{
+	@Test
+	public void postEvents_failingEventDoesNotStopTheOthers()
+	{
+		final EventBus eventBus = new EventBus("test", null);
+
+		final List<String> received = new ArrayList<>();
+		eventBus.subscribe((bus, event) -> {
+			received.add(event.getSummary());
+			if (event.getSummary().equals("event2"))
+			{
+				throw new RuntimeException("failing on purpose");
+			}
+		});
+
+		eventBus.postEvents(ImmutableList.of(
+				Event.builder().setSummary("event1").build(),
+				Event.builder().setSummary("event2").build(),
+				Event.builder().setSummary("event3").build()));
+
+		assertThat(received).containsExactly("event1", "event2", "event3");
+	}
+}
@@ -0,0 +1,133 @@
+package de.metas.event.jms;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.adempiere.util.lang.impl.TableRecordReference;
+import org.compiere.model.I_C_Invoice;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.metas.event.Event;
+import de.metas.event.remote.JacksonJsonEventSerializer;
+import de.metas.event.remote.JacksonSmileEventSerializer;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class JacksonSmileEventSerializerTest
+{
+	private final JacksonSmileEventSerializer smileSerializer = JacksonSmileEventSerializer.instance;
+	private final JacksonJsonEventSerializer jsonSerializer = JacksonJsonEventSerializer.instance;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init(); // needed for ITableRecordReference
+	}
+
+	private static Event createEvent(final int i)
+	{
+		return Event.builder()
+				.shallBeLogged()
+				.setSummary("Summary" + i)
+				.setDetailPlain("Detail" + i)
+				.setDetailADMessage("Detail_AD_Message", "P1", "P2", "P3")
+				.setUUID(UUID.randomUUID())
+				.setWhen(Instant.now())
+				.addRecipient_User_ID(10)
+				.addRecipient_User_ID(20)
+				.putProperty("Prop_BD", new BigDecimal("3.1415"))
+				.putProperty("Prop_Bool_True", true)
+				.putProperty("Prop_Date", new Date())
+				.putProperty("Prop_TS", new Timestamp(System.currentTimeMillis()))
+				.putProperty("Prop_Int", i)
+				.putProperty("Prop_Str", "string" + i)
+				.putProperty("Prop_Ref", TableRecordReference.of(I_C_Invoice.Table_Name, 123456 + i))
+				.build();
+	}
+
+	private static List<Event> createEvents(final int count)
+	{
+		final List<Event> events = new ArrayList<>(count);
+		for (int i = 1; i <= count; i++)
+		{
+			events.add(createEvent(i));
+		}
+		return events;
+	}
+
+	@Test
+	public void serializeUnserialize_singleEvent()
+	{
+		final Event event = createEvent(1);
+
+		final Event eventRestored = smileSerializer.fromString(smileSerializer.toString(event));
+
+		assertThat(eventRestored).isEqualTo(event);
+	}
+
+	@Test
+	public void serializeUnserialize_frame()
+	{
+		final List<Event> events = createEvents(10);
+
+		final List<Event> eventsRestored = smileSerializer.fromBytes(smileSerializer.toBytes(events));
+
+		assertThat(eventsRestored).containsExactlyElementsOf(events);
+	}
+
+	@Test
+	public void serializeUnserialize_jsonFrame()
+	{
+		final List<Event> events = createEvents(10);
+
+		final List<Event> eventsRestored = jsonSerializer.fromBytes(jsonSerializer.toBytes(events));
+
+		assertThat(eventsRestored).containsExactlyElementsOf(events);
+	}
+
+	@Test
+	public void smileFrameIsSmallerThanSingleJsonEvents()
+	{
+		final List<Event> events = createEvents(1000);
+
+		long jsonBytes = 0;
+		for (final Event event : events)
+		{
+			jsonBytes += jsonSerializer.toString(event).getBytes(StandardCharsets.UTF_8).length;
+		}
+		final byte[] smileFrame = smileSerializer.toBytes(events);
+
+		assertThat((long)smileFrame.length).isLessThan(jsonBytes);
+		assertThat(smileSerializer.fromBytes(smileFrame)).containsExactlyElementsOf(events);
+	}
+}
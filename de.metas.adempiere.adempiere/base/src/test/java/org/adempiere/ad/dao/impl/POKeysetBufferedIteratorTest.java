@@ -0,0 +1,148 @@
+package org.adempiere.ad.dao.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.model.IQuery;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class POKeysetBufferedIteratorTest
+{
+	/** Loads pages from a list of sorted keys and remembers the requested page sizes */
+	private static class InMemoryPageLoader implements POKeysetBufferedIterator.PageLoader<Integer>
+	{
+		private final ImmutableList<Integer> keys;
+		private final List<Integer> requestedPageSizes = new ArrayList<>();
+
+		private InMemoryPageLoader(final int count)
+		{
+			this.keys = IntStream.rangeClosed(1, count).map(i -> i * 10).boxed().collect(ImmutableList.toImmutableList());
+		}
+
+		@Override
+		public synchronized List<Integer> retrievePage(@Nullable final Integer afterKey, final int pageSize)
+		{
+			requestedPageSizes.add(pageSize);
+			return keys.stream()
+					.filter(key -> afterKey == null || key > afterKey)
+					.limit(pageSize)
+					.collect(ImmutableList.toImmutableList());
+		}
+
+		public synchronized List<Integer> getRequestedPageSizes()
+		{
+			return ImmutableList.copyOf(requestedPageSizes);
+		}
+	}
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+	}
+
+	private static List<Integer> toList(final Iterator<Integer> iterator)
+	{
+		final List<Integer> result = new ArrayList<>();
+		iterator.forEachRemaining(result::add);
+		return result;
+	}
+
+	private static POKeysetBufferedIterator<Integer> newIterator(final InMemoryPageLoader pageLoader, final int bufferSize, final int limit, final boolean prefetch)
+	{
+		return new POKeysetBufferedIterator<>(pageLoader, Integer::intValue, bufferSize, limit, prefetch);
+	}
+
+	@Test
+	public void pagesAcrossPageBoundaries()
+	{
+		final InMemoryPageLoader pageLoader = new InMemoryPageLoader(10);
+
+		final List<Integer> result = toList(newIterator(pageLoader, 3, IQuery.NO_LIMIT, false));
+
+		assertThat(result).isEqualTo(IntStream.rangeClosed(1, 10).map(i -> i * 10).boxed().collect(Collectors.toList()));
+		assertThat(pageLoader.getRequestedPageSizes()).containsExactly(3, 3, 3, 3);
+	}
+
+	@Test
+	public void pageSizeIsMultipleOfRecordsCount()
+	{
+		final InMemoryPageLoader pageLoader = new InMemoryPageLoader(6);
+
+		assertThat(toList(newIterator(pageLoader, 3, IQuery.NO_LIMIT, false))).containsExactly(10, 20, 30, 40, 50, 60);
+
+		// the last (empty) page tells us that there are no more records
+		assertThat(pageLoader.getRequestedPageSizes()).containsExactly(3, 3, 3);
+	}
+
+	@Test
+	public void emptyResult()
+	{
+		final InMemoryPageLoader pageLoader = new InMemoryPageLoader(0);
+		final POKeysetBufferedIterator<Integer> iterator = newIterator(pageLoader, 3, IQuery.NO_LIMIT, false);
+
+		assertThat(iterator.hasNext()).isFalse();
+		assertThat(iterator.hasNext()).isFalse();
+		assertThat(pageLoader.getRequestedPageSizes()).containsExactly(3);
+	}
+
+	@Test
+	public void limit()
+	{
+		final InMemoryPageLoader pageLoader = new InMemoryPageLoader(10);
+
+		assertThat(toList(newIterator(pageLoader, 3, 5, false))).containsExactly(10, 20, 30, 40, 50);
+		assertThat(pageLoader.getRequestedPageSizes()).containsExactly(3, 2);
+	}
+
+	@Test
+	public void limitIsMultipleOfPageSize()
+	{
+		final InMemoryPageLoader pageLoader = new InMemoryPageLoader(10);
+
+		assertThat(toList(newIterator(pageLoader, 3, 6, false))).containsExactly(10, 20, 30, 40, 50, 60);
+		assertThat(pageLoader.getRequestedPageSizes()).containsExactly(3, 3);
+	}
+
+	@Test
+	public void prefetch()
+	{
+		final InMemoryPageLoader pageLoader = new InMemoryPageLoader(10);
+
+		assertThat(toList(newIterator(pageLoader, 3, 8, true))).containsExactly(10, 20, 30, 40, 50, 60, 70, 80);
+		assertThat(pageLoader.getRequestedPageSizes()).containsExactly(3, 3, 2);
+	}
+}
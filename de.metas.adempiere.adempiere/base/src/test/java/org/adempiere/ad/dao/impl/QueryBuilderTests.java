@@ -43,6 +43,8 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
 import de.metas.process.PInstanceId;
 import de.metas.util.collections.CollectionUtils;
 
@@ -328,4 +330,20 @@ public class QueryBuilderTests
 		final I_M_Product productActual = CollectionUtils.singleElement(result); // NOTE: we expect ONLY ONE result, even if we had 1000 filters about same thing because the unions shall be DISTINCT
 		Assert.assertEquals("Retrieved product", product0.getM_Product_ID(), productActual.getM_Product_ID());
 	}
+
+	@Test
+	public void test_iterateKeyset_orderedByKeyAndLimited()
+	{
+		final IQuery<I_M_Product> query = new QueryBuilder<>(I_M_Product.class, null) // tableName=null
+				.setContext(ctx, ITrx.TRXNAME_None)
+				.orderByDescending(I_M_Product.COLUMNNAME_M_Product_ID) // shall be ignored
+				.create()
+				.setLimit(2);
+
+		final List<I_M_Product> result = new ArrayList<>();
+		query.iterateKeyset(I_M_Product.class).forEachRemaining(result::add);
+
+		Assert.assertEquals(ImmutableList.of(product0.getM_Product_ID(), product1_NotActive.getM_Product_ID()),
+				result.stream().map(I_M_Product::getM_Product_ID).collect(ImmutableList.toImmutableList()));
+	}
 }
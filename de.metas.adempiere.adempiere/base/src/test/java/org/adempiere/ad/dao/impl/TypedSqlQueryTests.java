@@ -1,8 +1,10 @@
 package org.adempiere.ad.dao.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.exceptions.DBException;
 import org.compiere.model.I_AD_Table;
 import org.compiere.util.Env;
 import org.junit.Test;
@@ -61,4 +63,26 @@ public class TypedSqlQueryTests
 						")"
 		);
 	}
+
+	@Test
+	public void iterateKeyset_rejectsOffset()
+	{
+		final TypedSqlQuery<I_AD_Table> query = new TypedSqlQuery<>(Env.getCtx(), I_AD_Table.class, "whereClause_0", ITrx.TRXNAME_None);
+		query.setLimit(10, 20);
+
+		assertThatThrownBy(() -> query.iterateKeyset(I_AD_Table.class))
+				.isInstanceOf(DBException.class)
+				.hasMessageContaining("OFFSET");
+	}
+
+	@Test
+	public void iterateKeyset_rejectsUnions()
+	{
+		final TypedSqlQuery<I_AD_Table> query = new TypedSqlQuery<>(Env.getCtx(), I_AD_Table.class, "whereClause_0", ITrx.TRXNAME_None);
+		query.addUnion(new TypedSqlQuery<>(Env.getCtx(), I_AD_Table.class, "whereClause_1", ITrx.TRXNAME_None), true);
+
+		assertThatThrownBy(() -> query.iterateKeyset(I_AD_Table.class))
+				.isInstanceOf(DBException.class)
+				.hasMessageContaining("UNION");
+	}
 }
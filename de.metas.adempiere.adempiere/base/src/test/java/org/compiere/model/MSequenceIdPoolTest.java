@@ -0,0 +1,167 @@
+package org.compiere.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.compiere.model.MSequenceIdPool.IdBlock;
+import org.compiere.model.MSequenceIdPool.IdBlockAllocator;
+import org.junit.Before;
+import org.junit.Test;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class MSequenceIdPoolTest
+{
+	/** Simulates <code>AD_Sequence</code> */
+	private static class InMemoryIdBlockAllocator implements IdBlockAllocator
+	{
+		private final Map<String, Integer> currentNextByTableName = new HashMap<>();
+		private final List<Integer> allocatedBlockSizes = new ArrayList<>();
+
+		@Override
+		public synchronized IdBlock allocate(final String tableName, final int blockSize)
+		{
+			final int firstId = currentNextByTableName.getOrDefault(tableName, 1000000);
+			currentNextByTableName.put(tableName, firstId + blockSize);
+			allocatedBlockSizes.add(blockSize);
+			return new IdBlock(firstId, 1, blockSize);
+		}
+	}
+
+	private InMemoryIdBlockAllocator allocator;
+	private AtomicLong nanoTime;
+
+	@Before
+	public void init()
+	{
+		allocator = new InMemoryIdBlockAllocator();
+		nanoTime = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+	}
+
+	private MSequenceIdPool createPool(final int blockSizeMin, final int blockSizeMax)
+	{
+		return new MSequenceIdPool(allocator, nanoTime::get, true, blockSizeMin, blockSizeMax);
+	}
+
+	@Test
+	public void idsAreConsecutivePerTable()
+	{
+		final MSequenceIdPool pool = createPool(3, 3);
+
+		assertThat(pool.getNextId("C_Order")).isEqualTo(1000000);
+		assertThat(pool.getNextId("C_Order")).isEqualTo(1000001);
+		assertThat(pool.getNextId("C_OrderLine")).isEqualTo(1000000);
+		assertThat(pool.getNextId("C_Order")).isEqualTo(1000002);
+		assertThat(pool.getNextId("C_Order")).isEqualTo(1000003);
+
+		assertThat(pool.getRefillsCount()).isEqualTo(3);
+		assertThat(pool.getIdsCount()).isEqualTo(5);
+	}
+
+	@Test
+	public void blockWithIncrement()
+	{
+		final IdBlock block = new IdBlock(100, 10, 2);
+
+		assertThat(block.nextIdOrZero()).isEqualTo(100);
+		assertThat(block.nextIdOrZero()).isEqualTo(110);
+		assertThat(block.nextIdOrZero()).isEqualTo(0);
+		assertThat(block.getAvailableCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void blockSizeGrowsIfRefilledQuickly_and_ShrinksIfRefilledSlowly()
+	{
+		final MSequenceIdPool pool = createPool(2, 8);
+
+		// each refill happens right after the previous one => the block size grows up to the max
+		for (int i = 0; i < 2 + 4 + 8 + 8; i++)
+		{
+			pool.getNextId("M_HU");
+		}
+		assertThat(allocator.allocatedBlockSizes).containsExactly(2, 4, 8, 8);
+		assertThat(pool.getCurrentBlockSize("M_HU")).isEqualTo(8);
+
+		// the block lasted a long time => the next one is smaller
+		nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(5));
+		pool.getNextId("M_HU");
+		assertThat(pool.getCurrentBlockSize("M_HU")).isEqualTo(4);
+	}
+
+	@Test
+	public void clearDropsReservedIds()
+	{
+		final MSequenceIdPool pool = createPool(10, 10);
+		assertThat(pool.getNextId("C_Order")).isEqualTo(1000000);
+
+		pool.clear();
+
+		assertThat(pool.getNextId("C_Order")).isEqualTo(1000010);
+	}
+
+	@Test
+	public void concurrentAccessYieldsUniqueIds() throws Exception
+	{
+		final MSequenceIdPool pool = createPool(5, 50);
+		final int threads = 8;
+		final int idsPerThread = 1000;
+
+		final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++)
+			{
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < idsPerThread; i++)
+					{
+						ids.add(pool.getNextId("C_Order"));
+					}
+				}));
+			}
+			for (final Future<?> future : futures)
+			{
+				future.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		assertThat(ids).hasSize(threads * idsPerThread);
+		assertThat(pool.getIdsCount()).isEqualTo(threads * idsPerThread);
+	}
+}
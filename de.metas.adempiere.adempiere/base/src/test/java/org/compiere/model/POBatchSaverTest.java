@@ -0,0 +1,245 @@
+package org.compiere.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.model.POBatchSaver.BatchRecord;
+import org.compiere.model.POBatchSaver.SqlStatement;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class POBatchSaverTest
+{
+	private List<SqlStatement> executedStatements;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+		executedStatements = new ArrayList<>();
+	}
+
+	private POBatchSaver newBatchSaver(final String failingSql)
+	{
+		return new POBatchSaver((statements, trxName) -> {
+			final int[] counts = new int[statements.size()];
+			for (int i = 0; i < statements.size(); i++)
+			{
+				final SqlStatement statement = statements.get(i);
+				if (statement.getSql().equals(failingSql))
+				{
+					throw new AdempiereException("failing statement: " + failingSql);
+				}
+				executedStatements.add(statement);
+				counts[i] = 1;
+			}
+			return counts;
+		});
+	}
+
+	@Test
+	public void mixedNewAndChangedRecords()
+	{
+		final TestRecord newRecord1 = new TestRecord("INSERT 1", true, 10);
+		final TestRecord changedRecord = new TestRecord("UPDATE 2", false, 10);
+		final TestRecord newRecord2 = new TestRecord("INSERT 3", true, 0);
+		final TestRecord unchangedRecord = new TestRecord(null, false, 0);
+
+		newBatchSaver(null).saveAllRecords(ImmutableList.of(newRecord1, changedRecord, newRecord2, unchangedRecord));
+
+		assertThat(executedStatements).containsExactly(
+				new SqlStatement("INSERT 1", 0), // INSERTs are never executed with a timeout
+				new SqlStatement("UPDATE 2", 10),
+				new SqlStatement("INSERT 3", 0));
+
+		assertThat(newRecord1.afterExecuteNewRecord).isTrue();
+		assertThat(newRecord1.afterExecuteNo).isEqualTo(1);
+		assertThat(changedRecord.afterExecuteNewRecord).isFalse();
+		assertThat(changedRecord.afterExecuteNo).isEqualTo(1);
+		assertThat(newRecord2.afterExecuteNewRecord).isTrue();
+		assertThat(unchangedRecord.afterExecuteNewRecord).isNull();
+
+		assertThat(ImmutableList.of(newRecord1, changedRecord, newRecord2, unchangedRecord))
+				.allSatisfy(record -> assertThat(record.getTrxName()).isEqualTo(ITrx.TRXNAME_None));
+	}
+
+	@Test
+	public void failingRecordFailsTheWholeBatch()
+	{
+		final TestRecord newRecord = new TestRecord("INSERT 1", true, 0);
+		final TestRecord failingRecord = new TestRecord("UPDATE 2", false, 0);
+		final TestRecord changedRecord = new TestRecord("UPDATE 3", false, 0);
+
+		assertThatThrownBy(() -> newBatchSaver("UPDATE 2").saveAllRecords(ImmutableList.of(newRecord, failingRecord, changedRecord)))
+				.hasMessageContaining("failing statement: UPDATE 2");
+
+		assertThat(ImmutableList.of(newRecord, failingRecord, changedRecord))
+				.allSatisfy(record -> {
+					assertThat(record.afterExecuteNewRecord).as("afterExecute shall not be called").isNull();
+					assertThat(record.getTrxName()).isEqualTo(ITrx.TRXNAME_None);
+				});
+	}
+
+	@Test
+	public void failingBatchRestoresTheNewRecordFlags()
+	{
+		final TestRecord newRecord = new TestRecord("INSERT 1", true, 0);
+		final TestRecord failingRecord = new TestRecord("INSERT 2", true, 0);
+		final TestRecord changedRecord = new TestRecord("UPDATE 3", false, 0);
+
+		assertThatThrownBy(() -> newBatchSaver("INSERT 2").saveAllRecords(ImmutableList.of(newRecord, failingRecord, changedRecord)))
+				.isInstanceOf(AdempiereException.class);
+
+		assertThat(newRecord.isNew()).isTrue();
+		assertThat(failingRecord.isNew()).isTrue();
+		assertThat(changedRecord.isNew()).isFalse();
+	}
+
+	@Test
+	public void recordsWhichAreNotPreparedAreNotSaved()
+	{
+		final TestRecord record = new TestRecord("INSERT 1", true, 0);
+		record.savePrepareResult = false;
+
+		newBatchSaver(null).saveAllRecords(ImmutableList.of(record));
+
+		assertThat(executedStatements).isEmpty();
+		assertThat(record.afterExecuteNewRecord).isNull();
+	}
+
+	@Test
+	public void insertWhichIsExecutedRightAwayComesAfterThePreviousRecords()
+	{
+		final TestRecord newRecord1 = new TestRecord("INSERT 1", true, 0);
+		final TestRecord changedRecord = new TestRecord("UPDATE 2", false, 0);
+		final TestRecord newRecordReturning = new TestRecord("INSERT 3 RETURNING", true, 0);
+		newRecordReturning.executedRightAway = true;
+		final TestRecord newRecord2 = new TestRecord("INSERT 4", true, 0);
+
+		newBatchSaver(null).saveAllRecords(ImmutableList.of(newRecord1, changedRecord, newRecordReturning, newRecord2));
+
+		assertThat(executedStatements)
+				.extracting(SqlStatement::getSql)
+				.containsExactly("INSERT 1", "UPDATE 2", "INSERT 3 RETURNING", "INSERT 4");
+
+		assertThat(ImmutableList.of(newRecord1, changedRecord, newRecordReturning, newRecord2))
+				.allSatisfy(record -> assertThat(record.afterExecuteNo).isEqualTo(1));
+	}
+
+	/** Behaves like a {@link PO} which flags itself as not new once its statement was built, like {@link PO#saveBatch_beforeExecute(String, Runnable)} does */
+	private class TestRecord implements BatchRecord
+	{
+		private final String sql;
+		private final int queryTimeoutSeconds;
+		/** if true, the record is executing its statement on its own, like a {@link PO} whose INSERT returns database generated values */
+		private boolean executedRightAway = false;
+
+		private String trxName = ITrx.TRXNAME_None;
+		private boolean newRecord;
+		private boolean savePrepareResult = true;
+
+		private Boolean afterExecuteNewRecord;
+		private int afterExecuteNo = -1;
+
+		private TestRecord(final String sql, final boolean newRecord, final int queryTimeoutSeconds)
+		{
+			this.sql = sql;
+			this.newRecord = newRecord;
+			this.queryTimeoutSeconds = queryTimeoutSeconds;
+		}
+
+		@Override
+		public String getTrxName()
+		{
+			return trxName;
+		}
+
+		@Override
+		public void setTrxName(final String trxName)
+		{
+			this.trxName = trxName;
+		}
+
+		@Override
+		public boolean isNew()
+		{
+			return newRecord;
+		}
+
+		@Override
+		public boolean savePrepare()
+		{
+			return savePrepareResult;
+		}
+
+		@Override
+		public String beforeExecute(@NonNull final String localTrxName, @NonNull final Runnable flushPendingStatements)
+		{
+			trxName = localTrxName;
+			final boolean newRecordOld = newRecord;
+			newRecord = false;
+
+			if (executedRightAway)
+			{
+				flushPendingStatements.run();
+				executedStatements.add(new SqlStatement(sql, 0));
+				afterExecute(newRecordOld, sql, 1);
+				return null;
+			}
+
+			return sql;
+		}
+
+		@Override
+		public int getQueryTimeoutSeconds()
+		{
+			return queryTimeoutSeconds;
+		}
+
+		@Override
+		public void afterExecute(final boolean newRecord, final String sql, final int no)
+		{
+			assertThat(sql).isEqualTo(this.sql);
+			this.afterExecuteNewRecord = newRecord;
+			this.afterExecuteNo = no;
+		}
+
+		@Override
+		public void restoreNewRecordFlag(final boolean newRecord)
+		{
+			this.newRecord = newRecord;
+		}
+	}
+}
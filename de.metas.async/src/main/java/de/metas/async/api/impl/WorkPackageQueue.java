@@ -214,7 +214,11 @@ public class WorkPackageQueue implements IWorkPackageQueue
 
 		final IQuery<I_C_Queue_WorkPackage> query = createQuery(workPackageCtx);
 
+		final WorkPackageReadyNotifier readyNotifier = WorkPackageReadyNotifier.instance;
+		readyNotifier.startListeningIfEnabled();
+
 		final long startTS = SystemTime.millis();
+		long readyVersion = readyNotifier.getVersion(packageProcessorIds);
 		I_C_Queue_WorkPackage workPackage = retrieveAndLock(query);
 		if (timeoutMillis == TIMEOUT_OneTimeOnly && workPackage == null)
 		{
@@ -226,6 +230,7 @@ public class WorkPackageQueue implements IWorkPackageQueue
 		while (workPackage == null)
 		{
 			// If we have a timeout specified, make sure we are not waiting more then that timeout
+			long remainingMillis = Long.MAX_VALUE;
 			if (timeoutMillis != TIMEOUT_Infinite)
 			{
 				Check.assume(timeoutMillis > 0, "timeoutMillis > 0");
@@ -236,14 +241,17 @@ public class WorkPackageQueue implements IWorkPackageQueue
 					logger.debug("Poll waiting time exceeded. Returning null");
 					return null;
 				}
+				remainingMillis = timeoutMillis - elapsedMillis;
 			}
 
-			// No workpackages were found. Sleep 1sec and then try again
+			// No workpackages were found. Wait until we are notified about a new one or until the poll interval is over, and then try again
 			try
 			{
 				// note: we always get the new service, because things might have changed since this method started
-				final int pollIntervalMs = Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_POLLINTERVAL, 1000);
-				Thread.sleep(pollIntervalMs);
+				final int pollIntervalMs = readyNotifier.isListening()
+						? readyNotifier.getSafetyPollIntervalMillis()
+						: Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_POLLINTERVAL, 1000);
+				readyNotifier.awaitReady(packageProcessorIds, readyVersion, Math.min(pollIntervalMs, remainingMillis));
 			}
 			catch (final InterruptedException e)
 			{
@@ -253,6 +261,7 @@ public class WorkPackageQueue implements IWorkPackageQueue
 
 			// Try fetching the workpackage again
 			logger.trace("Retry retrieving next workpackage");
+			readyVersion = readyNotifier.getVersion(packageProcessorIds);
 			workPackage = retrieveAndLock(query);
 		}
 
@@ -755,6 +764,9 @@ public class WorkPackageQueue implements IWorkPackageQueue
 			workPackage.setIsReadyForProcessing(true);
 			dao.save(workPackage);
 
+			// Push mode: wake up the queue processors when the workpackage is committed
+			WorkPackageReadyNotifier.instance.notifyReadyForProcessing(workPackage);
+
 			success = true;
 		}
 		finally
@@ -0,0 +1,268 @@
+package de.metas.async.api.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.compiere.db.CConnection;
+import org.compiere.util.DB;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import de.metas.async.model.I_C_Queue_WorkPackage;
+import de.metas.logging.LogManager;
+import de.metas.util.Services;
+import lombok.NonNull;
+
+/**
+ * Push mode for picking up workpackages: when a workpackage is marked as ready for processing, a PostgreSQL <code>NOTIFY</code> is issued in the workpackage's transaction
+ * (so it's delivered only if and when the transaction is committed). One listener thread per JVM <code>LISTEN</code>s on a dedicated connection and wakes up the polling queues, which then retrieve the workpackage right away.
+ * <p>
+ * While the push mode is active, the queues poll only every {@value #SYSCONFIG_SafetyPollIntervalMillis} millis, as a safety net (e.g. for workpackages which were marked as ready by SQL).
+ * If the push mode is not enabled or the listener is not connected, the queues are polling like before, every <code>de.metas.async.PollIntervallMillis</code>.
+ * <p>
+ * Enabled by AD_SysConfig {@value #SYSCONFIG_Enabled} (default <code>N</code>).
+ */
+public final class WorkPackageReadyNotifier
+{
+	public static final WorkPackageReadyNotifier instance = new WorkPackageReadyNotifier();
+
+	private static final transient Logger logger = LogManager.getLogger(WorkPackageReadyNotifier.class);
+
+	static final String SYSCONFIG_Enabled = "de.metas.async.PushMode.Enabled";
+	static final String SYSCONFIG_SafetyPollIntervalMillis = "de.metas.async.PushMode.SafetyPollIntervalMillis";
+	private static final int DEFAULT_SafetyPollIntervalMillis = 30_000;
+
+	private static final String CHANNEL = "c_queue_workpackage_ready";
+	private static final int LISTEN_TIMEOUT_MILLIS = 10_000;
+	private static final int RECONNECT_DELAY_MILLIS = 5_000;
+
+	private final Object lock = new Object();
+	/** Incremented each time a workpackage of the given C_Queue_PackageProcessor_ID was notified as ready; guarded by {@link #lock} */
+	private final Map<Integer, Long> versionsByPackageProcessorId = new HashMap<>();
+	/** Incremented when all the queues shall re-check; guarded by {@link #lock} */
+	private long globalVersion = 0;
+
+	private Thread listenerThread;
+	private volatile boolean listening = false;
+
+	@VisibleForTesting
+	WorkPackageReadyNotifier()
+	{
+	}
+
+	public boolean isEnabled()
+	{
+		return Services.get(ISysConfigBL.class).getBooleanValue(SYSCONFIG_Enabled, false);
+	}
+
+	/** @return true if the listener is connected, i.e. the polling queues are notified about new workpackages */
+	public boolean isListening()
+	{
+		return listening;
+	}
+
+	public int getSafetyPollIntervalMillis()
+	{
+		return Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_SafetyPollIntervalMillis, DEFAULT_SafetyPollIntervalMillis);
+	}
+
+	/**
+	 * Issues the <code>NOTIFY</code> for the given workpackage, in the workpackage's transaction. Does nothing if the push mode is not enabled.
+	 */
+	public void notifyReadyForProcessing(@NonNull final I_C_Queue_WorkPackage workPackage)
+	{
+		if (!isEnabled())
+		{
+			return;
+		}
+
+		final int packageProcessorId = workPackage.getC_Queue_Block().getC_Queue_PackageProcessor_ID();
+		final String trxName = InterfaceWrapperHelper.getTrxName(workPackage);
+		DB.executeFunctionCallEx(trxName, "SELECT pg_notify(?, ?)", new Object[] { CHANNEL, String.valueOf(packageProcessorId) });
+	}
+
+	/**
+	 * @return a number which changes each time one of the given package processors gets a new workpackage. To be used with {@link #awaitReady(Collection, long, long)}.
+	 */
+	public long getVersion(@NonNull final Collection<Integer> packageProcessorIds)
+	{
+		synchronized (lock)
+		{
+			long version = globalVersion;
+			for (final Integer packageProcessorId : packageProcessorIds)
+			{
+				version += versionsByPackageProcessorId.getOrDefault(packageProcessorId, 0L);
+			}
+			return version;
+		}
+	}
+
+	/**
+	 * Waits until one of the given package processors gets a new workpackage (after the given version was retrieved) or until the given time is up.
+	 */
+	public void awaitReady(
+			@NonNull final Collection<Integer> packageProcessorIds,
+			final long version,
+			final long maxWaitMillis) throws InterruptedException
+	{
+		final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+		synchronized (lock)
+		{
+			while (getVersion(packageProcessorIds) == version)
+			{
+				final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+				if (remainingMillis <= 0)
+				{
+					return;
+				}
+				lock.wait(remainingMillis);
+			}
+		}
+	}
+
+	@VisibleForTesting
+	void signal(final int packageProcessorId)
+	{
+		synchronized (lock)
+		{
+			versionsByPackageProcessorId.merge(packageProcessorId, 1L, Long::sum);
+			lock.notifyAll();
+		}
+	}
+
+	private void signalAll()
+	{
+		synchronized (lock)
+		{
+			globalVersion++;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Starts the listener thread, if the push mode is enabled and it was not already started.
+	 */
+	public synchronized void startListeningIfEnabled()
+	{
+		if (listenerThread != null || !isEnabled())
+		{
+			return;
+		}
+
+		listenerThread = CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(WorkPackageReadyNotifier.class.getName())
+				.setDaemon(true)
+				.build()
+				.newThread(this::listen);
+		listenerThread.start();
+	}
+
+	private void listen()
+	{
+		while (!Thread.currentThread().isInterrupted())
+		{
+			try (final Connection connection = createListenerConnection())
+			{
+				try (final Statement stmt = connection.createStatement())
+				{
+					stmt.execute("LISTEN " + CHANNEL);
+				}
+				final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+				listening = true;
+				logger.info("Listening for ready workpackages on channel {}", CHANNEL);
+
+				// we might have missed notifications while we were not listening
+				signalAll();
+
+				while (!Thread.currentThread().isInterrupted())
+				{
+					final PGNotification[] notifications = pgConnection.getNotifications(LISTEN_TIMEOUT_MILLIS);
+					if (notifications == null)
+					{
+						continue;
+					}
+					for (final PGNotification notification : notifications)
+					{
+						onNotification(notification.getParameter());
+					}
+				}
+			}
+			catch (final SQLException | RuntimeException ex)
+			{
+				logger.warn("Listening for ready workpackages failed. Falling back to polling; reconnecting in {}ms", RECONNECT_DELAY_MILLIS, ex);
+			}
+			finally
+			{
+				listening = false;
+			}
+
+			try
+			{
+				Thread.sleep(RECONNECT_DELAY_MILLIS);
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void onNotification(final String payload)
+	{
+		try
+		{
+			signal(Integer.parseInt(payload));
+		}
+		catch (final NumberFormatException ex)
+		{
+			logger.warn("Got invalid payload '{}'. Waking up all queues.", payload);
+			signalAll();
+		}
+	}
+
+	/**
+	 * @return a dedicated connection (not from the pool), because we keep it open as long as we are listening
+	 */
+	private static Connection createListenerConnection() throws SQLException
+	{
+		final CConnection cc = CConnection.get();
+		final Connection connection = DriverManager.getConnection(cc.getConnectionURL(), cc.getDbUid(), cc.getDbPwd());
+		connection.setAutoCommit(true);
+		return connection;
+	}
+}
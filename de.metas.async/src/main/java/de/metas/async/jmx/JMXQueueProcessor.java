@@ -72,6 +72,24 @@ public class JMXQueueProcessor implements JMXQueueProcessorMBean
 		return processor.getStatisticsSnapshot().getCountSkipped();
 	}
 
+	@Override
+	public long getQueueLatencyMillisP50()
+	{
+		return processor.getStatisticsSnapshot().getQueueLatencyMillisPercentile(50);
+	}
+
+	@Override
+	public long getQueueLatencyMillisP95()
+	{
+		return processor.getStatisticsSnapshot().getQueueLatencyMillisPercentile(95);
+	}
+
+	@Override
+	public long getQueueLatencyMillisP99()
+	{
+		return processor.getStatisticsSnapshot().getQueueLatencyMillisPercentile(99);
+	}
+
 	@Override
 	public String getQueueInfo()
 	{
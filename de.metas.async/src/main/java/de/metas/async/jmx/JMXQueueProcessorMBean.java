@@ -37,5 +37,11 @@ public interface JMXQueueProcessorMBean
 
 	long getCountSkipped();
 
+	long getQueueLatencyMillisP50();
+
+	long getQueueLatencyMillisP95();
+
+	long getQueueLatencyMillisP99();
+
 	String getQueueInfo();
 }
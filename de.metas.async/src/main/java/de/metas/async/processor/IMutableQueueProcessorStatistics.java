@@ -60,4 +60,9 @@ public interface IMutableQueueProcessorStatistics extends IQueueProcessorStatist
 
 	void decrementQueueSize();
 
+	/**
+	 * @see IQueueProcessorStatistics#getQueueLatencyMillisPercentile(double)
+	 */
+	void recordQueueLatencyMillis(long queueLatencyMillis);
+
 }
@@ -40,4 +40,12 @@ public interface IQueueProcessorStatistics
 	long getQueueSize();
 
 	long getCountSkipped();
+
+	/**
+	 * Queue latency is the time a workpackage waited for a free thread, after it was polled from the queue and locked.
+	 *
+	 * @param percentile between 0 and 100, e.g. 50, 95, 99
+	 * @return queue latency percentile (millis) or zero if nothing was recorded yet
+	 */
+	long getQueueLatencyMillisPercentile(double percentile);
 }
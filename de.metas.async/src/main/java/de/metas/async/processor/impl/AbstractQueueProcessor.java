@@ -261,6 +261,20 @@ public abstract class AbstractQueueProcessor implements IQueueProcessor
 		getEventDispatcher().fireWorkpackageProcessed(workPackage, workPackageProcessor);
 	}
 
+	/**
+	 * Records how long the given task waited for a free thread, after it was submitted by {@link #executeTask(WorkpackageProcessorTask)}.
+	 */
+	protected final void recordQueueLatency(@NonNull final WorkpackageProcessorTask task, final long queueLatencyMillis)
+	{
+		synchronized (statistics)
+		{
+			statistics.recordQueueLatencyMillis(queueLatencyMillis);
+			getActualWorkpackageProcessorFactory()
+					.getWorkpackageProcessorStatistics(task.getWorkPackageProcessor())
+					.recordQueueLatencyMillis(queueLatencyMillis);
+		}
+	}
+
 	@Override
 	public void setWorkpackageProcessorFactory(final IWorkpackageProcessorFactory workpackageProcessorFactory)
 	{
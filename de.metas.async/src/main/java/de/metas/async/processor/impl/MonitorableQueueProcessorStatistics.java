@@ -1,5 +1,8 @@
 package de.metas.async.processor.impl;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import de.metas.async.Async_Constants;
 import de.metas.async.processor.IMutableQueueProcessorStatistics;
 import de.metas.monitoring.api.IMeter;
@@ -21,6 +24,9 @@ public class MonitorableQueueProcessorStatistics implements IMutableQueueProcess
 	private static final String METERNAME_Error = "Error";
 	private static final String METERNAME_Skipped = "Skipped";
 
+	/** Queue latencies by workpackage processor name. {@link IMeter}s can't do histograms, so we keep them here. */
+	private static final Map<String, QueueLatencyHistogram> queueLatenciesByProcessorName = new ConcurrentHashMap<>();
+
 	private final String workpackageProcessorName;
 
 	public MonitorableQueueProcessorStatistics(final String workpackageProcessorName)
@@ -113,4 +119,21 @@ public class MonitorableQueueProcessorStatistics implements IMutableQueueProcess
 	{
 		getMeter(METERNAME_Skipped).plusOne();
 	}
+
+	private QueueLatencyHistogram getQueueLatencies()
+	{
+		return queueLatenciesByProcessorName.computeIfAbsent(workpackageProcessorName, k -> new QueueLatencyHistogram());
+	}
+
+	@Override
+	public long getQueueLatencyMillisPercentile(final double percentile)
+	{
+		return getQueueLatencies().getPercentileMillis(percentile);
+	}
+
+	@Override
+	public void recordQueueLatencyMillis(final long queueLatencyMillis)
+	{
+		getQueueLatencies().record(queueLatencyMillis);
+	}
 }
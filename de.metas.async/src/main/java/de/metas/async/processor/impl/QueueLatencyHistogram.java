@@ -0,0 +1,124 @@
+package de.metas.async.processor.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of queue latencies (millis), with fixed, roughly exponential buckets.
+ * <p>
+ * Percentiles are approximated by the upper bound of the bucket in which they fall, which is precise enough to tell if workpackages wait milliseconds, seconds or minutes.
+ */
+final class QueueLatencyHistogram
+{
+	private static final long[] BUCKET_UPPER_BOUNDS_MILLIS = {
+			1, 2, 5, 10, 20, 50, 100, 200, 500,
+			1_000, 2_000, 5_000, 10_000, 30_000, 60_000, 120_000, 300_000, 600_000,
+			Long.MAX_VALUE };
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_UPPER_BOUNDS_MILLIS.length);
+	private final AtomicLong maxMillis = new AtomicLong();
+
+	public void record(final long latencyMillis)
+	{
+		final long latencyMillisNorm = Math.max(latencyMillis, 0);
+		counts.incrementAndGet(getBucketIndex(latencyMillisNorm));
+		maxMillis.accumulateAndGet(latencyMillisNorm, Math::max);
+	}
+
+	private static int getBucketIndex(final long latencyMillis)
+	{
+		for (int i = 0; i < BUCKET_UPPER_BOUNDS_MILLIS.length; i++)
+		{
+			if (latencyMillis <= BUCKET_UPPER_BOUNDS_MILLIS[i])
+			{
+				return i;
+			}
+		}
+		return BUCKET_UPPER_BOUNDS_MILLIS.length - 1; // shall not happen
+	}
+
+	public long getCount()
+	{
+		long count = 0;
+		for (int i = 0; i < counts.length(); i++)
+		{
+			count += counts.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * @param percentile between 0 and 100, e.g. 50, 95, 99
+	 * @return latency (millis) or zero if nothing was recorded
+	 */
+	public long getPercentileMillis(final double percentile)
+	{
+		final long count = getCount();
+		if (count <= 0)
+		{
+			return 0;
+		}
+
+		final double percentileNorm = Math.min(Math.max(percentile, 0), 100);
+		final long rank = Math.max(1, (long)Math.ceil(percentileNorm / 100 * count));
+
+		long cumulatedCount = 0;
+		for (int i = 0; i < counts.length(); i++)
+		{
+			cumulatedCount += counts.get(i);
+			if (cumulatedCount >= rank)
+			{
+				// never report more than we actually have seen
+				return Math.min(BUCKET_UPPER_BOUNDS_MILLIS[i], maxMillis.get());
+			}
+		}
+		return maxMillis.get();
+	}
+
+	public long getMaxMillis()
+	{
+		return maxMillis.get();
+	}
+
+	public QueueLatencyHistogram copy()
+	{
+		final QueueLatencyHistogram copy = new QueueLatencyHistogram();
+		for (int i = 0; i < counts.length(); i++)
+		{
+			copy.counts.set(i, counts.get(i));
+		}
+		copy.maxMillis.set(maxMillis.get());
+		return copy;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "p50=" + getPercentileMillis(50) + "ms"
+				+ ", p95=" + getPercentileMillis(95) + "ms"
+				+ ", p99=" + getPercentileMillis(99) + "ms"
+				+ ", max=" + getMaxMillis() + "ms";
+	}
+}
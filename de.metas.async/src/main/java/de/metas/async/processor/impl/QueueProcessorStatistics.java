@@ -32,6 +32,7 @@ public class QueueProcessorStatistics implements IMutableQueueProcessorStatistic
 	private long countErrors = 0;
 	private long countSkipped = 0;
 	private long queueSize = 0;
+	private QueueLatencyHistogram queueLatencies = new QueueLatencyHistogram();
 
 	@Override
 	public QueueProcessorStatistics clone()
@@ -42,6 +43,7 @@ public class QueueProcessorStatistics implements IMutableQueueProcessorStatistic
 		statisticsNew.countProcessed = countProcessed;
 		statisticsNew.countSkipped = countSkipped;
 		statisticsNew.queueSize = queueSize;
+		statisticsNew.queueLatencies = queueLatencies.copy();
 		return statisticsNew;
 	}
 
@@ -54,6 +56,7 @@ public class QueueProcessorStatistics implements IMutableQueueProcessorStatistic
 				+ ", countErrors=" + countErrors
 				+ ", countSkipped=" + countSkipped
 				+ ", queueSize=" + queueSize
+				+ ", queueLatencies=" + queueLatencies
 				+ "]";
 	}
 
@@ -123,4 +126,16 @@ public class QueueProcessorStatistics implements IMutableQueueProcessorStatistic
 		countSkipped++;
 	}
 
+	@Override
+	public long getQueueLatencyMillisPercentile(final double percentile)
+	{
+		return queueLatencies.getPercentileMillis(percentile);
+	}
+
+	@Override
+	public void recordQueueLatencyMillis(final long queueLatencyMillis)
+	{
+		queueLatencies.record(queueLatencyMillis);
+	}
+
 }
@@ -0,0 +1,359 @@
+package de.metas.async.processor.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.slf4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+
+import de.metas.async.model.X_C_Queue_WorkPackage;
+import de.metas.logging.LogManager;
+import de.metas.util.Check;
+import de.metas.util.Services;
+import lombok.NonNull;
+
+/**
+ * One thread pool which is shared by all {@link ThreadPoolQueueProcessor}s.
+ * <p>
+ * Each queue processor gets a {@link Lane} which caps how many of its tasks may be submitted (i.e. waiting or running) at the same time.
+ * The threads are not bound to a processor, so a processor with a lot of work uses the threads which the other processors are not using right now.
+ * When all threads are busy, the waiting tasks are executed in the order of their workpackage priority (see {@link X_C_Queue_WorkPackage#PRIORITY_AD_Reference_ID}) and then in the order they were submitted,
+ * no matter which processor they are coming from.
+ * <p>
+ * Configuration (AD_SysConfig):
+ * <ul>
+ * <li>{@value #SYSCONFIG_Enabled}: if <code>true</code>, the queue processors are using this shared scheduler. Default <code>false</code>, i.e. each queue processor has its own thread pool, like before.
+ * <li>{@value #SYSCONFIG_PoolSize}: number of threads. Default is the sum of the pool sizes of the registered queue processors, i.e. the same number of threads as without the shared scheduler.
+ * <li>{@value #SYSCONFIG_MaxConcurrency_Prefix}<code>&lt;C_Queue_Processor.Name&gt;</code>: the cap of the given processor. Default is the processor's pool size.
+ * </ul>
+ */
+final class SharedWorkpackageScheduler
+{
+	private static final transient Logger logger = LogManager.getLogger(SharedWorkpackageScheduler.class);
+
+	static final String SYSCONFIG_Enabled = "de.metas.async.SharedScheduler.Enabled";
+	static final String SYSCONFIG_PoolSize = "de.metas.async.SharedScheduler.PoolSize";
+	static final String SYSCONFIG_MaxConcurrency_Prefix = "de.metas.async.SharedScheduler.MaxConcurrency.";
+
+	private static final int DEFAULT_PRIORITY = Integer.parseInt(X_C_Queue_WorkPackage.PRIORITY_Medium);
+
+	private static SharedWorkpackageScheduler instance;
+
+	public static boolean isEnabled()
+	{
+		return Services.get(ISysConfigBL.class).getBooleanValue(SYSCONFIG_Enabled, false);
+	}
+
+	public static synchronized SharedWorkpackageScheduler getInstance()
+	{
+		if (instance == null)
+		{
+			final int fixedPoolSize = Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_PoolSize, 0);
+			instance = new SharedWorkpackageScheduler(fixedPoolSize);
+		}
+		return instance;
+	}
+
+	public static int getMaxConcurrency(@NonNull final String processorName, final int defaultMaxConcurrency)
+	{
+		return Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_MaxConcurrency_Prefix + processorName, defaultMaxConcurrency);
+	}
+
+	private final ThreadPoolExecutor executor;
+	/** if > 0, the pool size does not change when lanes are added/removed */
+	private final int fixedPoolSize;
+	private final AtomicInteger registeredPoolSize = new AtomicInteger(0);
+	private final AtomicLong nextSequenceNo = new AtomicLong(0);
+
+	@VisibleForTesting
+	SharedWorkpackageScheduler(final int fixedPoolSize)
+	{
+		this.fixedPoolSize = fixedPoolSize > 0 ? fixedPoolSize : 0;
+
+		final CustomizableThreadFactory threadFactory = CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(SharedWorkpackageScheduler.class.getName())
+				.setDaemon(true)
+				.build();
+
+		final int initialPoolSize = this.fixedPoolSize > 0 ? this.fixedPoolSize : 1;
+		executor = new ThreadPoolExecutor(
+				initialPoolSize, // corePoolSize
+				initialPoolSize, // maximumPoolSize
+				60, TimeUnit.SECONDS, // keepAliveTime
+				new PriorityBlockingQueue<>(), // tasks are PrioritizedTasks, because we are using execute() and not submit()
+				threadFactory);
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("poolSize", executor.getCorePoolSize())
+				.add("activeThreads", executor.getActiveCount())
+				.add("queuedTasks", executor.getQueue().size())
+				.add("completedTasks", executor.getCompletedTaskCount())
+				.toString();
+	}
+
+	/**
+	 * @param poolSize number of threads which this lane brings into the shared pool (unless the pool size is fixed)
+	 * @param maxConcurrency how many tasks of this lane may be submitted at the same time
+	 */
+	public Lane newLane(@NonNull final String name, final int poolSize, final int maxConcurrency)
+	{
+		final Lane lane = new Lane(name, Math.max(poolSize, 0), Math.max(maxConcurrency, 1));
+		resizePool(lane.poolSize);
+		logger.info("Added {} to {}", lane, this);
+		return lane;
+	}
+
+	private synchronized void resizePool(final int poolSizeDelta)
+	{
+		final int registeredPoolSize = this.registeredPoolSize.addAndGet(poolSizeDelta);
+		if (fixedPoolSize > 0)
+		{
+			return;
+		}
+
+		final int poolSizeNew = Math.max(registeredPoolSize, 1);
+		if (poolSizeNew > executor.getMaximumPoolSize())
+		{
+			executor.setMaximumPoolSize(poolSizeNew);
+			executor.setCorePoolSize(poolSizeNew);
+		}
+		else
+		{
+			executor.setCorePoolSize(poolSizeNew);
+			executor.setMaximumPoolSize(poolSizeNew);
+		}
+	}
+
+	@VisibleForTesting
+	int getPoolSize()
+	{
+		return executor.getCorePoolSize();
+	}
+
+	@VisibleForTesting
+	void shutdownNow()
+	{
+		executor.shutdownNow();
+	}
+
+	@VisibleForTesting
+	static int toPriority(final String workpackagePriority)
+	{
+		if (Check.isEmpty(workpackagePriority, true))
+		{
+			return DEFAULT_PRIORITY;
+		}
+		try
+		{
+			return Integer.parseInt(workpackagePriority.trim());
+		}
+		catch (final NumberFormatException ex)
+		{
+			logger.warn("Invalid workpackage priority {}. Using {}", workpackagePriority, DEFAULT_PRIORITY);
+			return DEFAULT_PRIORITY;
+		}
+	}
+
+	/**
+	 * The tasks of one queue processor.
+	 */
+	public final class Lane
+	{
+		private final String name;
+		private final int poolSize;
+		private final int maxConcurrency;
+		private final Semaphore permits;
+		private volatile boolean closed = false;
+
+		private Lane(final String name, final int poolSize, final int maxConcurrency)
+		{
+			this.name = name;
+			this.poolSize = poolSize;
+			this.maxConcurrency = maxConcurrency;
+			this.permits = new Semaphore(maxConcurrency);
+		}
+
+		@Override
+		public String toString()
+		{
+			return MoreObjects.toStringHelper(this)
+					.add("name", name)
+					.add("poolSize", poolSize)
+					.add("maxConcurrency", maxConcurrency)
+					.add("submittedTasks", getSubmittedCount())
+					.add("closed", closed)
+					.toString();
+		}
+
+		/**
+		 * Submits the given task. If this lane's cap is reached, it waits until one of its tasks is done.
+		 *
+		 * @param workpackagePriority see {@link X_C_Queue_WorkPackage#PRIORITY_AD_Reference_ID}; lower means more urgent
+		 * @param queueLatencyMillisConsumer called when the task starts, with the time it waited for a thread
+		 */
+		public void submit(
+				final String workpackagePriority,
+				@NonNull final Runnable task,
+				@NonNull final LongConsumer queueLatencyMillisConsumer) throws InterruptedException
+		{
+			Check.assume(!closed, "{} is not closed", this);
+
+			permits.acquire();
+			boolean submitted = false;
+			try
+			{
+				final PrioritizedTask prioritizedTask = new PrioritizedTask(this, toPriority(workpackagePriority), nextSequenceNo.getAndIncrement(), task, queueLatencyMillisConsumer);
+				executor.execute(prioritizedTask);
+				submitted = true;
+			}
+			finally
+			{
+				if (!submitted)
+				{
+					permits.release();
+				}
+			}
+		}
+
+		/** @return how many tasks of this lane are waiting or running */
+		public int getSubmittedCount()
+		{
+			return maxConcurrency - permits.availablePermits();
+		}
+
+		/**
+		 * Stops accepting tasks, removes the lane's tasks which are still waiting and gives back the lane's threads.
+		 *
+		 * @return the tasks which were removed before being executed
+		 */
+		public List<Runnable> close()
+		{
+			if (closed)
+			{
+				return new ArrayList<>();
+			}
+			closed = true;
+
+			final List<Runnable> removedTasks = new ArrayList<>();
+			for (final Runnable queuedTask : executor.getQueue().toArray(new Runnable[0]))
+			{
+				final PrioritizedTask prioritizedTask = (PrioritizedTask)queuedTask;
+				if (prioritizedTask.lane == this && executor.remove(prioritizedTask))
+				{
+					permits.release();
+					removedTasks.add(prioritizedTask.task);
+				}
+			}
+
+			resizePool(-poolSize);
+			logger.info("Removed {} from {}", this, SharedWorkpackageScheduler.this);
+			return removedTasks;
+		}
+
+		/**
+		 * Waits until the tasks of this lane which are already running are done.
+		 *
+		 * @return true if all tasks are done
+		 */
+		public boolean awaitRunningTasks(final long timeout, final TimeUnit unit) throws InterruptedException
+		{
+			if (permits.tryAcquire(maxConcurrency, timeout, unit))
+			{
+				permits.release(maxConcurrency);
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask>
+	{
+		private final Lane lane;
+		private final int priority;
+		private final long sequenceNo;
+		private final Runnable task;
+		private final LongConsumer queueLatencyMillisConsumer;
+		private final long submittedNanos = System.nanoTime();
+
+		private PrioritizedTask(
+				final Lane lane,
+				final int priority,
+				final long sequenceNo,
+				final Runnable task,
+				final LongConsumer queueLatencyMillisConsumer)
+		{
+			this.lane = lane;
+			this.priority = priority;
+			this.sequenceNo = sequenceNo;
+			this.task = task;
+			this.queueLatencyMillisConsumer = queueLatencyMillisConsumer;
+		}
+
+		@Override
+		public int compareTo(final PrioritizedTask other)
+		{
+			final int cmp = Integer.compare(priority, other.priority);
+			return cmp != 0 ? cmp : Long.compare(sequenceNo, other.sequenceNo);
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				queueLatencyMillisConsumer.accept(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedNanos));
+			}
+			catch (final Exception ex)
+			{
+				logger.warn("Failed recording the queue latency of {}. Ignored.", task, ex);
+			}
+
+			try
+			{
+				task.run();
+			}
+			finally
+			{
+				lane.permits.release();
+			}
+		}
+	}
+}
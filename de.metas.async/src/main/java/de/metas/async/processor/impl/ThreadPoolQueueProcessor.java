@@ -23,11 +23,13 @@ package de.metas.async.processor.impl;
  */
 
 
+import java.util.List;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.util.concurrent.BlockingThreadPoolExecutor;
 import org.adempiere.util.concurrent.CustomizableThreadFactory;
 
@@ -35,11 +37,20 @@ import com.google.common.base.MoreObjects;
 
 import de.metas.async.api.IWorkPackageQueue;
 import de.metas.async.model.I_C_Queue_Processor;
+import de.metas.async.model.I_C_Queue_WorkPackage;
 
+/**
+ * Executes the workpackages in its own thread pool (default) or, if enabled, in the {@link SharedWorkpackageScheduler}.
+ * <p>
+ * The shared scheduler is opt-in, see {@link SharedWorkpackageScheduler#SYSCONFIG_Enabled}.
+ */
 class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 {
 	private String name;
+	/** Not null if the shared scheduler is not enabled */
 	private final ThreadPoolExecutor executor;
+	/** Not null if the shared scheduler is enabled */
+	private final SharedWorkpackageScheduler.Lane lane;
 	private final AtomicBoolean running;
 
 	public ThreadPoolQueueProcessor(final I_C_Queue_Processor config, final IWorkPackageQueue queue)
@@ -48,8 +59,15 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 
 		this.name = config.getName();
 
+		if (SharedWorkpackageScheduler.isEnabled())
+		{
+			final int maxConcurrency = SharedWorkpackageScheduler.getMaxConcurrency(name, config.getPoolSize());
+			this.lane = SharedWorkpackageScheduler.getInstance().newLane(name, config.getPoolSize(), maxConcurrency);
+			this.executor = null;
+		}
 		//
 		// Create the tasks executor
+		else
 		{
 			final CustomizableThreadFactory threadFactory = CustomizableThreadFactory.builder()
 					.setThreadNamePrefix("de.metas.async.processor.impl.ThreadPoolQueueProcessor-" + name)
@@ -62,6 +80,8 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 			);
 			// If we have a KeepAliveTimeMillis in processor definition, then we apply the timeout for core threads too
 			executor.allowCoreThreadTimeOut(config.getKeepAliveTimeMillis() > 0);
+
+			this.lane = null;
 		}
 
 		this.running = new AtomicBoolean(true);
@@ -71,8 +91,10 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 	public String toString()
 	{
 		return MoreObjects.toStringHelper(this)
+				.omitNullValues()
 				.add("name", name)
 				.add("executor", executor)
+				.add("lane", lane)
 				.toString();
 	}
 
@@ -89,6 +111,10 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 		{
 			return false;
 		}
+		if (executor == null)
+		{
+			return true;
+		}
 		if (executor.isTerminating())
 		{
 			return false;
@@ -106,9 +132,29 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 	}
 
 	@Override
-	protected void executeTask(WorkpackageProcessorTask task)
+	protected void executeTask(final WorkpackageProcessorTask task)
 	{
-		executor.submit(task);
+		if (lane != null)
+		{
+			try
+			{
+				final I_C_Queue_WorkPackage workPackage = task.getWorkPackage();
+				lane.submit(workPackage.getPriority(), task, queueLatencyMillis -> recordQueueLatency(task, queueLatencyMillis));
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new AdempiereException("Interrupted while waiting to submit " + task, e);
+			}
+		}
+		else
+		{
+			final long submittedNanos = System.nanoTime();
+			executor.submit(() -> {
+				recordQueueLatency(task, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedNanos));
+				task.run();
+			});
+		}
 	}
 
 	private final ReentrantLock shutdownLock = new ReentrantLock();
@@ -119,7 +165,14 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 		shutdownLock.lock();
 		try
 		{
-			shutdown0();
+			if (lane != null)
+			{
+				shutdownLane();
+			}
+			else
+			{
+				shutdown0();
+			}
 		}
 		finally
 		{
@@ -127,6 +180,39 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 		}
 	}
 
+	private final void shutdownLane()
+	{
+		if (!running.getAndSet(false))
+		{
+			return; // already shut down
+		}
+		logger.info("Shutdown started");
+
+		// The tasks which did not start yet would keep their workpackages locked, so unlock them
+		final List<Runnable> notStartedTasks = lane.close();
+		for (final Runnable notStartedTask : notStartedTasks)
+		{
+			final I_C_Queue_WorkPackage workPackage = ((WorkpackageProcessorTask)notStartedTask).getWorkPackage();
+			getQueue().unlockNoFail(workPackage);
+			getEventDispatcher().unregisterListeners(workPackage.getC_Queue_WorkPackage_ID());
+		}
+
+		try
+		{
+			if (!lane.awaitRunningTasks(25, TimeUnit.SECONDS))
+			{
+				logger.warn("Running tasks of {} did not finish in time", name);
+			}
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			logger.warn("Interrupted while waiting for the running tasks of {} to finish", name);
+		}
+
+		logger.info("Shutdown finished; {} not started workpackages were unlocked", notStartedTasks.size());
+	}
+
 	private final void shutdown0()
 	{
 		logger.info("Shutdown started");
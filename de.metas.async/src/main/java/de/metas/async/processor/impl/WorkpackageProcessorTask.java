@@ -121,6 +121,16 @@ import lombok.NonNull;
 		trxNamePrefix = workPackageProcessorOriginal.getClass().getSimpleName(); // use work processor's name as trx name prefix
 	}
 
+	/* package */ I_C_Queue_WorkPackage getWorkPackage()
+	{
+		return workPackage;
+	}
+
+	/* package */ IWorkpackageProcessor getWorkPackageProcessor()
+	{
+		return workPackageProcessorOriginal;
+	}
+
 	/**
 	 * Creates the context to be used in this processing thread.
 	 *
@@ -23,6 +23,7 @@ package de.metas.lock.api.impl;
  */
 
 import java.util.Iterator;
+import java.util.List;
 
 import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.ad.dao.IQueryBuilder;
@@ -33,6 +34,8 @@ import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.model.IQuery;
 import org.slf4j.Logger;
 
+import com.google.common.collect.Iterators;
+
 import de.metas.lock.api.ILock;
 import de.metas.lock.api.ILockCommand;
 import de.metas.lock.api.ILockCommand.AllowAdditionalLocks;
@@ -136,6 +139,7 @@ public abstract class AbstractLockDatabase implements ILockDatabase
 
 	/**
 	 * Lock all records specified by {@link LockCommand#getRecordsToLockIterator()}.
+	 * The records are passed on in chunks of {@link #getBulkSize()}, see {@link #lockRecords(ILockCommand, List)} and {@link #changeLockRecords(ILockCommand, List)}.
 	 *
 	 * @param lockCommand
 	 * @return how many records were locked
@@ -145,24 +149,52 @@ public abstract class AbstractLockDatabase implements ILockDatabase
 		final Iterator<ITableRecordReference> records = lockCommand.getRecordsToLockIterator();
 		Check.assumeNotNull(records, "records not null");
 
-		final boolean failIfAlreadyLocked = lockCommand.isFailIfAlreadyLocked();
 		final boolean changeLock = lockCommand.getParentLock() != null;
 		int countLocked = 0;
-		while (records.hasNext())
+
+		final Iterator<List<ITableRecordReference>> chunks = Iterators.partition(records, getBulkSize());
+		while (chunks.hasNext())
 		{
-			final ITableRecordReference record = records.next();
+			final List<ITableRecordReference> chunk = chunks.next();
 
 			//
-			// Acquire/Change the lock
-			final boolean locked;
+			// Acquire/Change the locks
 			if (changeLock)
 			{
-				locked = changeLockRecord(lockCommand, record);
+				countLocked += changeLockRecords(lockCommand, chunk);
 			}
 			else
 			{
-				locked = lockRecord(lockCommand, record);
+				countLocked += lockRecords(lockCommand, chunk);
 			}
+		}
+
+		return countLocked;
+	}
+
+	/**
+	 * @return how many records shall be locked/unlocked in one go when locking by iterator
+	 */
+	protected int getBulkSize()
+	{
+		return 1;
+	}
+
+	/**
+	 * Locks the given records.
+	 * <p>
+	 * This implementation locks them one by one, using {@link #lockRecord(ILockCommand, ITableRecordReference)}. Implementors can override it to lock all of them in one go.
+	 *
+	 * @return how many records were locked
+	 * @throws LockFailedException if locking failed or if a record could not be locked and {@link LockCommand#isFailIfAlreadyLocked()} is true
+	 */
+	protected int lockRecords(final ILockCommand lockCommand, final List<ITableRecordReference> records)
+	{
+		final boolean failIfAlreadyLocked = lockCommand.isFailIfAlreadyLocked();
+		int countLocked = 0;
+		for (final ITableRecordReference record : records)
+		{
+			final boolean locked = lockRecord(lockCommand, record);
 
 			// Increment the locked counter
 			if (locked)
@@ -171,7 +203,7 @@ public abstract class AbstractLockDatabase implements ILockDatabase
 			}
 
 			//
-			// If lock could not be acquired/changed and we were asked to fail, do so
+			// If lock could not be acquired and we were asked to fail, do so
 			if (failIfAlreadyLocked && !locked)
 			{
 				// NOTE: we are checking this just to me sure, but basically, the "lockRecord" method is already throwing an exception in this case
@@ -184,6 +216,37 @@ public abstract class AbstractLockDatabase implements ILockDatabase
 		return countLocked;
 	}
 
+	/**
+	 * Changes the lock of the given records.
+	 * <p>
+	 * This implementation changes them one by one, using {@link #changeLockRecord(ILockCommand, ITableRecordReference)}. Implementors can override it to change all of them in one go.
+	 *
+	 * @return how many records were changed
+	 * @throws LockFailedException if the lock of a record could not be changed and {@link LockCommand#isFailIfAlreadyLocked()} is true
+	 */
+	protected int changeLockRecords(final ILockCommand lockCommand, final List<ITableRecordReference> records)
+	{
+		final boolean failIfAlreadyLocked = lockCommand.isFailIfAlreadyLocked();
+		int countChanged = 0;
+		for (final ITableRecordReference record : records)
+		{
+			final boolean changed = changeLockRecord(lockCommand, record);
+			if (changed)
+			{
+				countChanged++;
+			}
+
+			if (failIfAlreadyLocked && !changed)
+			{
+				throw new LockFailedException("Record was already locked: " + record)
+						.setLockCommand(lockCommand)
+						.setRecordToLock(record);
+			}
+		}
+
+		return countChanged;
+	}
+
 	/**
 	 * Locks a single record.
 	 *
@@ -251,9 +314,27 @@ public abstract class AbstractLockDatabase implements ILockDatabase
 		Check.assumeNotNull(records, "records not null");
 
 		int countUnlocked = 0;
-		while (records.hasNext())
+		final Iterator<List<ITableRecordReference>> chunks = Iterators.partition(records, getBulkSize());
+		while (chunks.hasNext())
+		{
+			countUnlocked += unlockRecords(unlockCommand, chunks.next());
+		}
+
+		return countUnlocked;
+	}
+
+	/**
+	 * Unlocks the given records.
+	 * <p>
+	 * This implementation unlocks them one by one, using {@link #unlockRecord(IUnlockCommand, ITableRecordReference)}. Implementors can override it to unlock all of them in one go.
+	 *
+	 * @return how many records were unlocked
+	 */
+	protected int unlockRecords(final IUnlockCommand unlockCommand, final List<ITableRecordReference> records)
+	{
+		int countUnlocked = 0;
+		for (final ITableRecordReference record : records)
 		{
-			final ITableRecordReference record = records.next();
 			final boolean unlocked = unlockRecord(unlockCommand, record);
 			if (unlocked)
 			{
@@ -0,0 +1,215 @@
+package de.metas.lock.spi.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.adempiere.util.concurrent.CloseableReentrantLock;
+
+import de.metas.lock.api.LockOwner;
+
+/**
+ * Node-local table of the <code>T_Lock</code> records which were created by this JVM.
+ * <p>
+ * It only knows about the locks which this node acquired record by record, so it can answer "is locked" with <code>true</code> without asking the database,
+ * but it can never tell that a record is <b>not</b> locked. Whenever we can't tell exactly which records were unlocked, we drop more entries than needed.
+ * <p>
+ * The entries are spread over a fixed number of stripes, each guarded by its own lock, so that concurrent lock/unlock calls don't block each other.
+ */
+final class LocalLockTable
+{
+	private static final int STRIPES_COUNT = 64;
+
+	private final Stripe[] stripes;
+	private final LongAdder contentionCount = new LongAdder();
+
+	LocalLockTable()
+	{
+		stripes = new Stripe[STRIPES_COUNT];
+		for (int i = 0; i < stripes.length; i++)
+		{
+			stripes[i] = new Stripe();
+		}
+	}
+
+	private static final class Stripe
+	{
+		private final CloseableReentrantLock lock = new CloseableReentrantLock();
+		private final Map<Long, Set<String>> ownerNamesByKey = new HashMap<>();
+	}
+
+	private static long toKey(final int adTableId, final int recordId)
+	{
+		return ((long)adTableId << 32) | (recordId & 0xFFFFFFFFL);
+	}
+
+	private static int extractTableId(final long key)
+	{
+		return (int)(key >>> 32);
+	}
+
+	private Stripe getStripe(final long key)
+	{
+		final int hash = Long.hashCode(key) * 0x9E3779B9; // spread consecutive record IDs
+		return stripes[(hash >>> 16) % stripes.length];
+	}
+
+	private CloseableReentrantLock lock(final Stripe stripe)
+	{
+		final CloseableReentrantLock lock = stripe.lock;
+		if (!lock.tryLock())
+		{
+			contentionCount.increment();
+			lock.lock();
+		}
+		return lock;
+	}
+
+	public void add(final int adTableId, final int recordId, final LockOwner lockOwner)
+	{
+		final long key = toKey(adTableId, recordId);
+		final Stripe stripe = getStripe(key);
+		try (final CloseableReentrantLock lock = lock(stripe))
+		{
+			stripe.ownerNamesByKey
+					.computeIfAbsent(key, k -> new HashSet<>())
+					.add(lockOwner.getOwnerName());
+		}
+	}
+
+	/**
+	 * @param lockOwner owner whose lock shall be removed; {@link LockOwner#ANY} removes all owners' locks
+	 */
+	public void remove(final int adTableId, final int recordId, final LockOwner lockOwner)
+	{
+		final long key = toKey(adTableId, recordId);
+		final Stripe stripe = getStripe(key);
+		try (final CloseableReentrantLock lock = lock(stripe))
+		{
+			if (lockOwner.isAnyOwner())
+			{
+				stripe.ownerNamesByKey.remove(key);
+				return;
+			}
+
+			final Set<String> ownerNames = stripe.ownerNamesByKey.get(key);
+			if (ownerNames != null && ownerNames.remove(lockOwner.getOwnerName()) && ownerNames.isEmpty())
+			{
+				stripe.ownerNamesByKey.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * @param lockOwner owner to check; <code>null</code> or {@link LockOwner#ANY} means any owner
+	 */
+	public boolean isLocked(final int adTableId, final int recordId, final LockOwner lockOwner)
+	{
+		final long key = toKey(adTableId, recordId);
+		final Stripe stripe = getStripe(key);
+		try (final CloseableReentrantLock lock = lock(stripe))
+		{
+			final Set<String> ownerNames = stripe.ownerNamesByKey.get(key);
+			if (ownerNames == null || ownerNames.isEmpty())
+			{
+				return false;
+			}
+
+			return lockOwner == null || lockOwner.isAnyOwner() || ownerNames.contains(lockOwner.getOwnerName());
+		}
+	}
+
+	public void removeByOwner(final LockOwner lockOwner)
+	{
+		if (lockOwner.isAnyOwner())
+		{
+			clear();
+			return;
+		}
+
+		final String ownerName = lockOwner.getOwnerName();
+		for (final Stripe stripe : stripes)
+		{
+			try (final CloseableReentrantLock lock = lock(stripe))
+			{
+				final Iterator<Set<String>> it = stripe.ownerNamesByKey.values().iterator();
+				while (it.hasNext())
+				{
+					final Set<String> ownerNames = it.next();
+					if (ownerNames.remove(ownerName) && ownerNames.isEmpty())
+					{
+						it.remove();
+					}
+				}
+			}
+		}
+	}
+
+	public void removeByTableId(final int adTableId)
+	{
+		for (final Stripe stripe : stripes)
+		{
+			try (final CloseableReentrantLock lock = lock(stripe))
+			{
+				stripe.ownerNamesByKey.keySet().removeIf(key -> extractTableId(key) == adTableId);
+			}
+		}
+	}
+
+	public void clear()
+	{
+		for (final Stripe stripe : stripes)
+		{
+			try (final CloseableReentrantLock lock = lock(stripe))
+			{
+				stripe.ownerNamesByKey.clear();
+			}
+		}
+	}
+
+	public int size()
+	{
+		int size = 0;
+		for (final Stripe stripe : stripes)
+		{
+			try (final CloseableReentrantLock lock = lock(stripe))
+			{
+				size += stripe.ownerNamesByKey.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return how many times a thread had to wait because the stripe it needed was held by another thread
+	 */
+	public long getContentionCount()
+	{
+		return contentionCount.sum();
+	}
+}
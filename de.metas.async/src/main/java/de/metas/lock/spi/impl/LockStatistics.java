@@ -0,0 +1,127 @@
+package de.metas.lock.spi.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters about the lock/unlock statements which were executed against <code>T_Lock</code>.
+ */
+final class LockStatistics
+{
+	private final LongAdder lockStatementsCount = new LongAdder();
+	private final LongAdder lockedRecordsCount = new LongAdder();
+	private final LongAdder alreadyLockedCount = new LongAdder();
+	private final LongAdder lockNanosTotal = new LongAdder();
+	private final LongAccumulator lockNanosMax = new LongAccumulator(Math::max, 0);
+
+	private final LongAdder unlockStatementsCount = new LongAdder();
+	private final LongAdder unlockedRecordsCount = new LongAdder();
+	private final LongAdder unlockNanosTotal = new LongAdder();
+
+	private final LongAdder localLockTableHits = new LongAdder();
+
+	/**
+	 * @param countAlreadyLocked how many of the requested records could not be locked because they were locked by somebody else
+	 */
+	public void recordLock(final long durationNanos, final int countLocked, final int countAlreadyLocked)
+	{
+		lockStatementsCount.increment();
+		lockedRecordsCount.add(countLocked);
+		alreadyLockedCount.add(countAlreadyLocked);
+		lockNanosTotal.add(durationNanos);
+		lockNanosMax.accumulate(durationNanos);
+	}
+
+	public void recordUnlock(final long durationNanos, final int countUnlocked)
+	{
+		unlockStatementsCount.increment();
+		unlockedRecordsCount.add(countUnlocked);
+		unlockNanosTotal.add(durationNanos);
+	}
+
+	public void recordLocalLockTableHit()
+	{
+		localLockTableHits.increment();
+	}
+
+	public long getLockStatementsCount()
+	{
+		return lockStatementsCount.sum();
+	}
+
+	public long getLockedRecordsCount()
+	{
+		return lockedRecordsCount.sum();
+	}
+
+	public long getAlreadyLockedCount()
+	{
+		return alreadyLockedCount.sum();
+	}
+
+	public long getLockMillisTotal()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(lockNanosTotal.sum());
+	}
+
+	public long getLockMillisMax()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(lockNanosMax.get());
+	}
+
+	public long getUnlockStatementsCount()
+	{
+		return unlockStatementsCount.sum();
+	}
+
+	public long getUnlockedRecordsCount()
+	{
+		return unlockedRecordsCount.sum();
+	}
+
+	public long getUnlockMillisTotal()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(unlockNanosTotal.sum());
+	}
+
+	public long getLocalLockTableHits()
+	{
+		return localLockTableHits.sum();
+	}
+
+	public void reset()
+	{
+		lockStatementsCount.reset();
+		lockedRecordsCount.reset();
+		alreadyLockedCount.reset();
+		lockNanosTotal.reset();
+		lockNanosMax.reset();
+		unlockStatementsCount.reset();
+		unlockedRecordsCount.reset();
+		unlockNanosTotal.reset();
+		localLockTableHits.reset();
+	}
+}
@@ -5,7 +5,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.adempiere.ad.dao.IQueryFilter;
 import org.adempiere.ad.dao.ISqlQueryFilter;
@@ -15,11 +17,18 @@ import org.adempiere.ad.table.api.IADTableDAO;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.exceptions.DBUniqueConstraintException;
 import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.util.jmx.JMXRegistry;
+import org.adempiere.util.jmx.JMXRegistry.OnJMXAlreadyExistsPolicy;
 import org.adempiere.util.lang.ITableRecordReference;
 import org.compiere.model.IQuery;
 import org.compiere.util.DB;
 import org.compiere.util.DisplayType;
 
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+
 import de.metas.lock.api.ILock;
 import de.metas.lock.api.ILockCommand;
 import de.metas.lock.api.IUnlockCommand;
@@ -47,6 +56,46 @@ public class SqlLockDatabase extends AbstractLockDatabase
 {
 	private static final String SQL_DeleteLock = "DELETE FROM " + I_T_Lock.Table_Name + " WHERE 1=1 ";
 
+	/** How many records to lock/unlock with one SQL statement when locking by iterator */
+	private static final String SYSTEM_PROPERTY_BulkSize = "de.metas.lock.BulkSize";
+	private static final int DEFAULT_BulkSize = 1000;
+
+	/**
+	 * If <code>true</code>, the locks which were acquired by this node are also kept in a {@link LocalLockTable}, which answers the "is locked" checks for them without querying the database.
+	 * <p>
+	 * Only enable it if locks are not released by other nodes (e.g. a lock owner is unlocked on the same node where it locked).
+	 */
+	private static final String SYSTEM_PROPERTY_LocalLockTableEnabled = "de.metas.lock.LocalLockTable.Enabled";
+
+	private final int bulkSize;
+	private final LocalLockTable localLockTable;
+	private final LockStatistics statistics = new LockStatistics();
+
+	public SqlLockDatabase()
+	{
+		bulkSize = Math.max(Integer.getInteger(SYSTEM_PROPERTY_BulkSize, DEFAULT_BulkSize), 1);
+		localLockTable = Boolean.getBoolean(SYSTEM_PROPERTY_LocalLockTableEnabled) ? new LocalLockTable() : null;
+
+		JMXRegistry.get().registerJMX(new SqlLockDatabaseJMX(this), OnJMXAlreadyExistsPolicy.Replace);
+	}
+
+	@Override
+	protected int getBulkSize()
+	{
+		return bulkSize;
+	}
+
+	/** @return local lock table or <code>null</code> if not enabled */
+	LocalLockTable getLocalLockTable()
+	{
+		return localLockTable;
+	}
+
+	LockStatistics getStatistics()
+	{
+		return statistics;
+	}
+
 	/**
 	 * @param lockOwner
 	 * @param sql
@@ -85,17 +134,48 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		}
 	}
 
-	private final void appendTableRecordWhereClause(final ITableRecordReference record, final StringBuilder sql, final List<Object> sqlParams)
+	private final void appendTableRecordsWhereClause(final int adTableId, final Collection<Integer> recordIds, final StringBuilder sql, final List<Object> sqlParams)
 	{
-		final int adTableId = record.getAD_Table_ID();
-		final int recordId = record.getRecord_ID();
-		// TODO: shall we validate adTableId/recordId
+		Check.assume(adTableId > 0, "adTableId > 0");
+		Check.assumeNotEmpty(recordIds, "recordIds not empty");
 
 		// For AD_Table_ID
 		sql.append(" AND ").append(I_T_Lock.COLUMNNAME_AD_Table_ID).append("=").append(toSqlParam(adTableId, sqlParams));
 
 		// For Record_ID
-		sql.append(" AND ").append(I_T_Lock.COLUMNNAME_Record_ID).append("=").append(toSqlParam(recordId, sqlParams));
+		if (recordIds.size() == 1)
+		{
+			sql.append(" AND ").append(I_T_Lock.COLUMNNAME_Record_ID).append("=").append(toSqlParam(recordIds.iterator().next(), sqlParams));
+		}
+		else
+		{
+			sql.append(" AND ").append(I_T_Lock.COLUMNNAME_Record_ID).append("=ANY(").append(toSqlParam(toSqlArrayString(recordIds), sqlParams)).append("::numeric[])");
+		}
+	}
+
+	private static final String toSqlArrayString(final Collection<Integer> ids)
+	{
+		final StringBuilder sql = new StringBuilder();
+		sql.append("{");
+		Joiner.on(",").appendTo(sql, ids);
+		sql.append("}");
+		return sql.toString();
+	}
+
+	/**
+	 * Groups the given records' IDs by AD_Table_ID. Duplicate records are included just once.
+	 */
+	private static final SetMultimap<Integer, Integer> groupRecordIdsByTableId(final List<ITableRecordReference> records)
+	{
+		final SetMultimap<Integer, Integer> recordIdsByTableId = LinkedHashMultimap.create();
+		for (final ITableRecordReference record : records)
+		{
+			final int adTableId = record.getAD_Table_ID();
+			Check.assume(adTableId > 0, "adTableId > 0");
+
+			recordIdsByTableId.put(adTableId, record.getRecord_ID());
+		}
+		return recordIdsByTableId;
 	}
 
 	private final void appendTableSelectionWhereClause(final int adTableId, @NonNull final PInstanceId pinstanceId, final StringBuilder sql, final List<Object> sqlParams)
@@ -120,6 +200,12 @@ public class SqlLockDatabase extends AbstractLockDatabase
 			return false;
 		}
 
+		if (localLockTable != null && localLockTable.isLocked(adTableId, recordId, lockOwner))
+		{
+			statistics.recordLocalLockTableHit();
+			return true;
+		}
+
 		final List<Object> sqlParams = new ArrayList<>();
 		final StringBuilder sql = new StringBuilder(" SELECT count(1)"
 				+ " FROM " + I_T_Lock.Table_Name
@@ -216,11 +302,17 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		return performLockSQLInsert(lockCommand, sqlParams, sql);
 	}
 
-	protected int performLockSQLInsert(final ILockCommand lockCommand, final List<Object> sqlParams, final String sql)
+	protected int performLockSQLInsert(final ILockCommand lockCommand, final List<Object> sqlParams, final String sqlInsert)
 	{
+		// If we were asked to not fail, lock what we can (i.e. partial locking)
+		final String sql = lockCommand.isFailIfAlreadyLocked() ? sqlInsert : sqlInsert + " ON CONFLICT DO NOTHING";
+
+		final long startNanos = System.nanoTime();
 		try
 		{
 			final int countLocked = DB.executeUpdateEx(sql, sqlParams.toArray(), ITrx.TRXNAME_None);
+			statistics.recordLock(System.nanoTime() - startNanos, countLocked, 0);
+
 			if (countLocked <= 0 && lockCommand.isFailIfNothingLocked())
 			{
 				throw new LockFailedException("Nothing locked for selection");
@@ -230,7 +322,7 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		}
 		catch (final DBUniqueConstraintException e)
 		{
-			// TODO: implement for lockCommand.isFailIfAlreadyLocked() == false to allow partial locking
+			statistics.recordLock(System.nanoTime() - startNanos, 0, 1);
 
 			throw new LockFailedException("Some of the records were already locked", e)
 					.setLockCommand(lockCommand)
@@ -279,13 +371,22 @@ public class SqlLockDatabase extends AbstractLockDatabase
 				+ ", " + toSqlParam(isAllowMultipleOwners(lockCommand.getAllowAdditionalLocks()), sqlParams) // IsAllowMultipleOwners
 				+ ")";
 
+		final long startNanos = System.nanoTime();
 		try
 		{
 			DB.executeUpdateEx(sql, sqlParams.toArray(), ITrx.TRXNAME_None);
+			statistics.recordLock(System.nanoTime() - startNanos, 1, 0);
+
+			if (localLockTable != null)
+			{
+				localLockTable.add(adTableId, recordId, lockOwner);
+			}
 			return true;
 		}
 		catch (final DBUniqueConstraintException e)
 		{
+			statistics.recordLock(System.nanoTime() - startNanos, 0, 1);
+
 			// we are in a concurrent situation where another DB client acquired the lock for a record since our select
 			// => fail if we were asked to fail, else return false
 
@@ -307,8 +408,136 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		}
 	}
 
+	/**
+	 * Locks the given records using one INSERT per AD_Table_ID.
+	 */
+	@Override
+	protected int lockRecords(final ILockCommand lockCommand, final List<ITableRecordReference> records)
+	{
+		if (records.size() <= 1)
+		{
+			return super.lockRecords(lockCommand, records);
+		}
+
+		final LockOwner lockOwner = lockCommand.getOwner();
+		assertValidLockOwner(lockOwner);
+
+		int countLocked = 0;
+		for (final Map.Entry<Integer, Collection<Integer>> e : groupRecordIdsByTableId(records).asMap().entrySet())
+		{
+			final int adTableId = e.getKey();
+			final List<Integer> recordIds = new ArrayList<>(e.getValue());
+
+			// Same as for single records: negative IDs are never locked
+			if (recordIds.removeIf(recordId -> recordId < 0) && lockCommand.isFailIfAlreadyLocked())
+			{
+				throw new LockFailedException("Records with negative IDs cannot be locked")
+						.setLockCommand(lockCommand)
+						.setParameter("AD_Table_ID", adTableId);
+			}
+			if (recordIds.isEmpty())
+			{
+				continue;
+			}
+
+			countLocked += lockRecords(lockCommand, adTableId, recordIds);
+		}
+
+		return countLocked;
+	}
+
+	private int lockRecords(final ILockCommand lockCommand, final int adTableId, final List<Integer> recordIds)
+	{
+		final LockOwner lockOwner = lockCommand.getOwner();
+		final boolean failIfAlreadyLocked = lockCommand.isFailIfAlreadyLocked();
+
+		final List<Object> sqlParams = new ArrayList<>();
+		final String sql = "INSERT INTO " + I_T_Lock.Table_Name + " ("
+				+ I_T_Lock.COLUMNNAME_AD_Table_ID
+				+ ", " + I_T_Lock.COLUMNNAME_Record_ID
+				+ ", " + I_T_Lock.COLUMNNAME_Owner
+				+ ", " + I_T_Lock.COLUMNNAME_IsAutoCleanup
+				+ ", " + I_T_Lock.COLUMNNAME_IsAllowMultipleOwners
+				+ ")"
+				//
+				+ " SELECT "
+				+ toSqlParam(adTableId, sqlParams) // AD_Table_ID
+				+ ", r.Record_ID" // Record_ID
+				+ ", " + toSqlParam(lockOwner.getOwnerName(), sqlParams) // Owner
+				+ ", " + toSqlParam(lockCommand.isAutoCleanup(), sqlParams) // IsAutoCleanup
+				+ ", " + toSqlParam(isAllowMultipleOwners(lockCommand.getAllowAdditionalLocks()), sqlParams) // IsAllowMultipleOwners
+				//
+				+ " FROM unnest(" + toSqlParam(toSqlArrayString(recordIds), sqlParams) + "::numeric[]) AS r(Record_ID)"
+				+ (failIfAlreadyLocked ? "" : " ON CONFLICT DO NOTHING");
+
+		final long startNanos = System.nanoTime();
+		final int countLocked;
+		try
+		{
+			countLocked = DB.executeUpdateEx(sql, sqlParams.toArray(), ITrx.TRXNAME_None);
+		}
+		catch (final DBUniqueConstraintException e)
+		{
+			statistics.recordLock(System.nanoTime() - startNanos, 0, 1);
+
+			throw new LockFailedException("Some of the records were already locked", e)
+					.setLockCommand(lockCommand)
+					.setSql(sql, sqlParams.toArray());
+		}
+		catch (final Exception e)
+		{
+			throw LockFailedException.wrapIfNeeded(e)
+					.setLockCommand(lockCommand)
+					.setSql(sql, sqlParams.toArray());
+		}
+
+		statistics.recordLock(System.nanoTime() - startNanos, countLocked, recordIds.size() - countLocked);
+
+		// NOTE: if only some of them were locked, we don't know which ones, so we don't remember any of them
+		if (localLockTable != null && countLocked == recordIds.size())
+		{
+			recordIds.forEach(recordId -> localLockTable.add(adTableId, recordId, lockOwner));
+		}
+
+		return countLocked;
+	}
+
 	@Override
 	protected boolean changeLockRecord(final ILockCommand lockCommand, final ITableRecordReference record)
+	{
+		final int countChanged = changeLockRecords(lockCommand, record.getAD_Table_ID(), ImmutableList.of(record.getRecord_ID()), record);
+		return countChanged > 0;
+	}
+
+	/**
+	 * Changes the lock of the given records using one UPDATE per AD_Table_ID.
+	 */
+	@Override
+	protected int changeLockRecords(final ILockCommand lockCommand, final List<ITableRecordReference> records)
+	{
+		if (records.size() <= 1)
+		{
+			return super.changeLockRecords(lockCommand, records);
+		}
+
+		final SetMultimap<Integer, Integer> recordIdsByTableId = groupRecordIdsByTableId(records);
+
+		int countChanged = 0;
+		for (final Map.Entry<Integer, Collection<Integer>> e : recordIdsByTableId.asMap().entrySet())
+		{
+			countChanged += changeLockRecords(lockCommand, e.getKey(), e.getValue(), null);
+		}
+
+		if (lockCommand.isFailIfAlreadyLocked() && countChanged < recordIdsByTableId.size())
+		{
+			throw new LockFailedException("Only " + countChanged + " of " + recordIdsByTableId.size() + " records could be changed because the others are not locked by " + lockCommand.getParentLock().getOwner())
+					.setLockCommand(lockCommand);
+		}
+
+		return countChanged;
+	}
+
+	private int changeLockRecords(final ILockCommand lockCommand, final int adTableId, final Collection<Integer> recordIds, final ITableRecordReference recordForErrorReporting)
 	{
 		final List<Object> sqlParams = new ArrayList<>();
 		final StringBuilder sql = new StringBuilder("UPDATE " + I_T_Lock.Table_Name)
@@ -332,29 +561,49 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		// Where Clause...
 		sql.append(" WHERE 1=1 ");
 
-		// For AD_Table_ID
-		appendTableRecordWhereClause(record, sql, sqlParams);
+		// For AD_Table_ID/Record_ID
+		appendTableRecordsWhereClause(adTableId, recordIds, sql, sqlParams);
 
 		// For Owner
 		final ILock parentLock = lockCommand.getParentLock();
 		final LockOwner ownerCurrent = parentLock.getOwner();
 		appendLockOwnerWhereClause(ownerCurrent, sql, sqlParams);
 
+		final long startNanos = System.nanoTime();
+		final int countChanged;
 		try
 		{
-			final int countChanged = DB.executeUpdateEx(sql.toString(), sqlParams.toArray(), ITrx.TRXNAME_None);
-			return countChanged > 0;
+			countChanged = DB.executeUpdateEx(sql.toString(), sqlParams.toArray(), ITrx.TRXNAME_None);
 		}
 		catch (final Exception e)
 		{
 			throw new LockChangeFailedException("Failed changing owner for record", e)
 					.setLockCommand(lockCommand)
 					.setLock(parentLock)
-					.setRecord(record)
+					.setRecord(recordForErrorReporting)
+					.setParameter("AD_Table_ID", adTableId)
+					.setParameter("Record_IDs", recordIds)
 					.setParameter("Owner (old)", ownerCurrent)
 					.setParameter("Owner (new)", ownerNew)
 					.setSql(sql.toString(), sqlParams.toArray());
 		}
+
+		statistics.recordLock(System.nanoTime() - startNanos, countChanged, 0);
+
+		// NOTE: if only some of them were changed, we don't know which ones, so we just forget about the old owner's locks
+		if (localLockTable != null)
+		{
+			for (final int recordId : recordIds)
+			{
+				localLockTable.remove(adTableId, recordId, ownerCurrent);
+				if (countChanged == recordIds.size())
+				{
+					localLockTable.add(adTableId, recordId, ownerNew);
+				}
+			}
+		}
+
+		return countChanged;
 	}
 
 	@Override
@@ -372,6 +621,7 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		// For Owner
 		appendLockOwnerWhereClause(unlockCommand.getOwner(), sql, sqlParams);
 
+		final long startNanos = System.nanoTime();
 		int countUnlocked = -1;
 		try
 		{
@@ -384,32 +634,76 @@ public class SqlLockDatabase extends AbstractLockDatabase
 					.setSql(sql.toString(), sqlParams.toArray());
 		}
 
+		statistics.recordUnlock(System.nanoTime() - startNanos, countUnlocked);
+
+		// we don't know which records were in the selection
+		if (localLockTable != null)
+		{
+			localLockTable.removeByTableId(unlockCommand.getSelectionToUnlock_AD_Table_ID());
+		}
+
 		return countUnlocked;
 	}
 
 	@Override
 	protected boolean unlockRecord(final IUnlockCommand unlockCommand, final ITableRecordReference record)
+	{
+		final int countUnlocked = unlockRecords(unlockCommand, record.getAD_Table_ID(), ImmutableList.of(record.getRecord_ID()));
+		return countUnlocked > 0;
+	}
+
+	/**
+	 * Unlocks the given records using one DELETE per AD_Table_ID.
+	 */
+	@Override
+	protected int unlockRecords(final IUnlockCommand unlockCommand, final List<ITableRecordReference> records)
+	{
+		if (records.size() <= 1)
+		{
+			return super.unlockRecords(unlockCommand, records);
+		}
+
+		int countUnlocked = 0;
+		for (final Map.Entry<Integer, Collection<Integer>> e : groupRecordIdsByTableId(records).asMap().entrySet())
+		{
+			countUnlocked += unlockRecords(unlockCommand, e.getKey(), e.getValue());
+		}
+		return countUnlocked;
+	}
+
+	private int unlockRecords(final IUnlockCommand unlockCommand, final int adTableId, final Collection<Integer> recordIds)
 	{
 		final StringBuilder sql = new StringBuilder(SQL_DeleteLock);
 		final List<Object> sqlParams = new ArrayList<>();
 
 		// For AD_Table_ID/RecordId
-		appendTableRecordWhereClause(record, sql, sqlParams);
+		appendTableRecordsWhereClause(adTableId, recordIds, sql, sqlParams);
 
 		// For Owner
-		appendLockOwnerWhereClause(unlockCommand.getOwner(), sql, sqlParams);
+		final LockOwner lockOwner = unlockCommand.getOwner();
+		appendLockOwnerWhereClause(lockOwner, sql, sqlParams);
 
+		final long startNanos = System.nanoTime();
+		final int countUnlocked;
 		try
 		{
-			final int countUnlocked = DB.executeUpdateEx(sql.toString(), sqlParams.toArray(), ITrx.TRXNAME_None);
-			return countUnlocked > 0;
+			countUnlocked = DB.executeUpdateEx(sql.toString(), sqlParams.toArray(), ITrx.TRXNAME_None);
 		}
 		catch (final Exception e)
 		{
-			throw new UnlockFailedException("Failed unlocking record: " + record, e)
+			throw new UnlockFailedException("Failed unlocking records of AD_Table_ID=" + adTableId + ": " + recordIds, e)
 					.setUnlockCommand(unlockCommand)
 					.setSql(sql.toString(), sqlParams.toArray());
 		}
+
+		statistics.recordUnlock(System.nanoTime() - startNanos, countUnlocked);
+
+		if (localLockTable != null)
+		{
+			recordIds.forEach(recordId -> localLockTable.remove(adTableId, recordId, lockOwner));
+		}
+
+		return countUnlocked;
 	}
 
 	@Override
@@ -423,10 +717,11 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		assertValidLockOwner(lockOwner);
 		appendLockOwnerWhereClause(lockOwner, sql, sqlParams);
 
+		final long startNanos = System.nanoTime();
+		final int countUnlocked;
 		try
 		{
-			final int countUnlocked = DB.executeUpdateEx(sql.toString(), sqlParams.toArray(), ITrx.TRXNAME_None);
-			return countUnlocked;
+			countUnlocked = DB.executeUpdateEx(sql.toString(), sqlParams.toArray(), ITrx.TRXNAME_None);
 		}
 		catch (final Exception e)
 		{
@@ -434,6 +729,15 @@ public class SqlLockDatabase extends AbstractLockDatabase
 					.setUnlockCommand(unlockCommand)
 					.setSql(sql.toString(), sqlParams.toArray());
 		}
+
+		statistics.recordUnlock(System.nanoTime() - startNanos, countUnlocked);
+
+		if (localLockTable != null)
+		{
+			localLockTable.removeByOwner(lockOwner);
+		}
+
+		return countUnlocked;
 	}
 
 	@Override
@@ -579,6 +883,10 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		final String sql = "DELETE FROM " + I_T_Lock.Table_Name + " WHERE " + I_T_Lock.COLUMNNAME_IsAutoCleanup + "=?";
 		final Object[] sqlParams = new Object[] { true };
 		final int countLocksReleased = DB.executeUpdateEx(sql, sqlParams, ITrx.TRXNAME_None);
+		if (localLockTable != null)
+		{
+			localLockTable.clear();
+		}
 		if (countLocksReleased > 0)
 		{
 			logger.info("Deleted {} lock records from {} which were flagged with IsAutoCleanup=true", countLocksReleased, I_T_Lock.Table_Name);
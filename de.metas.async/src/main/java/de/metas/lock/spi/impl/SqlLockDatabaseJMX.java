@@ -0,0 +1,147 @@
+package de.metas.lock.spi.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import org.adempiere.util.jmx.IJMXNameAware;
+
+import lombok.NonNull;
+
+/**
+ * JMX bean for {@link SqlLockDatabase}.
+ */
+public class SqlLockDatabaseJMX implements SqlLockDatabaseJMXMBean, IJMXNameAware
+{
+	private final SqlLockDatabase lockDatabase;
+
+	SqlLockDatabaseJMX(@NonNull final SqlLockDatabase lockDatabase)
+	{
+		this.lockDatabase = lockDatabase;
+	}
+
+	@Override
+	public String getJMXName()
+	{
+		return "de.metas.lock:type=" + SqlLockDatabase.class.getSimpleName();
+	}
+
+	private LockStatistics getStatistics()
+	{
+		return lockDatabase.getStatistics();
+	}
+
+	@Override
+	public int getBulkSize()
+	{
+		return lockDatabase.getBulkSize();
+	}
+
+	@Override
+	public long getLockStatementsCount()
+	{
+		return getStatistics().getLockStatementsCount();
+	}
+
+	@Override
+	public long getLockedRecordsCount()
+	{
+		return getStatistics().getLockedRecordsCount();
+	}
+
+	@Override
+	public long getAlreadyLockedCount()
+	{
+		return getStatistics().getAlreadyLockedCount();
+	}
+
+	@Override
+	public long getLockMillisTotal()
+	{
+		return getStatistics().getLockMillisTotal();
+	}
+
+	@Override
+	public long getLockMillisMax()
+	{
+		return getStatistics().getLockMillisMax();
+	}
+
+	@Override
+	public long getUnlockStatementsCount()
+	{
+		return getStatistics().getUnlockStatementsCount();
+	}
+
+	@Override
+	public long getUnlockedRecordsCount()
+	{
+		return getStatistics().getUnlockedRecordsCount();
+	}
+
+	@Override
+	public long getUnlockMillisTotal()
+	{
+		return getStatistics().getUnlockMillisTotal();
+	}
+
+	@Override
+	public boolean isLocalLockTableEnabled()
+	{
+		return lockDatabase.getLocalLockTable() != null;
+	}
+
+	@Override
+	public int getLocalLockTableSize()
+	{
+		final LocalLockTable localLockTable = lockDatabase.getLocalLockTable();
+		return localLockTable != null ? localLockTable.size() : 0;
+	}
+
+	@Override
+	public long getLocalLockTableHits()
+	{
+		return getStatistics().getLocalLockTableHits();
+	}
+
+	@Override
+	public long getLocalLockTableContentionCount()
+	{
+		final LocalLockTable localLockTable = lockDatabase.getLocalLockTable();
+		return localLockTable != null ? localLockTable.getContentionCount() : 0;
+	}
+
+	@Override
+	public void clearLocalLockTable()
+	{
+		final LocalLockTable localLockTable = lockDatabase.getLocalLockTable();
+		if (localLockTable != null)
+		{
+			localLockTable.clear();
+		}
+	}
+
+	@Override
+	public void resetStatistics()
+	{
+		getStatistics().reset();
+	}
+}
@@ -0,0 +1,74 @@
+package de.metas.lock.spi.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * MBean interface for {@link SqlLockDatabase}.
+ */
+public interface SqlLockDatabaseJMXMBean
+{
+	int getBulkSize();
+
+	/**
+	 * @return how many INSERT/UPDATE statements were executed against T_Lock
+	 */
+	long getLockStatementsCount();
+
+	long getLockedRecordsCount();
+
+	/**
+	 * @return how many records could not be locked because they were already locked by somebody else (i.e. lock contention)
+	 */
+	long getAlreadyLockedCount();
+
+	/**
+	 * @return total time spent waiting for lock statements
+	 */
+	long getLockMillisTotal();
+
+	long getLockMillisMax();
+
+	long getUnlockStatementsCount();
+
+	long getUnlockedRecordsCount();
+
+	long getUnlockMillisTotal();
+
+	boolean isLocalLockTableEnabled();
+
+	int getLocalLockTableSize();
+
+	/**
+	 * @return how many "is locked" checks were answered by the local lock table, without querying the database
+	 */
+	long getLocalLockTableHits();
+
+	/**
+	 * @return how many times a thread had to wait for another thread while accessing the local lock table
+	 */
+	long getLocalLockTableContentionCount();
+
+	void clearLocalLockTable();
+
+	void resetStatistics();
+}
@@ -0,0 +1,95 @@
+package de.metas.async.api.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class WorkPackageReadyNotifierTest
+{
+	private final WorkPackageReadyNotifier notifier = new WorkPackageReadyNotifier();
+
+	@Test
+	public void awaitReady_wakesUpWhenSignaled() throws Exception
+	{
+		final List<Integer> packageProcessorIds = ImmutableList.of(10, 20);
+		final long version = notifier.getVersion(packageProcessorIds);
+
+		final CompletableFuture<Long> waitedMillis = CompletableFuture.supplyAsync(() -> {
+			final long startNanos = System.nanoTime();
+			awaitReadyQuietly(packageProcessorIds, version, 60_000);
+			return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+		});
+
+		notifier.signal(20);
+
+		assertThat(waitedMillis.get(10, TimeUnit.SECONDS)).isLessThan(10_000);
+	}
+
+	@Test
+	public void awaitReady_returnsImmediatelyIfSignaledBeforeWaiting() throws Exception
+	{
+		final List<Integer> packageProcessorIds = ImmutableList.of(10);
+		final long version = notifier.getVersion(packageProcessorIds);
+
+		notifier.signal(10); // e.g. arrived while we were querying
+
+		final long startNanos = System.nanoTime();
+		notifier.awaitReady(packageProcessorIds, version, 60_000);
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)).isLessThan(10_000);
+	}
+
+	@Test
+	public void awaitReady_notWokenUpByOtherPackageProcessors() throws Exception
+	{
+		final List<Integer> packageProcessorIds = ImmutableList.of(10);
+		final long version = notifier.getVersion(packageProcessorIds);
+
+		notifier.signal(30);
+
+		assertThat(notifier.getVersion(packageProcessorIds)).isEqualTo(version);
+
+		final long startNanos = System.nanoTime();
+		notifier.awaitReady(packageProcessorIds, version, 50);
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)).isGreaterThanOrEqualTo(40);
+	}
+
+	private void awaitReadyQuietly(final List<Integer> packageProcessorIds, final long version, final long maxWaitMillis)
+	{
+		try
+		{
+			notifier.awaitReady(packageProcessorIds, version, maxWaitMillis);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
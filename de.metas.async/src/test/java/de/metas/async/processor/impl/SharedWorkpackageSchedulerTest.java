@@ -0,0 +1,204 @@
+package de.metas.async.processor.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.metas.async.model.X_C_Queue_WorkPackage;
+
+public class SharedWorkpackageSchedulerTest
+{
+	private SharedWorkpackageScheduler scheduler;
+
+	@After
+	public void shutdown()
+	{
+		if (scheduler != null)
+		{
+			scheduler.shutdownNow();
+		}
+	}
+
+	@Test
+	public void waitingTasksAreExecutedByPriority_acrossLanes() throws Exception
+	{
+		scheduler = new SharedWorkpackageScheduler(1); // one thread
+		final SharedWorkpackageScheduler.Lane bulkLane = scheduler.newLane("bulk", 1, 10);
+		final SharedWorkpackageScheduler.Lane urgentLane = scheduler.newLane("urgent", 1, 10);
+
+		final CountDownLatch blockerStarted = new CountDownLatch(1);
+		final CountDownLatch releaseBlocker = new CountDownLatch(1);
+		bulkLane.submit(X_C_Queue_WorkPackage.PRIORITY_Medium, () -> {
+			blockerStarted.countDown();
+			awaitQuietly(releaseBlocker);
+		}, latency -> {});
+		assertThat(blockerStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch allExecuted = new CountDownLatch(4);
+		bulkLane.submit(X_C_Queue_WorkPackage.PRIORITY_Minor, newTask("minor", executed, allExecuted), latency -> {});
+		bulkLane.submit(X_C_Queue_WorkPackage.PRIORITY_Medium, newTask("medium1", executed, allExecuted), latency -> {});
+		bulkLane.submit(X_C_Queue_WorkPackage.PRIORITY_Medium, newTask("medium2", executed, allExecuted), latency -> {});
+		urgentLane.submit(X_C_Queue_WorkPackage.PRIORITY_Urgent, newTask("urgent", executed, allExecuted), latency -> {});
+
+		releaseBlocker.countDown();
+		assertThat(allExecuted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(executed).containsExactly("urgent", "medium1", "medium2", "minor");
+	}
+
+	@Test
+	public void laneDoesNotExceedMaxConcurrency() throws Exception
+	{
+		scheduler = new SharedWorkpackageScheduler(10);
+		final SharedWorkpackageScheduler.Lane lane = scheduler.newLane("capped", 1, 2);
+
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final CountDownLatch allExecuted = new CountDownLatch(20);
+		for (int i = 0; i < 20; i++)
+		{
+			lane.submit(X_C_Queue_WorkPackage.PRIORITY_Medium, () -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				sleepQuietly(5);
+				running.decrementAndGet();
+				allExecuted.countDown();
+			}, latency -> {});
+		}
+
+		assertThat(allExecuted.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+		assertThat(lane.awaitRunningTasks(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(lane.getSubmittedCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void close_returnsTasksWhichDidNotStart() throws Exception
+	{
+		scheduler = new SharedWorkpackageScheduler(1);
+		final SharedWorkpackageScheduler.Lane lane = scheduler.newLane("toBeClosed", 1, 10);
+
+		final CountDownLatch blockerStarted = new CountDownLatch(1);
+		final CountDownLatch releaseBlocker = new CountDownLatch(1);
+		lane.submit(X_C_Queue_WorkPackage.PRIORITY_Medium, () -> {
+			blockerStarted.countDown();
+			awaitQuietly(releaseBlocker);
+		}, latency -> {});
+		assertThat(blockerStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		final Runnable notStartedTask = () -> {
+			throw new AssertionError("shall not run");
+		};
+		lane.submit(X_C_Queue_WorkPackage.PRIORITY_Medium, notStartedTask, latency -> {});
+
+		assertThat(lane.close()).containsExactly(notStartedTask);
+
+		releaseBlocker.countDown();
+		assertThat(lane.awaitRunningTasks(10, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	public void poolGrowsAndShrinksWithLanes()
+	{
+		scheduler = new SharedWorkpackageScheduler(0); // not fixed
+		final SharedWorkpackageScheduler.Lane lane1 = scheduler.newLane("lane1", 3, 3);
+		final SharedWorkpackageScheduler.Lane lane2 = scheduler.newLane("lane2", 5, 5);
+		assertThat(scheduler.getPoolSize()).isEqualTo(8);
+
+		lane2.close();
+		assertThat(scheduler.getPoolSize()).isEqualTo(3);
+
+		lane1.close();
+		assertThat(scheduler.getPoolSize()).isEqualTo(1); // never less than one thread
+	}
+
+	@Test
+	public void toPriority()
+	{
+		assertThat(SharedWorkpackageScheduler.toPriority(X_C_Queue_WorkPackage.PRIORITY_Urgent)).isEqualTo(1);
+		assertThat(SharedWorkpackageScheduler.toPriority(null)).isEqualTo(5);
+		assertThat(SharedWorkpackageScheduler.toPriority("invalid")).isEqualTo(5);
+	}
+
+	@Test
+	public void queueLatencyHistogram()
+	{
+		final QueueLatencyHistogram histogram = new QueueLatencyHistogram();
+		assertThat(histogram.getPercentileMillis(50)).isEqualTo(0);
+
+		for (int i = 0; i < 98; i++)
+		{
+			histogram.record(3);
+		}
+		histogram.record(700);
+		histogram.record(40_000);
+
+		assertThat(histogram.getCount()).isEqualTo(100);
+		assertThat(histogram.getPercentileMillis(50)).isEqualTo(5);
+		assertThat(histogram.getPercentileMillis(99)).isEqualTo(1_000);
+		assertThat(histogram.getPercentileMillis(100)).isEqualTo(40_000);
+		assertThat(histogram.copy().getPercentileMillis(99)).isEqualTo(1_000);
+	}
+
+	private static Runnable newTask(final String name, final List<String> executed, final CountDownLatch latch)
+	{
+		return () -> {
+			executed.add(name);
+			latch.countDown();
+		};
+	}
+
+	private static void awaitQuietly(final CountDownLatch latch)
+	{
+		try
+		{
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleepQuietly(final long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
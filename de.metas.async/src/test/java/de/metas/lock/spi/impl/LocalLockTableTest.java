@@ -0,0 +1,105 @@
+package de.metas.lock.spi.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import de.metas.lock.api.LockOwner;
+
+public class LocalLockTableTest
+{
+	private final LocalLockTable table = new LocalLockTable();
+
+	private final LockOwner owner1 = LockOwner.forOwnerName("owner1");
+	private final LockOwner owner2 = LockOwner.forOwnerName("owner2");
+
+	@Test
+	public void isLocked_byOwner()
+	{
+		table.add(100, 1, owner1);
+
+		assertThat(table.isLocked(100, 1, owner1)).isTrue();
+		assertThat(table.isLocked(100, 1, LockOwner.ANY)).isTrue();
+		assertThat(table.isLocked(100, 1, null)).isTrue();
+		assertThat(table.isLocked(100, 1, owner2)).isFalse();
+
+		assertThat(table.isLocked(100, 2, LockOwner.ANY)).isFalse();
+		assertThat(table.isLocked(101, 1, LockOwner.ANY)).isFalse();
+	}
+
+	@Test
+	public void remove_onlyGivenOwner()
+	{
+		table.add(100, 1, owner1);
+		table.add(100, 1, owner2);
+
+		table.remove(100, 1, owner1);
+		assertThat(table.isLocked(100, 1, owner1)).isFalse();
+		assertThat(table.isLocked(100, 1, owner2)).isTrue();
+
+		table.remove(100, 1, LockOwner.ANY);
+		assertThat(table.isLocked(100, 1, LockOwner.ANY)).isFalse();
+		assertThat(table.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void removeByOwner()
+	{
+		for (int recordId = 1; recordId <= 1000; recordId++)
+		{
+			table.add(100, recordId, recordId % 2 == 0 ? owner1 : owner2);
+		}
+		assertThat(table.size()).isEqualTo(1000);
+
+		table.removeByOwner(owner1);
+
+		assertThat(table.size()).isEqualTo(500);
+		assertThat(table.isLocked(100, 2, LockOwner.ANY)).isFalse();
+		assertThat(table.isLocked(100, 3, owner2)).isTrue();
+	}
+
+	@Test
+	public void removeByTableId()
+	{
+		table.add(100, 1, owner1);
+		table.add(200, 1, owner1);
+
+		table.removeByTableId(100);
+
+		assertThat(table.isLocked(100, 1, LockOwner.ANY)).isFalse();
+		assertThat(table.isLocked(200, 1, LockOwner.ANY)).isTrue();
+	}
+
+	@Test
+	public void clear()
+	{
+		table.add(100, 1, owner1);
+		table.add(200, 1, owner2);
+
+		table.clear();
+
+		assertThat(table.size()).isEqualTo(0);
+	}
+}
@@ -0,0 +1,115 @@
+package de.metas.elasticsearch.indexer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.util.Env;
+import org.slf4j.Logger;
+
+import de.metas.elasticsearch.config.ESModelIndexerId;
+import de.metas.logging.LogManager;
+import de.metas.util.Check;
+import de.metas.util.Services;
+import de.metas.util.time.SystemTime;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.elasticsearch.server
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Remembers, per index, up to when the models were completely added to the index, so that an incremental indexing run only needs to add the models which were updated since then.
+ * <p>
+ * The cursors are stored as system level {@code AD_SysConfig} records, named {@value #SYSCONFIG_PREFIX}{@code <indexName>.<indexType>}.
+ */
+public class ESModelIndexerChangeCursorRepository
+{
+	private static final Logger logger = LogManager.getLogger(ESModelIndexerChangeCursorRepository.class);
+	private final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+
+	private static final String SYSCONFIG_PREFIX = "de.metas.elasticsearch.indexer.ChangeCursor.";
+
+	/**
+	 * Models which are saved in a transaction which is still running when the indexing run starts have an {@code Updated} timestamp from before the run.
+	 * Going back a bit makes sure that we catch them with the next run. Indexing some models twice does no harm.
+	 */
+	private static final Duration OVERLAP = Duration.ofMinutes(5);
+
+	public Optional<Instant> getChangedSince(@NonNull final ESModelIndexerId modelIndexerId)
+	{
+		final String sysConfigName = toSysConfigName(modelIndexerId);
+		final String value = sysConfigBL.getValue(sysConfigName, null, Env.CTXVALUE_AD_Client_ID_System, 0);
+		if (Check.isEmpty(value, true))
+		{
+			return Optional.empty();
+		}
+
+		try
+		{
+			return Optional.of(Instant.parse(value.trim()));
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Ignoring invalid change cursor {}={}", sysConfigName, value, ex);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * @return the cursor to be set after an indexing run which is starting now has succeeded
+	 */
+	public Instant computeNextChangedSince()
+	{
+		return SystemTime.asInstant().minus(OVERLAP);
+	}
+
+	/**
+	 * @param changedSince all models which were updated before this time are in the index
+	 */
+	public void setChangedSince(@NonNull final ESModelIndexerId modelIndexerId, @NonNull final Instant changedSince)
+	{
+		setValue(modelIndexerId, changedSince.toString());
+	}
+
+	/**
+	 * Forgets the cursor, so that the next incremental indexing run will add all models. Call it when the index was deleted.
+	 */
+	public void reset(@NonNull final ESModelIndexerId modelIndexerId)
+	{
+		setValue(modelIndexerId, "");
+	}
+
+	private void setValue(final ESModelIndexerId modelIndexerId, final String value)
+	{
+		try (final IAutoCloseable ctxRestorer = Env.switchContext(Env.createSysContext(Env.getCtx())))
+		{
+			sysConfigBL.setValue(toSysConfigName(modelIndexerId), value, 0);
+		}
+	}
+
+	private static String toSysConfigName(final ESModelIndexerId modelIndexerId)
+	{
+		return SYSCONFIG_PREFIX + modelIndexerId.getIndexName() + "." + modelIndexerId.getIndexType();
+	}
+}
@@ -1,7 +1,10 @@
 package de.metas.elasticsearch.indexer;
 
+import java.time.Instant;
 import java.util.Collection;
 
+import javax.annotation.Nullable;
+
 import de.metas.elasticsearch.indexer.SqlESModelIndexerDataSource.SqlESModelIndexerDataSourceBuilder;
 import lombok.experimental.UtilityClass;
 
@@ -43,6 +46,18 @@ public class ESModelIndexerDataSources
 				.build();
 	}
 
+	/**
+	 * @param changedSince if {@code null}, all models are returned
+	 */
+	public static SqlESModelIndexerDataSource changedSinceForModelIndexer(final IESModelIndexer modelIndexer, @Nullable final Instant changedSince)
+	{
+		return newSqlESModelIndexerDataSource()
+				.modelTableName(modelIndexer.getModelTableName())
+				.triggers(modelIndexer.getTriggers())
+				.changedSince(changedSince)
+				.build();
+	}
+
 	public static ListESModelIndexerDataSource ofCollection(final Collection<Object> modelsToIndex)
 	{
 		return ListESModelIndexerDataSource.of(modelsToIndex);
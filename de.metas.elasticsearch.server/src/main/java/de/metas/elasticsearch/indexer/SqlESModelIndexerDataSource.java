@@ -1,14 +1,20 @@
 package de.metas.elasticsearch.indexer;
 
+import java.time.Instant;
 import java.util.Iterator;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import org.adempiere.ad.dao.ICompositeQueryFilter;
 import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.ad.dao.IQueryBuilder;
 import org.adempiere.ad.dao.IQueryFilter;
+import org.adempiere.ad.dao.impl.CompareQueryFilter.Operator;
 import org.adempiere.ad.dao.impl.TypedSqlQueryFilter;
 import org.compiere.model.IQuery;
+import org.compiere.model.POInfo;
+import org.compiere.util.TimeUtil;
 
 import de.metas.elasticsearch.trigger.IESModelIndexerTrigger;
 import de.metas.util.Check;
@@ -44,19 +50,30 @@ public class SqlESModelIndexerDataSource implements ESModelIndexerDataSource
 	// services
 	private final transient IQueryBL queryBL = Services.get(IQueryBL.class);
 
+	private static final String COLUMNNAME_Updated = "Updated";
+	private static final int DEFAULT_PageSize = 1000;
+
 	private final String modelTableName;
 	private final List<IESModelIndexerTrigger> triggers;
 	private final String sqlWhereClause;
 	private final String sqlOrderByClause;
 	private final int limit;
+	private final Instant changedSince;
+	private final int pageSize;
 
+	/**
+	 * @param changedSince if set, only the models which were updated at or after this time are considered
+	 * @param pageSize how many models to load at once; if there is no ORDER BY and no limit, the models are loaded page by page, by primary key
+	 */
 	@Builder
 	private SqlESModelIndexerDataSource(
 			@NonNull final String modelTableName,
 			@NonNull final List<IESModelIndexerTrigger> triggers,
 			final String sqlWhereClause,
 			final String sqlOrderByClause,
-			final int limit)
+			final int limit,
+			@Nullable final Instant changedSince,
+			final int pageSize)
 	{
 		Check.assumeNotEmpty(triggers, "triggers is not empty");
 
@@ -65,6 +82,8 @@ public class SqlESModelIndexerDataSource implements ESModelIndexerDataSource
 		this.sqlWhereClause = sqlWhereClause;
 		this.sqlOrderByClause = sqlOrderByClause;
 		this.limit = limit;
+		this.changedSince = changedSince;
+		this.pageSize = pageSize > 0 ? pageSize : DEFAULT_PageSize;
 	}
 
 	@Override
@@ -93,20 +112,39 @@ public class SqlESModelIndexerDataSource implements ESModelIndexerDataSource
 			queryBuilder.filter(TypedSqlQueryFilter.of(sqlWhereClause));
 		}
 
+		if (changedSince != null)
+		{
+			queryBuilder.addCompareFilter(COLUMNNAME_Updated, Operator.GREATER_OR_EQUAL, TimeUtil.asTimestamp(changedSince));
+		}
+
 		if (limit > 0)
 		{
 			queryBuilder.setLimit(limit);
 		}
 
-		final IQuery<Object> query = queryBuilder.create();
+		final IQuery<Object> query = queryBuilder.create()
+				.setOption(IQuery.OPTION_IteratorBufferSize, pageSize);
 
+		//
+		// Execute query
 		if (!Check.isEmpty(sqlOrderByClause, true))
 		{
 			query.setOrderBy(queryBL.createSqlQueryOrderBy(sqlOrderByClause));
+			return query.iterate(Object.class);
 		}
+		else if (limit > 0 || !isSingleKeyColumnTable())
+		{
+			return query.iterate(Object.class);
+		}
+		else
+		{
+			return query.iterateKeyset(Object.class);
+		}
+	}
 
-		//
-		// Execute query
-		return query.iterate(Object.class);
+	private boolean isSingleKeyColumnTable()
+	{
+		final POInfo poInfo = POInfo.getPOInfo(modelTableName);
+		return poInfo != null && poInfo.isSingleKeyColumnName();
 	}
 }
@@ -0,0 +1,204 @@
+package de.metas.elasticsearch.indexer.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.client.Client;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.elasticsearch.server
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Sends the index requests of one indexing run in bulk requests of {@code bulkSize} documents, while the caller is already preparing the next ones.
+ * <p>
+ * At most {@code maxConcurrentRequests} bulk requests are in flight at the same time. If there are more, {@link #add(IndexRequestBuilder)} blocks,
+ * so that a slow elasticsearch server slows down the reading of source models instead of having them piling up in memory.
+ */
+final class ESBulkRequestsExecutor
+{
+	private static final String SYSTEM_PROPERTY_BulkSize = "de.metas.elasticsearch.indexer.BulkSize";
+	private static final int DEFAULT_BulkSize = 1000;
+
+	private static final String SYSTEM_PROPERTY_ConcurrentRequests = "de.metas.elasticsearch.indexer.BulkConcurrentRequests";
+	private static final int DEFAULT_ConcurrentRequests = 2;
+
+	private static final int defaultBulkSize = Math.max(1, Integer.getInteger(SYSTEM_PROPERTY_BulkSize, DEFAULT_BulkSize));
+	private static final int defaultMaxConcurrentRequests = Math.max(1, Integer.getInteger(SYSTEM_PROPERTY_ConcurrentRequests, DEFAULT_ConcurrentRequests));
+
+	/** Shared by all indexing runs, so that they are also bounded all together */
+	private static final ExecutorService sharedExecutor = Executors.newFixedThreadPool(
+			defaultMaxConcurrentRequests,
+			CustomizableThreadFactory.builder()
+					.setThreadNamePrefix(ESBulkRequestsExecutor.class.getName())
+					.setDaemon(true)
+					.build());
+
+	public static ESBulkRequestsExecutor forClient(@NonNull final Client elasticsearchClient)
+	{
+		return new ESBulkRequestsExecutor(
+				elasticsearchClient::prepareBulk,
+				BulkRequestBuilder::get,
+				sharedExecutor,
+				defaultBulkSize,
+				defaultMaxConcurrentRequests);
+	}
+
+	private final Supplier<BulkRequestBuilder> bulkRequestFactory;
+	private final Function<BulkRequestBuilder, BulkResponse> bulkRequestSender;
+	private final ExecutorService executor;
+	private final int bulkSize;
+
+	private final Semaphore inFlightPermits;
+	private final List<CompletableFuture<BulkResponse>> futures = new ArrayList<>();
+	private BulkRequestBuilder currentBulkRequest;
+	private int countActions = 0;
+
+	@VisibleForTesting
+	ESBulkRequestsExecutor(
+			@NonNull final Supplier<BulkRequestBuilder> bulkRequestFactory,
+			@NonNull final Function<BulkRequestBuilder, BulkResponse> bulkRequestSender,
+			@NonNull final ExecutorService executor,
+			final int bulkSize,
+			final int maxConcurrentRequests)
+	{
+		this.bulkRequestFactory = bulkRequestFactory;
+		this.bulkRequestSender = bulkRequestSender;
+		this.executor = executor;
+		this.bulkSize = Math.max(1, bulkSize);
+		this.inFlightPermits = new Semaphore(Math.max(1, maxConcurrentRequests));
+	}
+
+	/**
+	 * Adds the given request to the current bulk request, and sends that one if it's full.
+	 */
+	public void add(@NonNull final IndexRequestBuilder indexRequest)
+	{
+		if (currentBulkRequest == null)
+		{
+			currentBulkRequest = bulkRequestFactory.get();
+		}
+
+		currentBulkRequest.add(indexRequest);
+		if (currentBulkRequest.numberOfActions() >= bulkSize)
+		{
+			sendCurrentBulkRequest();
+		}
+	}
+
+	private void sendCurrentBulkRequest()
+	{
+		final BulkRequestBuilder bulkRequest = currentBulkRequest;
+		currentBulkRequest = null;
+		if (bulkRequest == null || bulkRequest.numberOfActions() <= 0)
+		{
+			return;
+		}
+
+		throwExceptionIfAnyFailure();
+		acquirePermit();
+		countActions += bulkRequest.numberOfActions();
+
+		final CompletableFuture<BulkResponse> future = CompletableFuture.supplyAsync(() -> bulkRequestSender.apply(bulkRequest), executor);
+		future.whenComplete((response, ex) -> inFlightPermits.release());
+		futures.add(future);
+	}
+
+	private void acquirePermit()
+	{
+		try
+		{
+			inFlightPermits.acquire();
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw AdempiereException.wrapIfNeeded(ex);
+		}
+	}
+
+	/**
+	 * @return the number of documents which were sent so far
+	 */
+	public int getActionsCount()
+	{
+		return countActions;
+	}
+
+	/**
+	 * Sends the remaining requests and waits until all bulk requests were executed.
+	 *
+	 * @return the responses, in the order in which the bulk requests were sent
+	 */
+	public List<BulkResponse> sendAndAwaitResponses()
+	{
+		sendCurrentBulkRequest();
+
+		final ImmutableList.Builder<BulkResponse> responses = ImmutableList.builder();
+		for (final CompletableFuture<BulkResponse> future : futures)
+		{
+			responses.add(getResponse(future));
+		}
+		return responses.build();
+	}
+
+	private void throwExceptionIfAnyFailure()
+	{
+		futures.stream()
+				.filter(CompletableFuture::isCompletedExceptionally)
+				.findFirst()
+				.ifPresent(ESBulkRequestsExecutor::getResponse);
+	}
+
+	private static BulkResponse getResponse(final CompletableFuture<BulkResponse> future)
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw AdempiereException.wrapIfNeeded(ex);
+		}
+		catch (final ExecutionException ex)
+		{
+			throw AdempiereException.wrapIfNeeded(ex.getCause() != null ? ex.getCause() : ex);
+		}
+	}
+}
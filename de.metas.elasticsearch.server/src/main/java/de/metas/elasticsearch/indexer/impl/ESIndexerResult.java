@@ -1,10 +1,15 @@
 package de.metas.elasticsearch.indexer.impl;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.common.unit.TimeValue;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
 
 import de.metas.elasticsearch.indexer.IESIndexerResult;
 
@@ -34,17 +39,28 @@ import de.metas.elasticsearch.indexer.IESIndexerResult;
 {
 	public static IESIndexerResult of(final BulkResponse response)
 	{
-		return new ESIndexerResult(response);
+		return new ESIndexerResult(ImmutableList.of(response));
 	}
 
-	private final BulkResponse esResponse;
+	/**
+	 * @param responses the responses of the bulk requests in which one indexing run was split
+	 */
+	public static IESIndexerResult ofList(final List<BulkResponse> responses)
+	{
+		if (responses.isEmpty())
+		{
+			return IESIndexerResult.NULL;
+		}
+		return new ESIndexerResult(ImmutableList.copyOf(responses));
+	}
+
+	private final ImmutableList<BulkResponse> esResponses;
 	private Integer _countOK; // lazy
 	private Integer _countFailures; // lazy
 
-	private ESIndexerResult(final BulkResponse esRespose)
+	private ESIndexerResult(final ImmutableList<BulkResponse> esResponses)
 	{
-		super();
-		esResponse = esRespose;
+		this.esResponses = esResponses;
 	}
 
 	@Override
@@ -54,38 +70,45 @@ import de.metas.elasticsearch.indexer.IESIndexerResult;
 				.omitNullValues()
 				.add("TotalCount", getTotalCount())
 				.add("FailuresCount", getFailuresCount())
+				.add("BulkRequestsCount", esResponses.size() > 1 ? esResponses.size() : null)
 				.add("ErrorMsg", hasFailures() ? getFailureMessage() : null)
 				.add("Duration", getDurationAsString())
 				.toString();
 	}
 
+	/**
+	 * @return the summed up duration of all bulk requests. If they were executed concurrently, the wall clock time was shorter.
+	 */
 	@Override
 	public long getDurationInMillis()
 	{
-		return esResponse.getTookInMillis();
+		return esResponses.stream().mapToLong(BulkResponse::getTookInMillis).sum();
 	}
 
 	private String getDurationAsString()
 	{
-		return esResponse.getTook().toString();
+		return TimeValue.timeValueMillis(getDurationInMillis()).toString();
 	}
 
 	@Override
 	public boolean hasFailures()
 	{
-		return esResponse.hasFailures();
+		return esResponses.stream().anyMatch(BulkResponse::hasFailures);
 	}
 
 	@Override
 	public String getFailureMessage()
 	{
-		return esResponse.buildFailureMessage();
+		return esResponses.stream()
+				.filter(BulkResponse::hasFailures)
+				.map(BulkResponse::buildFailureMessage)
+				.collect(Collectors.joining("\n"));
 	}
 
 	@Override
 	public int getTotalCount()
 	{
-		return esResponse.getItems().length;
+		return esResponses.stream().mapToInt(response -> response.getItems().length).sum();
 	}
 
 	@Override
@@ -93,16 +116,7 @@ import de.metas.elasticsearch.indexer.IESIndexerResult;
 	{
 		if (_countOK == null)
 		{
-			int count = 0;
-			for (final BulkItemResponse response : esResponse.getItems())
-			{
-				if (!response.isFailed())
-				{
-					count++;
-				}
-			}
-
-			_countOK = count;
+			_countOK = getTotalCount() - getFailuresCount();
 		}
 		return _countOK;
 	}
@@ -113,14 +127,17 @@ import de.metas.elasticsearch.indexer.IESIndexerResult;
 		if (_countFailures == null)
 		{
 			int count = 0;
-			for (final BulkItemResponse response : esResponse.getItems())
+			for (final BulkResponse esResponse : esResponses)
 			{
-				if (response.isFailed())
+				for (final BulkItemResponse response : esResponse.getItems())
 				{
-					count++;
+					if (response.isFailed())
+					{
+						count++;
+					}
 				}
 			}
-			
+
 			_countFailures = count;
 		}
 		return _countFailures;
@@ -2,6 +2,7 @@ package de.metas.elasticsearch.indexer.impl;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -428,24 +429,23 @@ public final class ESModelIndexer implements IESModelIndexer
 		return modelDenormalizer.denormalize(includedModel);
 	}
 
+	/**
+	 * Sends the models in several bulk requests. The next bulk request is prepared while the previous ones are still executing, see {@link ESBulkRequestsExecutor}.
+	 */
 	@Override
 	public IESIndexerResult addToIndex(@NonNull final ESModelIndexerDataSource dataSource)
 	{
-		final BulkRequestBuilder bulkRequest = elasticsearchClient.prepareBulk();
-
+		final ESBulkRequestsExecutor bulkRequestsExecutor = ESBulkRequestsExecutor.forClient(elasticsearchClient);
+		final Iterator<Object> models = dataSource.getModelsToIndex();
 		try
 		{
-			IteratorUtils.stream(dataSource.getModelsToIndex())
-					.flatMap(this::createIndexRequestsAndStream)
-					.forEach(bulkRequest::add);
-
-			if (bulkRequest.numberOfActions() <= 0)
+			while (models.hasNext())
 			{
-				return IESIndexerResult.NULL;
+				createIndexRequestsAndStream(models.next())
+						.forEach(bulkRequestsExecutor::add);
 			}
 
-			final BulkResponse bulkResponse = bulkRequest.execute().actionGet();
-			final IESIndexerResult esResponse = ESIndexerResult.of(bulkResponse);
+			final IESIndexerResult esResponse = ESIndexerResult.ofList(bulkRequestsExecutor.sendAndAwaitResponses());
 
 			logger.debug("Added {}", esResponse);
 			return esResponse;
@@ -456,11 +456,15 @@ public final class ESModelIndexer implements IESModelIndexer
 		}
 		catch (final Exception ex)
 		{
-			final int count = bulkRequest.numberOfActions();
-			final String errmsg = "Failed indexing " + count + " models because: " + ex.getLocalizedMessage()
+			final int count = bulkRequestsExecutor.getActionsCount();
+			final String errmsg = "Failed indexing models, after sending " + count + " of them, because: " + ex.getLocalizedMessage()
 					+ "\n Indexer: " + this;
 			throw new AdempiereException(errmsg, ex);
 		}
+		finally
+		{
+			IteratorUtils.closeQuietly(models);
+		}
 	}
 
 	@Override
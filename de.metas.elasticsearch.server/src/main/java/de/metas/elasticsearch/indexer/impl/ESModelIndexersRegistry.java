@@ -1,5 +1,6 @@
 package de.metas.elasticsearch.indexer.impl;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -18,6 +19,7 @@ import com.google.common.collect.ImmutableList;
 import de.metas.elasticsearch.config.ESModelIndexerConfigBuilder;
 import de.metas.elasticsearch.config.ESModelIndexerId;
 import de.metas.elasticsearch.config.ESModelIndexerProfile;
+import de.metas.elasticsearch.indexer.ESModelIndexerChangeCursorRepository;
 import de.metas.elasticsearch.indexer.ESModelIndexerDataSources;
 import de.metas.elasticsearch.indexer.IESIndexerResult;
 import de.metas.elasticsearch.indexer.IESModelIndexer;
@@ -54,6 +56,10 @@ public class ESModelIndexersRegistry implements IESModelIndexersRegistry
 	private static final Logger logger = LogManager.getLogger(ESModelIndexersRegistry.class);
 
 	private static final String SYSCONFIG_AUTOINDEX_MODELS = "de.metas.elasticsearch.indexer.AutoIndexModels";
+	/** If enabled, already existing indexes are caught up from their change cursor on startup. Off by default, because it delays the startup by an indexing run per index. */
+	private static final String SYSCONFIG_INCREMENTAL_INDEX_MODELS_ON_STARTUP = "de.metas.elasticsearch.indexer.IncrementalIndexModelsOnStartup";
+
+	private final ESModelIndexerChangeCursorRepository changeCursorRepo = new ESModelIndexerChangeCursorRepository();
 
 	private final ConcurrentHashMap<ESModelIndexerId, IESModelIndexer> indexersById = new ConcurrentHashMap<>();
 	private final ConcurrentHashMap<String, ImmutableList<IESModelIndexer>> indexersByModelTableName = new ConcurrentHashMap<>();
@@ -147,14 +153,42 @@ public class ESModelIndexersRegistry implements IESModelIndexersRegistry
 		final boolean indexJustCreated = indexer.createUpdateIndex();
 		logger.info("Created/Updated index mapping for {}", indexer);
 
-		if (indexJustCreated && isAutoIndexModelsForIndexName(indexer.getIndexName()))
+		if (!isAutoIndexModelsForIndexName(indexer.getIndexName()))
+		{
+			return;
+		}
+
+		if (indexJustCreated)
+		{
+			addModelsToIndex(indexer, null);
+		}
+		else if (isIncrementalIndexModelsOnStartup())
+		{
+			// catch up with the models which were changed while we were down
+			changeCursorRepo.getChangedSince(indexer.getId())
+					.ifPresent(changedSince -> addModelsToIndex(indexer, changedSince));
+		}
+	}
+
+	private void addModelsToIndex(final IESModelIndexer indexer, @Nullable final Instant changedSince)
+	{
+		final Instant nextChangedSince = changeCursorRepo.computeNextChangedSince();
+
+		final SqlESModelIndexerDataSource modelsToIndex = ESModelIndexerDataSources.changedSinceForModelIndexer(indexer, changedSince);
+		final IESIndexerResult indexingResult = indexer.addToIndex(modelsToIndex);
+		logger.info("Indexed models changed since {} for {}: {}", changedSince, indexer, indexingResult.getSummary());
+
+		if (!indexingResult.hasFailures())
 		{
-			final SqlESModelIndexerDataSource modelsToIndex = ESModelIndexerDataSources.allForModelIndexer(indexer);
-			final IESIndexerResult indexingResult = indexer.addToIndex(modelsToIndex);
-			logger.info("Indexed models for {}: {}", indexer, indexingResult.getSummary());
+			changeCursorRepo.setChangedSince(indexer.getId(), nextChangedSince);
 		}
 	}
 
+	private boolean isIncrementalIndexModelsOnStartup()
+	{
+		return Services.get(ISysConfigBL.class).getBooleanValue(SYSCONFIG_INCREMENTAL_INDEX_MODELS_ON_STARTUP, false);
+	}
+
 	private boolean isAutoIndexModelsForIndexName(final String indexName)
 	{
 		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
@@ -1,5 +1,6 @@
 package de.metas.elasticsearch.process;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 
@@ -8,6 +9,7 @@ import org.compiere.SpringContextHolder;
 
 import com.google.common.base.Stopwatch;
 
+import de.metas.elasticsearch.indexer.ESModelIndexerChangeCursorRepository;
 import de.metas.elasticsearch.indexer.ESModelIndexerDataSources;
 import de.metas.elasticsearch.indexer.IESIndexerResult;
 import de.metas.elasticsearch.indexer.IESModelIndexer;
@@ -16,6 +18,7 @@ import de.metas.elasticsearch.indexer.SqlESModelIndexerDataSource;
 import de.metas.elasticsearch.trigger.IESModelIndexerTrigger;
 import de.metas.process.JavaProcess;
 import de.metas.process.Param;
+import de.metas.util.Check;
 import de.metas.util.Services;
 
 /*
@@ -57,6 +60,12 @@ public abstract class AbstractModelIndexerProcess extends JavaProcess
 	@Param(parameterName = "ES_DeleteIndex")
 	private boolean p_DeleteIndex = false;
 
+	/** If set, only the models which were changed since the last successful run are added */
+	@Param(parameterName = "IsIncremental")
+	private boolean p_Incremental = false;
+
+	private final ESModelIndexerChangeCursorRepository changeCursorRepo = new ESModelIndexerChangeCursorRepository();
+
 	//
 	// Statistics
 	private int countAll = 0;
@@ -92,6 +101,7 @@ public abstract class AbstractModelIndexerProcess extends JavaProcess
 		if (p_DeleteIndex)
 		{
 			modelIndexer.deleteIndex();
+			changeCursorRepo.reset(modelIndexer.getId());
 			addLog("{} - Index deleted", modelIndexer.getId());
 		}
 
@@ -108,12 +118,20 @@ public abstract class AbstractModelIndexerProcess extends JavaProcess
 			return;
 		}
 
+		final Instant changedSince = p_Incremental ? changeCursorRepo.getChangedSince(modelIndexer.getId()).orElse(null) : null;
+		if (changedSince != null)
+		{
+			addLog("{} - Indexing only the models changed since {}", modelIndexer.getId(), changedSince);
+		}
+		final Instant nextChangedSince = changeCursorRepo.computeNextChangedSince();
+
 		final SqlESModelIndexerDataSource modelsToIndex = ESModelIndexerDataSources.newSqlESModelIndexerDataSource()
 				.modelTableName(modelIndexer.getModelTableName())
 				.triggers(triggers)
 				.sqlWhereClause(p_WhereClause)
 				.sqlOrderByClause(p_OrderByClause)
 				.limit(p_Limit)
+				.changedSince(changedSince)
 				.build();
 		final IESIndexerResult result = modelIndexer.addToIndex(modelsToIndex);
 
@@ -121,5 +139,12 @@ public abstract class AbstractModelIndexerProcess extends JavaProcess
 		countErrors += result.getFailuresCount();
 
 		addLog("{} - Indexed: {}", modelIndexer.getId(), result.getSummary());
+
+		// Only a run which covered all the (changed) models may advance the cursor
+		final boolean allModelsCovered = Check.isEmpty(p_WhereClause, true) && p_Limit <= 0;
+		if (allModelsCovered && !result.hasFailures())
+		{
+			changeCursorRepo.setChangedSince(modelIndexer.getId(), nextChangedSince);
+		}
 	}
 }
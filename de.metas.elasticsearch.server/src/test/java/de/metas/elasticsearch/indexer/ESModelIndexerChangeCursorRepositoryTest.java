@@ -0,0 +1,89 @@
+package de.metas.elasticsearch.indexer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.metas.elasticsearch.config.ESModelIndexerId;
+import de.metas.util.time.SystemTime;
+
+/*
+ * #%L
+ * de.metas.elasticsearch.server
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ESModelIndexerChangeCursorRepositoryTest
+{
+	private static final Instant NOW = Instant.parse("2019-06-14T10:15:30Z");
+
+	private final ESModelIndexerId modelIndexerId = ESModelIndexerId.builder()
+			.indexName("test_index")
+			.indexType("test_type")
+			.build();
+
+	private ESModelIndexerChangeCursorRepository changeCursorRepo;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+		SystemTime.setTimeSource(NOW::toEpochMilli);
+
+		changeCursorRepo = new ESModelIndexerChangeCursorRepository();
+	}
+
+	@After
+	public void resetTimeSource()
+	{
+		SystemTime.resetTimeSource();
+	}
+
+	@Test
+	public void noCursorYet()
+	{
+		assertThat(changeCursorRepo.getChangedSince(modelIndexerId)).isEmpty();
+	}
+
+	@Test
+	public void nextChangedSince_overlapsFiveMinutes()
+	{
+		assertThat(changeCursorRepo.computeNextChangedSince()).isEqualTo(NOW.minus(Duration.ofMinutes(5)));
+	}
+
+	@Test
+	public void setChangedSince_and_reset()
+	{
+		final Instant changedSince = changeCursorRepo.computeNextChangedSince();
+		changeCursorRepo.setChangedSince(modelIndexerId, changedSince);
+		assertThat(changeCursorRepo.getChangedSince(modelIndexerId)).contains(changedSince);
+
+		final ESModelIndexerId otherModelIndexerId = modelIndexerId.toBuilder().indexType("other_type").build();
+		assertThat(changeCursorRepo.getChangedSince(otherModelIndexerId)).isEmpty();
+
+		changeCursorRepo.reset(modelIndexerId);
+		assertThat(changeCursorRepo.getChangedSince(modelIndexerId)).isEmpty();
+	}
+}
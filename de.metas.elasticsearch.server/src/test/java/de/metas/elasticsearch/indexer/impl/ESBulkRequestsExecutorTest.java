@@ -0,0 +1,180 @@
+package de.metas.elasticsearch.indexer.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.elasticsearch.action.bulk.BulkAction;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexAction;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/*
+ * #%L
+ * de.metas.elasticsearch.server
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ESBulkRequestsExecutorTest
+{
+	private ExecutorService executor;
+
+	/** number of actions of each bulk request which was sent, in the order they were sent */
+	private List<Integer> sentBulkSizes;
+
+	@Before
+	public void init()
+	{
+		executor = Executors.newCachedThreadPool();
+		sentBulkSizes = Collections.synchronizedList(new ArrayList<>());
+	}
+
+	@After
+	public void shutdownExecutor()
+	{
+		executor.shutdownNow();
+	}
+
+	private ESBulkRequestsExecutor newBulkRequestsExecutor(
+			final int bulkSize,
+			final int maxConcurrentRequests,
+			final Function<BulkRequestBuilder, BulkResponse> sender)
+	{
+		return new ESBulkRequestsExecutor(
+				() -> new BulkRequestBuilder(null, BulkAction.INSTANCE),
+				bulkRequest -> {
+					sentBulkSizes.add(bulkRequest.numberOfActions());
+					return sender.apply(bulkRequest);
+				},
+				executor,
+				bulkSize,
+				maxConcurrentRequests);
+	}
+
+	private static BulkResponse newBulkResponse(final BulkRequestBuilder bulkRequest)
+	{
+		return new BulkResponse(new BulkItemResponse[0], bulkRequest.numberOfActions());
+	}
+
+	private static IndexRequestBuilder newIndexRequest(final int id)
+	{
+		return new IndexRequestBuilder(null, IndexAction.INSTANCE, "test_index")
+				.setType("test_type")
+				.setId(String.valueOf(id))
+				.setSource(Collections.singletonMap("id", id));
+	}
+
+	@Test
+	public void sendsInChunksOfBulkSize()
+	{
+		final ESBulkRequestsExecutor bulkRequestsExecutor = newBulkRequestsExecutor(3, 2, ESBulkRequestsExecutorTest::newBulkResponse);
+		for (int id = 1; id <= 7; id++)
+		{
+			bulkRequestsExecutor.add(newIndexRequest(id));
+		}
+
+		final List<BulkResponse> responses = bulkRequestsExecutor.sendAndAwaitResponses();
+
+		assertThat(sentBulkSizes).containsExactlyInAnyOrder(3, 3, 1);
+		assertThat(responses).extracting(BulkResponse::getTookInMillis).containsExactly(3L, 3L, 1L);
+		assertThat(bulkRequestsExecutor.getActionsCount()).isEqualTo(7);
+	}
+
+	@Test
+	public void nothingAdded_nothingSent()
+	{
+		final ESBulkRequestsExecutor bulkRequestsExecutor = newBulkRequestsExecutor(3, 2, ESBulkRequestsExecutorTest::newBulkResponse);
+
+		assertThat(bulkRequestsExecutor.sendAndAwaitResponses()).isEmpty();
+		assertThat(sentBulkSizes).isEmpty();
+		assertThat(bulkRequestsExecutor.getActionsCount()).isZero();
+	}
+
+	@Test
+	public void atMostMaxConcurrentRequestsAreInFlight() throws Exception
+	{
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+		final CountDownLatch twoInFlight = new CountDownLatch(2);
+		final CountDownLatch releaseRequests = new CountDownLatch(1);
+
+		final ESBulkRequestsExecutor bulkRequestsExecutor = newBulkRequestsExecutor(1, 2, bulkRequest -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			twoInFlight.countDown();
+			try
+			{
+				releaseRequests.await();
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			inFlight.decrementAndGet();
+			return newBulkResponse(bulkRequest);
+		});
+
+		final Thread producer = new Thread(() -> {
+			for (int id = 1; id <= 3; id++)
+			{
+				bulkRequestsExecutor.add(newIndexRequest(id));
+			}
+		});
+		producer.start();
+
+		assertThat(twoInFlight.await(10, TimeUnit.SECONDS)).isTrue();
+		producer.join(200);
+		assertThat(producer.isAlive()).as("the third request shall wait until one of the first two is done").isTrue();
+		assertThat(sentBulkSizes).hasSize(2);
+
+		releaseRequests.countDown();
+		producer.join(TimeUnit.SECONDS.toMillis(10));
+		assertThat(producer.isAlive()).isFalse();
+
+		assertThat(bulkRequestsExecutor.sendAndAwaitResponses()).hasSize(3);
+		assertThat(maxInFlight.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void failedRequest_isRethrown()
+	{
+		final ESBulkRequestsExecutor bulkRequestsExecutor = newBulkRequestsExecutor(1, 2, bulkRequest -> {
+			throw new AdempiereException("bulk request failed");
+		});
+		bulkRequestsExecutor.add(newIndexRequest(1));
+
+		assertThatThrownBy(bulkRequestsExecutor::sendAndAwaitResponses)
+				.isInstanceOf(AdempiereException.class)
+				.hasMessageContaining("bulk request failed");
+	}
+}
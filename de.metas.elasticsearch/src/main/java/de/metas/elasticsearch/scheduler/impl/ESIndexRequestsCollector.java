@@ -0,0 +1,174 @@
+package de.metas.elasticsearch.scheduler.impl;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.service.ClientId;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.elasticsearch.config.ESModelIndexerId;
+import de.metas.organization.OrgId;
+import de.metas.user.UserId;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.elasticsearch
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Collects pending index requests. There is at most one pending request per (index, record): if a record is requested again, the last request wins.
+ * <p>
+ * Thread-safe.
+ */
+final class ESIndexRequestsCollector
+{
+	enum IndexAction
+	{
+		ADD, REMOVE
+	}
+
+	@Value
+	@Builder
+	static class GroupKey
+	{
+		@NonNull
+		ClientId clientId;
+		@NonNull
+		OrgId orgId;
+		@Nullable
+		UserId userId;
+		@NonNull
+		ESModelIndexerId modelIndexerId;
+		@NonNull
+		String modelTableName;
+	}
+
+	@Value
+	static class IndexRequestsBatch
+	{
+		@NonNull
+		GroupKey key;
+		@NonNull
+		IndexAction action;
+		@NonNull
+		ImmutableList<Integer> modelIds;
+	}
+
+	private final Map<GroupKey, LinkedHashMap<Integer, IndexAction>> actionsByGroupKey = new LinkedHashMap<>();
+
+	/**
+	 * @return how many of the given requests were collapsed into requests which were already pending
+	 */
+	public synchronized int add(
+			@NonNull final GroupKey key,
+			@NonNull final IndexAction action,
+			@NonNull final Collection<Integer> modelIds)
+	{
+		final LinkedHashMap<Integer, IndexAction> actionsByModelId = actionsByGroupKey.computeIfAbsent(key, k -> new LinkedHashMap<>());
+
+		int countCollapsed = 0;
+		for (final Integer modelId : modelIds)
+		{
+			if (actionsByModelId.put(modelId, action) != null)
+			{
+				countCollapsed++;
+			}
+		}
+		return countCollapsed;
+	}
+
+	/**
+	 * Moves all requests from the given collector to this one.
+	 *
+	 * @return how many of the moved requests were collapsed into requests which were already pending
+	 */
+	public int addAll(@NonNull final ESIndexRequestsCollector other)
+	{
+		int countCollapsed = 0;
+		for (final IndexRequestsBatch batch : other.drain())
+		{
+			countCollapsed += add(batch.getKey(), batch.getAction(), batch.getModelIds());
+		}
+		return countCollapsed;
+	}
+
+	/**
+	 * Puts back requests which could not be executed. If there is a newer request for the same (index, record) meanwhile, that one wins.
+	 */
+	public synchronized void putBack(@NonNull final List<IndexRequestsBatch> batches)
+	{
+		for (final IndexRequestsBatch batch : batches)
+		{
+			final LinkedHashMap<Integer, IndexAction> actionsByModelId = actionsByGroupKey.computeIfAbsent(batch.getKey(), k -> new LinkedHashMap<>());
+			for (final Integer modelId : batch.getModelIds())
+			{
+				actionsByModelId.putIfAbsent(modelId, batch.getAction());
+			}
+		}
+	}
+
+	public synchronized boolean isEmpty()
+	{
+		return actionsByGroupKey.isEmpty();
+	}
+
+	/**
+	 * @return the number of pending requests
+	 */
+	public synchronized int size()
+	{
+		return actionsByGroupKey.values().stream().mapToInt(Map::size).sum();
+	}
+
+	/**
+	 * Removes all pending requests.
+	 *
+	 * @return the removed requests, grouped by key and action
+	 */
+	public synchronized List<IndexRequestsBatch> drain()
+	{
+		final ImmutableList.Builder<IndexRequestsBatch> batches = ImmutableList.builder();
+		actionsByGroupKey.forEach((key, actionsByModelId) -> {
+			for (final IndexAction action : IndexAction.values())
+			{
+				final ImmutableList<Integer> modelIds = actionsByModelId.entrySet()
+						.stream()
+						.filter(e -> e.getValue() == action)
+						.map(Map.Entry::getKey)
+						.collect(ImmutableList.toImmutableList());
+				if (!modelIds.isEmpty())
+				{
+					batches.add(new IndexRequestsBatch(key, action, modelIds));
+				}
+			}
+		});
+
+		actionsByGroupKey.clear();
+		return batches.build();
+	}
+}
@@ -0,0 +1,267 @@
+package de.metas.elasticsearch.scheduler.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+
+import de.metas.elasticsearch.scheduler.impl.ESIndexRequestsCollector.GroupKey;
+import de.metas.elasticsearch.scheduler.impl.ESIndexRequestsCollector.IndexAction;
+import de.metas.elasticsearch.scheduler.impl.ESIndexRequestsCollector.IndexRequestsBatch;
+import de.metas.logging.LogManager;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.elasticsearch
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Holds back index requests for a given window, so that repeated requests for the same record are collapsed into one.
+ * <p>
+ * The window starts with the first request after the last flush; the requests which arrive within the window are flushed together at its end.
+ * If the window is zero, the requests are flushed right away. They are still collapsed if they are passed in together,
+ * see {@link #addAll(ESIndexRequestsCollector)} and {@link #flushCollector(ESIndexRequestsCollector, Consumer)}.
+ * <p>
+ * Note that the requests which are held back are only kept in memory.
+ */
+final class ESIndexRequestsDebouncer
+{
+	private static final Logger logger = LogManager.getLogger(ESIndexRequestsDebouncer.class);
+
+	private final long windowMillis;
+	private final Consumer<List<IndexRequestsBatch>> sink;
+
+	private final ESIndexRequestsCollector pending = new ESIndexRequestsCollector();
+	private final ScheduledExecutorService flushExecutor;
+	private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+	private final LongAdder countRequested = new LongAdder();
+	private final LongAdder countCollapsed = new LongAdder();
+	private final LongAdder countExecuted = new LongAdder();
+	private final LongAdder countFlushes = new LongAdder();
+
+	/**
+	 * @param sink gets the requests which shall be executed now
+	 */
+	ESIndexRequestsDebouncer(final long windowMillis, @NonNull final Consumer<List<IndexRequestsBatch>> sink)
+	{
+		this.windowMillis = Math.max(0, windowMillis);
+		this.sink = sink;
+
+		if (this.windowMillis > 0)
+		{
+			this.flushExecutor = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+					.setThreadNamePrefix(ESIndexRequestsDebouncer.class.getName())
+					.setDaemon(true)
+					.build());
+		}
+		else
+		{
+			this.flushExecutor = null;
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("windowMillis", windowMillis)
+				.add("pending", getPendingCount())
+				.add("requested", getRequestedCount())
+				.add("collapsed", getCollapsedCount())
+				.add("executed", getExecutedCount())
+				.add("flushes", getFlushesCount())
+				.toString();
+	}
+
+	public void add(
+			@NonNull final GroupKey key,
+			@NonNull final IndexAction action,
+			@NonNull final Collection<Integer> modelIds)
+	{
+		addToCollector(pending, key, action, modelIds);
+		afterAdded();
+	}
+
+	/**
+	 * Adds the requests to the given collector (i.e. the one of a transaction), but they are counted in this debouncer's statistics.
+	 * Later, call {@link #addAll(ESIndexRequestsCollector)} with that collector.
+	 */
+	public void addToCollector(
+			@NonNull final ESIndexRequestsCollector collector,
+			@NonNull final GroupKey key,
+			@NonNull final IndexAction action,
+			@NonNull final Collection<Integer> modelIds)
+	{
+		countRequested.add(modelIds.size());
+		countCollapsed.add(collector.add(key, action, modelIds));
+	}
+
+	/**
+	 * Moves all requests from the given collector to this debouncer.
+	 */
+	public void addAll(@NonNull final ESIndexRequestsCollector collector)
+	{
+		if (collector.isEmpty())
+		{
+			return;
+		}
+
+		countCollapsed.add(pending.addAll(collector));
+		afterAdded();
+	}
+
+	private void afterAdded()
+	{
+		if (flushExecutor == null)
+		{
+			flush();
+		}
+		else if (flushScheduled.compareAndSet(false, true))
+		{
+			flushExecutor.schedule(this::flushScheduled, windowMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void flushScheduled()
+	{
+		// NOTE: reset the flag before draining, so that requests which are added while we flush will get their own flush
+		flushScheduled.set(false);
+		try
+		{
+			flush();
+		}
+		catch (final Exception ex)
+		{
+			// the requests were put back, so try again after the next window
+			logger.warn("Failed scheduling index requests. Retrying in {}ms", windowMillis, ex);
+			afterAdded();
+		}
+	}
+
+	/**
+	 * Passes all pending requests to the sink now.
+	 * <p>
+	 * If the sink fails, the requests are put back to be flushed again and the exception is propagated.
+	 */
+	public void flush()
+	{
+		final List<IndexRequestsBatch> batches = pending.drain();
+		if (batches.isEmpty())
+		{
+			return;
+		}
+
+		try
+		{
+			execute(batches, sink);
+		}
+		catch (final RuntimeException ex)
+		{
+			pending.putBack(batches);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Passes the requests of the given collector (i.e. the one of a transaction) directly to the given sink, bypassing the window.
+	 * <p>
+	 * If the sink fails, the exception is propagated, so that the caller (i.e. the transaction) fails as well.
+	 */
+	public void flushCollector(
+			@NonNull final ESIndexRequestsCollector collector,
+			@NonNull final Consumer<List<IndexRequestsBatch>> sink)
+	{
+		final List<IndexRequestsBatch> batches = collector.drain();
+		if (batches.isEmpty())
+		{
+			return;
+		}
+
+		execute(batches, sink);
+	}
+
+	private void execute(
+			final List<IndexRequestsBatch> batches,
+			final Consumer<List<IndexRequestsBatch>> sink)
+	{
+		sink.accept(batches);
+
+		countFlushes.increment();
+		countExecuted.add(batches.stream().mapToInt(batch -> batch.getModelIds().size()).sum());
+	}
+
+	public long getWindowMillis()
+	{
+		return windowMillis;
+	}
+
+	public int getPendingCount()
+	{
+		return pending.size();
+	}
+
+	/**
+	 * @return how many (index, record) requests were received
+	 */
+	public long getRequestedCount()
+	{
+		return countRequested.sum();
+	}
+
+	/**
+	 * @return how many (index, record) requests were dropped because there was a pending request for the same record
+	 */
+	public long getCollapsedCount()
+	{
+		return countCollapsed.sum();
+	}
+
+	/**
+	 * @return how many (index, record) requests were passed to the sink
+	 */
+	public long getExecutedCount()
+	{
+		return countExecuted.sum();
+	}
+
+	public long getFlushesCount()
+	{
+		return countFlushes.sum();
+	}
+
+	public void resetStatistics()
+	{
+		countRequested.reset();
+		countCollapsed.reset();
+		countExecuted.reset();
+		countFlushes.reset();
+	}
+}
@@ -3,6 +3,12 @@ package de.metas.elasticsearch.scheduler.impl;
 import java.util.List;
 import java.util.Properties;
 
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxListenerManager.TrxEventTiming;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.adempiere.util.jmx.JMXRegistry;
+import org.adempiere.util.jmx.JMXRegistry.OnJMXAlreadyExistsPolicy;
 import org.adempiere.util.lang.ITableRecordReference;
 import org.adempiere.util.lang.impl.TableRecordReference;
 import org.compiere.util.Env;
@@ -12,6 +18,9 @@ import com.google.common.annotations.VisibleForTesting;
 import de.metas.async.processor.IWorkPackageQueueFactory;
 import de.metas.elasticsearch.config.ESModelIndexerId;
 import de.metas.elasticsearch.scheduler.IESModelIndexingScheduler;
+import de.metas.elasticsearch.scheduler.impl.ESIndexRequestsCollector.GroupKey;
+import de.metas.elasticsearch.scheduler.impl.ESIndexRequestsCollector.IndexAction;
+import de.metas.elasticsearch.scheduler.impl.ESIndexRequestsCollector.IndexRequestsBatch;
 import de.metas.util.Services;
 import lombok.NonNull;
 
@@ -37,6 +46,23 @@ import lombok.NonNull;
  * #L%
  */
 
+/**
+ * Schedules the index requests as workpackages.
+ * <p>
+ * Requests for the same (index, record) are collapsed, so that a record which is saved many times is indexed only once:
+ * <ul>
+ * <li>while the thread inherited transaction is running; the requests are discarded if it's rolled back
+ * <li>within the window configured by {@value #SYSTEM_PROPERTY_DebounceWindowMillis} (default {@value #DEFAULT_DebounceWindowMillis}, i.e. no window)
+ * </ul>
+ * Without a window, the collapsed requests of a transaction are enqueued right before it's committed, bound to that transaction,
+ * so they are as durable as with {@link de.metas.async.api.IWorkPackageBuilder#bindToThreadInheritedTrx()}.
+ * <p>
+ * <b>Important:</b> with a window, the requests are handed over to the debouncer after the transaction was committed and are held in memory until the window ends.
+ * If the server goes down meanwhile, they are lost and the records stay stale in the index until they are saved again or the index is rebuilt.
+ * So only configure a window if that's acceptable in exchange for indexing less often.
+ * <p>
+ * The workpackage processors are loading the records when they run, so it's always the latest version which gets indexed.
+ */
 public class ESModelIndexingScheduler implements IESModelIndexingScheduler
 {
 	@VisibleForTesting
@@ -46,34 +72,155 @@ public class ESModelIndexingScheduler implements IESModelIndexingScheduler
 
 	public static final String PARAMETERNAME_ModelIndexerId = "ModelIndexerId";
 
+	private static final String SYSTEM_PROPERTY_DebounceWindowMillis = "de.metas.elasticsearch.scheduler.DebounceWindowMillis";
+	private static final long DEFAULT_DebounceWindowMillis = 0;
+
+	private static final String TRX_PROPERTY_PendingRequests = ESModelIndexingScheduler.class.getName() + ".PendingRequests";
+
+	private final ESIndexRequestsDebouncer debouncer;
+
+	public ESModelIndexingScheduler()
+	{
+		debouncer = new ESIndexRequestsDebouncer(
+				Long.getLong(SYSTEM_PROPERTY_DebounceWindowMillis, DEFAULT_DebounceWindowMillis),
+				this::enqueueWorkpackages);
+
+		JMXRegistry.get().registerJMX(new ESModelIndexingSchedulerJMX(debouncer), OnJMXAlreadyExistsPolicy.Replace);
+	}
+
 	@Override
 	public final void addToIndex(final ESModelIndexerId modelIndexerId, final String modelTableName, final List<Integer> modelIds)
 	{
-		final List<TableRecordReference> models = TableRecordReference.ofRecordIds(modelTableName, modelIds);
-		schedule(CLASSNAME_AddToIndexWorkpackageProcessor, modelIndexerId, models);
+		schedule(IndexAction.ADD, modelIndexerId, modelTableName, modelIds);
 	}
 
 	@Override
 	public final void removeToIndex(final ESModelIndexerId modelIndexerId, final String modelTableName, final List<Integer> modelIds)
 	{
-		final List<TableRecordReference> models = TableRecordReference.ofRecordIds(modelTableName, modelIds);
-		schedule(CLASSNAME_RemoveFromIndexWorkpackageProcessor, modelIndexerId, models);
+		schedule(IndexAction.REMOVE, modelIndexerId, modelTableName, modelIds);
 	}
 
-	private final void schedule(
-			@NonNull final String workpackageProcessorClassname,
+	private void schedule(
+			@NonNull final IndexAction action,
 			@NonNull final ESModelIndexerId modelIndexerId,
-			final List<? extends ITableRecordReference> models)
+			@NonNull final String modelTableName,
+			final List<Integer> modelIds)
+	{
+		if (modelIds == null || modelIds.isEmpty())
+		{
+			return;
+		}
+
+		final GroupKey key = createGroupKey(Env.getCtx(), modelIndexerId, modelTableName);
+
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.getThreadInheritedTrx(OnTrxMissingPolicy.ReturnTrxNone);
+		if (trxManager.isActive(trx))
+		{
+			debouncer.addToCollector(getCreateTrxCollector(trx), key, action, modelIds);
+		}
+		else
+		{
+			debouncer.add(key, action, modelIds);
+		}
+	}
+
+	/**
+	 * @return a key which also carries the caller's client, org and user, because the workpackages might be enqueued in some other thread
+	 */
+	private static GroupKey createGroupKey(
+			final Properties ctx,
+			final ESModelIndexerId modelIndexerId,
+			final String modelTableName)
+	{
+		return GroupKey.builder()
+				.clientId(Env.getClientId(ctx))
+				.orgId(Env.getOrgId(ctx))
+				.userId(Env.getLoggedUserIdIfExists(ctx).orElse(null))
+				.modelIndexerId(modelIndexerId)
+				.modelTableName(modelTableName)
+				.build();
+	}
+
+	private ESIndexRequestsCollector getCreateTrxCollector(final ITrx trx)
+	{
+		return trx.getProperty(TRX_PROPERTY_PendingRequests, () -> {
+
+			if (debouncer.getWindowMillis() > 0)
+			{
+				// hand the requests over to the debouncer; see class javadoc about durability
+				trx.getTrxListenerManager()
+						.newEventListener(TrxEventTiming.AFTER_COMMIT)
+						.invokeMethodJustOnce(false) // the trx might be committed more than once
+						.registerHandlingMethod(innerTrx -> {
+							final ESIndexRequestsCollector innerCollector = innerTrx.getProperty(TRX_PROPERTY_PendingRequests);
+							if (innerCollector != null)
+							{
+								debouncer.addAll(innerCollector);
+							}
+						});
+			}
+			else
+			{
+				// enqueue the workpackages before commit, so that they are marked as ready when the trx is committed
+				trx.getTrxListenerManager()
+						.newEventListener(TrxEventTiming.BEFORE_COMMIT)
+						.invokeMethodJustOnce(false) // the trx might be committed more than once
+						.registerHandlingMethod(innerTrx -> {
+							final ESIndexRequestsCollector innerCollector = innerTrx.getProperty(TRX_PROPERTY_PendingRequests);
+							if (innerCollector != null)
+							{
+								debouncer.flushCollector(innerCollector, batches -> enqueueWorkpackages(batches, innerTrx.getTrxName()));
+							}
+						});
+			}
+
+			return new ESIndexRequestsCollector();
+		});
+	}
+
+	private void enqueueWorkpackages(final List<IndexRequestsBatch> batches)
+	{
+		// NOTE: we run in the debouncer's thread or the requests were not scheduled in a transaction
+		enqueueWorkpackages(batches, ITrx.TRXNAME_None);
+	}
+
+	private void enqueueWorkpackages(final List<IndexRequestsBatch> batches, final String trxName)
+	{
+		for (final IndexRequestsBatch batch : batches)
+		{
+			final GroupKey key = batch.getKey();
+			final String workpackageProcessorClassname = batch.getAction() == IndexAction.ADD
+					? CLASSNAME_AddToIndexWorkpackageProcessor
+					: CLASSNAME_RemoveFromIndexWorkpackageProcessor;
+			final List<TableRecordReference> models = TableRecordReference.ofRecordIds(key.getModelTableName(), batch.getModelIds());
+
+			enqueueWorkpackage(workpackageProcessorClassname, key, models, trxName);
+		}
+	}
+
+	private final void enqueueWorkpackage(
+			@NonNull final String workpackageProcessorClassname,
+			@NonNull final GroupKey key,
+			final List<? extends ITableRecordReference> models,
+			final String trxName)
 	{
-		final Properties ctx = Env.getCtx();
+		// NOTE: we might run in the debouncer's thread, so we can't rely on the current context
+		final Properties ctx = Env.newTemporaryCtx();
+		Env.setClientId(ctx, key.getClientId());
+		Env.setOrgId(ctx, key.getOrgId());
+		if (key.getUserId() != null)
+		{
+			Env.setLoggedUserId(ctx, key.getUserId());
+		}
 
 		Services.get(IWorkPackageQueueFactory.class)
 				.getQueueForEnqueuing(ctx, workpackageProcessorClassname)
 				.newBlock()
 				.newWorkpackage()
-				.bindToThreadInheritedTrx()
+				.bindToTrxName(trxName)
 				.addElements(models)
-				.parameter(PARAMETERNAME_ModelIndexerId, modelIndexerId.toJson())
+				.parameter(PARAMETERNAME_ModelIndexerId, key.getModelIndexerId().toJson())
 				.build();
 	}
 }
@@ -0,0 +1,91 @@
+package de.metas.elasticsearch.scheduler.impl;
+
+import org.adempiere.util.jmx.IJMXNameAware;
+
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.elasticsearch
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ESModelIndexingSchedulerJMX implements ESModelIndexingSchedulerJMXMBean, IJMXNameAware
+{
+	private final ESIndexRequestsDebouncer debouncer;
+
+	ESModelIndexingSchedulerJMX(@NonNull final ESIndexRequestsDebouncer debouncer)
+	{
+		this.debouncer = debouncer;
+	}
+
+	@Override
+	public String getJMXName()
+	{
+		return "de.metas.elasticsearch:type=" + ESModelIndexingScheduler.class.getSimpleName();
+	}
+
+	@Override
+	public long getDebounceWindowMillis()
+	{
+		return debouncer.getWindowMillis();
+	}
+
+	@Override
+	public int getPendingCount()
+	{
+		return debouncer.getPendingCount();
+	}
+
+	@Override
+	public long getRequestedCount()
+	{
+		return debouncer.getRequestedCount();
+	}
+
+	@Override
+	public long getCollapsedCount()
+	{
+		return debouncer.getCollapsedCount();
+	}
+
+	@Override
+	public long getExecutedCount()
+	{
+		return debouncer.getExecutedCount();
+	}
+
+	@Override
+	public long getFlushesCount()
+	{
+		return debouncer.getFlushesCount();
+	}
+
+	@Override
+	public void flush()
+	{
+		debouncer.flush();
+	}
+
+	@Override
+	public void resetStatistics()
+	{
+		debouncer.resetStatistics();
+	}
+}
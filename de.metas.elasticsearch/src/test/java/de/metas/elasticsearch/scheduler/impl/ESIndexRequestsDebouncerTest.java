@@ -0,0 +1,176 @@
+package de.metas.elasticsearch.scheduler.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adempiere.service.ClientId;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.elasticsearch.config.ESModelIndexerId;
+import de.metas.elasticsearch.config.ESModelIndexerProfile;
+import de.metas.elasticsearch.scheduler.impl.ESIndexRequestsCollector.GroupKey;
+import de.metas.elasticsearch.scheduler.impl.ESIndexRequestsCollector.IndexAction;
+import de.metas.elasticsearch.scheduler.impl.ESIndexRequestsCollector.IndexRequestsBatch;
+import de.metas.organization.OrgId;
+import de.metas.user.UserId;
+
+/*
+ * #%L
+ * de.metas.elasticsearch
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ESIndexRequestsDebouncerTest
+{
+	private static final GroupKey KEY = GroupKey.builder()
+			.clientId(ClientId.ofRepoId(1))
+			.orgId(OrgId.ofRepoId(1000000))
+			.userId(UserId.ofRepoId(100))
+			.modelIndexerId(ESModelIndexerId.builder()
+					.indexName("bpartner")
+					.indexType("C_BPartner")
+					.profile(ESModelIndexerProfile.FULL_TEXT_SEARCH)
+					.build())
+			.modelTableName("C_BPartner")
+			.build();
+
+	private List<IndexRequestsBatch> executedBatches;
+
+	@Before
+	public void init()
+	{
+		executedBatches = new ArrayList<>();
+	}
+
+	@Test
+	public void noWindow_requestsAreExecutedRightAway()
+	{
+		final ESIndexRequestsDebouncer debouncer = new ESIndexRequestsDebouncer(0, executedBatches::addAll);
+
+		debouncer.add(KEY, IndexAction.ADD, ImmutableList.of(1, 2));
+		debouncer.add(KEY, IndexAction.ADD, ImmutableList.of(1));
+
+		assertThat(executedBatches).containsExactly(
+				new IndexRequestsBatch(KEY, IndexAction.ADD, ImmutableList.of(1, 2)),
+				new IndexRequestsBatch(KEY, IndexAction.ADD, ImmutableList.of(1)));
+		assertThat(debouncer.getRequestedCount()).isEqualTo(3);
+		assertThat(debouncer.getCollapsedCount()).isEqualTo(0);
+		assertThat(debouncer.getExecutedCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void noWindow_trxCollectorIsCollapsed()
+	{
+		final ESIndexRequestsDebouncer debouncer = new ESIndexRequestsDebouncer(0, executedBatches::addAll);
+
+		final ESIndexRequestsCollector trxCollector = new ESIndexRequestsCollector();
+		for (int i = 0; i < 10; i++)
+		{
+			debouncer.addToCollector(trxCollector, KEY, IndexAction.ADD, ImmutableList.of(1));
+		}
+		assertThat(executedBatches).isEmpty();
+
+		debouncer.addAll(trxCollector);
+
+		assertThat(executedBatches).containsExactly(new IndexRequestsBatch(KEY, IndexAction.ADD, ImmutableList.of(1)));
+		assertThat(trxCollector.isEmpty()).isTrue();
+		assertThat(debouncer.getRequestedCount()).isEqualTo(10);
+		assertThat(debouncer.getCollapsedCount()).isEqualTo(9);
+		assertThat(debouncer.getExecutedCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void window_lastRequestWins()
+	{
+		final ESIndexRequestsDebouncer debouncer = new ESIndexRequestsDebouncer(60 * 60 * 1000, executedBatches::addAll);
+
+		debouncer.add(KEY, IndexAction.ADD, ImmutableList.of(1, 2, 3));
+		debouncer.add(KEY, IndexAction.ADD, ImmutableList.of(2));
+		debouncer.add(KEY, IndexAction.REMOVE, ImmutableList.of(3));
+		assertThat(executedBatches).isEmpty();
+		assertThat(debouncer.getPendingCount()).isEqualTo(3);
+
+		debouncer.flush();
+
+		assertThat(executedBatches).containsExactly(
+				new IndexRequestsBatch(KEY, IndexAction.ADD, ImmutableList.of(1, 2)),
+				new IndexRequestsBatch(KEY, IndexAction.REMOVE, ImmutableList.of(3)));
+		assertThat(debouncer.getPendingCount()).isEqualTo(0);
+		assertThat(debouncer.getCollapsedCount()).isEqualTo(2);
+		assertThat(debouncer.getExecutedCount()).isEqualTo(3);
+		assertThat(debouncer.getFlushesCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void noWindow_flushCollector()
+	{
+		final ESIndexRequestsDebouncer debouncer = new ESIndexRequestsDebouncer(0, batches -> {
+			throw new IllegalStateException("the debouncer's sink shall not be used");
+		});
+
+		final ESIndexRequestsCollector trxCollector = new ESIndexRequestsCollector();
+		debouncer.addToCollector(trxCollector, KEY, IndexAction.ADD, ImmutableList.of(1, 2));
+		debouncer.addToCollector(trxCollector, KEY, IndexAction.REMOVE, ImmutableList.of(2));
+
+		debouncer.flushCollector(trxCollector, executedBatches::addAll);
+
+		assertThat(executedBatches).containsExactly(
+				new IndexRequestsBatch(KEY, IndexAction.ADD, ImmutableList.of(1)),
+				new IndexRequestsBatch(KEY, IndexAction.REMOVE, ImmutableList.of(2)));
+		assertThat(trxCollector.isEmpty()).isTrue();
+		assertThat(debouncer.getExecutedCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void window_failedFlush_requestsArePutBack()
+	{
+		final List<IndexRequestsBatch> failedBatches = new ArrayList<>();
+		final ESIndexRequestsDebouncer debouncer = new ESIndexRequestsDebouncer(60 * 60 * 1000, batches -> {
+			failedBatches.addAll(batches);
+			throw new IllegalStateException("sink failed");
+		});
+
+		debouncer.add(KEY, IndexAction.ADD, ImmutableList.of(1, 2));
+
+		assertThatThrownBy(debouncer::flush).hasMessage("sink failed");
+		assertThat(failedBatches).containsExactly(new IndexRequestsBatch(KEY, IndexAction.ADD, ImmutableList.of(1, 2)));
+		assertThat(debouncer.getPendingCount()).isEqualTo(2);
+		assertThat(debouncer.getExecutedCount()).isEqualTo(0);
+		assertThat(debouncer.getFlushesCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void putBack_newerRequestsWin()
+	{
+		final ESIndexRequestsCollector collector = new ESIndexRequestsCollector();
+		collector.add(KEY, IndexAction.REMOVE, ImmutableList.of(2));
+
+		collector.putBack(ImmutableList.of(new IndexRequestsBatch(KEY, IndexAction.ADD, ImmutableList.of(1, 2))));
+
+		assertThat(collector.drain()).containsExactly(
+				new IndexRequestsBatch(KEY, IndexAction.ADD, ImmutableList.of(1)),
+				new IndexRequestsBatch(KEY, IndexAction.REMOVE, ImmutableList.of(2)));
+	}
+}
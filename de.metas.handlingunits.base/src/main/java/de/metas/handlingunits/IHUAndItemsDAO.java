@@ -22,6 +22,7 @@ package de.metas.handlingunits;
  * #L%
  */
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.annotation.Nullable;
@@ -56,6 +57,14 @@ public interface IHUAndItemsDAO
 
 	List<I_M_HU_Item> retrieveItems(final I_M_HU hu);
 
+	/**
+	 * Loads the items and included HUs of the given HUs and of all their included HUs with a few set-based queries and caches them,
+	 * so that subsequently walking those hierarchies via {@link #retrieveItems(I_M_HU)} and {@link #retrieveIncludedHUs(I_M_HU_Item)} does not need to access the database anymore.
+	 *
+	 * @return the given HUs and all their included HUs, if they were loaded and cached; empty list if this implementation does not cache at all.
+	 */
+	List<I_M_HU> preloadHierarchies(Collection<I_M_HU> topLevelHUs);
+
 	/**
 	 * From the {@link I_M_HU_Item}s that reference the given {@code hu}, retrieve the one that also references the given {@code piItem},<br>
 	 * <b>or</b> (gh #460) if there is no such item and the given {@code piItem} has {@code ItemType='HU'}, then retrieve the {@link I_M_HU_Item} with {@link X_M_HU_Item#ITEMTYPE_HUAggregate}.
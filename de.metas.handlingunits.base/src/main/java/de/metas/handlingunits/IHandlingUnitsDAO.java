@@ -175,6 +175,14 @@ public interface IHandlingUnitsDAO extends ISingletonService
 
 	List<I_M_HU> retrieveIncludedHUs(I_M_HU hu);
 
+	/**
+	 * Loads the whole hierarchies (items and included HUs, recursively) of the given HUs with one query per hierarchy level and caches them in the current transaction,
+	 * so that {@link #retrieveItems(I_M_HU)} and {@link #retrieveIncludedHUs(I_M_HU_Item)} don't need to go to database for them anymore.
+	 *
+	 * @return the given HUs and all their included HUs; empty if nothing was preloaded, e.g. because we are not running in a transaction.
+	 */
+	List<I_M_HU> preloadHierarchies(Collection<I_M_HU> topLevelHUs);
+
 	// Handling Unit PI Retrieval
 
 	List<I_M_HU_PI_Item> retrievePIItems(final I_M_HU_PI handlingUnitPI, final I_C_BPartner partner);
@@ -1,5 +1,7 @@
 package de.metas.handlingunits.attribute;
 
+import java.util.Collection;
+
 import org.adempiere.mm.attributes.AttributeId;
 import org.adempiere.util.lang.IAutoCloseable;
 import org.adempiere.util.lang.NullAutoCloseable;
@@ -37,6 +39,12 @@ public interface IHUAttributesDAO extends ISingletonService
 	 */
 	HUAndPIAttributes retrieveAttributesOrdered(I_M_HU hu);
 
+	/**
+	 * Loads the attributes of all given HUs with a few set-based queries, if this implementation is caching them.
+	 * Use it before accessing the attributes of many HUs one by one.
+	 */
+	void preloadAttributes(Collection<I_M_HU> hus);
+
 	/**
 	 * @return the attribute or <code>null</code>
 	 */
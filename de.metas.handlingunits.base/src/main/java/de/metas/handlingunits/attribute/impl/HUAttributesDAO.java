@@ -1,5 +1,6 @@
 package de.metas.handlingunits.attribute.impl;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.adempiere.ad.dao.IQueryBL;
@@ -130,6 +131,12 @@ public final class HUAttributesDAO implements IHUAttributesDAO
 		return NullAutoCloseable.instance;
 	}
 
+	@Override
+	public void preloadAttributes(final Collection<I_M_HU> hus)
+	{
+		// nothing because there is no internal cache
+	}
+
 	@Override
 	public void flushAndClearCache()
 	{
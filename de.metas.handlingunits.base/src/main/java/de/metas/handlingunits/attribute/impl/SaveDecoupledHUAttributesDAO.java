@@ -5,10 +5,14 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
 
+import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.ad.service.IDeveloperModeBL;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxManager;
@@ -28,6 +32,9 @@ import org.slf4j.Logger;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
 
 import de.metas.handlingunits.HuId;
 import de.metas.handlingunits.IHandlingUnitsBL;
@@ -38,6 +45,7 @@ import de.metas.handlingunits.attribute.PIAttributes;
 import de.metas.handlingunits.exceptions.HUException;
 import de.metas.handlingunits.model.I_M_HU;
 import de.metas.handlingunits.model.I_M_HU_Attribute;
+import de.metas.handlingunits.model.I_M_HU_PI_Attribute;
 import de.metas.logging.LogManager;
 import de.metas.util.Check;
 import de.metas.util.Services;
@@ -79,6 +87,12 @@ public class SaveDecoupledHUAttributesDAO implements IHUAttributesDAO
 	@ToStringBuilder(skip = true)
 	private final List<I_M_HU_Attribute> _huAttributesToRemove = new ArrayList<>();
 	private final Set<Integer> idsToSaveFromLastFlush = new HashSet<>();
+	/**
+	 * Shared {@link PIAttributes} by the set of their M_HU_PI_Attribute_IDs.
+	 * Usually most HUs have exactly the same PI attributes, so we load them and keep them in memory only once.
+	 */
+	@ToStringBuilder(skip = true)
+	private final HashMap<ImmutableSet<Integer>, PIAttributes> piAttributesByIds = new HashMap<>();
 
 	public SaveDecoupledHUAttributesDAO(final IHUAttributesDAO db)
 	{
@@ -258,12 +272,90 @@ public class SaveDecoupledHUAttributesDAO implements IHUAttributesDAO
 		return HUAndPIAttributes.of(huAttributesSorted, piAttributes);
 	}
 
+	@Override
+	public synchronized void preloadAttributes(final Collection<I_M_HU> hus)
+	{
+		final Map<Integer, I_M_HU> husToLoad = new LinkedHashMap<>();
+		for (final I_M_HU hu : hus)
+		{
+			if (!_hu2huAttributes.containsKey(HuId.ofRepoId(hu.getM_HU_ID())))
+			{
+				husToLoad.put(hu.getM_HU_ID(), hu);
+			}
+		}
+		if (husToLoad.isEmpty())
+		{
+			return;
+		}
+
+		final IQueryBL queryBL = Services.get(IQueryBL.class);
+		final I_M_HU contextProvider = husToLoad.values().iterator().next();
+
+		final ListMultimap<Integer, I_M_HU_Attribute> huAttributesByHUId = MultimapBuilder.hashKeys().arrayListValues().build();
+		for (final List<Integer> huIdsChunk : Iterables.partition(husToLoad.keySet(), 1000))
+		{
+			queryBL.createQueryBuilder(I_M_HU_Attribute.class, contextProvider)
+					.addOnlyActiveRecordsFilter()
+					.addInArrayFilter(I_M_HU_Attribute.COLUMNNAME_M_HU_ID, huIdsChunk)
+					.create()
+					.stream()
+					.forEach(huAttribute -> huAttributesByHUId.put(huAttribute.getM_HU_ID(), huAttribute));
+		}
+
+		preloadPIAttributes(huAttributesByHUId.asMap().values());
+
+		for (final I_M_HU hu : husToLoad.values())
+		{
+			final List<I_M_HU_Attribute> huAttributesList = huAttributesByHUId.get(hu.getM_HU_ID());
+			huAttributesList.forEach(huAttribute -> huAttribute.setM_HU(hu)); // Optimization: set M_HU link
+
+			final PIAttributes piAttributes = createPIAttributes(huAttributesList);
+			final ImmutableList<I_M_HU_Attribute> huAttributesSorted = HUAttributesBySeqNoComparator.of(piAttributes).sortAndCopy(huAttributesList);
+			_hu2huAttributes.put(HuId.ofRepoId(hu.getM_HU_ID()), HUAttributesMap.of(HUAndPIAttributes.of(huAttributesSorted, piAttributes)));
+		}
+	}
+
 	private PIAttributes createPIAttributes(final Collection<I_M_HU_Attribute> huAttributesList)
 	{
-		final IHUPIAttributesDAO piAttributesRepo = Services.get(IHUPIAttributesDAO.class);
+		final ImmutableSet<Integer> piAttributeIds = extractPIAttributeIds(huAttributesList);
+		return piAttributesByIds.computeIfAbsent(piAttributeIds, Services.get(IHUPIAttributesDAO.class)::retrievePIAttributesByIds);
+	}
+
+	/**
+	 * Makes sure the {@link PIAttributes} of all given HU attribute lists are loaded, using one query for all of them.
+	 */
+	private void preloadPIAttributes(final Collection<? extends Collection<I_M_HU_Attribute>> huAttributesLists)
+	{
+		final Set<ImmutableSet<Integer>> piAttributeIdSetsToLoad = huAttributesLists.stream()
+				.map(SaveDecoupledHUAttributesDAO::extractPIAttributeIds)
+				.filter(piAttributeIds -> !piAttributesByIds.containsKey(piAttributeIds))
+				.collect(ImmutableSet.toImmutableSet());
+		if (piAttributeIdSetsToLoad.isEmpty())
+		{
+			return;
+		}
 
-		final ImmutableSet<Integer> piAttributeIds = huAttributesList.stream().map(I_M_HU_Attribute::getM_HU_PI_Attribute_ID).collect(ImmutableSet.toImmutableSet());
-		return piAttributesRepo.retrievePIAttributesByIds(piAttributeIds);
+		final ImmutableSet<Integer> allPIAttributeIds = piAttributeIdSetsToLoad.stream()
+				.flatMap(Set::stream)
+				.collect(ImmutableSet.toImmutableSet());
+		final Map<Integer, I_M_HU_PI_Attribute> piAttributesById = new HashMap<>();
+		Services.get(IHUPIAttributesDAO.class)
+				.retrievePIAttributesByIds(allPIAttributeIds)
+				.forEach(piAttribute -> piAttributesById.put(piAttribute.getM_HU_PI_Attribute_ID(), piAttribute));
+
+		for (final ImmutableSet<Integer> piAttributeIds : piAttributeIdSetsToLoad)
+		{
+			final List<I_M_HU_PI_Attribute> piAttributes = piAttributeIds.stream()
+					.map(piAttributesById::get)
+					.filter(Objects::nonNull)
+					.collect(ImmutableList.toImmutableList());
+			piAttributesByIds.put(piAttributeIds, PIAttributes.of(piAttributes));
+		}
+	}
+
+	private static ImmutableSet<Integer> extractPIAttributeIds(final Collection<I_M_HU_Attribute> huAttributesList)
+	{
+		return huAttributesList.stream().map(I_M_HU_Attribute::getM_HU_PI_Attribute_ID).collect(ImmutableSet.toImmutableSet());
 	}
 
 	private final HUAttributesMap getHUAttributesMap(final I_M_HU hu)
@@ -456,6 +548,7 @@ public class SaveDecoupledHUAttributesDAO implements IHUAttributesDAO
 		flush();
 
 		_hu2huAttributes.clear();
+		piAttributesByIds.clear();
 		logger.trace("cached cleared");
 	}
 
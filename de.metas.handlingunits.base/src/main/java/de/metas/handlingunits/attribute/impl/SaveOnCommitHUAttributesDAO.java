@@ -1,5 +1,7 @@
 package de.metas.handlingunits.attribute.impl;
 
+import java.util.Collection;
+
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxListenerManager.TrxEventTiming;
 import org.adempiere.ad.trx.api.ITrxManager;
@@ -114,6 +116,19 @@ public class SaveOnCommitHUAttributesDAO implements IHUAttributesDAO
 		return NullAutoCloseable.instance;
 	}
 
+	@Override
+	public void preloadAttributes(final Collection<I_M_HU> hus)
+	{
+		// preloading is just an optimization, so don't fail if we are not running in a transaction
+		if (hus.isEmpty() || trxManager.isNull(trxManager.getThreadInheritedTrxName()))
+		{
+			return;
+		}
+
+		final SaveDecoupledHUAttributesDAO delegate = getDelegate(hus.iterator().next());
+		delegate.preloadAttributes(hus);
+	}
+
 	@Override
 	public void flushAndClearCache()
 	{
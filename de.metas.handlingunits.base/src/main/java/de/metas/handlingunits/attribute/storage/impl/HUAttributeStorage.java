@@ -22,6 +22,7 @@ package de.metas.handlingunits.attribute.storage.impl;
  * #L%
  */
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -156,17 +157,22 @@ import lombok.NonNull;
 		}
 
 		// Retrieve HU items and get children HUs
-		final List<I_M_HU_Item> huItems = handlingUnitsDAO.retrieveItems(hu);
+		final List<I_M_HU> childrenHUs = new ArrayList<>();
+		for (final I_M_HU_Item item : handlingUnitsDAO.retrieveItems(hu))
+		{
+			childrenHUs.addAll(handlingUnitsDAO.retrieveIncludedHUs(item));
+		}
+
+		// Load the attributes of all children with one query instead of one query per child,
+		// because when children are needed (e.g. to propagate a value down), usually all their attributes are needed too
+		getHUAttributesDAO().preloadAttributes(childrenHUs);
+
 		final boolean saveOnChange = isSaveOnChange();
-		for (final I_M_HU_Item item : huItems)
+		for (final I_M_HU childHU : childrenHUs)
 		{
-			final List<I_M_HU> childrenHU = handlingUnitsDAO.retrieveIncludedHUs(item);
-			for (final I_M_HU childHU : childrenHU)
-			{
-				final IAttributeStorage childAttributeSetStorage = storageFactory.getAttributeStorage(childHU);
-				childAttributeSetStorage.setSaveOnChange(saveOnChange); // propagate saveOnChange to child
-				childrenAttributeSetStorages.put(childAttributeSetStorage.getId(), childAttributeSetStorage);
-			}
+			final IAttributeStorage childAttributeSetStorage = storageFactory.getAttributeStorage(childHU);
+			childAttributeSetStorage.setSaveOnChange(saveOnChange); // propagate saveOnChange to child
+			childrenAttributeSetStorages.put(childAttributeSetStorage.getId(), childAttributeSetStorage);
 		}
 
 		return childrenAttributeSetStorages;
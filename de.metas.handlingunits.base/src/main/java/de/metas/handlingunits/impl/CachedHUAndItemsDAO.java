@@ -24,6 +24,7 @@ package de.metas.handlingunits.impl;
 
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -41,10 +42,13 @@ import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.compiere.model.I_AD_Client;
 
+import com.google.common.collect.ImmutableList;
+
 import de.metas.handlingunits.IHUAndItemsDAO;
 import de.metas.handlingunits.IHandlingUnitsBL;
 import de.metas.handlingunits.IHandlingUnitsDAO;
 import de.metas.handlingunits.exceptions.HUException;
+import de.metas.handlingunits.impl.HUHierarchyBatchLoader.HUHierarchies;
 import de.metas.handlingunits.model.I_M_HU;
 import de.metas.handlingunits.model.I_M_HU_Item;
 import de.metas.handlingunits.model.I_M_HU_PI_Item;
@@ -330,6 +334,36 @@ public class CachedHUAndItemsDAO extends AbstractHUAndItemsDAO
 		return new ArrayList<>(huItems);
 	}
 
+	@Override
+	public List<I_M_HU> preloadHierarchies(final Collection<I_M_HU> topLevelHUs)
+	{
+		// Don't reload the hierarchies we already have in cache, because the cached HUs and items might be changed but not yet saved
+		final List<I_M_HU> topLevelHUsToLoad = topLevelHUs.stream()
+				.filter(hu -> !huKey2huItems.containsKey(mkHUKey(hu)))
+				.collect(ImmutableList.toImmutableList());
+		if (topLevelHUsToLoad.isEmpty())
+		{
+			return ImmutableList.of();
+		}
+
+		final HUHierarchies hierarchies = new HUHierarchyBatchLoader().load(topLevelHUsToLoad);
+		for (final I_M_HU hu : hierarchies.getHus())
+		{
+			final List<I_M_HU_Item> huItems = hierarchies.getItems(hu.getM_HU_ID());
+			huKey2huItems.putIfAbsent(mkHUKey(hu), new ArrayList<>(huItems));
+
+			for (final I_M_HU_Item huItem : huItems)
+			{
+				final List<I_M_HU> includedHUs = hierarchies.getIncludedHUs(huItem.getM_HU_Item_ID());
+				huItemKey2includedHUs.putIfAbsent(mkHUItemKey(huItem), new ArrayList<>(includedHUs));
+			}
+
+			debugValidateHUItems(hu);
+		}
+
+		return hierarchies.getHus();
+	}
+
 	@Override
 	public I_M_HU retrieveParent(final I_M_HU hu)
 	{
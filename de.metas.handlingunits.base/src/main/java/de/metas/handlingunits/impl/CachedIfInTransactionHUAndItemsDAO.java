@@ -22,12 +22,15 @@ package de.metas.handlingunits.impl;
  * #L%
  */
 
+import java.util.Collection;
 import java.util.List;
 
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxManager;
 import org.adempiere.model.InterfaceWrapperHelper;
 
+import com.google.common.collect.ImmutableList;
+
 import de.metas.handlingunits.IHUAndItemsDAO;
 import de.metas.handlingunits.exceptions.HUException;
 import de.metas.handlingunits.model.I_M_HU;
@@ -152,6 +155,19 @@ public class CachedIfInTransactionHUAndItemsDAO implements IHUAndItemsDAO
 		return getDelegate(hu).retrieveItems(hu);
 	}
 
+	@Override
+	public List<I_M_HU> preloadHierarchies(final Collection<I_M_HU> topLevelHUs)
+	{
+		if (topLevelHUs.isEmpty())
+		{
+			return ImmutableList.of();
+		}
+
+		// NOTE: getDelegate is making sure the HUs are in the thread inherited transaction, so it's fine to check just the first one
+		final I_M_HU contextProvider = topLevelHUs.iterator().next();
+		return getDelegate(contextProvider).preloadHierarchies(topLevelHUs);
+	}
+
 	@Override
 	public I_M_HU_Item retrieveItem(final I_M_HU hu, final I_M_HU_PI_Item piItem)
 	{
@@ -22,6 +22,7 @@ package de.metas.handlingunits.impl;
  * #L%
  */
 
+import java.util.Collection;
 import java.util.List;
 
 import org.adempiere.ad.trx.api.ITrxManager;
@@ -29,6 +30,7 @@ import org.adempiere.model.InterfaceWrapperHelper;
 import org.compiere.util.TrxRunnable;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 
 import de.metas.handlingunits.HuPackingInstructionsVersionId;
 import de.metas.handlingunits.IHandlingUnitsBL;
@@ -167,6 +169,13 @@ public final class HUAndItemsDAO extends AbstractHUAndItemsDAO
 		return huItemsCache.getItems();
 	}
 
+	@Override
+	public List<I_M_HU> preloadHierarchies(final Collection<I_M_HU> topLevelHUs)
+	{
+		// nothing to preload into: the local caches are disabled (see HUConstants.DEBUG_07504_*)
+		return ImmutableList.of();
+	}
+
 	@VisibleForTesting
 	public static I_M_HU_Item createHUItemNoSave(
 			@NonNull final I_M_HU hu,
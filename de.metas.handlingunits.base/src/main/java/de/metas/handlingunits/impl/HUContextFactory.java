@@ -27,6 +27,8 @@ import java.util.Properties;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxManager;
 import org.adempiere.model.PlainContextAware;
+import org.adempiere.util.jmx.JMXRegistry;
+import org.adempiere.util.jmx.JMXRegistry.OnJMXAlreadyExistsPolicy;
 import org.adempiere.util.lang.IContextAware;
 
 import de.metas.handlingunits.HUConstants;
@@ -38,11 +40,18 @@ import de.metas.handlingunits.attribute.storage.IAttributeStorageFactory;
 import de.metas.handlingunits.attribute.storage.IAttributeStorageFactoryService;
 import de.metas.handlingunits.storage.IHUStorageDAO;
 import de.metas.handlingunits.storage.impl.DefaultHUStorageFactory;
+import de.metas.handlingunits.storage.impl.HUStorageFlushJMX;
 import de.metas.handlingunits.storage.impl.SaveOnCommitHUStorageDAO;
 import de.metas.util.Services;
 
 public class HUContextFactory implements IHUContextFactory
 {
+	public HUContextFactory()
+	{
+		// the processing contexts created by this factory are flushing their HU storages on commit
+		JMXRegistry.get().registerJMX(new HUStorageFlushJMX(), OnJMXAlreadyExistsPolicy.Replace);
+	}
+
 	@Override
 	public IMutableHUContext createMutableHUContextForProcessing(final IContextAware contextProvider)
 	{
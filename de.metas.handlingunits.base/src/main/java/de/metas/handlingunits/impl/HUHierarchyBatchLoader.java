@@ -0,0 +1,201 @@
+package de.metas.handlingunits.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.dao.IQueryOrderBy.Direction;
+import org.adempiere.ad.dao.IQueryOrderBy.Nulls;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
+
+import de.metas.handlingunits.IHandlingUnitsDAO;
+import de.metas.handlingunits.model.I_M_HU;
+import de.metas.handlingunits.model.I_M_HU_Item;
+import de.metas.util.Services;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.handlingunits.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Loads the complete LU/TU/VHU trees below a given set of HUs level by level, i.e. with one {@code M_HU_Item} and one {@code M_HU} query per hierarchy level,
+ * instead of one query per HU and per HU item.
+ * <p>
+ * The loaded records are filtered, sorted and linked to their parents exactly like {@link HUAndItemsDAO} does it.
+ */
+/* package */ final class HUHierarchyBatchLoader
+{
+	/** Max number of IDs we put into one {@code IN (...)} filter */
+	private static final int IN_ARRAY_MAX_SIZE = 1000;
+
+	/** Safety net in case the data contains a cycle */
+	private static final int MAX_DEPTH = 100;
+
+	@Value
+	public static class HUHierarchies
+	{
+		/** The top level HUs and all their included HUs, top-down. All their items and included HUs were loaded. */
+		ImmutableList<I_M_HU> hus;
+		ImmutableListMultimap<Integer, I_M_HU_Item> itemsByHUId;
+		ImmutableListMultimap<Integer, I_M_HU> includedHUsByItemId;
+
+		public ImmutableList<I_M_HU_Item> getItems(final int huId)
+		{
+			return itemsByHUId.get(huId);
+		}
+
+		public ImmutableList<I_M_HU> getIncludedHUs(final int huItemId)
+		{
+			return includedHUsByItemId.get(huItemId);
+		}
+	}
+
+	private final transient IQueryBL queryBL = Services.get(IQueryBL.class);
+
+	public HUHierarchies load(@NonNull final Collection<I_M_HU> topLevelHUs)
+	{
+		final ImmutableList.Builder<I_M_HU> allHUs = ImmutableList.builder();
+		final ImmutableListMultimap.Builder<Integer, I_M_HU_Item> itemsByHUId = ImmutableListMultimap.builder();
+		final ImmutableListMultimap.Builder<Integer, I_M_HU> includedHUsByItemId = ImmutableListMultimap.builder();
+
+		final Set<Integer> seenHUIds = new HashSet<>();
+		Map<Integer, I_M_HU> currentLevelHUs = indexNotSeenHUs(topLevelHUs, seenHUIds);
+		int depth = 0;
+		while (!currentLevelHUs.isEmpty() && depth < MAX_DEPTH)
+		{
+			allHUs.addAll(currentLevelHUs.values());
+
+			//
+			// Items of this level's HUs
+			final ListMultimap<Integer, I_M_HU_Item> levelItemsByHUId = retrieveItems(currentLevelHUs);
+			final Map<Integer, I_M_HU_Item> levelItemsById = new LinkedHashMap<>();
+			for (final I_M_HU hu : currentLevelHUs.values())
+			{
+				final List<I_M_HU_Item> items = new ArrayList<>(levelItemsByHUId.get(hu.getM_HU_ID()));
+				items.sort(IHandlingUnitsDAO.HU_ITEMS_COMPARATOR);
+
+				itemsByHUId.putAll(hu.getM_HU_ID(), items);
+				items.forEach(item -> levelItemsById.put(item.getM_HU_Item_ID(), item));
+			}
+
+			//
+			// HUs which are included in this level's items
+			final List<I_M_HU> levelIncludedHUs = retrieveIncludedHUs(levelItemsById);
+			for (final I_M_HU includedHU : levelIncludedHUs)
+			{
+				includedHUsByItemId.put(includedHU.getM_HU_Item_Parent_ID(), includedHU);
+			}
+
+			currentLevelHUs = indexNotSeenHUs(levelIncludedHUs, seenHUIds);
+			depth++;
+		}
+
+		return new HUHierarchies(allHUs.build(), itemsByHUId.build(), includedHUsByItemId.build());
+	}
+
+	private static Map<Integer, I_M_HU> indexNotSeenHUs(final Collection<I_M_HU> hus, final Set<Integer> seenHUIds)
+	{
+		final Map<Integer, I_M_HU> husById = new LinkedHashMap<>();
+		for (final I_M_HU hu : hus)
+		{
+			final int huId = hu.getM_HU_ID();
+			if (huId <= 0 || !seenHUIds.add(huId))
+			{
+				continue;
+			}
+			husById.put(huId, hu);
+		}
+		return husById;
+	}
+
+	/**
+	 * Retrieves the active items of given HUs; same as {@link HUItemsLocalCache}, but for many HUs at once.
+	 */
+	private ListMultimap<Integer, I_M_HU_Item> retrieveItems(final Map<Integer, I_M_HU> husById)
+	{
+		final ListMultimap<Integer, I_M_HU_Item> itemsByHUId = MultimapBuilder.hashKeys().arrayListValues().build();
+		final I_M_HU contextProvider = husById.values().iterator().next();
+
+		for (final List<Integer> huIdsChunk : Iterables.partition(husById.keySet(), IN_ARRAY_MAX_SIZE))
+		{
+			final List<I_M_HU_Item> items = queryBL.createQueryBuilder(I_M_HU_Item.class, contextProvider)
+					.addInArrayFilter(I_M_HU_Item.COLUMN_M_HU_ID, huIdsChunk)
+					.addOnlyActiveRecordsFilter()
+					.create()
+					.list();
+			for (final I_M_HU_Item item : items)
+			{
+				final I_M_HU hu = husById.get(item.getM_HU_ID());
+				item.setM_HU(hu); // Make sure item.getM_HU() will return our HU
+
+				itemsByHUId.put(hu.getM_HU_ID(), item);
+			}
+		}
+
+		return itemsByHUId;
+	}
+
+	/**
+	 * Retrieves the HUs included in given items; same as {@link IncludedHUsLocalCache}, but for many items at once.
+	 */
+	private List<I_M_HU> retrieveIncludedHUs(final Map<Integer, I_M_HU_Item> itemsById)
+	{
+		if (itemsById.isEmpty())
+		{
+			return ImmutableList.of();
+		}
+
+		final I_M_HU_Item contextProvider = itemsById.values().iterator().next();
+
+		final List<I_M_HU> includedHUs = new ArrayList<>();
+		for (final List<Integer> itemIdsChunk : Iterables.partition(itemsById.keySet(), IN_ARRAY_MAX_SIZE))
+		{
+			final List<I_M_HU> hus = queryBL.createQueryBuilder(I_M_HU.class, contextProvider)
+					.addInArrayFilter(I_M_HU.COLUMN_M_HU_Item_Parent_ID, itemIdsChunk)
+					// Retrieve all HUs, even if they are not active (see IncludedHUsLocalCache)
+					.orderBy()
+					.addColumn(I_M_HU.COLUMN_M_HU_ID, Direction.Ascending, Nulls.Last)
+					.endOrderBy()
+					.create()
+					.list();
+			for (final I_M_HU hu : hus)
+			{
+				// Make sure hu.getM_HU_Item_Parent() returns our parentItem
+				hu.setM_HU_Item_Parent(itemsById.get(hu.getM_HU_Item_Parent_ID()));
+				includedHUs.add(hu);
+			}
+		}
+
+		return includedHUs;
+	}
+}
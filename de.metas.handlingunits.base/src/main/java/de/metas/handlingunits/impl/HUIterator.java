@@ -42,6 +42,9 @@ import de.metas.util.Services;
 
 public class HUIterator extends AbstractHUIterator
 {
+	private boolean preloadHierarchies = true;
+	private boolean preloadAttributes = false;
+
 	public HUIterator()
 	{
 		registerNodeIterator(I_M_HU.class, new HUNodeIterator());
@@ -70,6 +73,52 @@ public class HUIterator extends AbstractHUIterator
 		return this;
 	}
 
+	/**
+	 * If true (the default), the whole hierarchies (and storages, if storage iteration is enabled) of the HUs to iterate are loaded upfront with a few set-based queries,
+	 * instead of loading the items and included HUs of each node while iterating.
+	 *
+	 * NOTE: preloading is effective only when iterating in a transaction, because the preloaded records are cached per transaction.
+	 */
+	public final HUIterator setPreloadHierarchies(final boolean preloadHierarchies)
+	{
+		this.preloadHierarchies = preloadHierarchies;
+		return this;
+	}
+
+	/**
+	 * If true, also the attributes of all HUs to iterate are loaded upfront. Makes sense if the listener is accessing the attributes of (almost) every HU.
+	 * Has no effect if {@link #setPreloadHierarchies(boolean)} is disabled.
+	 */
+	public final HUIterator setPreloadAttributes(final boolean preloadAttributes)
+	{
+		this.preloadAttributes = preloadAttributes;
+		return this;
+	}
+
+	private void preload(final Collection<I_M_HU> hus)
+	{
+		if (!preloadHierarchies || hus.isEmpty())
+		{
+			return;
+		}
+
+		final List<I_M_HU> preloadedHUs = handlingUnitsDAO.preloadHierarchies(hus);
+		if (preloadedHUs.isEmpty())
+		{
+			return;
+		}
+
+		if (getNodeIteratorOrNull(IHUItemStorage.class) != null)
+		{
+			getStorageFactoryToUse().getHUStorageDAO().preloadStorages(preloadedHUs);
+		}
+
+		if (preloadAttributes)
+		{
+			getHUContext().getHUAttributeStorageFactory().getHUAttributesDAO().preloadAttributes(preloadedHUs);
+		}
+	}
+
 	@Override
 	public final IHUIterator iterate(final I_M_HU hu)
 	{
@@ -88,6 +137,8 @@ public class HUIterator extends AbstractHUIterator
 
 		setStatus(HUIteratorStatus.Running);
 
+		preload(hus);
+
 		for (final I_M_HU hu : hus)
 		{
 			huNodeIterator.iterate(hu);
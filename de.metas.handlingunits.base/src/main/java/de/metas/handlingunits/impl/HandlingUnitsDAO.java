@@ -312,6 +312,12 @@ public class HandlingUnitsDAO implements IHandlingUnitsDAO
 		return getHUAndItemsDAO().retrieveItems(hu);
 	}
 
+	@Override
+	public List<I_M_HU> preloadHierarchies(@NonNull final Collection<I_M_HU> topLevelHUs)
+	{
+		return getHUAndItemsDAO().preloadHierarchies(topLevelHUs);
+	}
+
 	@Override
 	public I_M_HU_Item retrieveItem(final I_M_HU hu, final I_M_HU_PI_Item piItem)
 	{
@@ -23,6 +23,7 @@ package de.metas.handlingunits.storage;
  */
 
 
+import java.util.Collection;
 import java.util.List;
 
 import org.compiere.model.I_C_UOM;
@@ -55,6 +56,12 @@ public interface IHUStorageDAO
 	 */
 	void initHUItemStorages(I_M_HU_Item item);
 
+	/**
+	 * Loads the storages of given HUs and of their items with a few set-based queries, if this implementation is caching them.
+	 * Use it before accessing the storages of many HUs one by one (e.g. after {@link de.metas.handlingunits.IHandlingUnitsDAO#preloadHierarchies(Collection)}).
+	 */
+	void preloadStorages(Collection<I_M_HU> hus);
+
 	I_M_HU_Storage retrieveStorage(I_M_HU hu, ProductId productId);
 
 	void save(I_M_HU_Storage storage);
@@ -23,6 +23,7 @@ package de.metas.handlingunits.storage.impl;
  */
 
 
+import java.util.Collection;
 import java.util.List;
 
 import org.adempiere.ad.dao.IQueryBL;
@@ -76,6 +77,12 @@ public class HUStorageDAO extends AbstractHUStorageDAO
 				.firstOnly(I_M_HU_Storage.class);
 	}
 
+	@Override
+	public void preloadStorages(final Collection<I_M_HU> hus)
+	{
+		// nothing to do: we are not caching on this level
+	}
+
 	@Override
 	public void save(final I_M_HU_Storage storage)
 	{
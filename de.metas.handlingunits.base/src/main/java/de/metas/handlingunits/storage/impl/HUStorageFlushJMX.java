@@ -0,0 +1,62 @@
+package de.metas.handlingunits.storage.impl;
+
+/*
+ * #%L
+ * de.metas.handlingunits.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+
+import org.adempiere.util.jmx.IJMXNameAware;
+
+/**
+ * JMX bean for the flushes of {@link SaveDecoupledHUStorageDAO}.
+ */
+public class HUStorageFlushJMX implements HUStorageFlushJMXMBean, IJMXNameAware
+{
+	@Override
+	public String getJMXName()
+	{
+		return "de.metas.handlingunits:type=" + SaveDecoupledHUStorageDAO.class.getSimpleName();
+	}
+
+	@Override
+	public long getFlushesCount()
+	{
+		return SaveDecoupledHUStorageDAO.getFlushesCount();
+	}
+
+	@Override
+	public long getSavedHUStoragesCount()
+	{
+		return SaveDecoupledHUStorageDAO.getSavedHUStoragesCount();
+	}
+
+	@Override
+	public long getSavedHUItemStoragesCount()
+	{
+		return SaveDecoupledHUStorageDAO.getSavedHUItemStoragesCount();
+	}
+
+	@Override
+	public long getSkippedCount()
+	{
+		return SaveDecoupledHUStorageDAO.getSkippedCount();
+	}
+}
@@ -24,19 +24,34 @@ package de.metas.handlingunits.storage.impl;
 
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
 
+import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.ad.trx.api.ITrxManager;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.compiere.util.Util;
+import org.slf4j.Logger;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
+
+import de.metas.handlingunits.IHandlingUnitsDAO;
 import de.metas.handlingunits.model.I_M_HU;
 import de.metas.handlingunits.model.I_M_HU_Item;
 import de.metas.handlingunits.model.I_M_HU_Item_Storage;
 import de.metas.handlingunits.model.I_M_HU_Storage;
 import de.metas.handlingunits.storage.IHUStorageDAO;
+import de.metas.logging.LogManager;
 import de.metas.product.ProductId;
 import de.metas.util.Check;
 import de.metas.util.Services;
@@ -54,6 +69,14 @@ import lombok.NonNull;
  */
 public class SaveDecoupledHUStorageDAO extends AbstractHUStorageDAO
 {
+	private static final Logger logger = LogManager.getLogger(SaveDecoupledHUStorageDAO.class);
+
+	// NOTE: instances live only as long as their transaction, so we count the flushes of all instances, see HUStorageFlushJMX
+	private static final LongAdder countFlushes = new LongAdder();
+	private static final LongAdder countSavedHUStorages = new LongAdder();
+	private static final LongAdder countSavedHUItemStorages = new LongAdder();
+	private static final LongAdder countSkipped = new LongAdder();
+
 	private final IHUStorageDAO db;
 
 	/** Cache: "M_HU key" to "M_HU_Storage key" to {@link I_M_HU_Storage} */
@@ -178,6 +201,100 @@ public class SaveDecoupledHUStorageDAO extends AbstractHUStorageDAO
 		return huStorages;
 	}
 
+	@Override
+	public void preloadStorages(final Collection<I_M_HU> hus)
+	{
+		//
+		// HU storages of HUs which were not already loaded
+		final Map<Integer, I_M_HU> husToLoad = new LinkedHashMap<>();
+		for (final I_M_HU hu : hus)
+		{
+			if (!_hu2storage.containsKey(mkHUKey(hu)))
+			{
+				husToLoad.put(hu.getM_HU_ID(), hu);
+			}
+		}
+		if (husToLoad.isEmpty())
+		{
+			return;
+		}
+
+		final ListMultimap<Integer, I_M_HU_Storage> huStoragesByHUId = retrieveRecordsByParentId(
+				I_M_HU_Storage.class,
+				I_M_HU_Storage.COLUMNNAME_M_HU_ID,
+				husToLoad.keySet(),
+				I_M_HU_Storage::getM_HU_ID);
+		for (final I_M_HU hu : husToLoad.values())
+		{
+			final Map<Object, I_M_HU_Storage> huStorages = new HashMap<>();
+			for (final I_M_HU_Storage huStorage : huStoragesByHUId.get(hu.getM_HU_ID()))
+			{
+				huStorage.setM_HU(hu); // Optimization: set parent link
+				huStorages.put(mkHUStorageKey(huStorage), huStorage);
+				setReadonly(huStorage);
+			}
+			_hu2storage.put(mkHUKey(hu), huStorages);
+		}
+
+		//
+		// HU item storages of those HUs' items
+		final IHandlingUnitsDAO handlingUnitsDAO = Services.get(IHandlingUnitsDAO.class);
+		final Map<Integer, I_M_HU_Item> itemsToLoad = new LinkedHashMap<>();
+		for (final I_M_HU hu : husToLoad.values())
+		{
+			for (final I_M_HU_Item item : handlingUnitsDAO.retrieveItems(hu))
+			{
+				if (!_item2itemStorage.containsKey(mkHUItemKey(item)))
+				{
+					itemsToLoad.put(item.getM_HU_Item_ID(), item);
+				}
+			}
+		}
+		if (itemsToLoad.isEmpty())
+		{
+			return;
+		}
+
+		final ListMultimap<Integer, I_M_HU_Item_Storage> huItemStoragesByItemId = retrieveRecordsByParentId(
+				I_M_HU_Item_Storage.class,
+				I_M_HU_Item_Storage.COLUMNNAME_M_HU_Item_ID,
+				itemsToLoad.keySet(),
+				I_M_HU_Item_Storage::getM_HU_Item_ID);
+		for (final I_M_HU_Item item : itemsToLoad.values())
+		{
+			final Map<Object, I_M_HU_Item_Storage> huItemStorages = new HashMap<>();
+			for (final I_M_HU_Item_Storage huItemStorage : huItemStoragesByItemId.get(item.getM_HU_Item_ID()))
+			{
+				huItemStorage.setM_HU_Item(item); // Optimization: set parent link
+				huItemStorages.put(mkHUItemStorageKey(huItemStorage), huItemStorage);
+				setReadonly(huItemStorage);
+			}
+			_item2itemStorage.put(mkHUItemKey(item), huItemStorages);
+		}
+	}
+
+	private static <T> ListMultimap<Integer, T> retrieveRecordsByParentId(
+			final Class<T> modelClass,
+			final String parentIdColumnName,
+			final Collection<Integer> parentIds,
+			final ToIntFunction<T> parentIdGetter)
+	{
+		final IQueryBL queryBL = Services.get(IQueryBL.class);
+
+		final ListMultimap<Integer, T> recordsByParentId = MultimapBuilder.hashKeys().arrayListValues().build();
+		for (final List<Integer> parentIdsChunk : Iterables.partition(parentIds, 1000))
+		{
+			queryBL.createQueryBuilder(modelClass)
+					.addInArrayFilter(parentIdColumnName, parentIdsChunk)
+					.addOnlyActiveRecordsFilter()
+					.orderBy(InterfaceWrapperHelper.getKeyColumnName(modelClass)) // predictive order
+					.create()
+					.stream()
+					.forEach(record -> recordsByParentId.put(parentIdGetter.applyAsInt(record), record));
+		}
+		return recordsByParentId;
+	}
+
 	@Override
 	public void save(final I_M_HU_Storage huStorage)
 	{
@@ -274,37 +391,119 @@ public class SaveDecoupledHUStorageDAO extends AbstractHUStorageDAO
 	}
 
 	/**
-	 * Save all storages to database
+	 * Save all changed storages to database.
+	 * <p>
+	 * The storages are saved table by table, using JDBC batches (see {@link InterfaceWrapperHelper#saveAllBatched(Collection)}).
+	 * Storages which were just loaded and not changed are skipped.
 	 */
 	public final void flush()
 	{
 		final String trxName = Services.get(ITrxManager.class).getThreadInheritedTrxName();
+		final Stopwatch stopwatch = Stopwatch.createStarted();
 
 		//
-		// Save HU Storages
+		// Collect the HU Storages and HU Item Storages which need to be saved
+		final List<I_M_HU_Storage> huStoragesToSave = new ArrayList<>();
+		final List<I_M_HU_Item_Storage> huItemStoragesToSave = new ArrayList<>();
+		int countUnchanged = 0;
 		for (final Map<Object, I_M_HU_Storage> huStorages : _hu2storage.values())
 		{
 			for (final I_M_HU_Storage huStorage : huStorages.values())
 			{
-				saveToDatabase(huStorage, trxName);
+				if (isSaveRequired(huStorage))
+				{
+					huStoragesToSave.add(huStorage);
+				}
+				else
+				{
+					countUnchanged++;
+				}
 			}
 		}
-
-		//
-		// Save HU Item Storages
 		for (final Map<Object, I_M_HU_Item_Storage> huItemStorages : _item2itemStorage.values())
 		{
 			for (final I_M_HU_Item_Storage huItemStorage : huItemStorages.values())
 			{
-				saveToDatabase(huItemStorage, trxName);
+				if (isSaveRequired(huItemStorage))
+				{
+					huItemStoragesToSave.add(huItemStorage);
+				}
+				else
+				{
+					countUnchanged++;
+				}
 			}
 		}
+
+		//
+		// Save them, HU Storages first
+		saveToDatabase(huStoragesToSave, trxName);
+		saveToDatabase(huItemStoragesToSave, trxName);
+
+		countFlushes.increment();
+		countSavedHUStorages.add(huStoragesToSave.size());
+		countSavedHUItemStorages.add(huItemStoragesToSave.size());
+		countSkipped.add(countUnchanged);
+
+		logger.debug("Flushed {} HU storages and {} HU item storages, skipped {} unchanged ones in {} (trxName={})",
+				huStoragesToSave.size(), huItemStoragesToSave.size(), countUnchanged, stopwatch, trxName);
+	}
+
+	static long getFlushesCount()
+	{
+		return countFlushes.sum();
+	}
+
+	static long getSavedHUStoragesCount()
+	{
+		return countSavedHUStorages.sum();
+	}
+
+	static long getSavedHUItemStoragesCount()
+	{
+		return countSavedHUItemStorages.sum();
+	}
+
+	/**
+	 * @return how many cached storage records were not saved on flush because they had no changes
+	 */
+	static long getSkippedCount()
+	{
+		return countSkipped.sum();
+	}
+
+	private static boolean isSaveRequired(final Object model)
+	{
+		return InterfaceWrapperHelper.isNew(model) || InterfaceWrapperHelper.hasChanges(model);
 	}
 
-	private final void saveToDatabase(final Object model, final String trxName)
+	private static <T> void saveToDatabase(final List<T> models, final String trxName)
 	{
-		InterfaceWrapperHelper.setSaveDeleteDisabled(model, false);
-		InterfaceWrapperHelper.save(model, trxName);
+		if (models.isEmpty())
+		{
+			return;
+		}
+
+		// Save them ordered by ID, so that concurrent transactions are locking the existing rows in the same order
+		models.sort(Comparator.comparing(InterfaceWrapperHelper::getId));
+
+		final Map<T, String> trxNamesOld = new IdentityHashMap<>(models.size());
+		for (final T model : models)
+		{
+			trxNamesOld.put(model, InterfaceWrapperHelper.getTrxName(model));
+			InterfaceWrapperHelper.setSaveDeleteDisabled(model, false);
+			InterfaceWrapperHelper.setTrxName(model, trxName);
+		}
+
+		try
+		{
+			InterfaceWrapperHelper.saveAllBatched(models);
+		}
+		finally
+		{
+			// Restore the trxName
+			trxNamesOld.forEach(InterfaceWrapperHelper::setTrxName);
+		}
 		// InterfaceWrapperHelper.setSaveDeleteDisabled(model, true); // not sure if is necessary
 	}
 }
@@ -22,6 +22,7 @@ package de.metas.handlingunits.storage.impl;
  * #L%
  */
 
+import java.util.Collection;
 import java.util.List;
 
 import org.adempiere.ad.trx.api.ITrx;
@@ -110,6 +111,19 @@ public class SaveOnCommitHUStorageDAO implements IHUStorageDAO
 		delegate.initHUItemStorages(item);
 	}
 
+	@Override
+	public void preloadStorages(final Collection<I_M_HU> hus)
+	{
+		// preloading is just an optimization, so don't fail if we are not running in a transaction
+		if (hus.isEmpty() || trxManager.isNull(trxManager.getThreadInheritedTrxName()))
+		{
+			return;
+		}
+
+		final SaveDecoupledHUStorageDAO delegate = getDelegate(hus.iterator().next());
+		delegate.preloadStorages(hus);
+	}
+
 	@Override
 	public I_M_HU_Storage retrieveStorage(final I_M_HU hu, final ProductId productId)
 	{
@@ -0,0 +1,108 @@
+package de.metas.handlingunits.attribute.impl;
+
+import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
+import static org.adempiere.model.InterfaceWrapperHelper.save;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.model.I_M_Attribute;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.handlingunits.attribute.HUAndPIAttributes;
+import de.metas.handlingunits.model.I_M_HU;
+import de.metas.handlingunits.model.I_M_HU_Attribute;
+import de.metas.handlingunits.model.I_M_HU_PI_Attribute;
+
+/*
+ * #%L
+ * de.metas.handlingunits.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class SaveDecoupledHUAttributesDAOTest
+{
+	private SaveDecoupledHUAttributesDAO huAttributesDAO;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		huAttributesDAO = new SaveDecoupledHUAttributesDAO(HUAttributesDAO.instance);
+	}
+
+	private static I_M_HU_PI_Attribute createPIAttribute(final String attributeValue, final int seqNo)
+	{
+		final I_M_Attribute attribute = newInstance(I_M_Attribute.class);
+		attribute.setValue(attributeValue);
+		save(attribute);
+
+		final I_M_HU_PI_Attribute piAttribute = newInstance(I_M_HU_PI_Attribute.class);
+		piAttribute.setM_Attribute_ID(attribute.getM_Attribute_ID());
+		piAttribute.setSeqNo(seqNo);
+		save(piAttribute);
+		return piAttribute;
+	}
+
+	private static I_M_HU createHU(final I_M_HU_PI_Attribute... piAttributes)
+	{
+		final I_M_HU hu = newInstance(I_M_HU.class);
+		save(hu);
+
+		for (final I_M_HU_PI_Attribute piAttribute : piAttributes)
+		{
+			final I_M_HU_Attribute huAttribute = newInstance(I_M_HU_Attribute.class);
+			huAttribute.setM_HU_ID(hu.getM_HU_ID());
+			huAttribute.setM_HU_PI_Attribute_ID(piAttribute.getM_HU_PI_Attribute_ID());
+			huAttribute.setM_Attribute_ID(piAttribute.getM_Attribute_ID());
+			save(huAttribute);
+		}
+		return hu;
+	}
+
+	@Test
+	public void preloadAttributes()
+	{
+		final I_M_HU_PI_Attribute lotNo = createPIAttribute("Lot-Nummer", 20);
+		final I_M_HU_PI_Attribute bestBefore = createPIAttribute("HU_BestBeforeDate", 10);
+
+		final I_M_HU hu1 = createHU(lotNo, bestBefore);
+		final I_M_HU hu2 = createHU(lotNo, bestBefore);
+		final I_M_HU hu3 = createHU(lotNo);
+
+		huAttributesDAO.preloadAttributes(ImmutableList.of(hu1, hu2, hu3));
+
+		final HUAndPIAttributes hu1Attributes = huAttributesDAO.retrieveAttributesOrdered(hu1);
+		assertThat(hu1Attributes.getHuAttributes())
+				.extracting(I_M_HU_Attribute::getM_HU_PI_Attribute_ID)
+				.containsExactly(bestBefore.getM_HU_PI_Attribute_ID(), lotNo.getM_HU_PI_Attribute_ID());
+
+		final HUAndPIAttributes hu3Attributes = huAttributesDAO.retrieveAttributesOrdered(hu3);
+		assertThat(hu3Attributes.getHuAttributes())
+				.extracting(I_M_HU_Attribute::getM_HU_PI_Attribute_ID)
+				.containsExactly(lotNo.getM_HU_PI_Attribute_ID());
+
+		// HUs with the same PI attributes share them
+		assertThat(huAttributesDAO.retrieveAttributesOrdered(hu2).getPiAttributes()).isSameAs(hu1Attributes.getPiAttributes());
+		assertThat(hu3Attributes.getPiAttributes()).isNotSameAs(hu1Attributes.getPiAttributes());
+	}
+}
@@ -0,0 +1,119 @@
+package de.metas.handlingunits.impl;
+
+import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
+import static org.adempiere.model.InterfaceWrapperHelper.save;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.handlingunits.impl.HUHierarchyBatchLoader.HUHierarchies;
+import de.metas.handlingunits.model.I_M_HU;
+import de.metas.handlingunits.model.I_M_HU_Item;
+import de.metas.handlingunits.model.X_M_HU_Item;
+
+/*
+ * #%L
+ * de.metas.handlingunits.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class HUHierarchyBatchLoaderTest
+{
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+	}
+
+	private static I_M_HU createHU(final I_M_HU_Item parentItem)
+	{
+		final I_M_HU hu = newInstance(I_M_HU.class);
+		hu.setM_HU_Item_Parent(parentItem);
+		save(hu);
+		return hu;
+	}
+
+	private static I_M_HU_Item createItem(final I_M_HU hu, final String itemType)
+	{
+		final I_M_HU_Item item = newInstance(I_M_HU_Item.class);
+		item.setM_HU(hu);
+		item.setItemType(itemType);
+		save(item);
+		return item;
+	}
+
+	@Test
+	public void load_LU_TU_VHU()
+	{
+		final I_M_HU lu = createHU(null);
+		final I_M_HU_Item luPackingItem = createItem(lu, X_M_HU_Item.ITEMTYPE_PackingMaterial);
+		final I_M_HU_Item luHUItem = createItem(lu, X_M_HU_Item.ITEMTYPE_HandlingUnit);
+
+		final I_M_HU tu1 = createHU(luHUItem);
+		final I_M_HU_Item tu1MaterialItem = createItem(tu1, X_M_HU_Item.ITEMTYPE_Material);
+		final I_M_HU vhu1 = createHU(tu1MaterialItem);
+
+		final I_M_HU tu2 = createHU(luHUItem);
+		final I_M_HU_Item tu2InactiveItem = createItem(tu2, X_M_HU_Item.ITEMTYPE_Material);
+		tu2InactiveItem.setIsActive(false);
+		save(tu2InactiveItem);
+
+		final HUHierarchies hierarchies = new HUHierarchyBatchLoader().load(ImmutableList.of(lu));
+
+		assertThat(hierarchies.getHus())
+				.extracting(I_M_HU::getM_HU_ID)
+				.containsExactly(lu.getM_HU_ID(), tu1.getM_HU_ID(), tu2.getM_HU_ID(), vhu1.getM_HU_ID());
+
+		// items are sorted like HUItemsLocalCache does it
+		assertThat(hierarchies.getItems(lu.getM_HU_ID()))
+				.extracting(I_M_HU_Item::getM_HU_Item_ID)
+				.containsExactly(luHUItem.getM_HU_Item_ID(), luPackingItem.getM_HU_Item_ID());
+		assertThat(hierarchies.getItems(lu.getM_HU_ID()).get(0).getM_HU()).isSameAs(lu);
+
+		assertThat(hierarchies.getIncludedHUs(luHUItem.getM_HU_Item_ID()))
+				.extracting(I_M_HU::getM_HU_ID)
+				.containsExactly(tu1.getM_HU_ID(), tu2.getM_HU_ID());
+		assertThat(hierarchies.getIncludedHUs(tu1MaterialItem.getM_HU_Item_ID()))
+				.extracting(I_M_HU::getM_HU_ID)
+				.containsExactly(vhu1.getM_HU_ID());
+
+		// inactive items are not loaded
+		assertThat(hierarchies.getItems(tu2.getM_HU_ID())).isEmpty();
+		assertThat(hierarchies.getItems(vhu1.getM_HU_ID())).isEmpty();
+	}
+
+	@Test
+	public void load_includedHULinkedToLoadedParentItem()
+	{
+		final I_M_HU tu = createHU(null);
+		final I_M_HU_Item tuMaterialItem = createItem(tu, X_M_HU_Item.ITEMTYPE_Material);
+		final I_M_HU vhu = createHU(tuMaterialItem);
+
+		final HUHierarchies hierarchies = new HUHierarchyBatchLoader().load(ImmutableList.of(tu));
+
+		final I_M_HU_Item loadedItem = hierarchies.getItems(tu.getM_HU_ID()).get(0);
+		final I_M_HU loadedVHU = hierarchies.getIncludedHUs(loadedItem.getM_HU_Item_ID()).get(0);
+		assertThat(loadedVHU.getM_HU_ID()).isEqualTo(vhu.getM_HU_ID());
+		assertThat(loadedVHU.getM_HU_Item_Parent()).isSameAs(loadedItem);
+	}
+}
@@ -0,0 +1,90 @@
+package de.metas.handlingunits.storage.impl;
+
+import static org.adempiere.model.InterfaceWrapperHelper.load;
+import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
+import static org.adempiere.model.InterfaceWrapperHelper.save;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.metas.handlingunits.model.I_M_HU;
+import de.metas.handlingunits.model.I_M_HU_Storage;
+import de.metas.product.ProductId;
+
+/*
+ * #%L
+ * de.metas.handlingunits.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class SaveDecoupledHUStorageDAOTest
+{
+	private SaveDecoupledHUStorageDAO huStorageDAO;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		huStorageDAO = new SaveDecoupledHUStorageDAO();
+	}
+
+	private static I_M_HU_Storage createStorage(final I_M_HU hu, final int productRepoId, final String qty)
+	{
+		final I_M_HU_Storage storage = newInstance(I_M_HU_Storage.class);
+		storage.setM_HU_ID(hu.getM_HU_ID());
+		storage.setM_Product_ID(productRepoId);
+		storage.setQty(new BigDecimal(qty));
+		save(storage);
+		return storage;
+	}
+
+	@Test
+	public void flush_savesOnlyChangedStorages()
+	{
+		final I_M_HU hu = newInstance(I_M_HU.class);
+		save(hu);
+		final I_M_HU_Storage storage1 = createStorage(hu, 1, "10");
+		final I_M_HU_Storage storage2 = createStorage(hu, 2, "20");
+
+		final I_M_HU_Storage cachedStorage2 = huStorageDAO.retrieveStorage(hu, ProductId.ofRepoId(2));
+		cachedStorage2.setQty(new BigDecimal("25"));
+		huStorageDAO.save(cachedStorage2);
+
+		// not saved yet
+		assertThat(load(storage2.getM_HU_Storage_ID(), I_M_HU_Storage.class).getQty()).isEqualByComparingTo("20");
+
+		final long savedHUStoragesCountBefore = SaveDecoupledHUStorageDAO.getSavedHUStoragesCount();
+		final long savedHUItemStoragesCountBefore = SaveDecoupledHUStorageDAO.getSavedHUItemStoragesCount();
+		final long skippedCountBefore = SaveDecoupledHUStorageDAO.getSkippedCount();
+
+		huStorageDAO.flush();
+
+		assertThat(load(storage1.getM_HU_Storage_ID(), I_M_HU_Storage.class).getQty()).isEqualByComparingTo("10");
+		assertThat(load(storage2.getM_HU_Storage_ID(), I_M_HU_Storage.class).getQty()).isEqualByComparingTo("25");
+
+		assertThat(SaveDecoupledHUStorageDAO.getSavedHUStoragesCount() - savedHUStoragesCountBefore).isEqualTo(1);
+		assertThat(SaveDecoupledHUStorageDAO.getSavedHUItemStoragesCount() - savedHUItemStoragesCountBefore).isEqualTo(0);
+		assertThat(SaveDecoupledHUStorageDAO.getSkippedCount() - skippedCountBefore).isEqualTo(1);
+	}
+}
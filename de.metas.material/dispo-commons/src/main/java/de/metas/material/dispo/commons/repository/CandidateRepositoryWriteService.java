@@ -16,7 +16,12 @@ import java.util.Objects;
 import javax.annotation.Nullable;
 
 import org.adempiere.ad.dao.ICompositeQueryFilter;
+import org.adempiere.ad.dao.ICompositeQueryUpdater;
 import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.dao.impl.CompareQueryFilter.Operator;
+import org.adempiere.ad.dao.impl.ModelColumnNameValue;
+import org.adempiere.ad.trx.api.ITrx;
+import org.compiere.util.Env;
 import org.compiere.util.TimeUtil;
 import org.springframework.stereotype.Service;
 
@@ -24,6 +29,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 
 import de.metas.bpartner.BPartnerId;
+import de.metas.cache.CacheMgt;
+import de.metas.cache.model.CacheInvalidateMultiRequest;
 import de.metas.material.dispo.commons.candidate.Candidate;
 import de.metas.material.dispo.commons.candidate.CandidateId;
 import de.metas.material.dispo.commons.candidate.IdConstants;
@@ -33,9 +40,11 @@ import de.metas.material.dispo.commons.candidate.businesscase.DistributionDetail
 import de.metas.material.dispo.commons.candidate.businesscase.ProductionDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.PurchaseDetail;
 import de.metas.material.dispo.commons.repository.query.CandidatesQuery;
+import de.metas.material.dispo.commons.repository.query.MaterialDescriptorQuery;
 import de.metas.material.dispo.commons.repository.repohelpers.PurchaseDetailRepoHelper;
 import de.metas.material.dispo.commons.repository.repohelpers.RepositoryCommons;
 import de.metas.material.dispo.model.I_MD_Candidate;
+import de.metas.material.dispo.model.I_MD_Candidate_ATP_QueryResult;
 import de.metas.material.dispo.model.I_MD_Candidate_Demand_Detail;
 import de.metas.material.dispo.model.I_MD_Candidate_Dist_Detail;
 import de.metas.material.dispo.model.I_MD_Candidate_Prod_Detail;
@@ -46,6 +55,7 @@ import de.metas.material.event.commons.MaterialDescriptor;
 import de.metas.util.Check;
 import de.metas.util.Loggables;
 import de.metas.util.Services;
+import de.metas.util.time.SystemTime;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.Value;
@@ -114,6 +124,80 @@ public class CandidateRepositoryWriteService
 		return addOrUpdate(query, candidate, false);
 	}
 
+	/**
+	 * Adds the given {@code qtyDelta} to the quantity of all candidates matched by the given {@code query}, with one SQL UPDATE.
+	 * Unlike {@link #updateCandidateById(Candidate)}, the candidates are not loaded and their details are not touched.
+	 * <p>
+	 * Like {@link #updateCandidateById(Candidate)}, candidates which still have no {@code SeqNo} or {@code MD_Candidate_GroupId} get their own ID instead.
+	 *
+	 * @param groupId if > 0, it is also set to all the matched candidates
+	 * @return the number of updated candidates
+	 */
+	public int addToQtyAndSetGroupId(
+			@NonNull final CandidatesQuery query,
+			@NonNull final BigDecimal qtyDelta,
+			final int groupId)
+	{
+		final IQueryBL queryBL = Services.get(IQueryBL.class);
+
+		final ICompositeQueryUpdater<I_MD_Candidate> updater = queryBL
+				.createCompositeQueryUpdater(I_MD_Candidate.class)
+				.addAddValueToColumn(I_MD_Candidate.COLUMNNAME_Qty, qtyDelta)
+				.addSetColumnValue(I_MD_Candidate.COLUMNNAME_Updated, SystemTime.asTimestamp())
+				.addSetColumnValue(I_MD_Candidate.COLUMNNAME_UpdatedBy, Env.getAD_User_ID());
+		if (groupId > 0)
+		{
+			updater.addSetColumnValue(I_MD_Candidate.COLUMNNAME_MD_Candidate_GroupId, groupId);
+		}
+
+		final int updatedCount = RepositoryCommons
+				.mkQueryBuilder(query)
+				.create()
+				.updateDirectly(updater);
+
+		// same as setFallBackSeqNoAndGroupIdIfNeeded(), for the candidates which were not loaded
+		setFallBackToCandidateId(query, I_MD_Candidate.COLUMNNAME_SeqNo);
+		if (groupId <= 0)
+		{
+			setFallBackToCandidateId(query, I_MD_Candidate.COLUMNNAME_MD_Candidate_GroupId);
+		}
+
+		// the records were updated without being loaded, so the cached ATP needs to be invalidated explicitly (see AvailableToPromiseCache)
+		final MaterialDescriptorQuery materialDescriptorQuery = query.getMaterialDescriptorQuery();
+		final CacheInvalidateMultiRequest cacheInvalidateRequest = materialDescriptorQuery != null && materialDescriptorQuery.getProductId() > 0
+				? CacheInvalidateMultiRequest.rootRecord(I_MD_Candidate_ATP_QueryResult.Table_Name, materialDescriptorQuery.getProductId())
+				: CacheInvalidateMultiRequest.allRecordsForTable(I_MD_Candidate.Table_Name);
+		CacheMgt.get().resetLocalNowAndBroadcastOnTrxCommit(ITrx.TRXNAME_ThreadInherited, cacheInvalidateRequest);
+
+		Loggables.get().addLog(
+				"addToQtyAndSetGroupId - updated {} candidates; qtyDelta={}; groupId={}; query={}",
+				updatedCount, qtyDelta, groupId, query);
+		return updatedCount;
+	}
+
+	private static void setFallBackToCandidateId(
+			@NonNull final CandidatesQuery query,
+			@NonNull final String columnName)
+	{
+		final IQueryBL queryBL = Services.get(IQueryBL.class);
+
+		final ICompositeQueryFilter<I_MD_Candidate> notSetFilter = queryBL
+				.createCompositeQueryFilter(I_MD_Candidate.class)
+				.setJoinOr()
+				.addEqualsFilter(columnName, null)
+				.addCompareFilter(columnName, Operator.LESS_OR_EQUAL, 0);
+
+		final ICompositeQueryUpdater<I_MD_Candidate> updater = queryBL
+				.createCompositeQueryUpdater(I_MD_Candidate.class)
+				.addSetColumnFromColumn(columnName, ModelColumnNameValue.forColumnName(I_MD_Candidate.COLUMNNAME_MD_Candidate_ID));
+
+		RepositoryCommons
+				.mkQueryBuilder(query)
+				.filter(notSetFilter)
+				.create()
+				.updateDirectly(updater);
+	}
+
 	@Value
 	@Builder
 	public static class SaveResult
@@ -0,0 +1,420 @@
+package de.metas.material.dispo.commons.repository.atp;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.util.lang.impl.TableRecordReference;
+import org.compiere.util.TimeUtil;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.bpartner.BPartnerId;
+import de.metas.cache.CCache;
+import de.metas.cache.CCache.CacheMapType;
+import de.metas.cache.CacheMgt;
+import de.metas.cache.CachingKeysMapper;
+import de.metas.cache.model.CacheInvalidateRequest;
+import de.metas.cache.model.IModelCacheInvalidationService;
+import de.metas.cache.model.ModelCacheInvalidateRequestFactory;
+import de.metas.cache.model.ModelCacheInvalidationTiming;
+import de.metas.material.dispo.model.I_MD_Candidate;
+import de.metas.material.dispo.model.I_MD_Candidate_ATP_QueryResult;
+import de.metas.material.dispo.model.X_MD_Candidate;
+import de.metas.material.event.commons.AttributesKey;
+import de.metas.util.Services;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Keeps the active {@code STOCK} candidates of a product in memory, so that the ATP at any date can be looked up without querying
+ * {@code de_metas_material.retrieve_atp_at_date}.
+ * <p>
+ * The candidates are loaded per product, for all the products of an {@link AvailableToPromiseMultiQuery} at once.
+ * Whenever an {@code MD_Candidate} is saved or deleted, the product it belongs to is invalidated after the transaction was committed.
+ * That invalidation is also broadcasted to the other nodes, like any other cache invalidation.
+ * <p>
+ * Please keep the lookup in sync with {@link AvailableToPromiseSqlHelper} and with {@code retrieve_atp_at_date}.
+ */
+final class AvailableToPromiseCache
+{
+	/**
+	 * The cache is invalidated per product, using this table name and {@code M_Product_ID} as record ID.
+	 * There is no such DB table, we only use it as cache label.
+	 */
+	static final String CACHE_LABEL_TABLE_NAME = I_MD_Candidate_ATP_QueryResult.Table_Name;
+
+	private final CCache<Integer, ProductStock> productId2stock = CCache.<Integer, ProductStock> builder()
+			.cacheName(I_MD_Candidate_ATP_QueryResult.Table_Name + "#by#M_Product_ID")
+			.tableName(CACHE_LABEL_TABLE_NAME)
+			.additionalTableNameToResetFor(I_MD_Candidate.Table_Name)
+			.cacheMapType(CacheMapType.LRU)
+			.initialCapacity(10000)
+			.invalidationKeysMapper(new ProductIdKeysMapper())
+			.build();
+
+	public AvailableToPromiseCache()
+	{
+		// make sure that the saving or deleting of an MD_Candidate invalidates the cached stock of its product
+		Services.get(IModelCacheInvalidationService.class).register(I_MD_Candidate.Table_Name, MD_Candidate_CacheInvalidateRequestFactory.instance);
+		CacheMgt.get().enableRemoteCacheInvalidationForTableName(CACHE_LABEL_TABLE_NAME);
+	}
+
+	/**
+	 * @return the requests, like {@link AvailableToPromiseRepository} would create them from the records of a DB query that is the union of the given {@code multiQuery}'s queries.
+	 *         Note that the requests are not sorted.
+	 */
+	public Set<AddToResultGroupRequest> retrieve(@NonNull final AvailableToPromiseMultiQuery multiQuery)
+	{
+		final Set<Integer> productIds = multiQuery.getQueries()
+				.stream()
+				.flatMap(query -> query.getProductIds().stream())
+				.collect(ImmutableSet.toImmutableSet());
+
+		final Map<Integer, ProductStock> productId2stock = new HashMap<>();
+		for (final ProductStock productStock : this.productId2stock.getAllOrLoad(productIds, this::retrieveProductStocks))
+		{
+			productId2stock.put(productStock.getProductId(), productStock);
+		}
+
+		final Set<AddToResultGroupRequest> result = new LinkedHashSet<>();
+		for (final AvailableToPromiseQuery query : multiQuery.getQueries())
+		{
+			for (final int productId : query.getProductIds())
+			{
+				final ProductStock productStock = productId2stock.get(productId);
+				if (productStock != null)
+				{
+					productStock.collectMatching(query, result);
+				}
+			}
+		}
+		return result;
+	}
+
+	public void reset()
+	{
+		productId2stock.reset();
+	}
+
+	private Map<Integer, ProductStock> retrieveProductStocks(@NonNull final Collection<Integer> productIds)
+	{
+		final List<Map<String, Object>> rows = Services.get(IQueryBL.class)
+				.createQueryBuilderOutOfTrx(I_MD_Candidate.class)
+				.addOnlyActiveRecordsFilter()
+				.addEqualsFilter(I_MD_Candidate.COLUMN_MD_Candidate_Type, X_MD_Candidate.MD_CANDIDATE_TYPE_STOCK)
+				.addInArrayFilter(I_MD_Candidate.COLUMN_M_Product_ID, productIds)
+				.create()
+				.listColumns(
+						I_MD_Candidate.COLUMNNAME_M_Product_ID,
+						I_MD_Candidate.COLUMNNAME_M_Warehouse_ID,
+						I_MD_Candidate.COLUMNNAME_C_BPartner_Customer_ID,
+						I_MD_Candidate.COLUMNNAME_StorageAttributesKey,
+						I_MD_Candidate.COLUMNNAME_DateProjected,
+						I_MD_Candidate.COLUMNNAME_SeqNo,
+						I_MD_Candidate.COLUMNNAME_Qty);
+
+		final Map<Integer, ProductStock.Builder> builders = new HashMap<>();
+		for (final int productId : productIds)
+		{
+			// also products without stock candidates are cached
+			builders.put(productId, new ProductStock.Builder(productId));
+		}
+
+		for (final Map<String, Object> row : rows)
+		{
+			final StockPoint stockPoint = new StockPoint(
+					TimeUtil.asInstant(row.get(I_MD_Candidate.COLUMNNAME_DateProjected)),
+					toInt(row.get(I_MD_Candidate.COLUMNNAME_SeqNo)),
+					row.get(I_MD_Candidate.COLUMNNAME_Qty) != null ? (BigDecimal)row.get(I_MD_Candidate.COLUMNNAME_Qty) : BigDecimal.ZERO);
+
+			final StockKey stockKey = new StockKey(
+					toInt(row.get(I_MD_Candidate.COLUMNNAME_M_Warehouse_ID)),
+					toInt(row.get(I_MD_Candidate.COLUMNNAME_C_BPartner_Customer_ID)),
+					AttributesKey.ofString((String)row.get(I_MD_Candidate.COLUMNNAME_StorageAttributesKey)));
+
+			final int productId = toInt(row.get(I_MD_Candidate.COLUMNNAME_M_Product_ID));
+			builders.get(productId).add(stockKey, stockPoint);
+		}
+
+		final ImmutableMap.Builder<Integer, ProductStock> result = ImmutableMap.builder();
+		builders.forEach((productId, builder) -> result.put(productId, builder.build()));
+		return result.build();
+	}
+
+	private static int toInt(@Nullable final Object value)
+	{
+		return value != null ? ((Number)value).intValue() : 0;
+	}
+
+	private static final class ProductIdKeysMapper implements CachingKeysMapper<Integer>
+	{
+		@Override
+		public Collection<Integer> computeCachingKeys(@NonNull final TableRecordReference recordRef)
+		{
+			if (CACHE_LABEL_TABLE_NAME.equals(recordRef.getTableName()))
+			{
+				return ImmutableList.of(recordRef.getRecord_ID());
+			}
+
+			// an MD_Candidate record: its product was invalidated via the request's root record
+			return ImmutableList.of();
+		}
+	}
+
+	/**
+	 * Creates requests with the {@code MD_Candidate} as child record, so that caches with {@code MD_Candidate} records are invalidated as before,
+	 * and {@link #CACHE_LABEL_TABLE_NAME}/{@code M_Product_ID} as root record.
+	 */
+	private static final class MD_Candidate_CacheInvalidateRequestFactory implements ModelCacheInvalidateRequestFactory
+	{
+		private static final MD_Candidate_CacheInvalidateRequestFactory instance = new MD_Candidate_CacheInvalidateRequestFactory();
+
+		@Override
+		public CacheInvalidateRequest createRequestFromModel(final Object model, final ModelCacheInvalidationTiming timing)
+		{
+			final int candidateId = InterfaceWrapperHelper.getId(model);
+			if (candidateId < 0)
+			{
+				return null;
+			}
+
+			final I_MD_Candidate candidateRecord = InterfaceWrapperHelper.create(model, I_MD_Candidate.class);
+			final int productId = candidateRecord.getM_Product_ID();
+			if (productId <= 0)
+			{
+				return CacheInvalidateRequest.rootRecord(I_MD_Candidate.Table_Name, candidateId);
+			}
+
+			return CacheInvalidateRequest.builder()
+					.rootRecord(CACHE_LABEL_TABLE_NAME, productId)
+					.childRecord(I_MD_Candidate.Table_Name, candidateId)
+					.build();
+		}
+	}
+
+	@Value
+	private static class StockKey
+	{
+		int warehouseId;
+
+		/** {@code 0} means that the stock is available to any customer */
+		int customerId;
+
+		@NonNull
+		AttributesKey storageAttributesKey;
+	}
+
+	@Value
+	private static class StockPoint
+	{
+		@NonNull
+		Instant date;
+
+		int seqNo;
+
+		@NonNull
+		BigDecimal qty;
+	}
+
+	private static final Comparator<StockPoint> STOCK_POINT_ORDER = Comparator
+			.comparing(StockPoint::getDate)
+			.thenComparing(StockPoint::getSeqNo);
+
+	/**
+	 * The stock candidates of one product, grouped by {@link StockKey} and sorted by date and seqNo.
+	 */
+	private static final class ProductStock
+	{
+		private final int productId;
+		private final ImmutableMap<StockKey, ImmutableList<StockPoint>> timelines;
+
+		private ProductStock(final int productId, @NonNull final ImmutableMap<StockKey, ImmutableList<StockPoint>> timelines)
+		{
+			this.productId = productId;
+			this.timelines = timelines;
+		}
+
+		public int getProductId()
+		{
+			return productId;
+		}
+
+		public void collectMatching(
+				@NonNull final AvailableToPromiseQuery query,
+				@NonNull final Set<AddToResultGroupRequest> result)
+		{
+			final Instant date = query.getDate().toInstant();
+
+			for (final Map.Entry<StockKey, ImmutableList<StockPoint>> entry : timelines.entrySet())
+			{
+				final StockKey stockKey = entry.getKey();
+				if (!isMatching(query, stockKey))
+				{
+					continue;
+				}
+
+				final StockPoint stockPoint = getLatestAtOrBefore(entry.getValue(), date);
+				if (stockPoint == null)
+				{
+					continue;
+				}
+
+				final BPartnerId customerId = BPartnerId.ofRepoIdOrNull(stockKey.getCustomerId());
+				result.add(AddToResultGroupRequest.builder()
+						.productId(productId)
+						.bpartner(BPartnerClassifier.specificOrAny(customerId)) // records that have no bPartner-ID are applicable to any bpartner
+						.warehouseId(stockKey.getWarehouseId())
+						.storageAttributesKey(stockKey.getStorageAttributesKey())
+						.qty(stockPoint.getQty())
+						.date(stockPoint.getDate())
+						.seqNo(stockPoint.getSeqNo())
+						.build());
+			}
+		}
+
+		/**
+		 * @return the stock point with the latest date (and biggest seqNo) which is not after the given {@code date}, or {@code null}
+		 */
+		@Nullable
+		private static StockPoint getLatestAtOrBefore(@NonNull final ImmutableList<StockPoint> timeline, @NonNull final Instant date)
+		{
+			int low = 0;
+			int high = timeline.size() - 1;
+			int result = -1;
+			while (low <= high)
+			{
+				final int mid = (low + high) >>> 1;
+				if (timeline.get(mid).getDate().isAfter(date))
+				{
+					high = mid - 1;
+				}
+				else
+				{
+					result = mid;
+					low = mid + 1;
+				}
+			}
+			return result >= 0 ? timeline.get(result) : null;
+		}
+
+		private static boolean isMatching(@NonNull final AvailableToPromiseQuery query, @NonNull final StockKey stockKey)
+		{
+			final Set<Integer> warehouseIds = query.getWarehouseIds();
+			if (!warehouseIds.isEmpty() && !warehouseIds.contains(stockKey.getWarehouseId()))
+			{
+				return false;
+			}
+
+			final BPartnerClassifier bpartner = query.getBpartner();
+			if (bpartner.isNone() && stockKey.getCustomerId() > 0)
+			{
+				return false;
+			}
+			if (bpartner.isSpecificBPartner()
+					&& stockKey.getCustomerId() > 0
+					&& stockKey.getCustomerId() != bpartner.getBpartnerId().getRepoId())
+			{
+				return false;
+			}
+
+			return isMatchingStorageAttributesKeys(query.getStorageAttributesKeys(), stockKey.getStorageAttributesKey());
+		}
+
+		/** Note: this is the in-memory counterpart to {@link de.metas.material.commons.AttributesKeyQueryHelper}. */
+		private static boolean isMatchingStorageAttributesKeys(
+				@NonNull final List<AttributesKey> queryKeys,
+				@NonNull final AttributesKey storageAttributesKey)
+		{
+			if (queryKeys.isEmpty())
+			{
+				return true;
+			}
+
+			for (final AttributesKey queryKey : queryKeys)
+			{
+				if (queryKey.isAll())
+				{
+					return true;
+				}
+				else if (queryKey.isOther())
+				{
+					final boolean matchesNoOtherKey = queryKeys
+							.stream()
+							.filter(otherKey -> !otherKey.isOther())
+							.noneMatch(storageAttributesKey::contains);
+					if (matchesNoOtherKey)
+					{
+						return true;
+					}
+				}
+				else if (storageAttributesKey.contains(queryKey))
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static final class Builder
+		{
+			private final int productId;
+			private final Map<StockKey, List<StockPoint>> timelines = new HashMap<>();
+
+			private Builder(final int productId)
+			{
+				this.productId = productId;
+			}
+
+			public void add(@NonNull final StockKey stockKey, @NonNull final StockPoint stockPoint)
+			{
+				timelines.computeIfAbsent(stockKey, k -> new ArrayList<>()).add(stockPoint);
+			}
+
+			public ProductStock build()
+			{
+				final ImmutableMap.Builder<StockKey, ImmutableList<StockPoint>> sortedTimelines = ImmutableMap.builder();
+				timelines.forEach((stockKey, stockPoints) -> {
+					stockPoints.sort(STOCK_POINT_ORDER);
+					sortedTimelines.put(stockKey, ImmutableList.copyOf(stockPoints));
+				});
+				return new ProductStock(productId, sortedTimelines.build());
+			}
+		}
+	}
+}
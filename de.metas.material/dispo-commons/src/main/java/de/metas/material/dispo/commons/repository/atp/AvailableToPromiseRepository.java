@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
 
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
 import org.adempiere.service.ISysConfigBL;
 import org.compiere.model.IQuery;
 import org.compiere.util.Env;
@@ -52,6 +54,11 @@ public class AvailableToPromiseRepository
 {
 	private static final String SYSCONFIG_ATP_ATTRIBUTES_KEYS = "de.metas.ui.web.window.descriptor.sql.ProductLookupDescriptor.ATP.AttributesKeys";
 
+	/** If enabled, ATP lookups which are done outside of a transaction are served from {@link AvailableToPromiseCache}. */
+	private static final String SYSCONFIG_USE_CACHE = "de.metas.material.dispo.commons.repository.atp.AvailableToPromiseRepository.UseCache";
+
+	private final AvailableToPromiseCache cache = new AvailableToPromiseCache();
+
 	@NonNull
 	public BigDecimal retrieveAvailableStockQtySum(@NonNull final AvailableToPromiseMultiQuery multiQuery)
 	{
@@ -73,6 +80,20 @@ public class AvailableToPromiseRepository
 				? AvailableToPromiseResult.createEmptyWithPredefinedBuckets(multiQuery)
 				: AvailableToPromiseResult.createEmpty();
 
+		if (isUseCache())
+		{
+			final ImmutableList<AddToResultGroupRequest> requests = cache.retrieve(multiQuery)
+					.stream()
+					.sorted(Comparator
+							.comparing(AvailableToPromiseRepository::hasSpecificBPartner)
+							.thenComparing(AddToResultGroupRequest::getDate)
+							.thenComparing(AddToResultGroupRequest::getSeqNo)
+							.reversed())
+					.collect(ImmutableList.toImmutableList());
+			addToResult(result, requests, multiQuery.isAddToPredefinedBuckets());
+			return result;
+		}
+
 		final IQuery<I_MD_Candidate_ATP_QueryResult> dbQuery = createDBQueryForMaterialQueryOrNull(multiQuery);
 		if (dbQuery == null)
 		{
@@ -99,9 +120,18 @@ public class AvailableToPromiseRepository
 				.map(AvailableToPromiseRepository::createAddToResultGroupRequest)
 				.collect(ImmutableList.toImmutableList());
 
+		addToResult(result, requests, multiQuery.isAddToPredefinedBuckets());
+		return result;
+	}
+
+	private static void addToResult(
+			@NonNull final AvailableToPromiseResult result,
+			@NonNull final List<AddToResultGroupRequest> requests,
+			final boolean addToPredefinedBuckets)
+	{
 		for (final AddToResultGroupRequest request : requests)
 		{
-			if (multiQuery.isAddToPredefinedBuckets())
+			if (addToPredefinedBuckets)
 			{
 				result.addQtyToAllMatchingGroups(request);
 			}
@@ -110,7 +140,26 @@ public class AvailableToPromiseRepository
 				result.addToNewGroupIfFeasible(request);
 			}
 		}
-		return result;
+	}
+
+	private static boolean hasSpecificBPartner(@NonNull final AddToResultGroupRequest request)
+	{
+		return request.getBpartner().isSpecificBPartner();
+	}
+
+	/**
+	 * Within a transaction, the cache is not used, because there we might need to see stock candidates which were not yet committed.
+	 */
+	private boolean isUseCache()
+	{
+		final boolean useCache = Services.get(ISysConfigBL.class).getBooleanValue(SYSCONFIG_USE_CACHE, false);
+		if (!useCache)
+		{
+			return false;
+		}
+
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		return !trxManager.isActive(trxManager.getThreadInheritedTrx(OnTrxMissingPolicy.ReturnTrxNone));
 	}
 
 	public AvailableToPromiseResult retrieveAvailableStock(@NonNull AvailableToPromiseQuery query)
@@ -25,6 +25,7 @@ import java.util.List;
 import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.test.AdempiereTestHelper;
 import org.adempiere.test.AdempiereTestWatcher;
+import org.compiere.util.Env;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -33,6 +34,7 @@ import de.metas.material.dispo.commons.DispoTestUtils;
 import de.metas.material.dispo.commons.RepositoryTestHelper;
 import de.metas.material.dispo.commons.candidate.Candidate;
 import de.metas.material.dispo.commons.candidate.CandidateBusinessCase;
+import de.metas.material.dispo.commons.candidate.CandidateId;
 import de.metas.material.dispo.commons.candidate.CandidateType;
 import de.metas.material.dispo.commons.candidate.TransactionDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.DemandDetail;
@@ -428,4 +430,57 @@ public class CandidateRepositoryWriteServiceTests
 		assertThat(transactionDetailRecord.getMovementQty()).isEqualByComparingTo("1");
 		assertThat(transactionDetailRecord.getM_Transaction_ID()).isEqualTo(33);
 	}
+
+	/**
+	 * Verifies that {@link CandidateRepositoryWriteService#addToQtyAndSetGroupId(CandidatesQuery, BigDecimal, int)} updates only the matched later stock candidates,
+	 * and that candidates without a seqNo or groupId get their own ID instead, like they would with {@link CandidateRepositoryWriteService#updateCandidateById(Candidate)}.
+	 */
+	@Test
+	public void addToQtyAndSetGroupId_updates_later_stock_candidates()
+	{
+		Env.setContext(Env.getCtx(), Env.CTXNAME_AD_User_ID, 100);
+
+		final Candidate evenLaterStockCandidate = candidateRepositoryWriteService
+				.addOrUpdateOverwriteStoredSeqNo(repositoryTestHelper.laterStockCandidate
+						.withId(CandidateId.NULL)
+						.withDate(AFTER_NOW.plus(1, ChronoUnit.MINUTES)))
+				.getCandidate();
+		final I_MD_Candidate evenLaterStockRecord = load(evenLaterStockCandidate.getId().getRepoId(), I_MD_Candidate.class);
+		evenLaterStockRecord.setSeqNo(0);
+		evenLaterStockRecord.setMD_Candidate_GroupId(0);
+		save(evenLaterStockRecord);
+
+		final CandidatesQuery laterStockQuery = repositoryTestHelper.mkQueryForStockFromDate(AFTER_NOW);
+
+		// no groupId => the groupIds which are already set shall be kept
+		final int updatedCount = candidateRepositoryWriteService.addToQtyAndSetGroupId(laterStockQuery, new BigDecimal("3"), -1);
+		assertThat(updatedCount).isEqualTo(2);
+
+		final I_MD_Candidate stockRecord = load(repositoryTestHelper.stockCandidate.getId().getRepoId(), I_MD_Candidate.class);
+		assertThat(stockRecord.getQty()).isEqualByComparingTo("11"); // not matched
+
+		final I_MD_Candidate laterStockRecord = load(repositoryTestHelper.laterStockCandidate.getId().getRepoId(), I_MD_Candidate.class);
+		assertThat(laterStockRecord.getQty()).isEqualByComparingTo("13");
+		assertThat(laterStockRecord.getMD_Candidate_GroupId()).isEqualTo(repositoryTestHelper.laterStockCandidate.getGroupId());
+		assertThat(laterStockRecord.getUpdatedBy()).isEqualTo(100);
+
+		final I_MD_Candidate evenLaterStockRecordAfterChange = load(evenLaterStockRecord.getMD_Candidate_ID(), I_MD_Candidate.class);
+		assertThat(evenLaterStockRecordAfterChange.getQty()).isEqualByComparingTo("13");
+		assertThat(evenLaterStockRecordAfterChange.getSeqNo()).isEqualTo(evenLaterStockRecord.getMD_Candidate_ID());
+		assertThat(evenLaterStockRecordAfterChange.getMD_Candidate_GroupId()).isEqualTo(evenLaterStockRecord.getMD_Candidate_ID());
+		assertThat(evenLaterStockRecordAfterChange.getUpdatedBy()).isEqualTo(100);
+
+		// with groupId => it shall be set to all matched candidates
+		candidateRepositoryWriteService.addToQtyAndSetGroupId(laterStockQuery, new BigDecimal("-5"), 77);
+
+		assertThat(DispoTestUtils.filter(CandidateType.STOCK))
+				.filteredOn(record -> record.getMD_Candidate_ID() != stockRecord.getMD_Candidate_ID())
+				.hasSize(2)
+				.allSatisfy(record -> {
+					assertThat(record.getQty()).isEqualByComparingTo("8");
+					assertThat(record.getMD_Candidate_GroupId()).isEqualTo(77);
+				});
+		assertThat(load(stockRecord.getMD_Candidate_ID(), I_MD_Candidate.class).getMD_Candidate_GroupId())
+				.isEqualTo(repositoryTestHelper.stockCandidate.getGroupId());
+	}
 }
@@ -0,0 +1,171 @@
+package de.metas.material.dispo.commons.repository.atp;
+
+import static de.metas.material.event.EventTestHelper.AFTER_NOW;
+import static de.metas.material.event.EventTestHelper.BEFORE_BEFORE_NOW;
+import static de.metas.material.event.EventTestHelper.BEFORE_NOW;
+import static de.metas.material.event.EventTestHelper.NOW;
+import static de.metas.material.event.EventTestHelper.PRODUCT_ID;
+import static de.metas.material.event.EventTestHelper.WAREHOUSE_ID;
+import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
+import static org.adempiere.model.InterfaceWrapperHelper.save;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.adempiere.test.AdempiereTestWatcher;
+import org.compiere.util.TimeUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import de.metas.bpartner.BPartnerId;
+import de.metas.material.dispo.model.I_MD_Candidate;
+import de.metas.material.dispo.model.X_MD_Candidate;
+import de.metas.material.event.commons.AttributesKey;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class AvailableToPromiseCacheTest
+{
+	private static final BPartnerId BPARTNER_ID = BPartnerId.ofRepoId(10);
+	private static final AttributesKey STORAGE_ATTRIBUTES_KEY = AttributesKey.ofAttributeValueIds(1, 2);
+
+	@Rule
+	public AdempiereTestWatcher adempiereTestWatcher = new AdempiereTestWatcher();
+
+	private AvailableToPromiseCache cache;
+
+	private int seqNoCounter = 1;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		cache = new AvailableToPromiseCache();
+	}
+
+	@Test
+	public void retrieve_latestStockNotAfterDate()
+	{
+		createStockRecord(null, AttributesKey.NONE, BEFORE_BEFORE_NOW, "10");
+		createStockRecord(null, AttributesKey.NONE, BEFORE_NOW, "20");
+		createStockRecord(null, AttributesKey.NONE, BEFORE_NOW, "25"); // same date, but bigger seqNo
+		createStockRecord(null, AttributesKey.NONE, AFTER_NOW, "30");
+
+		final Set<AddToResultGroupRequest> result = cache.retrieve(AvailableToPromiseMultiQuery.of(createQuery(NOW).build()));
+
+		assertThat(result).hasSize(1);
+		final AddToResultGroupRequest request = result.iterator().next();
+		assertThat(request.getQty()).isEqualByComparingTo("25");
+		assertThat(request.getDate()).isEqualTo(BEFORE_NOW);
+		assertThat(request.getBpartner().isAny()).isTrue();
+
+		assertThat(cache.retrieve(AvailableToPromiseMultiQuery.of(createQuery(BEFORE_BEFORE_NOW.minusSeconds(1)).build()))).isEmpty();
+	}
+
+	@Test
+	public void retrieve_bpartner()
+	{
+		createStockRecord(null, AttributesKey.NONE, BEFORE_NOW, "10");
+		createStockRecord(BPARTNER_ID, AttributesKey.NONE, BEFORE_NOW, "20");
+		createStockRecord(BPartnerId.ofRepoId(20), AttributesKey.NONE, BEFORE_NOW, "30");
+
+		assertThat(retrieveQtys(createQuery(NOW).bpartner(BPartnerClassifier.none()))).containsOnly(new BigDecimal("10"));
+		assertThat(retrieveQtys(createQuery(NOW).bpartner(BPartnerClassifier.specific(BPARTNER_ID)))).containsOnly(new BigDecimal("10"), new BigDecimal("20"));
+		assertThat(retrieveQtys(createQuery(NOW).bpartner(BPartnerClassifier.any()))).hasSize(3);
+	}
+
+	@Test
+	public void retrieve_storageAttributesKeys()
+	{
+		createStockRecord(null, STORAGE_ATTRIBUTES_KEY, BEFORE_NOW, "10");
+		createStockRecord(null, AttributesKey.ofAttributeValueIds(3), BEFORE_NOW, "20");
+
+		assertThat(retrieveQtys(createQuery(NOW).storageAttributesKey(AttributesKey.ofAttributeValueIds(1)))).containsOnly(new BigDecimal("10"));
+		assertThat(retrieveQtys(createQuery(NOW).storageAttributesKey(AttributesKey.ALL))).hasSize(2);
+		assertThat(retrieveQtys(createQuery(NOW)
+				.storageAttributesKey(STORAGE_ATTRIBUTES_KEY)
+				.storageAttributesKey(AttributesKey.OTHER)))
+						.containsOnly(new BigDecimal("10"), new BigDecimal("20"));
+		assertThat(retrieveQtys(createQuery(NOW)
+				.storageAttributesKey(AttributesKey.ofAttributeValueIds(4))
+				.storageAttributesKey(AttributesKey.OTHER)))
+						.containsOnly(new BigDecimal("10"), new BigDecimal("20"));
+		assertThat(retrieveQtys(createQuery(NOW)
+				.storageAttributesKey(AttributesKey.ofAttributeValueIds(2))
+				.storageAttributesKey(AttributesKey.OTHER)))
+						.containsOnly(new BigDecimal("10"), new BigDecimal("20"));
+	}
+
+	@Test
+	public void retrieve_afterReset()
+	{
+		createStockRecord(null, AttributesKey.NONE, BEFORE_BEFORE_NOW, "10");
+		assertThat(retrieveQtys(createQuery(NOW))).containsOnly(new BigDecimal("10"));
+
+		createStockRecord(null, AttributesKey.NONE, BEFORE_NOW, "20");
+		cache.reset();
+
+		assertThat(retrieveQtys(createQuery(NOW))).containsOnly(new BigDecimal("20"));
+	}
+
+	private AvailableToPromiseQuery.AvailableToPromiseQueryBuilder createQuery(final Instant date)
+	{
+		return AvailableToPromiseQuery.builder()
+				.productId(PRODUCT_ID)
+				.date(TimeUtil.asZonedDateTime(date))
+				.bpartner(BPartnerClassifier.any());
+	}
+
+	private Set<BigDecimal> retrieveQtys(final AvailableToPromiseQuery.AvailableToPromiseQueryBuilder queryBuilder)
+	{
+		return cache.retrieve(AvailableToPromiseMultiQuery.of(queryBuilder.build()))
+				.stream()
+				.map(AddToResultGroupRequest::getQty)
+				.collect(Collectors.toSet());
+	}
+
+	private void createStockRecord(
+			final BPartnerId customerId,
+			final AttributesKey storageAttributesKey,
+			final Instant dateProjected,
+			final String qty)
+	{
+		final I_MD_Candidate candidateRecord = newInstance(I_MD_Candidate.class);
+		candidateRecord.setM_Product_ID(PRODUCT_ID);
+		candidateRecord.setM_Warehouse_ID(WAREHOUSE_ID);
+		candidateRecord.setC_BPartner_Customer_ID(BPartnerId.toRepoId(customerId));
+		candidateRecord.setStorageAttributesKey(storageAttributesKey.getAsString());
+		candidateRecord.setDateProjected(TimeUtil.asTimestamp(dateProjected));
+		candidateRecord.setSeqNo(seqNoCounter++);
+		candidateRecord.setQty(new BigDecimal(qty));
+		candidateRecord.setIsActive(true);
+		candidateRecord.setMD_Candidate_Type(X_MD_Candidate.MD_CANDIDATE_TYPE_STOCK);
+		save(candidateRecord);
+	}
+}
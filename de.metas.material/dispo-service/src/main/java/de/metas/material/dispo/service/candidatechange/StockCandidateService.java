@@ -5,7 +5,6 @@ import static org.adempiere.model.InterfaceWrapperHelper.save;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.util.List;
 
 import org.compiere.util.TimeUtil;
 import org.springframework.stereotype.Service;
@@ -160,9 +159,10 @@ public class StockCandidateService
 	}
 
 	/**
-	 * Selects all stock candidates which have the same product and locator but a later timestamp than the one from the given {@code materialDescriptor}.
-	 * Iterate them and add the given {@code delta} to their quantity.
+	 * Updates all stock candidates which have the same product and locator but a later timestamp than the one from the given {@code materialDescriptor},
+	 * by adding the given {@code delta} to their quantity.
 	 * <p>
+	 * The candidates are updated with one SQL UPDATE per time range, so the cost of a change does not grow with the number of loaded and saved later stock candidates.
 	 *
 	 * @param materialDescriptor the product to match against
 	 * @param groupId the groupId to set to every stock record that we matched
@@ -194,15 +194,9 @@ public class StockCandidateService
 			deltaAfterRangeEnd = null;
 		}
 
-		final List<Candidate> candidatesToUpdateWithinRange = candidateRepositoryRetrieval.retrieveOrderedByDateAndSeqNo(query);
-		for (final Candidate candidate : candidatesToUpdateWithinRange)
-		{
-			final BigDecimal newQty = candidate.getQuantity().add(deltaUntilRangeEnd);
+		final int groupId = stockWithDelta.getCandidate().getGroupId();
 
-			candidateRepositoryWriteService.updateCandidateById(candidate
-					.withQuantity(newQty)
-					.withGroupId(stockWithDelta.getCandidate().getGroupId()));
-		}
+		candidateRepositoryWriteService.addToQtyAndSetGroupId(query, deltaUntilRangeEnd, groupId);
 		if (deltaAfterRangeEnd == null || deltaAfterRangeEnd.signum() == 0)
 		{
 			return; // we are done
@@ -214,15 +208,7 @@ public class StockCandidateService
 				.timeRangeEnd(null)
 				.build();
 		final CandidatesQuery queryAfterRange = query.withMaterialDescriptorQuery(materialDescriptToQueryAfterRange);
-		final List<Candidate> candidatesToUpdateAfterRange = candidateRepositoryRetrieval.retrieveOrderedByDateAndSeqNo(queryAfterRange);
-		for (final Candidate candidate : candidatesToUpdateAfterRange)
-		{
-			final BigDecimal newQty = candidate.getQuantity().add(deltaAfterRangeEnd);
-
-			candidateRepositoryWriteService.updateCandidateById(candidate
-					.withQuantity(newQty)
-					.withGroupId(stockWithDelta.getCandidate().getGroupId()));
-		}
+		candidateRepositoryWriteService.addToQtyAndSetGroupId(queryAfterRange, deltaAfterRangeEnd, groupId);
 	}
 
 	private CandidatesQuery createStockQueryUntilDate(
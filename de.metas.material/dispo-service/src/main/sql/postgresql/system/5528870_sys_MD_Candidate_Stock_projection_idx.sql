@@ -0,0 +1,9 @@
+-- supports both looking up the latest stock candidate before a given date+seqNo (StockCandidateService.createStockCandidate)
+-- and the set-based updating of all later stock candidates (StockCandidateService.applyDeltaToMatchingLaterStockCandidates)
+CREATE INDEX IF NOT EXISTS md_candidate_stock_projection_perf
+  ON public.md_candidate
+  USING btree
+  (M_Product_ID, M_Warehouse_ID, StorageAttributesKey, DateProjected, SeqNo)
+  WHERE IsActive = 'Y' AND MD_Candidate_Type = 'STOCK';
+COMMENT ON INDEX public.md_candidate_stock_projection_perf
+  IS 'Supports finding the projected stock of a product/warehouse/attributes at a given date and updating the stock candidates after a given date';
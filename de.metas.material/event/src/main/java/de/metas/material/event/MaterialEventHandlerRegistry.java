@@ -1,7 +1,13 @@
 package de.metas.material.event;
 
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.springframework.stereotype.Service;
@@ -46,6 +52,9 @@ public class MaterialEventHandlerRegistry
 	private final ImmutableMultimap<Class, MaterialEventHandler> eventType2Handler;
 	private final EventLogUserService eventLogUserService;
 
+	/** Execution times by handler class name */
+	private final Map<String, HandlerTimings> handlerTimings = new ConcurrentHashMap<>();
+
 	public MaterialEventHandlerRegistry(
 			@NonNull final Optional<Collection<MaterialEventHandler>> handlers,
 			@NonNull final EventLogUserService eventLogUserService)
@@ -81,7 +90,63 @@ public class MaterialEventHandlerRegistry
 					.invokaction(() -> handler.handleEvent(event))
 					.build();
 
-			eventLogUserService.invokeHandlerAndLog(request);
+			final long startNanos = System.nanoTime();
+			try
+			{
+				eventLogUserService.invokeHandlerAndLog(request);
+			}
+			finally
+			{
+				handlerTimings
+						.computeIfAbsent(handler.getClass().getName(), k -> new HandlerTimings())
+						.record(System.nanoTime() - startNanos);
+			}
 		});
 	}
+
+	/**
+	 * @return for each handler: how often it was invoked and how long it took, ordered by the total time (descending)
+	 */
+	public String[] getHandlerTimingsInfo()
+	{
+		return handlerTimings.entrySet()
+				.stream()
+				.sorted(Comparator.<Map.Entry<String, HandlerTimings>> comparingLong(e -> e.getValue().getTotalNanos()).reversed())
+				.map(e -> e.getKey() + ": " + e.getValue())
+				.toArray(String[]::new);
+	}
+
+	public void resetHandlerTimings()
+	{
+		handlerTimings.clear();
+	}
+
+	private static final class HandlerTimings
+	{
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		public void record(final long durationNanos)
+		{
+			count.increment();
+			totalNanos.add(durationNanos);
+			maxNanos.accumulateAndGet(durationNanos, Math::max);
+		}
+
+		public long getTotalNanos()
+		{
+			return totalNanos.sum();
+		}
+
+		@Override
+		public String toString()
+		{
+			final long count = this.count.sum();
+			return "count=" + count
+					+ ", totalMillis=" + TimeUnit.NANOSECONDS.toMillis(totalNanos.sum())
+					+ ", avgMillis=" + (count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalNanos.sum() / count) : 0)
+					+ ", maxMillis=" + TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+		}
+	}
 }
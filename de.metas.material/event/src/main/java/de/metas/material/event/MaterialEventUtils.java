@@ -2,6 +2,16 @@ package de.metas.material.event;
 
 import com.google.common.base.Preconditions;
 
+import de.metas.material.event.procurement.AbstractPurchaseOfferEvent;
+import de.metas.material.event.purchase.PurchaseCandidateAdvisedEvent;
+import de.metas.material.event.purchase.PurchaseCandidateEvent;
+import de.metas.material.event.purchase.PurchaseCandidateRequestedEvent;
+import de.metas.material.event.receiptschedule.AbstractReceiptScheduleEvent;
+import de.metas.material.event.shipmentschedule.AbstractShipmentScheduleEvent;
+import de.metas.material.event.stock.StockChangedEvent;
+import de.metas.material.event.stockestimate.AbstractStockEstimateEvent;
+import de.metas.material.event.supplyrequired.SupplyRequiredEvent;
+import de.metas.material.event.transactions.AbstractTransactionEvent;
 import lombok.NonNull;
 
 /*
@@ -37,4 +47,52 @@ public final class MaterialEventUtils
 		Preconditions.checkArgument(id > 0, "The Given parameter %s=%s needs to be > 0", string, id);
 		return id;
 	}
+
+	/**
+	 * @return the ID of the one product the given event is about, or {@code 0} if the event is about more than one product (e.g. a production order) or if it's not known.
+	 */
+	public static int extractSingleProductIdOrZero(@NonNull final MaterialEvent event)
+	{
+		if (event instanceof AbstractShipmentScheduleEvent)
+		{
+			return ((AbstractShipmentScheduleEvent)event).getMaterialDescriptor().getProductId();
+		}
+		else if (event instanceof AbstractReceiptScheduleEvent)
+		{
+			return ((AbstractReceiptScheduleEvent)event).getMaterialDescriptor().getProductId();
+		}
+		else if (event instanceof AbstractTransactionEvent)
+		{
+			return ((AbstractTransactionEvent)event).getMaterialDescriptor().getProductId();
+		}
+		else if (event instanceof StockChangedEvent)
+		{
+			return ((StockChangedEvent)event).getProductDescriptor().getProductId();
+		}
+		else if (event instanceof AbstractStockEstimateEvent)
+		{
+			return ((AbstractStockEstimateEvent)event).getProductDescriptor().getProductId();
+		}
+		else if (event instanceof AbstractPurchaseOfferEvent)
+		{
+			return ((AbstractPurchaseOfferEvent)event).getProductDescriptor().getProductId();
+		}
+		else if (event instanceof PurchaseCandidateEvent)
+		{
+			return ((PurchaseCandidateEvent)event).getPurchaseMaterialDescriptor().getProductId();
+		}
+		else if (event instanceof PurchaseCandidateRequestedEvent)
+		{
+			return ((PurchaseCandidateRequestedEvent)event).getPurchaseMaterialDescriptor().getProductId();
+		}
+		else if (event instanceof PurchaseCandidateAdvisedEvent)
+		{
+			return ((PurchaseCandidateAdvisedEvent)event).getSupplyRequiredDescriptor().getMaterialDescriptor().getProductId();
+		}
+		else if (event instanceof SupplyRequiredEvent)
+		{
+			return ((SupplyRequiredEvent)event).getSupplyRequiredDescriptor().getMaterialDescriptor().getProductId();
+		}
+		return 0;
+	}
 }
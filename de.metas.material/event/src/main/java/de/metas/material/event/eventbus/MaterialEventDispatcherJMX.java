@@ -0,0 +1,126 @@
+package de.metas.material.event.eventbus;
+
+import org.adempiere.util.jmx.IJMXNameAware;
+
+import de.metas.material.event.MaterialEventHandlerRegistry;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class MaterialEventDispatcherJMX implements MaterialEventDispatcherJMXMBean, IJMXNameAware
+{
+	private final PartitionedMaterialEventDispatcher dispatcher;
+	private final MaterialEventHandlerRegistry materialEventHandlerRegistry;
+
+	MaterialEventDispatcherJMX(
+			@NonNull final PartitionedMaterialEventDispatcher dispatcher,
+			@NonNull final MaterialEventHandlerRegistry materialEventHandlerRegistry)
+	{
+		this.dispatcher = dispatcher;
+		this.materialEventHandlerRegistry = materialEventHandlerRegistry;
+	}
+
+	@Override
+	public String getJMXName()
+	{
+		return "de.metas.material.event:type=MaterialEventDispatcher";
+	}
+
+	@Override
+	public int getPartitionsCount()
+	{
+		return dispatcher.getPartitionsInfo().length;
+	}
+
+	@Override
+	public int getQueueDepth()
+	{
+		return dispatcher.getQueueDepth();
+	}
+
+	@Override
+	public long getDispatchedCount()
+	{
+		return dispatcher.getDispatchedCount();
+	}
+
+	@Override
+	public long getBarriersCount()
+	{
+		return dispatcher.getBarriersCount();
+	}
+
+	@Override
+	public long getFailedCount()
+	{
+		return dispatcher.getFailedCount();
+	}
+
+	@Override
+	public long getRejectedCount()
+	{
+		return dispatcher.getRejectedCount();
+	}
+
+	@Override
+	public long getAvgLagMillis()
+	{
+		return dispatcher.getAvgLagMillis();
+	}
+
+	@Override
+	public long getMaxLagMillis()
+	{
+		return dispatcher.getMaxLagMillis();
+	}
+
+	@Override
+	public long getAvgExecutionMillis()
+	{
+		return dispatcher.getAvgExecutionMillis();
+	}
+
+	@Override
+	public long getMaxExecutionMillis()
+	{
+		return dispatcher.getMaxExecutionMillis();
+	}
+
+	@Override
+	public String[] getPartitionsInfo()
+	{
+		return dispatcher.getPartitionsInfo();
+	}
+
+	@Override
+	public String[] getHandlerTimingsInfo()
+	{
+		return materialEventHandlerRegistry.getHandlerTimingsInfo();
+	}
+
+	@Override
+	public void resetHandlerTimings()
+	{
+		materialEventHandlerRegistry.resetHandlerTimings();
+	}
+}
@@ -0,0 +1,73 @@
+package de.metas.material.event.eventbus;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * MBean interface for the partitioned handling of material events, see {@link MetasfreshEventListener}.
+ */
+public interface MaterialEventDispatcherJMXMBean
+{
+	/**
+	 * @return how many worker threads handle the events; zero means that the events are handled in the event bus' thread
+	 */
+	int getPartitionsCount();
+
+	/**
+	 * @return how many events are waiting to be handled, in all partitions
+	 */
+	int getQueueDepth();
+
+	long getDispatchedCount();
+
+	/**
+	 * @return how many events were about more than one product, so all partitions had to be idle before they were handled
+	 */
+	long getBarriersCount();
+
+	long getFailedCount();
+
+	/**
+	 * @return how many events could not be queued for their partition, because the dispatcher was shut down or the dispatching thread was interrupted
+	 */
+	long getRejectedCount();
+
+	/**
+	 * @return average time between receiving an event and starting to handle it
+	 */
+	long getAvgLagMillis();
+
+	long getMaxLagMillis();
+
+	long getAvgExecutionMillis();
+
+	long getMaxExecutionMillis();
+
+	String[] getPartitionsInfo();
+
+	/**
+	 * @return for each material event handler: how often it was invoked and how long it took
+	 */
+	String[] getHandlerTimingsInfo();
+
+	void resetHandlerTimings();
+}
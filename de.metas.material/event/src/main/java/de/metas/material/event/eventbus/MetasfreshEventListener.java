@@ -2,20 +2,28 @@ package de.metas.material.event.eventbus;
 
 import java.util.Properties;
 
+import javax.annotation.PreDestroy;
+
 import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.util.jmx.JMXRegistry;
+import org.adempiere.util.jmx.JMXRegistry.OnJMXAlreadyExistsPolicy;
 import org.adempiere.util.lang.IAutoCloseable;
 import org.compiere.Adempiere;
 import org.compiere.util.Env;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 
 import de.metas.event.Event;
 import de.metas.event.IEventBus;
 import de.metas.event.IEventListener;
+import de.metas.event.log.EventLogEntryCollector;
+import de.metas.event.log.EventLogUserService;
 import de.metas.logging.LogManager;
 import de.metas.material.event.MaterialEvent;
 import de.metas.material.event.MaterialEventHandlerRegistry;
+import de.metas.material.event.MaterialEventUtils;
 import de.metas.util.Services;
 import lombok.NonNull;
 
@@ -53,6 +61,8 @@ public class MetasfreshEventListener
 
 	private final MaterialEventConverter materialEventConverter;
 
+	private final PartitionedMaterialEventDispatcher dispatcher;
+
 	private final IEventListener internalListener = new IEventListener()
 	{
 		@Override
@@ -61,16 +71,68 @@ public class MetasfreshEventListener
 			final MaterialEvent lightWeightEvent = materialEventConverter.toMaterialEvent(event);
 			logger.info("Received MaterialEvent={}", lightWeightEvent);
 
+			if (dispatcher.isPartitioned())
+			{
+				// events about the same product are handled one after the other; events about several products are handled when all others are done
+				final int productId = MaterialEventUtils.extractSingleProductIdOrZero(lightWeightEvent);
+				dispatcher.dispatch(productId, () -> invokeListenerInWorkerThread(event, lightWeightEvent));
+			}
+			else
+			{
+				invokeListener(lightWeightEvent);
+			}
+		}
+
+		/**
+		 * Sets up the event log collector for the worker thread and stores the error log entry if the handler fails, like the event bus does for its own thread.
+		 * The event bus doesn't get to see the error, because the dispatcher is running the handler decoupled from it.
+		 */
+		private void invokeListenerInWorkerThread(@NonNull final Event event, @NonNull final MaterialEvent materialEvent)
+		{
+			if (!event.isWasLogged())
+			{
+				invokeListener(materialEvent);
+				return;
+			}
+
+			// barriers are run in the event bus' thread, where the collector is already set up
+			final EventLogEntryCollector collector = EventLogEntryCollector.isThreadLocalPresent() ? null : EventLogEntryCollector.createThreadLocalForEvent(event);
+			try
+			{
+				invokeListener(materialEvent);
+			}
+			catch (final RuntimeException ex)
+			{
+				if (!Adempiere.isUnitTestMode())
+				{
+					final EventLogUserService eventLogUserService = Adempiere.getBean(EventLogUserService.class);
+					eventLogUserService
+							.newErrorLogEntry(getClass(), ex)
+							.createAndStore();
+				}
+				throw ex; // let the dispatcher count and log it
+			}
+			finally
+			{
+				if (collector != null)
+				{
+					collector.close();
+				}
+			}
+		}
+
+		private void invokeListener(@NonNull final MaterialEvent materialEvent)
+		{
 			//
 			// make sure that every record we create has the correct AD_Client_ID and AD_Org_ID
 			final Properties temporaryCtx = Env.copyCtx(Env.getCtx());
 
-			Env.setContext(temporaryCtx, Env.CTXNAME_AD_Client_ID, lightWeightEvent.getEventDescriptor().getClientId());
-			Env.setContext(temporaryCtx, Env.CTXNAME_AD_Org_ID, lightWeightEvent.getEventDescriptor().getOrgId());
+			Env.setContext(temporaryCtx, Env.CTXNAME_AD_Client_ID, materialEvent.getEventDescriptor().getClientId());
+			Env.setContext(temporaryCtx, Env.CTXNAME_AD_Org_ID, materialEvent.getEventDescriptor().getOrgId());
 
 			try (final IAutoCloseable c = Env.switchContext(temporaryCtx))
 			{
-				invokeListenerInTrx(lightWeightEvent);
+				invokeListenerInTrx(materialEvent);
 			}
 		}
 
@@ -88,15 +150,32 @@ public class MetasfreshEventListener
 		}
 	};
 
+	/**
+	 * @param partitionWorkers if {@code > 0}, then the events are handled by that many worker threads, partitioned by product.
+	 *            If zero, the events are handled in the thread in which the event bus delivers them.
+	 * @param partitionQueueCapacity how many events can wait for each worker thread, before the event bus is blocked
+	 */
 	public MetasfreshEventListener(
 			@NonNull final MaterialEventHandlerRegistry materialEventHandlerRegistry,
 			@NonNull final MetasfreshEventBusService metasfreshEventBusService,
-			@NonNull final MaterialEventConverter materialEventConverter)
+			@NonNull final MaterialEventConverter materialEventConverter,
+			@Value("${de.metas.material.event.eventbus.MetasfreshEventListener.partitionWorkers:0}") final int partitionWorkers,
+			@Value("${de.metas.material.event.eventbus.MetasfreshEventListener.partitionQueueCapacity:1000}") final int partitionQueueCapacity)
 	{
 		this.materialEventConverter = materialEventConverter;
 		this.materialEventHandlerRegistry = materialEventHandlerRegistry;
 		this.metasfreshEventBusService = metasfreshEventBusService;
 
+		this.dispatcher = new PartitionedMaterialEventDispatcher(partitionWorkers, partitionQueueCapacity);
+		logger.info("Created {}", dispatcher);
+		JMXRegistry.get().registerJMX(new MaterialEventDispatcherJMX(dispatcher, materialEventHandlerRegistry), OnJMXAlreadyExistsPolicy.Replace);
+
 		this.metasfreshEventBusService.subscribe(internalListener);
 	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		dispatcher.shutdown();
+	}
 }
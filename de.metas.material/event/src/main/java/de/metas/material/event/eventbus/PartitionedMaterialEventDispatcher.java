@@ -0,0 +1,344 @@
+package de.metas.material.event.eventbus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+
+import de.metas.logging.LogManager;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Runs tasks on a fixed number of partitions, each with its own queue and worker thread.
+ * <p>
+ * Tasks with the same partition key are run one after the other, in the order they were dispatched.
+ * A task without partition key is a "barrier": it's run in the dispatching thread, after all the tasks that were dispatched before it are done,
+ * and before any task that is dispatched after it is started.
+ * <p>
+ * If there are zero partitions, all tasks are run in the dispatching thread.
+ * <p>
+ * A task which can't be queued behind the earlier tasks of its partition, because the dispatcher is shut down or the dispatching thread is interrupted,
+ * is rejected with an exception instead of being run right away, so that it can never overtake those earlier tasks.
+ */
+final class PartitionedMaterialEventDispatcher
+{
+	private static final Logger logger = LogManager.getLogger(PartitionedMaterialEventDispatcher.class);
+
+	private final List<Partition> partitions;
+	private volatile boolean shutdown = false;
+
+	private final AtomicLong countDispatched = new AtomicLong();
+	private final AtomicLong countBarriers = new AtomicLong();
+	private final AtomicLong countFailed = new AtomicLong();
+	private final AtomicLong countRejected = new AtomicLong();
+	private final AtomicLong lagNanosTotal = new AtomicLong();
+	private final AtomicLong lagNanosMax = new AtomicLong();
+	private final AtomicLong executionNanosTotal = new AtomicLong();
+	private final AtomicLong executionNanosMax = new AtomicLong();
+
+	PartitionedMaterialEventDispatcher(final int partitionsCount, final int queueCapacity)
+	{
+		final CustomizableThreadFactory threadFactory = CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(PartitionedMaterialEventDispatcher.class.getName())
+				.setDaemon(true)
+				.build();
+
+		final int partitionsCountEffective = Math.max(0, partitionsCount);
+		this.partitions = new ArrayList<>(partitionsCountEffective);
+		for (int i = 0; i < partitionsCountEffective; i++)
+		{
+			final Partition partition = new Partition(i, Math.max(1, queueCapacity));
+			partitions.add(partition);
+			threadFactory.newThread(partition::processQueue).start();
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("partitions", partitions.size())
+				.add("queueDepth", getQueueDepth())
+				.add("dispatched", countDispatched.get())
+				.add("barriers", countBarriers.get())
+				.add("failed", countFailed.get())
+				.add("rejected", countRejected.get())
+				.add("avgLagMillis", getAvgLagMillis())
+				.add("maxLagMillis", TimeUnit.NANOSECONDS.toMillis(lagNanosMax.get()))
+				.add("avgExecutionMillis", getAvgExecutionMillis())
+				.add("maxExecutionMillis", TimeUnit.NANOSECONDS.toMillis(executionNanosMax.get()))
+				.toString();
+	}
+
+	public boolean isPartitioned()
+	{
+		return !partitions.isEmpty();
+	}
+
+	/**
+	 * @param partitionKey tasks with the same key are run sequentially; if {@code <= 0}, the task is run as barrier.
+	 * @throws AdempiereException if the task was rejected because the dispatcher is shut down or the current thread was interrupted
+	 */
+	public void dispatch(final int partitionKey, @NonNull final Runnable task)
+	{
+		final QueuedTask queuedTask = new QueuedTask(task, System.nanoTime(), false);
+		if (partitions.isEmpty())
+		{
+			run(queuedTask);
+		}
+		else if (partitionKey <= 0)
+		{
+			runAsBarrier(queuedTask);
+		}
+		else
+		{
+			getPartition(partitionKey).enqueue(queuedTask);
+		}
+	}
+
+	private Partition getPartition(final int partitionKey)
+	{
+		// spread the keys because product IDs are often allocated in blocks
+		final int hash = partitionKey * 0x9E3779B9;
+		return partitions.get(Math.floorMod(hash ^ (hash >>> 16), partitions.size()));
+	}
+
+	private void runAsBarrier(@NonNull final QueuedTask queuedTask)
+	{
+		final CountDownLatch allPartitionsIdle = new CountDownLatch(partitions.size());
+		for (final Partition partition : partitions)
+		{
+			partition.enqueue(new QueuedTask(allPartitionsIdle::countDown, System.nanoTime(), true));
+		}
+
+		try
+		{
+			allPartitionsIdle.await();
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw reject(queuedTask, "interrupted while waiting for the partitions to become idle", ex);
+		}
+
+		countBarriers.incrementAndGet();
+		run(queuedTask);
+	}
+
+	private void run(@NonNull final QueuedTask queuedTask)
+	{
+		final long startNanos = System.nanoTime();
+		record(startNanos - queuedTask.getEnqueuedNanos(), lagNanosTotal, lagNanosMax);
+
+		try
+		{
+			queuedTask.getTask().run();
+			countDispatched.incrementAndGet();
+		}
+		catch (final Throwable ex)
+		{
+			countFailed.incrementAndGet();
+			logger.error("Failed running {}", queuedTask.getTask(), ex);
+		}
+		finally
+		{
+			record(System.nanoTime() - startNanos, executionNanosTotal, executionNanosMax);
+		}
+	}
+
+	private AdempiereException reject(@NonNull final QueuedTask queuedTask, @NonNull final String reason, @Nullable final Throwable cause)
+	{
+		countRejected.incrementAndGet();
+		return new AdempiereException("Task was rejected: " + reason, cause)
+				.setParameter("task", queuedTask.getTask())
+				.appendParametersToMessage();
+	}
+
+	private static void record(final long durationNanos, final AtomicLong total, final AtomicLong max)
+	{
+		total.addAndGet(durationNanos);
+		max.accumulateAndGet(durationNanos, Math::max);
+	}
+
+	/**
+	 * Stops accepting new tasks. The worker threads are running the tasks which are already queued and then they stop.
+	 */
+	public void shutdown()
+	{
+		shutdown = true;
+	}
+
+	public int getQueueDepth()
+	{
+		return partitions.stream().mapToInt(Partition::getQueueDepth).sum();
+	}
+
+	public String[] getPartitionsInfo()
+	{
+		return partitions.stream()
+				.map(Partition::toString)
+				.toArray(String[]::new);
+	}
+
+	public long getDispatchedCount()
+	{
+		return countDispatched.get();
+	}
+
+	public long getBarriersCount()
+	{
+		return countBarriers.get();
+	}
+
+	public long getFailedCount()
+	{
+		return countFailed.get();
+	}
+
+	public long getRejectedCount()
+	{
+		return countRejected.get();
+	}
+
+	public long getAvgLagMillis()
+	{
+		final long count = countDispatched.get() + countFailed.get();
+		return count > 0 ? TimeUnit.NANOSECONDS.toMillis(lagNanosTotal.get() / count) : 0;
+	}
+
+	public long getMaxLagMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(lagNanosMax.get());
+	}
+
+	public long getAvgExecutionMillis()
+	{
+		final long count = countDispatched.get() + countFailed.get();
+		return count > 0 ? TimeUnit.NANOSECONDS.toMillis(executionNanosTotal.get() / count) : 0;
+	}
+
+	public long getMaxExecutionMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(executionNanosMax.get());
+	}
+
+	private final class Partition
+	{
+		private final int partitionNo;
+		private final BlockingQueue<QueuedTask> queue;
+		private final AtomicLong countProcessed = new AtomicLong();
+
+		private Partition(final int partitionNo, final int queueCapacity)
+		{
+			this.partitionNo = partitionNo;
+			this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "partition " + partitionNo + ": queueDepth=" + queue.size() + ", processed=" + countProcessed.get();
+		}
+
+		public int getQueueDepth()
+		{
+			return queue.size();
+		}
+
+		/**
+		 * Blocks while the queue is full, so that a slow partition slows down the dispatching instead of piling up events in memory.
+		 */
+		public void enqueue(@NonNull final QueuedTask queuedTask)
+		{
+			if (shutdown)
+			{
+				throw reject(queuedTask, "the dispatcher is shut down", null);
+			}
+
+			try
+			{
+				queue.put(queuedTask);
+			}
+			catch (final InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				throw reject(queuedTask, "interrupted while waiting to enqueue it", ex);
+			}
+		}
+
+		private void processQueue()
+		{
+			while (!shutdown || !queue.isEmpty())
+			{
+				final QueuedTask queuedTask;
+				try
+				{
+					queuedTask = queue.poll(1, TimeUnit.SECONDS);
+				}
+				catch (final InterruptedException ex)
+				{
+					Thread.currentThread().interrupt();
+					break;
+				}
+
+				if (queuedTask == null)
+				{
+					continue;
+				}
+				if (queuedTask.isBarrierMarker())
+				{
+					queuedTask.getTask().run();
+				}
+				else
+				{
+					run(queuedTask);
+					countProcessed.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	@Value
+	private static class QueuedTask
+	{
+		Runnable task;
+		long enqueuedNanos;
+
+		/** {@code true} if the task just lets a barrier know that all the tasks before it are done */
+		boolean barrierMarker;
+	}
+}
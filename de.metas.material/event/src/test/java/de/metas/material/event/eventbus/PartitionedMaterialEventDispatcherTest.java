@@ -0,0 +1,187 @@
+package de.metas.material.event.eventbus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.junit.After;
+import org.junit.Test;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class PartitionedMaterialEventDispatcherTest
+{
+	private PartitionedMaterialEventDispatcher dispatcher;
+
+	@After
+	public void shutdown()
+	{
+		if (dispatcher != null)
+		{
+			dispatcher.shutdown();
+		}
+	}
+
+	@Test
+	public void noPartitions_runsInCurrentThread()
+	{
+		dispatcher = new PartitionedMaterialEventDispatcher(0, 10);
+		assertThat(dispatcher.isPartitioned()).isFalse();
+
+		final List<Thread> threads = new ArrayList<>();
+		dispatcher.dispatch(1, () -> threads.add(Thread.currentThread()));
+
+		assertThat(threads).containsExactly(Thread.currentThread());
+		assertThat(dispatcher.getDispatchedCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void samePartitionKey_keepsOrder() throws Exception
+	{
+		dispatcher = new PartitionedMaterialEventDispatcher(4, 10);
+
+		final List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch done = new CountDownLatch(100);
+		for (int i = 0; i < 100; i++)
+		{
+			final int seqNo = i;
+			dispatcher.dispatch(123, () -> {
+				processed.add(seqNo);
+				done.countDown();
+			});
+		}
+
+		assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+		for (int i = 0; i < 100; i++)
+		{
+			assertThat(processed.get(i)).isEqualTo(i);
+		}
+	}
+
+	@Test
+	public void barrier_waitsForAllPreviousTasks()
+	{
+		dispatcher = new PartitionedMaterialEventDispatcher(4, 10);
+
+		final List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+		for (int productId = 1; productId <= 20; productId++)
+		{
+			final int productIdFinal = productId;
+			dispatcher.dispatch(productId, () -> {
+				sleep(5);
+				processed.add(productIdFinal);
+			});
+		}
+
+		// the barrier runs in the current thread, so when dispatch returns, all the tasks before it need to be done
+		dispatcher.dispatch(0, () -> processed.add(0));
+
+		assertThat(processed).hasSize(21);
+		assertThat(processed.get(20)).isEqualTo(0);
+		assertThat(dispatcher.getBarriersCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void afterShutdown_tasksAreRejectedInsteadOfRunInline()
+	{
+		dispatcher = new PartitionedMaterialEventDispatcher(2, 10);
+		dispatcher.shutdown();
+
+		final List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+		assertThatThrownBy(() -> dispatcher.dispatch(123, () -> processed.add(1)))
+				.isInstanceOf(AdempiereException.class)
+				.hasMessageContaining("shut down");
+		assertThatThrownBy(() -> dispatcher.dispatch(0, () -> processed.add(0)))
+				.isInstanceOf(AdempiereException.class);
+
+		assertThat(processed).isEmpty();
+		assertThat(dispatcher.getRejectedCount()).isEqualTo(2);
+		assertThat(dispatcher.getDispatchedCount()).isZero();
+	}
+
+	@Test
+	public void interruptedWhileEnqueueing_taskIsRejectedInsteadOfRunInline() throws Exception
+	{
+		dispatcher = new PartitionedMaterialEventDispatcher(1, 1);
+
+		// block the only partition and fill its queue
+		final CountDownLatch blockerStarted = new CountDownLatch(1);
+		final CountDownLatch releaseBlocker = new CountDownLatch(1);
+		dispatcher.dispatch(1, () -> {
+			blockerStarted.countDown();
+			awaitUninterruptibly(releaseBlocker);
+		});
+		assertThat(blockerStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		final List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+		dispatcher.dispatch(1, () -> processed.add(1));
+
+		Thread.currentThread().interrupt();
+		try
+		{
+			assertThatThrownBy(() -> dispatcher.dispatch(1, () -> processed.add(2)))
+					.isInstanceOf(AdempiereException.class)
+					.hasMessageContaining("interrupted");
+		}
+		finally
+		{
+			Thread.interrupted(); // clear the flag
+		}
+
+		releaseBlocker.countDown();
+		dispatcher.dispatch(0, () -> processed.add(0)); // barrier, waits for the queued tasks
+
+		assertThat(processed).containsExactly(1, 0);
+		assertThat(dispatcher.getRejectedCount()).isEqualTo(1);
+	}
+
+	private static void awaitUninterruptibly(final CountDownLatch latch)
+	{
+		try
+		{
+			latch.await();
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(final long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
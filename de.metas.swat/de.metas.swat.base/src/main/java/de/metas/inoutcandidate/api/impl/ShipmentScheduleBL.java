@@ -208,7 +208,10 @@ public class ShipmentScheduleBL implements IShipmentScheduleBL
 			updateShipmentConstraints(sched);
 		}
 
-		final ShipmentSchedulesDuringUpdate firstRun = generate(ctx, olsAndScheds, null, trxName);
+		// Load the stock only once; both runs start with the same QtyOnHand
+		final ShipmentScheduleQtyOnHandStorage qtyOnHandSnapshot = shipmentScheduleQtyOnHandStorageFactory.ofOlAndScheds(olsAndScheds);
+
+		final ShipmentSchedulesDuringUpdate firstRun = generate(ctx, olsAndScheds, null, qtyOnHandSnapshot.copyWithInitialQtyOnHand(), trxName);
 		firstRun.updateCompleteStatusAndSetQtyToZeroWhereNeeded();
 
 		final int removeCnt = applyCandidateProcessors(ctx, firstRun, trxName);
@@ -232,7 +235,7 @@ public class ShipmentScheduleBL implements IShipmentScheduleBL
 		}
 
 		// make the second run
-		final IShipmentSchedulesDuringUpdate secondRun = generate(ctx, olsAndScheds, firstRun, trxName);
+		final IShipmentSchedulesDuringUpdate secondRun = generate(ctx, olsAndScheds, firstRun, qtyOnHandSnapshot.copyWithInitialQtyOnHand(), trxName);
 
 		// finally update the shipment schedule entries
 		for (final OlAndSched olAndSched : olsAndScheds)
@@ -442,6 +445,20 @@ public class ShipmentScheduleBL implements IShipmentScheduleBL
 			final List<OlAndSched> lines,
 			final ShipmentSchedulesDuringUpdate firstRun,
 			final String trxName)
+	{
+		final ShipmentScheduleQtyOnHandStorage qtyOnHands = shipmentScheduleQtyOnHandStorageFactory.ofOlAndScheds(lines);
+		return generate(ctx, lines, firstRun, qtyOnHands, trxName);
+	}
+
+	/**
+	 * @param qtyOnHands the QtyOnHand in scope for our lines. The QtyOnHand which is allocated to the lines is subtracted from it.
+	 */
+	private ShipmentSchedulesDuringUpdate generate(
+			final Properties ctx,
+			final List<OlAndSched> lines,
+			final ShipmentSchedulesDuringUpdate firstRun,
+			final ShipmentScheduleQtyOnHandStorage qtyOnHands,
+			final String trxName)
 	{
 		// services
 		final IShipmentScheduleEffectiveBL shipmentScheduleEffectiveValuesBL = Services.get(IShipmentScheduleEffectiveBL.class);
@@ -451,11 +468,6 @@ public class ShipmentScheduleBL implements IShipmentScheduleBL
 		// if firstRun is not null, create a new instance, otherwise use firstRun
 		final ShipmentSchedulesDuringUpdate candidates = mkCandidatesToUse(lines, firstRun);
 
-		//
-		// Load QtyOnHand in scope for our lines
-		// i.e. iterate all lines to cache the required storage info and to subtract the quantities that can't be allocated from the storage allocation.
-		final ShipmentScheduleQtyOnHandStorage qtyOnHands = shipmentScheduleQtyOnHandStorageFactory.ofOlAndScheds(lines);
-
 		//
 		// Iterate again and:
 		// * try to allocate the QtyOnHand
@@ -0,0 +1,245 @@
+package de.metas.inoutcandidate.api.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import de.metas.inoutcandidate.api.ShipmentScheduleId;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Finds out which of the invalid shipment schedules actually need to be recomputed.
+ * <p>
+ * The schedules of one update run are grouped into components: two schedules are in the same component if they share a storage segment
+ * (they compete for the same stock) or a delivery group key (e.g. the same order). A component is fingerprinted as a whole,
+ * from its members' inputs and the stock of its segments. If a component's fingerprint is the same as after it was last recomputed,
+ * recomputing it again would yield the same result, so it can be skipped.
+ * <p>
+ * The fingerprints are only kept in memory and expire after a while, so that schedules are eventually recomputed anyways.
+ * If in doubt (e.g. after a restart), all schedules are considered changed.
+ */
+final class ShipmentScheduleChangeDetector
+{
+	@Value
+	@Builder(toBuilder = true)
+	static class ScheduleInputs
+	{
+		@NonNull
+		ShipmentScheduleId shipmentScheduleId;
+
+		/** Key of the storage segment whose stock the schedule is allocated from */
+		@NonNull
+		Object segmentKey;
+
+		/** Fingerprint of the stock which is available in the schedule's segment */
+		@NonNull
+		HashCode segmentStockHash;
+
+		/** Keys of the delivery groups (e.g. order, bpartner address) which the schedule can be part of */
+		@Singular
+		ImmutableSet<Object> deliveryGroupKeys;
+
+		/** Fingerprint of the schedule's picked and delivered quantities */
+		@NonNull
+		HashCode pickedQtyHash;
+
+		/** Fingerprint of the master data which the recompute reads, see {@link ShipmentScheduleInputsLoader} */
+		@NonNull
+		HashCode masterDataHash;
+
+		/** Fingerprint of the schedule's own inputs (the schedule record itself, its order line, picked quantities, bpartner constraints, master data) */
+		@NonNull
+		HashCode inputsHash;
+	}
+
+	@Value
+	static class Component
+	{
+		@NonNull
+		HashCode fingerprint;
+		@NonNull
+		ImmutableList<ShipmentScheduleId> shipmentScheduleIds;
+	}
+
+	private final Cache<ShipmentScheduleId, HashCode> fingerprintsOfLastRecompute;
+
+	ShipmentScheduleChangeDetector(final long maxSize, final long expireAfterMinutes)
+	{
+		fingerprintsOfLastRecompute = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(expireAfterMinutes, TimeUnit.MINUTES)
+				.build();
+	}
+
+	/**
+	 * Groups the given schedules into components and computes each component's fingerprint.
+	 */
+	static List<Component> computeComponents(@NonNull final Collection<ScheduleInputs> schedulesInputs)
+	{
+		final List<ScheduleInputs> inputsList = ImmutableList.copyOf(schedulesInputs);
+		final int[] parents = new int[inputsList.size()];
+		for (int i = 0; i < parents.length; i++)
+		{
+			parents[i] = i;
+		}
+
+		//
+		// Join the schedules which share a segment or a delivery group
+		final Map<Object, Integer> firstIndexByKey = new HashMap<>();
+		for (int i = 0; i < inputsList.size(); i++)
+		{
+			final ScheduleInputs inputs = inputsList.get(i);
+
+			final List<Object> keys = new ArrayList<>();
+			keys.add(ImmutableList.of("segment", inputs.getSegmentKey()));
+			inputs.getDeliveryGroupKeys().forEach(deliveryGroupKey -> keys.add(ImmutableList.of("deliveryGroup", deliveryGroupKey)));
+
+			for (final Object key : keys)
+			{
+				final Integer firstIndex = firstIndexByKey.putIfAbsent(key, i);
+				if (firstIndex != null)
+				{
+					union(parents, i, firstIndex);
+				}
+			}
+		}
+
+		final Map<Integer, List<ScheduleInputs>> membersByRoot = new HashMap<>();
+		for (int i = 0; i < inputsList.size(); i++)
+		{
+			membersByRoot.computeIfAbsent(find(parents, i), k -> new ArrayList<>()).add(inputsList.get(i));
+		}
+
+		return membersByRoot.values()
+				.stream()
+				.map(ShipmentScheduleChangeDetector::createComponent)
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	private static int find(final int[] parents, final int index)
+	{
+		int root = index;
+		while (parents[root] != root)
+		{
+			root = parents[root];
+		}
+
+		// path compression
+		int current = index;
+		while (parents[current] != root)
+		{
+			final int next = parents[current];
+			parents[current] = root;
+			current = next;
+		}
+		return root;
+	}
+
+	private static void union(final int[] parents, final int index, final int otherIndex)
+	{
+		final int root = find(parents, index);
+		final int otherRoot = find(parents, otherIndex);
+		if (root != otherRoot)
+		{
+			parents[Math.max(root, otherRoot)] = Math.min(root, otherRoot);
+		}
+	}
+
+	private static Component createComponent(final List<ScheduleInputs> members)
+	{
+		final List<ScheduleInputs> membersSorted = new ArrayList<>(members);
+		membersSorted.sort(Comparator.comparingInt(inputs -> inputs.getShipmentScheduleId().getRepoId()));
+
+		final Hasher hasher = Hashing.murmur3_128().newHasher();
+		final Map<Object, HashCode> segmentStockHashes = new HashMap<>();
+		for (final ScheduleInputs inputs : membersSorted)
+		{
+			hasher.putInt(inputs.getShipmentScheduleId().getRepoId());
+			hasher.putBytes(inputs.getInputsHash().asBytes());
+
+			// the stock of a segment is hashed once per segment; it has to be the same for all the segment's schedules anyways
+			if (segmentStockHashes.putIfAbsent(inputs.getSegmentKey(), inputs.getSegmentStockHash()) == null)
+			{
+				hasher.putString(inputs.getSegmentKey().toString(), StandardCharsets.UTF_8);
+				hasher.putBytes(inputs.getSegmentStockHash().asBytes());
+			}
+		}
+
+		final ImmutableList<ShipmentScheduleId> shipmentScheduleIds = membersSorted.stream()
+				.map(ScheduleInputs::getShipmentScheduleId)
+				.collect(ImmutableList.toImmutableList());
+		return new Component(hasher.hash(), shipmentScheduleIds);
+	}
+
+	/**
+	 * @return {@code true} if all the component's schedules were last recomputed with exactly the same inputs
+	 */
+	boolean isUnchanged(@NonNull final Component component)
+	{
+		return component.getShipmentScheduleIds()
+				.stream()
+				.allMatch(shipmentScheduleId -> Objects.equals(fingerprintsOfLastRecompute.getIfPresent(shipmentScheduleId), component.getFingerprint()));
+	}
+
+	/**
+	 * Remembers the fingerprints of the given components, which were just recomputed.
+	 */
+	void rememberRecomputed(@NonNull final Collection<Component> components)
+	{
+		final Map<ShipmentScheduleId, HashCode> fingerprints = new HashMap<>();
+		for (final Component component : components)
+		{
+			component.getShipmentScheduleIds().forEach(shipmentScheduleId -> fingerprints.put(shipmentScheduleId, component.getFingerprint()));
+		}
+		fingerprintsOfLastRecompute.putAll(fingerprints);
+	}
+
+	void forgetAll()
+	{
+		fingerprintsOfLastRecompute.invalidateAll();
+	}
+
+	long size()
+	{
+		return fingerprintsOfLastRecompute.size();
+	}
+}
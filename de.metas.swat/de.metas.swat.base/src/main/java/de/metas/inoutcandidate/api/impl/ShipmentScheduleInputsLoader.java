@@ -0,0 +1,467 @@
+package de.metas.inoutcandidate.api.impl;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.exceptions.DBException;
+import org.adempiere.inout.util.ShipmentScheduleAvailableStockDetail;
+import org.adempiere.inout.util.ShipmentScheduleQtyOnHandStorage;
+import org.adempiere.inout.util.ShipmentScheduleQtyOnHandStorageFactory;
+import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.warehouse.WarehouseId;
+import org.compiere.model.I_C_BPartner;
+import org.compiere.model.I_C_BPartner_Product;
+import org.compiere.model.I_C_Order;
+import org.compiere.model.I_M_InOutLine;
+import org.compiere.model.I_M_Product;
+import org.compiere.model.PO;
+import org.compiere.model.POInfo;
+import org.compiere.util.DB;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import de.metas.inoutcandidate.api.IShipmentConstraintsBL;
+import de.metas.inoutcandidate.api.IShipmentScheduleEffectiveBL;
+import de.metas.inoutcandidate.api.OlAndSched;
+import de.metas.inoutcandidate.api.ShipmentScheduleId;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleChangeDetector.ScheduleInputs;
+import de.metas.inoutcandidate.model.I_M_ShipmentSchedule;
+import de.metas.inoutcandidate.model.I_M_ShipmentSchedule_QtyPicked;
+import de.metas.tourplanning.model.I_M_DeliveryDay;
+import de.metas.util.Services;
+import de.metas.util.lang.RepoIdAware;
+import lombok.Builder;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Loads the {@link ScheduleInputs} of the shipment schedules of one update run, using a few set-based queries.
+ * <p>
+ * Note that the loaded data is only used to find out if anything changed; the quantities are not used for any computation.
+ * <p>
+ * The master data which the recompute reads (product, bpartner, bpartner-product, order and delivery days) is not loaded,
+ * but fingerprinted by the number of records and their last {@code Updated} timestamp.
+ */
+class ShipmentScheduleInputsLoader
+{
+	private final IShipmentScheduleEffectiveBL shipmentScheduleEffectiveBL = Services.get(IShipmentScheduleEffectiveBL.class);
+	private final IShipmentConstraintsBL shipmentConstraintsBL = Services.get(IShipmentConstraintsBL.class);
+
+	private static final int IN_ARRAY_MAX_SIZE = 1000;
+
+	private final ShipmentScheduleQtyOnHandStorageFactory shipmentScheduleQtyOnHandStorageFactory;
+
+	ShipmentScheduleInputsLoader(@NonNull final ShipmentScheduleQtyOnHandStorageFactory shipmentScheduleQtyOnHandStorageFactory)
+	{
+		this.shipmentScheduleQtyOnHandStorageFactory = shipmentScheduleQtyOnHandStorageFactory;
+	}
+
+	public List<ScheduleInputs> loadInputs(@NonNull final List<OlAndSched> olsAndScheds)
+	{
+		if (olsAndScheds.isEmpty())
+		{
+			return ImmutableList.of();
+		}
+
+		final ShipmentScheduleQtyOnHandStorage storage = shipmentScheduleQtyOnHandStorageFactory.ofOlAndScheds(olsAndScheds);
+		final Map<ShipmentScheduleId, HashCode> pickedQtyHashes = retrievePickedQtyHashes(extractShipmentScheduleIds(olsAndScheds));
+		final MasterDataHashes masterDataHashes = retrieveMasterDataHashes(olsAndScheds);
+
+		return createInputs(olsAndScheds, storage, pickedQtyHashes, masterDataHashes);
+	}
+
+	/**
+	 * Creates the inputs again for the same schedules, after they were recomputed.
+	 * The stock, the picked quantities and the master data were not changed by the recompute, so they are not loaded again.
+	 */
+	public List<ScheduleInputs> reloadInputsAfterRecompute(
+			@NonNull final List<OlAndSched> olsAndScheds,
+			@NonNull final List<ScheduleInputs> inputsBeforeRecompute)
+	{
+		final Map<ShipmentScheduleId, ScheduleInputs> inputsBeforeById = new HashMap<>();
+		inputsBeforeRecompute.forEach(inputs -> inputsBeforeById.put(inputs.getShipmentScheduleId(), inputs));
+
+		final ImmutableList.Builder<ScheduleInputs> result = ImmutableList.builder();
+		for (final OlAndSched olAndSched : olsAndScheds)
+		{
+			final I_M_ShipmentSchedule sched = olAndSched.getSched();
+			final ScheduleInputs inputsBefore = inputsBeforeById.get(ShipmentScheduleId.ofRepoId(sched.getM_ShipmentSchedule_ID()));
+			if (inputsBefore == null)
+			{
+				continue;
+			}
+
+			result.add(inputsBefore.toBuilder()
+					.clearDeliveryGroupKeys()
+					.deliveryGroupKeys(extractDeliveryGroupKeys(sched))
+					.inputsHash(computeInputsHash(olAndSched, inputsBefore.getPickedQtyHash(), inputsBefore.getMasterDataHash()))
+					.build());
+		}
+		return result.build();
+	}
+
+	private List<ScheduleInputs> createInputs(
+			final List<OlAndSched> olsAndScheds,
+			final ShipmentScheduleQtyOnHandStorage storage,
+			final Map<ShipmentScheduleId, HashCode> pickedQtyHashes,
+			final MasterDataHashes masterDataHashes)
+	{
+		final Map<Object, HashCode> stockHashesBySegmentKey = new HashMap<>();
+
+		final List<ScheduleInputs> result = new ArrayList<>(olsAndScheds.size());
+		for (final OlAndSched olAndSched : olsAndScheds)
+		{
+			final I_M_ShipmentSchedule sched = olAndSched.getSched();
+			final ShipmentScheduleId shipmentScheduleId = ShipmentScheduleId.ofRepoId(sched.getM_ShipmentSchedule_ID());
+
+			final Object segmentKey = storage.getMaterialQuery(sched);
+			final HashCode segmentStockHash = stockHashesBySegmentKey.computeIfAbsent(segmentKey, k -> computeStockHash(storage.getStockDetailsMatching(sched)));
+
+			final HashCode pickedQtyHash = pickedQtyHashes.getOrDefault(shipmentScheduleId, HASH_NothingPicked);
+			final HashCode masterDataHash = masterDataHashes.computeHash(sched);
+
+			result.add(ScheduleInputs.builder()
+					.shipmentScheduleId(shipmentScheduleId)
+					.segmentKey(segmentKey)
+					.segmentStockHash(segmentStockHash)
+					.deliveryGroupKeys(extractDeliveryGroupKeys(sched))
+					.pickedQtyHash(pickedQtyHash)
+					.masterDataHash(masterDataHash)
+					.inputsHash(computeInputsHash(olAndSched, pickedQtyHash, masterDataHash))
+					.build());
+		}
+		return result;
+	}
+
+	private static Set<ShipmentScheduleId> extractShipmentScheduleIds(final List<OlAndSched> olsAndScheds)
+	{
+		return olsAndScheds.stream()
+				.map(olAndSched -> ShipmentScheduleId.ofRepoId(olAndSched.getSched().getM_ShipmentSchedule_ID()))
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
+	private Set<Object> extractDeliveryGroupKeys(final I_M_ShipmentSchedule sched)
+	{
+		final ImmutableSet.Builder<Object> keys = ImmutableSet.builder();
+
+		// both kinds of delivery groups (per order and per shipper) have the bpartner address and warehouse in their key, see ShipmentSchedulesDuringUpdate
+		final WarehouseId warehouseId = shipmentScheduleEffectiveBL.getWarehouseId(sched);
+		keys.add(ImmutableList.of(String.valueOf(sched.getBPartnerAddress_Override()), String.valueOf(warehouseId)));
+
+		// candidate processors (e.g. deliver complete orders only) look at all lines of an order
+		if (sched.getC_Order_ID() > 0)
+		{
+			keys.add(sched.getC_Order_ID());
+		}
+
+		return keys.build();
+	}
+
+	private static HashCode computeStockHash(final List<ShipmentScheduleAvailableStockDetail> stockDetails)
+	{
+		final List<String> stockDetailStrings = new ArrayList<>(stockDetails.size());
+		for (final ShipmentScheduleAvailableStockDetail stockDetail : stockDetails)
+		{
+			stockDetailStrings.add(stockDetail.getWarehouseId()
+					+ "/" + stockDetail.getStorageAttributesKey()
+					+ "/" + toStableString(stockDetail.getQtyOnHand()));
+		}
+		stockDetailStrings.sort(null);
+
+		final Hasher hasher = Hashing.murmur3_128().newHasher();
+		stockDetailStrings.forEach(string -> hasher.putString(string, StandardCharsets.UTF_8));
+		return hasher.hash();
+	}
+
+	private HashCode computeInputsHash(
+			final OlAndSched olAndSched,
+			final HashCode pickedQtyHash,
+			final HashCode masterDataHash)
+	{
+		final I_M_ShipmentSchedule sched = olAndSched.getSched();
+
+		final Hasher hasher = Hashing.murmur3_128().newHasher();
+		putRecordValues(hasher, sched);
+
+		putValue(hasher, olAndSched.getDeliverRequest().getQtyOrdered());
+		if (olAndSched.hasSalesOrderLine())
+		{
+			putValue(hasher, olAndSched.getOrderPriceActual());
+			putValue(hasher, olAndSched.getOrderQtyReserved());
+			putValue(hasher, olAndSched.getOrderDocStatus());
+		}
+
+		hasher.putInt(shipmentConstraintsBL.getDeliveryStopShipmentConstraintId(sched.getBill_BPartner_ID()));
+		hasher.putBytes(pickedQtyHash.asBytes());
+		hasher.putBytes(masterDataHash.asBytes());
+
+		return hasher.hash();
+	}
+
+	/**
+	 * Puts all persisted values of the given record, except for the "Updated" and "UpdatedBy" columns which change with every save.
+	 */
+	private static void putRecordValues(final Hasher hasher, final Object model)
+	{
+		final PO po = InterfaceWrapperHelper.getPO(model);
+		if (po == null)
+		{
+			// shall not happen; in case it does, make sure the schedule is never considered unchanged
+			hasher.putString(UUID.randomUUID().toString(), StandardCharsets.UTF_8);
+			return;
+		}
+
+		final POInfo poInfo = po.getPOInfo();
+		for (int i = 0; i < po.get_ColumnCount(); i++)
+		{
+			final String columnName = poInfo.getColumnName(i);
+			if (poInfo.isVirtualColumn(i)
+					|| I_M_ShipmentSchedule.COLUMNNAME_Updated.equals(columnName)
+					|| I_M_ShipmentSchedule.COLUMNNAME_UpdatedBy.equals(columnName))
+			{
+				continue;
+			}
+
+			hasher.putString(columnName, StandardCharsets.UTF_8);
+			putValue(hasher, po.get_Value(i));
+		}
+	}
+
+	private static void putValue(final Hasher hasher, final Object value)
+	{
+		hasher.putString(toStableString(value), StandardCharsets.UTF_8);
+		hasher.putChar('|');
+	}
+
+	private static String toStableString(final Object value)
+	{
+		if (value == null)
+		{
+			return "<null>";
+		}
+		else if (value instanceof BigDecimal)
+		{
+			// the scale of a value that we just set is not necessarily the same as after loading it from database
+			final BigDecimal bd = (BigDecimal)value;
+			return bd.signum() == 0 ? "0" : bd.stripTrailingZeros().toPlainString();
+		}
+		else if (value instanceof RepoIdAware)
+		{
+			return String.valueOf(((RepoIdAware)value).getRepoId());
+		}
+		else
+		{
+			return value.toString();
+		}
+	}
+
+	private static final HashCode HASH_NothingPicked = Hashing.murmur3_128().hashString("nothing picked", StandardCharsets.UTF_8);
+
+	/**
+	 * Sums up the picked and delivered quantities, similar to {@link ShipmentScheduleAllocDAO#retrieveQtyDelivered(I_M_ShipmentSchedule)}
+	 * and {@link ShipmentScheduleAllocDAO#retrieveQtyPickedAndUnconfirmed(I_M_ShipmentSchedule)}, but for many schedules at once.
+	 */
+	private static Map<ShipmentScheduleId, HashCode> retrievePickedQtyHashes(final Set<ShipmentScheduleId> shipmentScheduleIds)
+	{
+		final Map<ShipmentScheduleId, HashCode> result = new HashMap<>();
+		for (final List<ShipmentScheduleId> chunk : Iterables.partition(shipmentScheduleIds, IN_ARRAY_MAX_SIZE))
+		{
+			final List<Object> sqlParams = new ArrayList<>();
+			final String sql = "SELECT qp." + I_M_ShipmentSchedule_QtyPicked.COLUMNNAME_M_ShipmentSchedule_ID
+					+ "\n , SUM(CASE WHEN qp." + I_M_ShipmentSchedule_QtyPicked.COLUMNNAME_Processed + "='N' THEN qp." + I_M_ShipmentSchedule_QtyPicked.COLUMNNAME_QtyPicked + " ELSE 0 END) AS QtyPickedAndUnconfirmed"
+					+ "\n , SUM(CASE WHEN iol." + I_M_InOutLine.COLUMNNAME_IsActive + "='Y' AND iol." + I_M_InOutLine.COLUMNNAME_Processed + "='Y' THEN iol." + I_M_InOutLine.COLUMNNAME_MovementQty + " ELSE 0 END) AS QtyDelivered"
+					+ "\n , COUNT(1) AS CountRecords"
+					+ "\n FROM " + I_M_ShipmentSchedule_QtyPicked.Table_Name + " qp"
+					+ "\n LEFT OUTER JOIN " + I_M_InOutLine.Table_Name + " iol ON iol." + I_M_InOutLine.COLUMNNAME_M_InOutLine_ID + "=qp." + I_M_ShipmentSchedule_QtyPicked.COLUMNNAME_M_InOutLine_ID
+					+ "\n WHERE qp." + I_M_ShipmentSchedule_QtyPicked.COLUMNNAME_IsActive + "='Y'"
+					+ "\n AND qp." + I_M_ShipmentSchedule_QtyPicked.COLUMNNAME_M_ShipmentSchedule_ID + " IN " + DB.buildSqlList(chunk, sqlParams)
+					+ "\n GROUP BY qp." + I_M_ShipmentSchedule_QtyPicked.COLUMNNAME_M_ShipmentSchedule_ID;
+
+			PreparedStatement pstmt = null;
+			ResultSet rs = null;
+			try
+			{
+				pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_ThreadInherited);
+				DB.setParameters(pstmt, sqlParams);
+				rs = pstmt.executeQuery();
+				while (rs.next())
+				{
+					final ShipmentScheduleId shipmentScheduleId = ShipmentScheduleId.ofRepoId(rs.getInt(1));
+					final HashCode hash = Hashing.murmur3_128().newHasher()
+							.putString(toStableString(rs.getBigDecimal("QtyPickedAndUnconfirmed")), StandardCharsets.UTF_8)
+							.putChar('|')
+							.putString(toStableString(rs.getBigDecimal("QtyDelivered")), StandardCharsets.UTF_8)
+							.putChar('|')
+							.putInt(rs.getInt("CountRecords"))
+							.hash();
+					result.put(shipmentScheduleId, hash);
+				}
+			}
+			catch (final SQLException ex)
+			{
+				throw new DBException(ex, sql, sqlParams);
+			}
+			finally
+			{
+				DB.close(rs, pstmt);
+			}
+		}
+		return result;
+	}
+
+	private static final HashCode HASH_NoRecords = Hashing.murmur3_128().hashString("no records", StandardCharsets.UTF_8);
+
+	private static MasterDataHashes retrieveMasterDataHashes(final List<OlAndSched> olsAndScheds)
+	{
+		final Set<Integer> productIds = new HashSet<>();
+		final Set<Integer> bpartnerIds = new HashSet<>();
+		final Set<Integer> orderIds = new HashSet<>();
+		for (final OlAndSched olAndSched : olsAndScheds)
+		{
+			final I_M_ShipmentSchedule sched = olAndSched.getSched();
+			productIds.add(sched.getM_Product_ID());
+			bpartnerIds.addAll(extractBPartnerIds(sched));
+			if (sched.getC_Order_ID() > 0)
+			{
+				orderIds.add(sched.getC_Order_ID());
+			}
+		}
+
+		return MasterDataHashes.builder()
+				.productHashes(retrieveLastUpdatedHashes(I_M_Product.Table_Name, I_M_Product.COLUMNNAME_M_Product_ID, productIds))
+				.bpartnerHashes(retrieveLastUpdatedHashes(I_C_BPartner.Table_Name, I_C_BPartner.COLUMNNAME_C_BPartner_ID, bpartnerIds))
+				.bpartnerProductHashes(retrieveLastUpdatedHashes(I_C_BPartner_Product.Table_Name, I_C_BPartner_Product.COLUMNNAME_C_BPartner_ID, bpartnerIds))
+				.deliveryDayHashes(retrieveLastUpdatedHashes(I_M_DeliveryDay.Table_Name, I_M_DeliveryDay.COLUMNNAME_C_BPartner_ID, bpartnerIds))
+				.orderHashes(retrieveLastUpdatedHashes(I_C_Order.Table_Name, I_C_Order.COLUMNNAME_C_Order_ID, orderIds))
+				.build();
+	}
+
+	private static List<Integer> extractBPartnerIds(final I_M_ShipmentSchedule sched)
+	{
+		return sched.getC_BPartner_Override_ID() > 0
+				? ImmutableList.of(sched.getC_BPartner_ID(), sched.getC_BPartner_Override_ID())
+				: ImmutableList.of(sched.getC_BPartner_ID());
+	}
+
+	@Builder
+	private static class MasterDataHashes
+	{
+		@NonNull
+		private final Map<Integer, HashCode> productHashes;
+		@NonNull
+		private final Map<Integer, HashCode> bpartnerHashes;
+		/** by C_BPartner_ID; covers the drop-ship flag and vendor */
+		@NonNull
+		private final Map<Integer, HashCode> bpartnerProductHashes;
+		/** by C_BPartner_ID; covers the delivery day allocation and the preparation date */
+		@NonNull
+		private final Map<Integer, HashCode> deliveryDayHashes;
+		@NonNull
+		private final Map<Integer, HashCode> orderHashes;
+
+		public HashCode computeHash(final I_M_ShipmentSchedule sched)
+		{
+			final Hasher hasher = Hashing.murmur3_128().newHasher();
+			putHash(hasher, productHashes, sched.getM_Product_ID());
+			for (final Integer bpartnerId : extractBPartnerIds(sched))
+			{
+				putHash(hasher, bpartnerHashes, bpartnerId);
+				putHash(hasher, bpartnerProductHashes, bpartnerId);
+				putHash(hasher, deliveryDayHashes, bpartnerId);
+			}
+			putHash(hasher, orderHashes, sched.getC_Order_ID());
+			return hasher.hash();
+		}
+
+		private static void putHash(final Hasher hasher, final Map<Integer, HashCode> hashes, final int id)
+		{
+			hasher.putBytes(hashes.getOrDefault(id, HASH_NoRecords).asBytes());
+		}
+	}
+
+	/**
+	 * Fingerprints the records of the given table by their count and their last {@code Updated} timestamp, grouped by the given column.
+	 * That's enough to notice that any of them was changed, created or deleted, without loading them.
+	 */
+	private static Map<Integer, HashCode> retrieveLastUpdatedHashes(
+			final String tableName,
+			final String groupByColumnName,
+			final Set<Integer> ids)
+	{
+		final Map<Integer, HashCode> result = new HashMap<>();
+		for (final List<Integer> chunk : Iterables.partition(ids, IN_ARRAY_MAX_SIZE))
+		{
+			final List<Object> sqlParams = new ArrayList<>();
+			final String sql = "SELECT " + groupByColumnName
+					+ "\n , COUNT(1) AS CountRecords"
+					+ "\n , MAX(Updated) AS LastUpdated"
+					+ "\n FROM " + tableName
+					+ "\n WHERE " + groupByColumnName + " IN " + DB.buildSqlList(chunk, sqlParams)
+					+ "\n GROUP BY " + groupByColumnName;
+
+			PreparedStatement pstmt = null;
+			ResultSet rs = null;
+			try
+			{
+				pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_ThreadInherited);
+				DB.setParameters(pstmt, sqlParams);
+				rs = pstmt.executeQuery();
+				while (rs.next())
+				{
+					final HashCode hash = Hashing.murmur3_128().newHasher()
+							.putInt(rs.getInt("CountRecords"))
+							.putChar('|')
+							.putString(toStableString(rs.getTimestamp("LastUpdated")), StandardCharsets.UTF_8)
+							.hash();
+					result.put(rs.getInt(1), hash);
+				}
+			}
+			catch (final SQLException ex)
+			{
+				throw new DBException(ex, sql, sqlParams);
+			}
+			finally
+			{
+				DB.close(rs, pstmt);
+			}
+		}
+		return result;
+	}
+}
@@ -28,10 +28,23 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
 
 import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxListenerManager.TrxEventTiming;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.inout.util.ShipmentScheduleQtyOnHandStorageFactory;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.jmx.JMXRegistry;
+import org.adempiere.util.jmx.JMXRegistry.OnJMXAlreadyExistsPolicy;
+import org.compiere.Adempiere;
 import org.slf4j.Logger;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 import de.metas.inoutcandidate.api.IShipmentScheduleBL;
@@ -41,6 +54,8 @@ import de.metas.inoutcandidate.api.IShipmentSchedulePA;
 import de.metas.inoutcandidate.api.IShipmentScheduleUpdater;
 import de.metas.inoutcandidate.api.OlAndSched;
 import de.metas.inoutcandidate.api.ShipmentScheduleId;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleChangeDetector.Component;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleChangeDetector.ScheduleInputs;
 import de.metas.inoutcandidate.model.I_M_ShipmentSchedule;
 import de.metas.logging.LogManager;
 import de.metas.process.PInstanceId;
@@ -58,6 +73,36 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 
 	private static final Logger logger = LogManager.getLogger(ShipmentScheduleUpdater.class);
 
+	/**
+	 * If enabled, invalid shipment schedules are only recomputed if any of their inputs changed since they were last recomputed by this JVM.
+	 * See {@link ShipmentScheduleChangeDetector} and {@link ShipmentScheduleInputsLoader}.
+	 * <p>
+	 * Disabled by default, because the fingerprint does not cover everything which the recompute might read (e.g. custom candidate processors).
+	 */
+	@VisibleForTesting
+	static final String SYSCONFIG_SkipUnchanged = "de.metas.inoutcandidate.ShipmentScheduleUpdater.SkipUnchanged";
+	private static final boolean DEFAULT_SkipUnchanged = false;
+
+	private static final long CHANGE_DETECTOR_MaxSize = 200_000;
+	private static final long CHANGE_DETECTOR_ExpireAfterMinutes = 60;
+
+	private final ShipmentScheduleChangeDetector changeDetector = new ShipmentScheduleChangeDetector(CHANGE_DETECTOR_MaxSize, CHANGE_DETECTOR_ExpireAfterMinutes);
+	private final LongAdder countInvalidated = new LongAdder();
+	private final LongAdder countRecomputed = new LongAdder();
+	private ShipmentScheduleInputsLoader _inputsLoader; // lazy
+
+	public ShipmentScheduleUpdater()
+	{
+		this(null);
+	}
+
+	@VisibleForTesting
+	ShipmentScheduleUpdater(@Nullable final ShipmentScheduleInputsLoader inputsLoader)
+	{
+		this._inputsLoader = inputsLoader;
+		JMXRegistry.get().registerJMX(new ShipmentScheduleUpdaterJMX(this), OnJMXAlreadyExistsPolicy.Replace);
+	}
+
 	@Override
 	public int updateShipmentSchedule(final Properties ctx, final int adUserId, final PInstanceId adPInstanceId)
 	{
@@ -75,7 +120,6 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 		// services
 		final IShipmentScheduleInvalidateRepository invalidSchedulesRepo = Services.get(IShipmentScheduleInvalidateRepository.class);
 		final IShipmentSchedulePA shipmentSchedulePA = Services.get(IShipmentSchedulePA.class);
-		final IShipmentScheduleBL shipmentScheduleBL = Services.get(IShipmentScheduleBL.class);
 
 		final Boolean running = this.running.get();
 		Check.assume(running == null || running == false, "updateShipmentSchedule is not already running");
@@ -95,15 +139,12 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 			}
 
 			final List<OlAndSched> collectResult = retrieveOlsAndSchedsToProcess(adPInstanceId);
-
-			logger.debug("Invoking shipmentScheduleBL to update {} shipment schedule entries.", collectResult.size());
-			shipmentScheduleBL.updateSchedules(ctx, collectResult, ITrx.TRXNAME_ThreadInherited);
+			final int countRecomputed = recomputeChanged(ctx, collectResult);
 
 			// cleanup the marker/pointer tables
 			invalidSchedulesRepo.deleteRecomputeMarkersOutOfTrx(adPInstanceId);
 
-			logger.debug("Done");
-			return collectResult.size();
+			return countRecomputed;
 		}
 		finally
 		{
@@ -120,6 +161,106 @@ public class ShipmentScheduleUpdater implements IShipmentScheduleUpdater
 		}
 	}
 
+	/**
+	 * Recomputes the given invalid schedules, except for those which were not changed since they were last recomputed.
+	 *
+	 * @return how many schedules were recomputed
+	 */
+	@VisibleForTesting
+	int recomputeChanged(final Properties ctx, final List<OlAndSched> collectResult)
+	{
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+
+		final boolean skipUnchanged = isSkipUnchanged() && !collectResult.isEmpty();
+		final List<ScheduleInputs> inputs = skipUnchanged ? getInputsLoader().loadInputs(collectResult) : ImmutableList.of();
+		final List<Component> components = skipUnchanged ? ShipmentScheduleChangeDetector.computeComponents(inputs) : ImmutableList.of();
+		final List<OlAndSched> olsAndSchedsToRecompute = skipUnchanged ? filterChanged(collectResult, components) : collectResult;
+
+		logger.debug("Invoking shipmentScheduleBL to update {} of {} invalid shipment schedule entries.", olsAndSchedsToRecompute.size(), collectResult.size());
+		Services.get(IShipmentScheduleBL.class).updateSchedules(ctx, olsAndSchedsToRecompute, ITrx.TRXNAME_ThreadInherited);
+
+		if (skipUnchanged)
+		{
+			rememberRecomputedAfterCommit(olsAndSchedsToRecompute, inputs);
+		}
+
+		countInvalidated.add(collectResult.size());
+		countRecomputed.add(olsAndSchedsToRecompute.size());
+
+		logger.debug("Done: recomputed {} of {} invalid shipment schedules ({} components) in {}", olsAndSchedsToRecompute.size(), collectResult.size(), components.size(), stopwatch);
+		return olsAndSchedsToRecompute.size();
+	}
+
+	/**
+	 * @return how many shipment schedules were invalid when the updater ran
+	 */
+	long getInvalidatedCount()
+	{
+		return countInvalidated.sum();
+	}
+
+	/**
+	 * @return how many of the invalid shipment schedules were actually recomputed
+	 */
+	long getRecomputedCount()
+	{
+		return countRecomputed.sum();
+	}
+
+	ShipmentScheduleChangeDetector getChangeDetector()
+	{
+		return changeDetector;
+	}
+
+	boolean isSkipUnchanged()
+	{
+		return Services.get(ISysConfigBL.class).getBooleanValue(SYSCONFIG_SkipUnchanged, DEFAULT_SkipUnchanged);
+	}
+
+	private ShipmentScheduleInputsLoader getInputsLoader()
+	{
+		if (_inputsLoader == null)
+		{
+			_inputsLoader = new ShipmentScheduleInputsLoader(Adempiere.getBean(ShipmentScheduleQtyOnHandStorageFactory.class));
+		}
+		return _inputsLoader;
+	}
+
+	private List<OlAndSched> filterChanged(final List<OlAndSched> olsAndScheds, final List<Component> components)
+	{
+		final Set<ShipmentScheduleId> unchangedIds = components.stream()
+				.filter(changeDetector::isUnchanged)
+				.flatMap(component -> component.getShipmentScheduleIds().stream())
+				.collect(ImmutableSet.toImmutableSet());
+		if (unchangedIds.isEmpty())
+		{
+			return olsAndScheds;
+		}
+
+		return olsAndScheds.stream()
+				.filter(olAndSched -> !unchangedIds.contains(ShipmentScheduleId.ofRepoId(olAndSched.getSched().getM_ShipmentSchedule_ID())))
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	/**
+	 * Remembers the inputs which the given schedules have after they were recomputed, so that the next runs can skip them as long as those inputs don't change.
+	 */
+	private void rememberRecomputedAfterCommit(final List<OlAndSched> olsAndSchedsRecomputed, final List<ScheduleInputs> inputsBeforeRecompute)
+	{
+		if (olsAndSchedsRecomputed.isEmpty())
+		{
+			return;
+		}
+
+		final List<ScheduleInputs> inputsAfterRecompute = getInputsLoader().reloadInputsAfterRecompute(olsAndSchedsRecomputed, inputsBeforeRecompute);
+		final List<Component> components = ShipmentScheduleChangeDetector.computeComponents(inputsAfterRecompute);
+
+		Services.get(ITrxManager.class)
+				.getTrxListenerManagerOrAutoCommit(ITrx.TRXNAME_ThreadInherited)
+				.newEventListener(TrxEventTiming.AFTER_COMMIT)
+				.registerHandlingMethod(trx -> changeDetector.rememberRecomputed(components));
+	}
+
 	@Override
 	public boolean isRunning()
 	{
@@ -0,0 +1,79 @@
+package de.metas.inoutcandidate.api.impl;
+
+import org.adempiere.util.jmx.IJMXNameAware;
+
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ShipmentScheduleUpdaterJMX implements ShipmentScheduleUpdaterJMXMBean, IJMXNameAware
+{
+	private final ShipmentScheduleUpdater updater;
+
+	ShipmentScheduleUpdaterJMX(@NonNull final ShipmentScheduleUpdater updater)
+	{
+		this.updater = updater;
+	}
+
+	@Override
+	public String getJMXName()
+	{
+		return "de.metas.inoutcandidate:type=" + ShipmentScheduleUpdater.class.getSimpleName();
+	}
+
+	@Override
+	public boolean isSkipUnchanged()
+	{
+		return updater.isSkipUnchanged();
+	}
+
+	@Override
+	public long getRememberedFingerprintsCount()
+	{
+		return updater.getChangeDetector().size();
+	}
+
+	@Override
+	public long getInvalidatedCount()
+	{
+		return updater.getInvalidatedCount();
+	}
+
+	@Override
+	public long getRecomputedCount()
+	{
+		return updater.getRecomputedCount();
+	}
+
+	@Override
+	public long getSkippedCount()
+	{
+		return updater.getInvalidatedCount() - updater.getRecomputedCount();
+	}
+
+	@Override
+	public void forgetFingerprints()
+	{
+		updater.getChangeDetector().forgetAll();
+	}
+}
@@ -0,0 +1,47 @@
+package de.metas.inoutcandidate.api.impl;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public interface ShipmentScheduleUpdaterJMXMBean
+{
+	boolean isSkipUnchanged();
+
+	/**
+	 * @return for how many shipment schedules we remember the inputs of their last recompute
+	 */
+	long getRememberedFingerprintsCount();
+
+	long getInvalidatedCount();
+
+	long getRecomputedCount();
+
+	/**
+	 * @return how many invalidated shipment schedules were not recomputed because their inputs did not change
+	 */
+	long getSkippedCount();
+
+	/**
+	 * Forget the inputs of the last recomputes, so that the next runs will recompute all invalidated shipment schedules.
+	 */
+	void forgetFingerprints();
+}
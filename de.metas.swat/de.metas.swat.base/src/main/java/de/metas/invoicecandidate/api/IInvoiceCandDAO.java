@@ -41,6 +41,8 @@ import org.compiere.model.I_C_InvoiceSchedule;
 import org.compiere.model.I_M_InOut;
 import org.compiere.model.I_M_InOutLine;
 
+import com.google.common.collect.ImmutableListMultimap;
+
 import de.metas.adempiere.model.I_C_Invoice;
 import de.metas.aggregation.model.I_C_Aggregation;
 import de.metas.bpartner.BPartnerId;
@@ -88,6 +90,13 @@ public interface IInvoiceCandDAO extends ISingletonService
 	 */
 	Iterator<I_C_Invoice_Candidate> fetchInvalidInvoiceCandidates(Properties ctx, InvoiceCandRecomputeTag recomputeTag, String trxName);
 
+	/**
+	 * Returns the IDs of those invoice candidates that have been tagged to be recomputed/updated by the given <code>recomputeTag</code>, grouped by their <code>Bill_BPartner_ID</code>.
+	 *
+	 * Within one group, the IDs are in the same order as {@link #fetchInvalidInvoiceCandidates(Properties, InvoiceCandRecomputeTag, String)} would return the candidates.
+	 */
+	ImmutableListMultimap<Integer, Integer> fetchInvalidInvoiceCandidateIdsByBillBPartnerId(Properties ctx, InvoiceCandRecomputeTag recomputeTag, String trxName);
+
 	/**
 	 * @return new unique recompute tag
 	 */
@@ -280,6 +289,16 @@ public interface IInvoiceCandDAO extends ISingletonService
 	 */
 	List<I_C_InvoiceCandidate_InOutLine> retrieveICIOLAssociationsExclRE(I_C_Invoice_Candidate invoiceCandidate);
 
+	/**
+	 * @return the given association's inout line; if the association's invoice candidate is currently updated, the inout line was already loaded together with the other candidates
+	 */
+	I_M_InOutLine retrieveInOutLine(I_C_InvoiceCandidate_InOutLine iciol);
+
+	/**
+	 * @return the inout of the given association's inout line; if the association's invoice candidate is currently updated, the inout was already loaded together with the other candidates
+	 */
+	I_M_InOut retrieveInOut(I_C_InvoiceCandidate_InOutLine iciol);
+
 	/**
 	 *
 	 * @param inOutLine
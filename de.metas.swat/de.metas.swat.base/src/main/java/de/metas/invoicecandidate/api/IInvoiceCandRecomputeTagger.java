@@ -26,6 +26,8 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Properties;
 
+import com.google.common.collect.ImmutableListMultimap;
+
 import de.metas.invoicecandidate.model.I_C_Invoice_Candidate;
 import de.metas.lock.api.ILock;
 
@@ -80,6 +82,14 @@ public interface IInvoiceCandRecomputeTagger
 	 */
 	Iterator<I_C_Invoice_Candidate> retrieveInvoiceCandidates();
 
+	/**
+	 * Retrieves the IDs of the tagged invoice candidates, grouped by <code>Bill_BPartner_ID</code>.
+	 * Within one group, the IDs are ordered the same way as {@link #retrieveInvoiceCandidates()} would return the candidates.
+	 *
+	 * This method assumes {@link #tag()} was called before.
+	 */
+	ImmutableListMultimap<Integer, Integer> retrieveInvoiceCandidateIdsByBillBPartnerId();
+
 	/** @param recomputeTag recompute tag to be used */
 	IInvoiceCandRecomputeTagger setRecomputeTag(final InvoiceCandRecomputeTag recomputeTag);
 
@@ -1749,7 +1749,7 @@ public class InvoiceCandBL implements IInvoiceCandBL
 		final List<I_C_InvoiceCandidate_InOutLine> iciols = invoiceCandDAO.retrieveICIOLAssociationsExclRE(ic);
 		for (final I_C_InvoiceCandidate_InOutLine iciol : iciols)
 		{
-			final org.compiere.model.I_M_InOutLine inoutLine = iciol.getM_InOutLine();
+			final org.compiere.model.I_M_InOutLine inoutLine = invoiceCandDAO.retrieveInOutLine(iciol);
 			final IQtyAndQuality inoutLineQtys = inOutCandidateBL.getQtyAndQuality(inoutLine);
 			// TODO: handle UOM conversions
 
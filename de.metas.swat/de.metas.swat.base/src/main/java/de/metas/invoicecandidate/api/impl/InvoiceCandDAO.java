@@ -77,6 +77,7 @@ import org.slf4j.Logger;
 
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
 
 import ch.qos.logback.classic.Level;
@@ -120,6 +121,7 @@ import de.metas.process.PInstanceId;
 import de.metas.security.IUserRolePermissions;
 import de.metas.util.Check;
 import de.metas.util.Loggables;
+import de.metas.util.NumberUtils;
 import de.metas.util.Services;
 import de.metas.util.time.SystemTime;
 import lombok.NonNull;
@@ -359,6 +361,12 @@ public class InvoiceCandDAO implements IInvoiceCandDAO
 	@Override
 	public boolean existsInvoiceCandidateInOutLinesForInvoiceCandidate(final I_C_Invoice_Candidate ic, final I_M_InOutLine iol)
 	{
+		final InvoiceCandUpdateChunkData chunkData = InvoiceCandUpdateChunkData.getCurrentOrNull(ic.getC_Invoice_Candidate_ID());
+		if (chunkData != null)
+		{
+			return chunkData.existsICIOLAssociation(ic.getC_Invoice_Candidate_ID(), iol.getM_InOutLine_ID());
+		}
+
 		return Services.get(IQueryBL.class)
 				.createQueryBuilder(I_C_InvoiceCandidate_InOutLine.class, ic)
 				.addEqualsFilter(I_C_InvoiceCandidate_InOutLine.COLUMN_C_Invoice_Candidate_ID, ic.getC_Invoice_Candidate_ID())
@@ -383,6 +391,12 @@ public class InvoiceCandDAO implements IInvoiceCandDAO
 
 	public List<I_C_InvoiceCandidate_InOutLine> retrieveICIOLAssociationsExclRE(@NonNull final InvoiceCandidateId invoiceCandidateId)
 	{
+		final InvoiceCandUpdateChunkData chunkData = InvoiceCandUpdateChunkData.getCurrentOrNull(invoiceCandidateId.getRepoId());
+		if (chunkData != null)
+		{
+			return chunkData.getICIOLAssociationsExclRE(invoiceCandidateId.getRepoId());
+		}
+
 		// load all I_C_InvoiceCandidate_InOutLine and filter locally.
 		// i think it's safe to assume that there are not 1000s of records to load and this way the code is simpler
 		final IQueryBL queryBL = Services.get(IQueryBL.class);
@@ -396,6 +410,22 @@ public class InvoiceCandDAO implements IInvoiceCandDAO
 				.collect(ImmutableList.toImmutableList());
 	}
 
+	@Override
+	public I_M_InOutLine retrieveInOutLine(@NonNull final I_C_InvoiceCandidate_InOutLine iciol)
+	{
+		final InvoiceCandUpdateChunkData chunkData = InvoiceCandUpdateChunkData.getCurrentOrNull(iciol.getC_Invoice_Candidate_ID());
+		final I_M_InOutLine inOutLine = chunkData != null ? chunkData.getInOutLineOrNull(iciol) : null;
+		return inOutLine != null ? inOutLine : iciol.getM_InOutLine();
+	}
+
+	@Override
+	public I_M_InOut retrieveInOut(@NonNull final I_C_InvoiceCandidate_InOutLine iciol)
+	{
+		final InvoiceCandUpdateChunkData chunkData = InvoiceCandUpdateChunkData.getCurrentOrNull(iciol.getC_Invoice_Candidate_ID());
+		final I_M_InOut inOut = chunkData != null ? chunkData.getInOutOrNull(iciol) : null;
+		return inOut != null ? inOut : retrieveInOutLine(iciol).getM_InOut();
+	}
+
 	private boolean isInOutCompletedOrClosed(@NonNull final I_C_InvoiceCandidate_InOutLine iciol)
 	{
 		final IDocumentBL docActionBL = Services.get(IDocumentBL.class);
@@ -606,6 +636,12 @@ public class InvoiceCandDAO implements IInvoiceCandDAO
 	@Override
 	public final List<I_C_Invoice_Line_Alloc> retrieveIlaForIc(final I_C_Invoice_Candidate invoiceCand)
 	{
+		final InvoiceCandUpdateChunkData chunkData = InvoiceCandUpdateChunkData.getCurrentOrNull(invoiceCand.getC_Invoice_Candidate_ID());
+		if (chunkData != null)
+		{
+			return chunkData.getIlas(invoiceCand.getC_Invoice_Candidate_ID());
+		}
+
 		final IQueryBuilder<I_C_Invoice_Line_Alloc> ilaQueryBuilder = Services.get(IQueryBL.class).createQueryBuilder(I_C_Invoice_Line_Alloc.class, invoiceCand)
 				.addOnlyActiveRecordsFilter()
 				.addEqualsFilter(I_C_Invoice_Line_Alloc.COLUMNNAME_C_Invoice_Candidate_ID, invoiceCand.getC_Invoice_Candidate_ID());
@@ -874,6 +910,42 @@ public class InvoiceCandDAO implements IInvoiceCandDAO
 			final Properties ctx,
 			@NonNull final InvoiceCandRecomputeTag recomputeTag,
 			final String trxName)
+	{
+		return createInvalidInvoiceCandidatesQuery(ctx, recomputeTag, trxName)
+				//
+				// Execute query:
+				// NOTE (task 03968): performance tweak that is necessary when updating around 70.000 candidates at once:
+				// don't use a 'guaranteed' iterator; *we don't need it* and selecting/ordering joining between
+				// C_Invoice_Candidate and T_Query_Selection is a performance-killer (at least on our 32bit instance)
+				.setOption(IQuery.OPTION_GuaranteedIteratorRequired, false)
+				.setOption(IQuery.OPTION_IteratorBufferSize, 500)
+				.iterate(I_C_Invoice_Candidate.class);
+	}
+
+	@Override
+	public final ImmutableListMultimap<Integer, Integer> fetchInvalidInvoiceCandidateIdsByBillBPartnerId(
+			final Properties ctx,
+			@NonNull final InvoiceCandRecomputeTag recomputeTag,
+			final String trxName)
+	{
+		// NOTE: don't load the whole invoice candidates, there might be a lot of them
+		final List<Map<String, Object>> rows = createInvalidInvoiceCandidatesQuery(ctx, recomputeTag, trxName)
+				.listColumns(I_C_Invoice_Candidate.COLUMNNAME_Bill_BPartner_ID, I_C_Invoice_Candidate.COLUMNNAME_C_Invoice_Candidate_ID);
+
+		final ImmutableListMultimap.Builder<Integer, Integer> result = ImmutableListMultimap.builder();
+		for (final Map<String, Object> row : rows)
+		{
+			final int billBPartnerId = NumberUtils.asInt(row.get(I_C_Invoice_Candidate.COLUMNNAME_Bill_BPartner_ID), -1);
+			final int invoiceCandidateId = NumberUtils.asInt(row.get(I_C_Invoice_Candidate.COLUMNNAME_C_Invoice_Candidate_ID), -1);
+			result.put(billBPartnerId, invoiceCandidateId);
+		}
+		return result.build();
+	}
+
+	private IQuery<I_C_Invoice_Candidate> createInvalidInvoiceCandidatesQuery(
+			final Properties ctx,
+			@NonNull final InvoiceCandRecomputeTag recomputeTag,
+			final String trxName)
 	{
 		return Services.get(IQueryBL.class)
 				.createQueryBuilder(I_C_Invoice_Candidate_Recompute.class, ctx, trxName)
@@ -890,15 +962,7 @@ public class InvoiceCandDAO implements IInvoiceCandDAO
 				.addColumn(I_C_Invoice_Candidate.COLUMN_IsManual)
 				.addColumn(I_C_Invoice_Candidate.COLUMN_C_Invoice_Candidate_ID)
 				.endOrderBy()
-				//
-				// Execute query:
-				// NOTE (task 03968): performance tweak that is necessary when updating around 70.000 candidates at once:
-				// don't use a 'guaranteed' iterator; *we don't need it* and selecting/ordering joining between
-				// C_Invoice_Candidate and T_Query_Selection is a performance-killer (at least on our 32bit instance)
-				.create()
-				.setOption(IQuery.OPTION_GuaranteedIteratorRequired, false)
-				.setOption(IQuery.OPTION_IteratorBufferSize, 500)
-				.iterate(I_C_Invoice_Candidate.class);
+				.create();
 	}
 
 	@Override
@@ -29,6 +29,14 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
 
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxManager;
@@ -39,10 +47,15 @@ import org.adempiere.ad.trx.processor.spi.TrxItemChunkProcessorAdapter;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
 import org.adempiere.util.lang.IAutoCloseable;
 import org.adempiere.util.lang.IContextAware;
+import org.compiere.util.Env;
 import org.slf4j.Logger;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableListMultimap;
+
 import ch.qos.logback.classic.Level;
 import de.metas.inout.IInOutDAO;
 import de.metas.invoicecandidate.api.IInvoiceCandDAO;
@@ -79,6 +92,19 @@ import lombok.NonNull;
 	private static final String SYSCONFIG_ItemsPerBatch = "de.metas.invoicecandidate.api.impl.InvoiceCandInvalidUpdater.ItemsPerBatch";
 	private static final int DEFAULT_ItemsPerBatch = 100;
 
+	/** Max. number of invoice candidates whose related records are loaded together, see {@link InvoiceCandUpdateChunkData} */
+	private static final int MAX_ChunkDataSize = 500;
+
+	/**
+	 * How many threads shall update the invoice candidates. If greater than one, the candidates are partitioned by their bill partner and the partitions are updated concurrently.
+	 * Only applies if we manage the transactions ourselves.
+	 */
+	private static final String SYSCONFIG_Parallelism = "de.metas.invoicecandidate.api.impl.InvoiceCandInvalidUpdater.Parallelism";
+	private static final int DEFAULT_Parallelism = 1;
+
+	/** How many partitions we aim to have per thread, so that all threads keep busy even if the partitions' update times are different */
+	private static final int PARTITIONS_PER_THREAD = 4;
+
 	//
 	// Parameters
 	private Properties _ctx;
@@ -146,6 +172,18 @@ import lombok.NonNull;
 		final boolean processInBatches = !icTagger.isOnlyC_Invoice_Candidate_IDs();
 		final int itemsPerBatch = processInBatches ? getItemsPerBatch() : Integer.MAX_VALUE;
 
+		//
+		// Update the invoice candidates in parallel, if configured and if we are managing the transactions
+		if (processInBatches && isManagingTrx())
+		{
+			final int parallelism = getParallelism();
+			if (parallelism > 1)
+			{
+				updateTaggedInParallel(parallelism, itemsPerBatch);
+				return;
+			}
+		}
+
 		//
 		// Fetch the invoice candidates to update
 		final Iterator<I_C_Invoice_Candidate> candidatesToUpdate = icTagger.retrieveInvoiceCandidates();
@@ -161,83 +199,241 @@ import lombok.NonNull;
 		final ICUpdateResult result = new ICUpdateResult();
 		try (final IAutoCloseable updateInProgressCloseable = invoiceCandBL.setUpdateProcessInProgress())
 		{
-			trxItemProcessorExecutorService.<I_C_Invoice_Candidate, ICUpdateResult> createExecutor()
-					.setContext(getCtx(), getTrxName()) // if called from process or wp-processor then getTrxName() is null because *we* want to manage the trx => commit after each chunk
-					.setItemsPerBatch(itemsPerBatch)
+			// if called from process or wp-processor then getTrxName() is null because *we* want to manage the trx => commit after each chunk
+			updateInChunks(candidatesToUpdate, getCtx(), getTrxName(), itemsPerBatch, result);
+		}
+
+		//
+		// Log the result
+		Loggables.get().addLog("Update invalid result: {}", result.getSummary());
+	}
+
+	/**
+	 * Update all invoice candidates which were tagged, partitioned by bill partner, using <code>parallelism</code> threads.
+	 * Each partition is updated in its own thread and is committing after each chunk, just like {@link #updateTagged()} does.
+	 */
+	private final void updateTaggedInParallel(final int parallelism, final int itemsPerBatch)
+	{
+		final ImmutableListMultimap<Integer, Integer> icIdsByBillBPartnerId = icTagger.retrieveInvoiceCandidateIdsByBillBPartnerId();
+		if (icIdsByBillBPartnerId.isEmpty())
+		{
+			// no candidates found => nothing to do
+			Loggables.get().withLogger(logger, Level.DEBUG).addLog("icTagger has no invoice candidates to update; nothing to do; icTagger={}", icTagger);
+			return;
+		}
+
+		final int targetPartitionSize = Math.max(itemsPerBatch, icIdsByBillBPartnerId.size() / (parallelism * PARTITIONS_PER_THREAD));
+		final List<InvoiceCandUpdatePartition> partitions = InvoiceCandUpdatePartition.partitionByBillBPartnerId(icIdsByBillBPartnerId, targetPartitionSize);
+		final int threadsCount = Math.min(parallelism, partitions.size());
+
+		final Properties ctx = getCtx();
+		final ExecutorService executor = Executors.newFixedThreadPool(
+				threadsCount,
+				CustomizableThreadFactory.builder()
+						.setThreadNamePrefix(InvoiceCandInvalidUpdater.class.getSimpleName())
+						.setDaemon(true)
+						.build());
+
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		final ICUpdateResult result = new ICUpdateResult();
+		try
+		{
+			final List<Future<ICUpdateResult>> futures = new ArrayList<>(partitions.size());
+			for (final InvoiceCandUpdatePartition partition : partitions)
+			{
+				futures.add(executor.submit(() -> updatePartition(ctx, partition, itemsPerBatch)));
+			}
+
+			Throwable failure = null;
+			for (final Future<ICUpdateResult> future : futures)
+			{
+				try
+				{
+					final ICUpdateResult partitionResult = future.get();
+					result.add(partitionResult);
+					Loggables.get().addLog("{}", partitionResult.getSummary());
+				}
+				catch (final CancellationException e)
+				{
+					// we canceled it because another partition failed
+				}
+				catch (final ExecutionException e)
+				{
+					failure = failure != null ? failure : e.getCause();
+					futures.forEach(f -> f.cancel(false));
+				}
+				catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					failure = failure != null ? failure : e;
+					futures.forEach(f -> f.cancel(false));
+				}
+			}
+
+			if (failure != null)
+			{
+				throw AdempiereException.wrapIfNeeded(failure);
+			}
+		}
+		finally
+		{
+			// make sure no partition is still running when we return, because our caller might untag the candidates
+			shutdownAndWait(executor);
+		}
+
+		//
+		// Log the result
+		stopwatch.stop();
+		Loggables.get().addLog("Update invalid result: {}; {} partitions, {} threads, took {} ({} ICs/sec)",
+				result.getSummary(), partitions.size(), threadsCount, stopwatch, computeThroughput(result.getCountTotal(), stopwatch));
+	}
+
+	private ICUpdateResult updatePartition(final Properties ctx, final InvoiceCandUpdatePartition partition, final int itemsPerBatch)
+	{
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		final ICUpdateResult result = new ICUpdateResult();
+		try (final IAutoCloseable contextRestorer = Env.switchContext(Env.copyCtx(ctx));
+				final IAutoCloseable updateInProgressCloseable = invoiceCandBL.setUpdateProcessInProgress())
+		{
+			final InvoiceCandUpdatePartitionIterator candidatesToUpdate = new InvoiceCandUpdatePartitionIterator(partition.getInvoiceCandidateIds(), itemsPerBatch);
+			updateInChunks(candidatesToUpdate, Env.getCtx(), ITrx.TRXNAME_ThreadInherited, itemsPerBatch, result);
+		}
+		stopwatch.stop();
+
+		result.setPartitionInfo("Partition " + partition.getPartitionNo()
+				+ " (" + partition.getBillBPartnerIds().size() + " bill partners, " + partition.size() + " ICs)"
+				+ " took " + stopwatch + " (" + computeThroughput(result.getCountTotal(), stopwatch) + " ICs/sec)");
+		logger.info("{}", result.getSummary());
+
+		return result;
+	}
+
+	private static long computeThroughput(final int count, final Stopwatch stopwatch)
+	{
+		final long millis = Math.max(stopwatch.elapsed(TimeUnit.MILLISECONDS), 1);
+		return count * 1000L / millis;
+	}
+
+	private static void shutdownAndWait(final ExecutorService executor)
+	{
+		executor.shutdown();
+		boolean interrupted = false;
+		while (!executor.isTerminated())
+		{
+			try
+			{
+				executor.awaitTermination(1, TimeUnit.SECONDS);
+			}
+			catch (final InterruptedException e)
+			{
+				interrupted = true;
+			}
+		}
+
+		if (interrupted)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private final void updateInChunks(
+			final Iterator<I_C_Invoice_Candidate> candidatesToUpdate,
+			final Properties ctx,
+			final String trxName,
+			final int itemsPerBatch,
+			final ICUpdateResult result)
+	{
+		// load the candidates' related records in bulk, chunk by chunk
+		final InvoiceCandUpdateChunkIterator chunkIterator = new InvoiceCandUpdateChunkIterator(candidatesToUpdate, Math.min(itemsPerBatch, MAX_ChunkDataSize));
+
+		trxItemProcessorExecutorService.<I_C_Invoice_Candidate, ICUpdateResult> createExecutor()
+				.setContext(ctx, trxName)
+				.setItemsPerBatch(itemsPerBatch)
+
+				// Don't use trx savepoints because they are expensive and we are not going to rollback anyways (OnItemErrorPolicy.ContinueChunkAndCommit)
+				// Note that if our trx is null, then this doesn't matter anyways.
+				.setUseTrxSavepoints(false)
 
-					// Don't use trx savepoints because they are expensive and we are not going to rollback anyways (OnItemErrorPolicy.ContinueChunkAndCommit)
-					// Note that if our trx is null, then this doesn't matter anyways.
-					.setUseTrxSavepoints(false)
+				.setExceptionHandler(new ICTrxItemExceptionHandler(result))
 
-					.setExceptionHandler(new ICTrxItemExceptionHandler(result))
+				// issue #302: ICTrxItemExceptionHandler will deal with problems, so we just continue if they happen.
+				.setOnItemErrorPolicy(OnItemErrorPolicy.ContinueChunkAndCommit)
 
-					// issue #302: ICTrxItemExceptionHandler will deal with problems, so we just continue if they happen.
-					.setOnItemErrorPolicy(OnItemErrorPolicy.ContinueChunkAndCommit)
+				.setProcessor(new TrxItemChunkProcessorAdapter<I_C_Invoice_Candidate, ICUpdateResult>()
+				{
+					/** the invoice candidates which were updated in current batch/chunk */
+					final List<Integer> chunkInvoiceCandidateIds = new ArrayList<>();
 
-					.setProcessor(new TrxItemChunkProcessorAdapter<I_C_Invoice_Candidate, ICUpdateResult>()
+					@Override
+					public void process(final I_C_Invoice_Candidate ic) throws Exception
 					{
-						/** the invoice candidates which were updated in current batch/chunk */
-						final List<Integer> chunkInvoiceCandidateIds = new ArrayList<>();
+						chunkInvoiceCandidateIds.add(ic.getC_Invoice_Candidate_ID());
 
-						@Override
-						public void process(final I_C_Invoice_Candidate ic) throws Exception
+						updateInvalid(ic, chunkIterator.getCurrentChunkData());
+						if (!ic.isError())
 						{
-							chunkInvoiceCandidateIds.add(ic.getC_Invoice_Candidate_ID());
-
-							updateInvalid(ic);
-							if (!ic.isError())
-							{
-								result.addInvoiceCandidate(ic);
-							}
-							else
-							{
-								Loggables.get().withLogger(logger, Level.DEBUG)
-										.addLog("Error processing invoice; ic.errorMessage={}; ic={}", ic.getErrorMsg(), ic);
-								result.incrementErrorsCount();
-							}
+							result.addInvoiceCandidate(ic);
 						}
-
-						@Override
-						public ICUpdateResult getResult()
+						else
 						{
-							return result;
+							Loggables.get().withLogger(logger, Level.DEBUG)
+									.addLog("Error processing invoice; ic.errorMessage={}; ic={}", ic.getErrorMsg(), ic);
+							result.incrementErrorsCount();
 						}
+					}
 
-						/**
-						 * Always return <code>true</code> and let the caller decide when to close the chunk (based on ItemsPerBatch setting).
-						 * We do this because in fact, each IC is independent from each other.
-						 * On the other hand, we don't want the overhead of dealing with each IC independently (trx-commit etc).
-						 */
-						@Override
-						public boolean isSameChunk(final I_C_Invoice_Candidate item)
-						{
-							return true;
-						}
+					@Override
+					public ICUpdateResult getResult()
+					{
+						return result;
+					}
+
+					/**
+					 * Always return <code>true</code> and let the caller decide when to close the chunk (based on ItemsPerBatch setting).
+					 * We do this because in fact, each IC is independent from each other.
+					 * On the other hand, we don't want the overhead of dealing with each IC independently (trx-commit etc).
+					 */
+					@Override
+					public boolean isSameChunk(final I_C_Invoice_Candidate item)
+					{
+						return true;
+					}
 
-						@Override
-						public void newChunk(final I_C_Invoice_Candidate item)
-						{
-							chunkInvoiceCandidateIds.clear(); // better safe than sorry
-						}
+					@Override
+					public void newChunk(final I_C_Invoice_Candidate item)
+					{
+						chunkInvoiceCandidateIds.clear(); // better safe than sorry
+					}
 
-						/** Delete the items which we just updated from <code>C_Invoice_Candidate_Recompute</code>. */
-						@Override
-						public void completeChunk()
-						{
-							icTagger.deleteTaggedAndInvalidateCache(chunkInvoiceCandidateIds);
-							chunkInvoiceCandidateIds.clear();
-						}
-					})
-					//
-					.process(candidatesToUpdate);
+					/** Delete the items which we just updated from <code>C_Invoice_Candidate_Recompute</code>. */
+					@Override
+					public void completeChunk()
+					{
+						icTagger.deleteTaggedAndInvalidateCache(chunkInvoiceCandidateIds);
+						chunkInvoiceCandidateIds.clear();
+					}
+				})
+				//
+				.process(chunkIterator);
+	}
+
+	/**
+	 * @param chunkData if not null, the related records which were loaded for the candidate's chunk are used instead of querying them one candidate at a time.
+	 *            Note that the chunk data are not used while the candidate is saved, so model interceptors always work with the records of the candidate's own transaction.
+	 */
+	private final void updateInvalid(final I_C_Invoice_Candidate ic, @Nullable final InvoiceCandUpdateChunkData chunkData)
+	{
+		try (final IAutoCloseable chunkDataActivated = chunkData != null ? chunkData.activate() : () -> {})
+		{
+			updateInvalid0(ic);
 		}
 
 		//
-		// Log the result
-		Loggables.get().addLog("Update invalid result: {}", result.getSummary());
+		// Save it
+		invoiceCandDAO.save(ic);
 	}
 
-	private final void updateInvalid(final I_C_Invoice_Candidate ic)
+	private final void updateInvalid0(final I_C_Invoice_Candidate ic)
 	{
 		final Properties ctx = InterfaceWrapperHelper.getCtx(ic);
 
@@ -268,7 +464,15 @@ import lombok.NonNull;
 		// Note: the code originally related to task 06502 has partially been moved to de.metas.invoicecandidate.modelvalidator.M_InoutLine
 		// we'll need those icIols to be up to date to date in order to have QtyWithIssues (updateQtyWithIssues() et al. further down),
 		// and we need them (depending on which handler) for setDeliveredData()
-		populateC_InvoiceCandidate_InOutLine(ic, ic.getC_OrderLine());
+		final InvoiceCandUpdateChunkData chunkData = InvoiceCandUpdateChunkData.getCurrentOrNull(ic.getC_Invoice_Candidate_ID());
+		if (chunkData != null)
+		{
+			populateC_InvoiceCandidate_InOutLine(ic, chunkData);
+		}
+		else
+		{
+			populateC_InvoiceCandidate_InOutLine(ic, ic.getC_OrderLine());
+		}
 
 		// updating qty delivered
 		// 07814-IT2 only from now on we have the correct QtyDelivered
@@ -342,10 +546,6 @@ import lombok.NonNull;
 		invoiceCandBL.setNetAmtToInvoice(ic);
 
 		invoiceCandBL.setInvoiceScheduleAmtStatus(ctx, ic);
-
-		//
-		// Save it
-		invoiceCandDAO.save(ic);
 	}
 
 	/**
@@ -371,14 +571,45 @@ import lombok.NonNull;
 				continue; // nothing to to, record already exists
 			}
 
-			final I_C_InvoiceCandidate_InOutLine iciol = InterfaceWrapperHelper.newInstance(I_C_InvoiceCandidate_InOutLine.class, context);
-			iciol.setAD_Org_ID(inOutLine.getAD_Org_ID());
-			iciol.setM_InOutLine(inOutLine);
-			iciol.setC_Invoice_Candidate(ic);
-			InterfaceWrapperHelper.save(iciol);
+			createC_InvoiceCandidate_InOutLine(ic, inOutLine, context);
+		}
+	}
+
+	/**
+	 * Same as {@link #populateC_InvoiceCandidate_InOutLine(I_C_Invoice_Candidate, org.compiere.model.I_C_OrderLine)}, but uses the given pre-loaded inout lines and associations.
+	 */
+	private void populateC_InvoiceCandidate_InOutLine(final I_C_Invoice_Candidate ic, final InvoiceCandUpdateChunkData chunkData)
+	{
+		final int orderLineId = ic.getC_OrderLine_ID();
+		if (orderLineId <= 0)
+		{
+			return; // nothing to do
+		}
+
+		final IContextAware context = InterfaceWrapperHelper.getContextAware(ic);
+
+		for (final I_M_InOutLine inOutLine : chunkData.getInOutLinesForOrderLineId(orderLineId))
+		{
+			if (chunkData.existsICIOLAssociation(ic.getC_Invoice_Candidate_ID(), inOutLine.getM_InOutLine_ID()))
+			{
+				continue; // nothing to to, record already exists
+			}
+
+			final I_C_InvoiceCandidate_InOutLine iciol = createC_InvoiceCandidate_InOutLine(ic, inOutLine, context);
+			chunkData.addICIOLAssociation(iciol, inOutLine);
 		}
 	}
 
+	private static I_C_InvoiceCandidate_InOutLine createC_InvoiceCandidate_InOutLine(final I_C_Invoice_Candidate ic, final I_M_InOutLine inOutLine, final IContextAware context)
+	{
+		final I_C_InvoiceCandidate_InOutLine iciol = InterfaceWrapperHelper.newInstance(I_C_InvoiceCandidate_InOutLine.class, context);
+		iciol.setAD_Org_ID(inOutLine.getAD_Org_ID());
+		iciol.setM_InOutLine(inOutLine);
+		iciol.setC_Invoice_Candidate(ic);
+		InterfaceWrapperHelper.save(iciol);
+		return iciol;
+	}
+
 	private final void assertNotExecuted()
 	{
 		Check.assume(!executed, "Updater not executed: {}", this);
@@ -481,11 +712,24 @@ import lombok.NonNull;
 		return this;
 	}
 
+	/**
+	 * @return true if neither our caller nor the current thread have a transaction, i.e. the trx item processor will create and commit its own transactions
+	 */
+	private final boolean isManagingTrx()
+	{
+		return trxManager.isNull(_trxName) && trxManager.isNull(trxManager.getThreadInheritedTrxName());
+	}
+
 	private final int getItemsPerBatch()
 	{
 		return sysConfigBL.getIntValue(SYSCONFIG_ItemsPerBatch, DEFAULT_ItemsPerBatch);
 	}
 
+	private final int getParallelism()
+	{
+		return sysConfigBL.getIntValue(SYSCONFIG_Parallelism, DEFAULT_Parallelism);
+	}
+
 	/**
 	 * IC update result.
 	 *
@@ -496,6 +740,7 @@ import lombok.NonNull;
 	{
 		private int countOk = 0;
 		private int countErrors = 0;
+		private String partitionInfo = null;
 
 		public void addInvoiceCandidate(final I_C_Invoice_Candidate ic)
 		{
@@ -507,6 +752,22 @@ import lombok.NonNull;
 			countErrors++;
 		}
 
+		public void add(final ICUpdateResult partitionResult)
+		{
+			countOk += partitionResult.countOk;
+			countErrors += partitionResult.countErrors;
+		}
+
+		public int getCountTotal()
+		{
+			return countOk + countErrors;
+		}
+
+		public void setPartitionInfo(final String partitionInfo)
+		{
+			this.partitionInfo = partitionInfo;
+		}
+
 		@Override
 		public String toString()
 		{
@@ -515,7 +776,8 @@ import lombok.NonNull;
 
 		public String getSummary()
 		{
-			return "Updated " + countOk + " invoice candidates, " + countErrors + " errors";
+			final String summary = "Updated " + countOk + " invoice candidates, " + countErrors + " errors";
+			return partitionInfo != null ? partitionInfo + ": " + summary : summary;
 		}
 	}
 
@@ -28,6 +28,7 @@ import java.util.Iterator;
 import java.util.Properties;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
 
 import de.metas.invoicecandidate.api.IInvoiceCandRecomputeTagger;
@@ -114,6 +115,15 @@ import lombok.ToString;
 		return invoiceCandidates;
 	}
 
+	@Override
+	public ImmutableListMultimap<Integer, Integer> retrieveInvoiceCandidateIdsByBillBPartnerId()
+	{
+		final Properties ctx = getCtx();
+		final String trxName = getTrxName();
+		final InvoiceCandRecomputeTag recomputeTag = getRecomputeTag();
+		return invoiceCandDAO.fetchInvalidInvoiceCandidateIdsByBillBPartnerId(ctx, recomputeTag, trxName);
+	}
+
 	@Override
 	public IInvoiceCandRecomputeTagger setContext(final Properties ctx, final String trxName)
 	{
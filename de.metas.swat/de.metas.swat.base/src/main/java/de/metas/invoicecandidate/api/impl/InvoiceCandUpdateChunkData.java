@@ -0,0 +1,274 @@
+package de.metas.invoicecandidate.api.impl;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.model.I_M_InOut;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+
+import de.metas.document.engine.IDocumentBL;
+import de.metas.invoicecandidate.model.I_C_InvoiceCandidate_InOutLine;
+import de.metas.invoicecandidate.model.I_C_Invoice_Candidate;
+import de.metas.invoicecandidate.model.I_C_Invoice_Line_Alloc;
+import de.metas.invoicecandidate.model.I_M_InOutLine;
+import de.metas.util.Services;
+import lombok.NonNull;
+
+/**
+ * The records which are needed to update a chunk of invoice candidates, loaded in bulk with a handful of queries.
+ * <p>
+ * While {@link #activate()}d, {@link InvoiceCandDAO} serves the chunk's {@link I_C_InvoiceCandidate_InOutLine}s, their inout lines and inouts and the {@link I_C_Invoice_Line_Alloc}s from here,
+ * instead of querying them for each candidate (and more than once per candidate).
+ * <p>
+ * The only records which change while the chunk is updated are the invoice candidates' {@link I_C_InvoiceCandidate_InOutLine}s;
+ * the updater needs to register the ones it creates via {@link #addICIOLAssociation(I_C_InvoiceCandidate_InOutLine, I_M_InOutLine)}.
+ */
+/* package */ final class InvoiceCandUpdateChunkData
+{
+	private static final ThreadLocal<InvoiceCandUpdateChunkData> current = new ThreadLocal<>();
+
+	private final ImmutableSet<Integer> invoiceCandidateIds;
+	private final ImmutableListMultimap<Integer, I_M_InOutLine> inOutLinesByOrderLineId;
+	private final ListMultimap<Integer, I_C_InvoiceCandidate_InOutLine> iciolsByInvoiceCandidateId;
+	private final Map<Integer, I_M_InOutLine> inOutLinesById;
+	private final Map<Integer, I_M_InOut> inOutsById;
+	private final ImmutableListMultimap<Integer, I_C_Invoice_Line_Alloc> ilasByInvoiceCandidateId;
+
+	/**
+	 * @param ics the chunk's invoice candidates; the records are loaded in the first candidate's transaction
+	 */
+	public static InvoiceCandUpdateChunkData load(@NonNull final List<I_C_Invoice_Candidate> ics)
+	{
+		return new InvoiceCandUpdateChunkData(ics);
+	}
+
+	/**
+	 * @return the chunk data which is currently active in this thread, if it contains the given invoice candidate; <code>null</code> otherwise
+	 */
+	@Nullable
+	public static InvoiceCandUpdateChunkData getCurrentOrNull(final int invoiceCandidateId)
+	{
+		final InvoiceCandUpdateChunkData chunkData = current.get();
+		if (chunkData == null || !chunkData.invoiceCandidateIds.contains(invoiceCandidateId))
+		{
+			return null;
+		}
+		return chunkData;
+	}
+
+	private InvoiceCandUpdateChunkData(final List<I_C_Invoice_Candidate> ics)
+	{
+		invoiceCandidateIds = ics.stream()
+				.map(I_C_Invoice_Candidate::getC_Invoice_Candidate_ID)
+				.filter(id -> id > 0)
+				.collect(ImmutableSet.toImmutableSet());
+
+		if (invoiceCandidateIds.isEmpty())
+		{
+			inOutLinesByOrderLineId = ImmutableListMultimap.of();
+			iciolsByInvoiceCandidateId = ArrayListMultimap.create();
+			inOutLinesById = new HashMap<>();
+			inOutsById = new HashMap<>();
+			ilasByInvoiceCandidateId = ImmutableListMultimap.of();
+			return;
+		}
+
+		final Object contextProvider = ics.get(0);
+		final IQueryBL queryBL = Services.get(IQueryBL.class);
+
+		//
+		// Inout lines of the candidates' order lines
+		// NOTE: keep in sync with IInOutDAO.retrieveLinesForOrderLine
+		final ImmutableSet<Integer> orderLineIds = ics.stream()
+				.map(I_C_Invoice_Candidate::getC_OrderLine_ID)
+				.filter(orderLineId -> orderLineId > 0)
+				.collect(ImmutableSet.toImmutableSet());
+		inOutLinesByOrderLineId = orderLineIds.isEmpty()
+				? ImmutableListMultimap.of()
+				: queryBL.createQueryBuilder(I_M_InOutLine.class, contextProvider)
+						.addInArrayFilter(I_M_InOutLine.COLUMNNAME_C_OrderLine_ID, orderLineIds)
+						.addOnlyActiveRecordsFilter()
+						.orderBy()
+						.addColumn(I_M_InOutLine.COLUMNNAME_M_InOutLine_ID)
+						.endOrderBy()
+						.create()
+						.stream(I_M_InOutLine.class)
+						.collect(ImmutableListMultimap.toImmutableListMultimap(I_M_InOutLine::getC_OrderLine_ID, Function.identity()));
+
+		inOutLinesById = new HashMap<>();
+		inOutLinesByOrderLineId.values().forEach(inOutLine -> inOutLinesById.put(inOutLine.getM_InOutLine_ID(), inOutLine));
+
+		//
+		// Existing invoice candidate - inout line associations
+		// NOTE: keep in sync with InvoiceCandDAO.retrieveICIOLAssociationsExclRE
+		iciolsByInvoiceCandidateId = ArrayListMultimap.create();
+		queryBL.createQueryBuilder(I_C_InvoiceCandidate_InOutLine.class, contextProvider)
+				.addInArrayFilter(I_C_InvoiceCandidate_InOutLine.COLUMN_C_Invoice_Candidate_ID, invoiceCandidateIds)
+				.addOnlyActiveRecordsFilter()
+				.orderBy()
+				.addColumn(I_C_InvoiceCandidate_InOutLine.COLUMN_M_InOutLine_ID)
+				.endOrderBy()
+				.create()
+				.stream(I_C_InvoiceCandidate_InOutLine.class)
+				.forEach(iciol -> iciolsByInvoiceCandidateId.put(iciol.getC_Invoice_Candidate_ID(), iciol));
+
+		//
+		// The associations' inout lines which we don't have yet (they might be inactive or not belong to the candidates' order lines)
+		final ImmutableSet<Integer> missingInOutLineIds = iciolsByInvoiceCandidateId.values().stream()
+				.map(I_C_InvoiceCandidate_InOutLine::getM_InOutLine_ID)
+				.filter(inOutLineId -> !inOutLinesById.containsKey(inOutLineId))
+				.collect(ImmutableSet.toImmutableSet());
+		if (!missingInOutLineIds.isEmpty())
+		{
+			queryBL.createQueryBuilder(I_M_InOutLine.class, contextProvider)
+					.addInArrayFilter(I_M_InOutLine.COLUMNNAME_M_InOutLine_ID, missingInOutLineIds)
+					.create()
+					.stream(I_M_InOutLine.class)
+					.forEach(inOutLine -> inOutLinesById.put(inOutLine.getM_InOutLine_ID(), inOutLine));
+		}
+
+		//
+		// The inout lines' inouts
+		inOutsById = new HashMap<>();
+		final ImmutableSet<Integer> inOutIds = inOutLinesById.values().stream()
+				.map(I_M_InOutLine::getM_InOut_ID)
+				.collect(ImmutableSet.toImmutableSet());
+		if (!inOutIds.isEmpty())
+		{
+			queryBL.createQueryBuilder(I_M_InOut.class, contextProvider)
+					.addInArrayFilter(I_M_InOut.COLUMNNAME_M_InOut_ID, inOutIds)
+					.create()
+					.stream(I_M_InOut.class)
+					.forEach(inOut -> inOutsById.put(inOut.getM_InOut_ID(), inOut));
+		}
+
+		//
+		// Invoice line allocations
+		// NOTE: keep in sync with InvoiceCandDAO.retrieveIlaForIc
+		ilasByInvoiceCandidateId = queryBL.createQueryBuilder(I_C_Invoice_Line_Alloc.class, contextProvider)
+				.addInArrayFilter(I_C_Invoice_Line_Alloc.COLUMNNAME_C_Invoice_Candidate_ID, invoiceCandidateIds)
+				.addOnlyActiveRecordsFilter()
+				.orderBy()
+				.addColumn(I_C_Invoice_Line_Alloc.COLUMN_C_Invoice_Line_Alloc_ID)
+				.endOrderBy()
+				.create()
+				.stream(I_C_Invoice_Line_Alloc.class)
+				.collect(ImmutableListMultimap.toImmutableListMultimap(I_C_Invoice_Line_Alloc::getC_Invoice_Candidate_ID, Function.identity()));
+	}
+
+	/**
+	 * Makes this chunk data available to {@link #getCurrentOrNull(int)} in the current thread, until the returned closeable is closed.
+	 */
+	public IAutoCloseable activate()
+	{
+		final InvoiceCandUpdateChunkData previous = current.get();
+		current.set(this);
+		return () -> {
+			if (previous == null)
+			{
+				current.remove();
+			}
+			else
+			{
+				current.set(previous);
+			}
+		};
+	}
+
+	/**
+	 * @return the active inout lines of the given order line, ordered by <code>M_InOutLine_ID</code>
+	 */
+	public List<I_M_InOutLine> getInOutLinesForOrderLineId(final int orderLineId)
+	{
+		return inOutLinesByOrderLineId.get(orderLineId);
+	}
+
+	public boolean existsICIOLAssociation(final int invoiceCandidateId, final int inOutLineId)
+	{
+		return iciolsByInvoiceCandidateId.get(invoiceCandidateId)
+				.stream()
+				.anyMatch(iciol -> iciol.getM_InOutLine_ID() == inOutLineId);
+	}
+
+	/**
+	 * Same as {@link InvoiceCandDAO#retrieveICIOLAssociationsExclRE(de.metas.invoicecandidate.InvoiceCandidateId)}, but without querying the database.
+	 */
+	public List<I_C_InvoiceCandidate_InOutLine> getICIOLAssociationsExclRE(final int invoiceCandidateId)
+	{
+		final IDocumentBL documentBL = Services.get(IDocumentBL.class);
+
+		return iciolsByInvoiceCandidateId.get(invoiceCandidateId)
+				.stream()
+				.filter(iciol -> {
+					final I_M_InOut inOut = getInOutOrNull(iciol);
+					return inOut != null && inOut.isActive() && documentBL.isDocumentCompletedOrClosed(inOut);
+				})
+				.sorted(Comparator.comparing(I_C_InvoiceCandidate_InOutLine::getM_InOutLine_ID))
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	public void addICIOLAssociation(@NonNull final I_C_InvoiceCandidate_InOutLine iciol, @NonNull final I_M_InOutLine inOutLine)
+	{
+		iciolsByInvoiceCandidateId.put(iciol.getC_Invoice_Candidate_ID(), iciol);
+		inOutLinesById.putIfAbsent(inOutLine.getM_InOutLine_ID(), inOutLine);
+		inOutsById.computeIfAbsent(inOutLine.getM_InOut_ID(), inOutId -> inOutLine.getM_InOut());
+	}
+
+	/**
+	 * @return the given association's inout line or <code>null</code> if it was not loaded with this chunk
+	 */
+	@Nullable
+	public I_M_InOutLine getInOutLineOrNull(@NonNull final I_C_InvoiceCandidate_InOutLine iciol)
+	{
+		return inOutLinesById.get(iciol.getM_InOutLine_ID());
+	}
+
+	/**
+	 * @return the given association's inout or <code>null</code> if it was not loaded with this chunk
+	 */
+	@Nullable
+	public I_M_InOut getInOutOrNull(@NonNull final I_C_InvoiceCandidate_InOutLine iciol)
+	{
+		final I_M_InOutLine inOutLine = getInOutLineOrNull(iciol);
+		return inOutLine != null ? inOutsById.get(inOutLine.getM_InOut_ID()) : null;
+	}
+
+	public List<I_C_Invoice_Line_Alloc> getIlas(final int invoiceCandidateId)
+	{
+		return ilasByInvoiceCandidateId.get(invoiceCandidateId);
+	}
+}
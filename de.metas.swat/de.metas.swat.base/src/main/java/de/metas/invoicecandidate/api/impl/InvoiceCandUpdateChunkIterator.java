@@ -0,0 +1,86 @@
+package de.metas.invoicecandidate.api.impl;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Iterators;
+
+import de.metas.invoicecandidate.model.I_C_Invoice_Candidate;
+import lombok.NonNull;
+
+/**
+ * Iterates the given invoice candidates chunk by chunk and loads the {@link InvoiceCandUpdateChunkData} of each chunk.
+ */
+/* package */ final class InvoiceCandUpdateChunkIterator implements Iterator<I_C_Invoice_Candidate>
+{
+	private final Iterator<List<I_C_Invoice_Candidate>> chunks;
+
+	private Iterator<I_C_Invoice_Candidate> currentChunk = Iterators.emptyIterator();
+	private InvoiceCandUpdateChunkData currentChunkData = null;
+
+	public InvoiceCandUpdateChunkIterator(@NonNull final Iterator<I_C_Invoice_Candidate> invoiceCandidates, final int chunkSize)
+	{
+		chunks = Iterators.partition(invoiceCandidates, chunkSize);
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		while (!currentChunk.hasNext())
+		{
+			if (!chunks.hasNext())
+			{
+				return false;
+			}
+
+			final List<I_C_Invoice_Candidate> chunk = chunks.next();
+			currentChunkData = InvoiceCandUpdateChunkData.load(chunk);
+			currentChunk = chunk.iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public I_C_Invoice_Candidate next()
+	{
+		if (!hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+		return currentChunk.next();
+	}
+
+	/**
+	 * @return the data of the chunk which was loaded last, i.e. the chunk of the candidate which was returned last by {@link #next()}
+	 */
+	@Nullable
+	public InvoiceCandUpdateChunkData getCurrentChunkData()
+	{
+		return currentChunkData;
+	}
+}
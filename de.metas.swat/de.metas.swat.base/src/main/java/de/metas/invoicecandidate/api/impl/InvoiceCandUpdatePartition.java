@@ -0,0 +1,97 @@
+package de.metas.invoicecandidate.api.impl;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * A group of invoice candidates which can be updated independently from (and concurrently with) the other partitions.
+ * <p>
+ * The candidates of one bill partner are never split up, because e.g. the manual candidates' amounts depend on the other candidates of the same partner.
+ */
+@Value
+/* package */ class InvoiceCandUpdatePartition
+{
+	int partitionNo;
+	ImmutableSet<Integer> billBPartnerIds;
+
+	/** the candidates to update, in the order in which they shall be updated */
+	ImmutableList<Integer> invoiceCandidateIds;
+
+	/**
+	 * Groups the bill partners' invoice candidates into partitions with at least <code>targetPartitionSize</code> candidates each (except the last one).
+	 * The bill partners with the most candidates are placed first, so that their partitions are started first.
+	 *
+	 * @param icIdsByBillBPartnerId invoice candidate IDs by Bill_BPartner_ID; the order of each partner's IDs is preserved
+	 */
+	public static ImmutableList<InvoiceCandUpdatePartition> partitionByBillBPartnerId(
+			@NonNull final ListMultimap<Integer, Integer> icIdsByBillBPartnerId,
+			final int targetPartitionSize)
+	{
+		final List<Integer> billBPartnerIds = new ArrayList<>(icIdsByBillBPartnerId.keySet());
+		billBPartnerIds.sort(Comparator.comparing((Integer billBPartnerId) -> icIdsByBillBPartnerId.get(billBPartnerId).size()).reversed());
+
+		final ImmutableList.Builder<InvoiceCandUpdatePartition> partitions = ImmutableList.builder();
+		int partitionNo = 1;
+		ImmutableSet.Builder<Integer> currentBPartnerIds = ImmutableSet.builder();
+		ImmutableList.Builder<Integer> currentIcIds = ImmutableList.builder();
+		int currentSize = 0;
+		for (final Integer billBPartnerId : billBPartnerIds)
+		{
+			final List<Integer> icIds = icIdsByBillBPartnerId.get(billBPartnerId);
+			currentBPartnerIds.add(billBPartnerId);
+			currentIcIds.addAll(icIds);
+			currentSize += icIds.size();
+
+			if (currentSize >= targetPartitionSize)
+			{
+				partitions.add(new InvoiceCandUpdatePartition(partitionNo, currentBPartnerIds.build(), currentIcIds.build()));
+				partitionNo++;
+				currentBPartnerIds = ImmutableSet.builder();
+				currentIcIds = ImmutableList.builder();
+				currentSize = 0;
+			}
+		}
+
+		if (currentSize > 0)
+		{
+			partitions.add(new InvoiceCandUpdatePartition(partitionNo, currentBPartnerIds.build(), currentIcIds.build()));
+		}
+
+		return partitions.build();
+	}
+
+	public int size()
+	{
+		return invoiceCandidateIds.size();
+	}
+}
@@ -0,0 +1,91 @@
+package de.metas.invoicecandidate.api.impl;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.adempiere.model.InterfaceWrapperHelper;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+
+import de.metas.invoicecandidate.model.I_C_Invoice_Candidate;
+import lombok.NonNull;
+
+/**
+ * Iterates the invoice candidates of an {@link InvoiceCandUpdatePartition}, loading them chunk by chunk.
+ */
+/* package */ final class InvoiceCandUpdatePartitionIterator implements Iterator<I_C_Invoice_Candidate>
+{
+	private final Iterator<List<Integer>> idChunks;
+
+	private Iterator<I_C_Invoice_Candidate> currentChunk = Iterators.emptyIterator();
+
+	public InvoiceCandUpdatePartitionIterator(@NonNull final List<Integer> invoiceCandidateIds, final int chunkSize)
+	{
+		idChunks = Iterators.partition(invoiceCandidateIds.iterator(), chunkSize);
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		while (!currentChunk.hasNext())
+		{
+			if (!idChunks.hasNext())
+			{
+				return false;
+			}
+			currentChunk = loadChunk(idChunks.next()).iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public I_C_Invoice_Candidate next()
+	{
+		if (!hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+		return currentChunk.next();
+	}
+
+	private static List<I_C_Invoice_Candidate> loadChunk(final List<Integer> invoiceCandidateIds)
+	{
+		// NOTE: we load them out of trx; the trx item processor will switch them to the chunk's trx while processing
+		final Map<Integer, I_C_Invoice_Candidate> icsById = Maps.uniqueIndex(
+				InterfaceWrapperHelper.loadByIdsOutOfTrx(ImmutableSet.copyOf(invoiceCandidateIds), I_C_Invoice_Candidate.class),
+				I_C_Invoice_Candidate::getC_Invoice_Candidate_ID);
+
+		// preserve the given order; skip those which were deleted in meantime
+		return invoiceCandidateIds.stream()
+				.map(icsById::get)
+				.filter(ic -> ic != null)
+				.collect(ImmutableList.toImmutableList());
+	}
+}
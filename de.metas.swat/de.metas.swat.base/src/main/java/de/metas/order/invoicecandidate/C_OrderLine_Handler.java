@@ -354,7 +354,7 @@ public class C_OrderLine_Handler extends AbstractInvoiceCandidateHandler
 		I_M_InOut firstInOut = null;
 		for (final I_C_InvoiceCandidate_InOutLine icIol : icIols)
 		{
-			final I_M_InOut inOut = icIol.getM_InOutLine().getM_InOut();
+			final I_M_InOut inOut = invoiceCandDAO.retrieveInOut(icIol);
 
 			// Consider only completed shipments/receipts
 			if (!docActionBL.isDocumentCompletedOrClosed(inOut))
@@ -8,7 +8,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Stream;
 
 import org.adempiere.util.lang.impl.TableRecordReference;
 import org.adempiere.warehouse.WarehouseId;
@@ -18,7 +17,9 @@ import org.compiere.util.Util.ArrayKey;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimaps;
 
 import de.metas.inoutcandidate.api.IShipmentScheduleEffectiveBL;
 import de.metas.inoutcandidate.model.I_M_ShipmentSchedule;
@@ -39,14 +40,38 @@ public class ShipmentScheduleQtyOnHandStorage
 	private final transient IShipmentScheduleEffectiveBL shipmentScheduleEffectiveBL = Services.get(IShipmentScheduleEffectiveBL.class);
 	private final transient IWarehouseDAO warehouseDAO = Services.get(IWarehouseDAO.class);
 
+	/** The stock as it was loaded, so that we can create fresh copies of this storage */
+	private final ImmutableList<StockDataItem> stockItems;
 	private final List<ShipmentScheduleAvailableStockDetail> stockDetails;
-	private final Map<ArrayKey, StockDataQuery> cachedMaterialQueries = new HashMap<>();
+	private final ImmutableListMultimap<ProductId, ShipmentScheduleAvailableStockDetail> stockDetailsByProductId;
+	private final Map<ArrayKey, StockDataQuery> cachedMaterialQueries;
+	private final Map<StockDataQuery, ImmutableList<ShipmentScheduleAvailableStockDetail>> cachedStockDetailsByMaterialQuery = new HashMap<>();
 
 	public ShipmentScheduleQtyOnHandStorage(
 			@NonNull final List<I_M_ShipmentSchedule> shipmentSchedules,
 			@NonNull final StockRepository stockRepository)
 	{
-		stockDetails = createStockDetailsFromShipmentSchedules(shipmentSchedules, stockRepository);
+		cachedMaterialQueries = new HashMap<>();
+		stockItems = retrieveStockItems(shipmentSchedules, stockRepository);
+		stockDetails = createStockDetails(stockItems);
+		stockDetailsByProductId = Multimaps.index(stockDetails, ShipmentScheduleAvailableStockDetail::getProductId);
+	}
+
+	private ShipmentScheduleQtyOnHandStorage(@NonNull final ShipmentScheduleQtyOnHandStorage from)
+	{
+		cachedMaterialQueries = new HashMap<>(from.cachedMaterialQueries);
+		stockItems = from.stockItems;
+		stockDetails = createStockDetails(stockItems);
+		stockDetailsByProductId = Multimaps.index(stockDetails, ShipmentScheduleAvailableStockDetail::getProductId);
+	}
+
+	/**
+	 * @return a new storage with the same stock as this one had when it was loaded, i.e. without the allocations which were done on this storage.
+	 *         No query is executed, so the new storage does not reflect stock changes which happened since this storage was loaded.
+	 */
+	public ShipmentScheduleQtyOnHandStorage copyWithInitialQtyOnHand()
+	{
+		return new ShipmentScheduleQtyOnHandStorage(this);
 	}
 
 	@Override
@@ -57,7 +82,7 @@ public class ShipmentScheduleQtyOnHandStorage
 				.toString();
 	}
 
-	private final List<ShipmentScheduleAvailableStockDetail> createStockDetailsFromShipmentSchedules(
+	private final ImmutableList<StockDataItem> retrieveStockItems(
 			final List<I_M_ShipmentSchedule> shipmentSchedules,
 			final StockRepository stockRepository)
 	{
@@ -71,11 +96,9 @@ public class ShipmentScheduleQtyOnHandStorage
 			return ImmutableList.of();
 		}
 
-		final List<StockDataItem> stockResult = stockRepository
+		return stockRepository
 				.streamStockDataItems(multiQuery)
 				.collect(ImmutableList.toImmutableList());
-
-		return createStockDetails(stockResult);
 	}
 
 	private StockDataMultiQuery createMaterialMultiQueryOrNull(@NonNull final List<I_M_ShipmentSchedule> shipmentSchedules)
@@ -153,11 +176,18 @@ public class ShipmentScheduleQtyOnHandStorage
 				.build();
 	}
 
-	private Stream<ShipmentScheduleAvailableStockDetail> streamStockDetailsMatching(final StockDataQuery materialQuery)
+	private ImmutableList<ShipmentScheduleAvailableStockDetail> getCachedStockDetailsMatching(final StockDataQuery materialQuery)
+	{
+		return cachedStockDetailsByMaterialQuery.computeIfAbsent(materialQuery, this::retrieveStockDetailsMatching);
+	}
+
+	private ImmutableList<ShipmentScheduleAvailableStockDetail> retrieveStockDetailsMatching(final StockDataQuery materialQuery)
 	{
-		return stockDetails
+		return stockDetailsByProductId
+				.get(materialQuery.getProductId())
 				.stream()
-				.filter(stockDetail -> matching(materialQuery, stockDetail));
+				.filter(stockDetail -> matching(materialQuery, stockDetail))
+				.collect(ImmutableList.toImmutableList());
 	}
 
 	private static boolean matching(final StockDataQuery query, final ShipmentScheduleAvailableStockDetail stockDetail)
@@ -200,7 +230,6 @@ public class ShipmentScheduleQtyOnHandStorage
 		}
 
 		final StockDataQuery materialQuery = getMaterialQuery(sched);
-		return streamStockDetailsMatching(materialQuery)
-				.collect(ImmutableList.toImmutableList());
+		return getCachedStockDetailsMatching(materialQuery);
 	}
 }
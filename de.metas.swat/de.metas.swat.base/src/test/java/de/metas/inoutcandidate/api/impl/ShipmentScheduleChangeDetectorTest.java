@@ -0,0 +1,155 @@
+package de.metas.inoutcandidate.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import de.metas.inoutcandidate.api.ShipmentScheduleId;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleChangeDetector.Component;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleChangeDetector.ScheduleInputs;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ShipmentScheduleChangeDetectorTest
+{
+	private ShipmentScheduleChangeDetector changeDetector;
+
+	@Before
+	public void init()
+	{
+		changeDetector = new ShipmentScheduleChangeDetector(1000, 60);
+	}
+
+	private static HashCode hash(final String string)
+	{
+		return Hashing.murmur3_128().hashString(string, StandardCharsets.UTF_8);
+	}
+
+	private static ScheduleInputs inputs(final int shipmentScheduleId, final String segment, final String stock, final String orderId, final String inputs)
+	{
+		return ScheduleInputs.builder()
+				.shipmentScheduleId(ShipmentScheduleId.ofRepoId(shipmentScheduleId))
+				.segmentKey(segment)
+				.segmentStockHash(hash(stock))
+				.deliveryGroupKey(orderId)
+				.pickedQtyHash(hash("nothing picked"))
+				.masterDataHash(hash("master data"))
+				.inputsHash(hash(inputs))
+				.build();
+	}
+
+	private static List<ShipmentScheduleId> ids(final int... repoIds)
+	{
+		final ImmutableList.Builder<ShipmentScheduleId> ids = ImmutableList.builder();
+		for (final int repoId : repoIds)
+		{
+			ids.add(ShipmentScheduleId.ofRepoId(repoId));
+		}
+		return ids.build();
+	}
+
+	@Test
+	public void computeComponents_joinsBySegmentAndDeliveryGroup()
+	{
+		final List<Component> components = ShipmentScheduleChangeDetector.computeComponents(ImmutableList.of(
+				inputs(1, "product1", "stock10", "order1", "a"),
+				inputs(2, "product1", "stock10", "order2", "b"),
+				inputs(3, "product2", "stock5", "order2", "c"),
+				inputs(4, "product3", "stock5", "order3", "d")));
+
+		assertThat(components)
+				.extracting(Component::getShipmentScheduleIds)
+				.containsExactlyInAnyOrder(ids(1, 2, 3), ids(4));
+	}
+
+	@Test
+	public void unchangedComponent_isSkipped()
+	{
+		final List<ScheduleInputs> inputs = ImmutableList.of(
+				inputs(1, "product1", "stock10", "order1", "a"),
+				inputs(2, "product1", "stock10", "order2", "b"));
+
+		final List<Component> components = ShipmentScheduleChangeDetector.computeComponents(inputs);
+		assertThat(components).hasSize(1);
+		assertThat(changeDetector.isUnchanged(components.get(0))).isFalse();
+
+		changeDetector.rememberRecomputed(components);
+
+		assertThat(changeDetector.isUnchanged(ShipmentScheduleChangeDetector.computeComponents(inputs).get(0))).isTrue();
+	}
+
+	@Test
+	public void stockChange_recomputesWholeSegment()
+	{
+		changeDetector.rememberRecomputed(ShipmentScheduleChangeDetector.computeComponents(ImmutableList.of(
+				inputs(1, "product1", "stock10", "order1", "a"),
+				inputs(2, "product1", "stock10", "order2", "b"))));
+
+		final List<Component> components = ShipmentScheduleChangeDetector.computeComponents(ImmutableList.of(
+				inputs(1, "product1", "stock7", "order1", "a"),
+				inputs(2, "product1", "stock7", "order2", "b")));
+
+		assertThat(changeDetector.isUnchanged(components.get(0))).isFalse();
+	}
+
+	@Test
+	public void fewerSchedulesInSegment_recomputesSegment()
+	{
+		changeDetector.rememberRecomputed(ShipmentScheduleChangeDetector.computeComponents(ImmutableList.of(
+				inputs(1, "product1", "stock10", "order1", "a"),
+				inputs(2, "product1", "stock10", "order2", "b"))));
+
+		// schedule 1 is no longer competing for the stock, so schedule 2 might get more now
+		final List<Component> components = ShipmentScheduleChangeDetector.computeComponents(ImmutableList.of(
+				inputs(2, "product1", "stock10", "order2", "b")));
+
+		assertThat(changeDetector.isUnchanged(components.get(0))).isFalse();
+	}
+
+	@Test
+	public void inputChange_recomputesOnlyAffectedComponent()
+	{
+		changeDetector.rememberRecomputed(ShipmentScheduleChangeDetector.computeComponents(ImmutableList.of(
+				inputs(1, "product1", "stock10", "order1", "a"),
+				inputs(2, "product1", "stock10", "order1", "b"),
+				inputs(3, "product2", "stock5", "order2", "c"))));
+
+		final List<Component> components = ShipmentScheduleChangeDetector.computeComponents(ImmutableList.of(
+				inputs(1, "product1", "stock10", "order1", "a"),
+				inputs(2, "product1", "stock10", "order1", "b-changed"),
+				inputs(3, "product2", "stock5", "order2", "c")));
+
+		assertThat(components)
+				.filteredOn(component -> !changeDetector.isUnchanged(component))
+				.extracting(Component::getShipmentScheduleIds)
+				.containsExactly(ids(1, 2));
+	}
+}
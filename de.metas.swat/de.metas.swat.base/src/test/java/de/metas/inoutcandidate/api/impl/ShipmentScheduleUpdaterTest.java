@@ -0,0 +1,212 @@
+package de.metas.inoutcandidate.api.impl;
+
+import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
+import static org.adempiere.model.InterfaceWrapperHelper.save;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.adempiere.inout.util.ShipmentScheduleQtyOnHandStorageFactory;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.util.Env;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import de.metas.inoutcandidate.api.IShipmentScheduleBL;
+import de.metas.inoutcandidate.api.OlAndSched;
+import de.metas.inoutcandidate.api.ShipmentScheduleId;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleChangeDetector.ScheduleInputs;
+import de.metas.inoutcandidate.model.I_M_ShipmentSchedule;
+import de.metas.inoutcandidate.spi.ShipmentScheduleReferencedLineFactory;
+import de.metas.material.cockpit.stock.StockRepository;
+import de.metas.util.Services;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Verifies that skipping the unchanged schedules leads to the same result as recomputing all of them.
+ * <p>
+ * The recompute is simulated by allocating each product's stock to its schedules, in the order of their IDs.
+ * The inputs loader fingerprints exactly that stock and the schedules' own values.
+ */
+public class ShipmentScheduleUpdaterTest
+{
+	private static final int PRODUCT_ID_1 = 10;
+	private static final int PRODUCT_ID_2 = 20;
+
+	private final Map<Integer, BigDecimal> stockByProductId = new HashMap<>();
+
+	private ShipmentScheduleUpdater shipmentScheduleUpdater;
+	private List<OlAndSched> olsAndScheds;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		final ShipmentScheduleQtyOnHandStorageFactory shipmentScheduleQtyOnHandStorageFactory = new ShipmentScheduleQtyOnHandStorageFactory(new StockRepository());
+		Services.registerService(IShipmentScheduleBL.class, new ShipmentScheduleBL(shipmentScheduleQtyOnHandStorageFactory, new ShipmentScheduleReferencedLineFactory())
+		{
+			@Override
+			public void updateSchedules(final Properties ctx, final List<OlAndSched> olsAndScheds, final String trxName)
+			{
+				allocateStock(olsAndScheds);
+			}
+		});
+
+		shipmentScheduleUpdater = new ShipmentScheduleUpdater(new ShipmentScheduleInputsLoader(shipmentScheduleQtyOnHandStorageFactory)
+		{
+			@Override
+			public List<ScheduleInputs> loadInputs(final List<OlAndSched> olsAndScheds)
+			{
+				return createInputs(olsAndScheds);
+			}
+
+			@Override
+			public List<ScheduleInputs> reloadInputsAfterRecompute(final List<OlAndSched> olsAndScheds, final List<ScheduleInputs> inputsBeforeRecompute)
+			{
+				return createInputs(olsAndScheds);
+			}
+		});
+
+		stockByProductId.put(PRODUCT_ID_1, new BigDecimal("15"));
+		stockByProductId.put(PRODUCT_ID_2, new BigDecimal("100"));
+
+		olsAndScheds = ImmutableList.of(
+				createOlAndSched(PRODUCT_ID_1, 1, "10"),
+				createOlAndSched(PRODUCT_ID_1, 2, "10"),
+				createOlAndSched(PRODUCT_ID_2, 3, "5"));
+	}
+
+	private OlAndSched createOlAndSched(final int productId, final int orderId, final String qtyOrdered)
+	{
+		final I_M_ShipmentSchedule sched = newInstance(I_M_ShipmentSchedule.class);
+		sched.setM_Product_ID(productId);
+		sched.setC_Order_ID(orderId);
+		sched.setQtyOrdered(new BigDecimal(qtyOrdered));
+		save(sched);
+
+		return OlAndSched.builder()
+				.shipmentSchedule(sched)
+				.deliverRequest(sched::getQtyOrdered)
+				.build();
+	}
+
+	private void allocateStock(final List<OlAndSched> olsAndScheds)
+	{
+		final Map<Integer, BigDecimal> remainingStockByProductId = new HashMap<>(stockByProductId);
+
+		olsAndScheds.stream()
+				.map(OlAndSched::getSched)
+				.sorted(Comparator.comparing(I_M_ShipmentSchedule::getM_ShipmentSchedule_ID))
+				.forEach(sched -> {
+					final BigDecimal stock = remainingStockByProductId.get(sched.getM_Product_ID());
+					final BigDecimal qtyToDeliver = stock.min(sched.getQtyOrdered());
+					remainingStockByProductId.put(sched.getM_Product_ID(), stock.subtract(qtyToDeliver));
+
+					sched.setQtyToDeliver(qtyToDeliver);
+					save(sched);
+				});
+	}
+
+	private List<ScheduleInputs> createInputs(final List<OlAndSched> olsAndScheds)
+	{
+		return olsAndScheds.stream()
+				.map(OlAndSched::getSched)
+				.map(sched -> ScheduleInputs.builder()
+						.shipmentScheduleId(ShipmentScheduleId.ofRepoId(sched.getM_ShipmentSchedule_ID()))
+						.segmentKey(sched.getM_Product_ID())
+						.segmentStockHash(hash(stockByProductId.get(sched.getM_Product_ID())))
+						.deliveryGroupKey(sched.getC_Order_ID())
+						.pickedQtyHash(hash("nothing picked"))
+						.masterDataHash(hash("master data"))
+						.inputsHash(hash(sched.getQtyOrdered() + "/" + sched.getQtyToDeliver()))
+						.build())
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	private static HashCode hash(final Object value)
+	{
+		return Hashing.murmur3_128().hashString(String.valueOf(value), StandardCharsets.UTF_8);
+	}
+
+	private int recompute(final boolean skipUnchanged)
+	{
+		Services.get(ISysConfigBL.class).setValue(ShipmentScheduleUpdater.SYSCONFIG_SkipUnchanged, skipUnchanged, 0);
+		return shipmentScheduleUpdater.recomputeChanged(Env.getCtx(), olsAndScheds);
+	}
+
+	private List<BigDecimal> getQtysToDeliver()
+	{
+		return olsAndScheds.stream()
+				.map(olAndSched -> olAndSched.getSched().getQtyToDeliver())
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void skipUnchanged_isDisabledByDefault()
+	{
+		assertThat(shipmentScheduleUpdater.isSkipUnchanged()).isFalse();
+	}
+
+	@Test
+	public void unchangedInputs_skippedRunEqualsFullRecompute()
+	{
+		assertThat(recompute(true)).isEqualTo(3);
+		final List<BigDecimal> qtysAfterFirstRun = getQtysToDeliver();
+		assertThat(qtysAfterFirstRun).usingElementComparator(BigDecimal::compareTo).containsExactly(new BigDecimal("10"), new BigDecimal("5"), new BigDecimal("5"));
+
+		assertThat(recompute(true)).as("all schedules skipped").isEqualTo(0);
+		assertThat(getQtysToDeliver()).isEqualTo(qtysAfterFirstRun);
+
+		assertThat(recompute(false)).as("full recompute").isEqualTo(3);
+		assertThat(getQtysToDeliver()).isEqualTo(qtysAfterFirstRun);
+	}
+
+	@Test
+	public void changedStock_skippedRunEqualsFullRecompute()
+	{
+		recompute(true);
+
+		stockByProductId.put(PRODUCT_ID_1, new BigDecimal("12"));
+
+		assertThat(recompute(true)).as("only the schedules of the changed segment are recomputed").isEqualTo(2);
+		final List<BigDecimal> qtysAfterSkippedRun = getQtysToDeliver();
+		assertThat(qtysAfterSkippedRun).usingElementComparator(BigDecimal::compareTo).containsExactly(new BigDecimal("10"), new BigDecimal("2"), new BigDecimal("5"));
+
+		recompute(false);
+		assertThat(getQtysToDeliver()).isEqualTo(qtysAfterSkippedRun);
+	}
+}
@@ -0,0 +1,84 @@
+package de.metas.invoicecandidate.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class InvoiceCandUpdatePartitionTest
+{
+	@Test
+	public void emptyInput()
+	{
+		final List<InvoiceCandUpdatePartition> partitions = InvoiceCandUpdatePartition.partitionByBillBPartnerId(ImmutableListMultimap.of(), 10);
+		assertThat(partitions).isEmpty();
+	}
+
+	@Test
+	public void bpartnerIsNeverSplit()
+	{
+		final ImmutableListMultimap<Integer, Integer> icIdsByBPartnerId = ImmutableListMultimap.<Integer, Integer> builder()
+				.putAll(1, 10, 11, 12, 13, 14)
+				.putAll(2, 20)
+				.putAll(3, 30, 31)
+				.build();
+
+		final List<InvoiceCandUpdatePartition> partitions = InvoiceCandUpdatePartition.partitionByBillBPartnerId(icIdsByBPartnerId, 2);
+
+		// largest partner first; each partition has at least 2 candidates, except the last one
+		assertThat(partitions).hasSize(3);
+
+		assertThat(partitions.get(0).getPartitionNo()).isEqualTo(1);
+		assertThat(partitions.get(0).getBillBPartnerIds()).containsExactly(1);
+		assertThat(partitions.get(0).getInvoiceCandidateIds()).containsExactly(10, 11, 12, 13, 14);
+
+		assertThat(partitions.get(1).getBillBPartnerIds()).containsExactly(3);
+		assertThat(partitions.get(1).getInvoiceCandidateIds()).containsExactly(30, 31);
+
+		assertThat(partitions.get(2).getBillBPartnerIds()).containsExactly(2);
+		assertThat(partitions.get(2).getInvoiceCandidateIds()).containsExactly(20);
+	}
+
+	@Test
+	public void smallBPartnersAreGrouped()
+	{
+		final ImmutableListMultimap<Integer, Integer> icIdsByBPartnerId = ImmutableListMultimap.<Integer, Integer> builder()
+				.putAll(1, 12, 10) // order shall be preserved
+				.putAll(2, 20)
+				.putAll(3, 30)
+				.build();
+
+		final List<InvoiceCandUpdatePartition> partitions = InvoiceCandUpdatePartition.partitionByBillBPartnerId(icIdsByBPartnerId, 100);
+
+		assertThat(partitions).hasSize(1);
+		assertThat(partitions.get(0).size()).isEqualTo(4);
+		assertThat(partitions.get(0).getBillBPartnerIds()).containsExactlyInAnyOrder(1, 2, 3);
+		assertThat(partitions.get(0).getInvoiceCandidateIds()).containsSubsequence(ImmutableList.of(12, 10));
+	}
+}
@@ -0,0 +1,113 @@
+package org.adempiere.inout.util;
+
+import static java.math.BigDecimal.ONE;
+import static java.math.BigDecimal.TEN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.inoutcandidate.api.OlAndSched;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleTestBase;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleTestBase.OrderLineSpec;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleTestBase.OrderSpec;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleTestBase.ProductSpec;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleTestBase.ShipmentScheduleSpec;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleTestBase.StockSpec;
+import de.metas.inoutcandidate.api.impl.ShipmentScheduleTestBase.TestSetupSpec;
+import de.metas.material.cockpit.stock.StockRepository;
+import de.metas.order.DeliveryRule;
+
+/*
+ * #%L
+ * de.metas.swat.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ShipmentScheduleQtyOnHandStorageTest
+{
+	private static final BigDecimal THREE = new BigDecimal("3");
+
+	private ShipmentScheduleQtyOnHandStorageFactory storageFactory;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		storageFactory = new ShipmentScheduleQtyOnHandStorageFactory(new StockRepository());
+	}
+
+	private ImmutableList<OlAndSched> setupTwoSchedulesForSameProduct()
+	{
+		return ShipmentScheduleTestBase.setup(TestSetupSpec.builder()
+				.product(ProductSpec.builder().value("prod1").stocked(true).build())
+				.product(ProductSpec.builder().value("prod2").stocked(true).build())
+				.stock(StockSpec.builder().product("prod1").qtyStock(ONE).build())
+				.stock(StockSpec.builder().product("prod1").qtyStock(THREE).build())
+				.stock(StockSpec.builder().product("prod2").qtyStock(TEN).build())
+				.order(OrderSpec.builder().value("order1").build())
+				.orderLine(OrderLineSpec.builder().value("ol11").product("prod1").order("order1").qtyOrdered(TEN).build())
+				.orderLine(OrderLineSpec.builder().value("ol12").product("prod1").order("order1").qtyOrdered(TEN).build())
+				.shipmentSchedule(ShipmentScheduleSpec.builder().product("prod1").order("order1").orderLine("ol11").qtyOrdered(TEN).deliveryRule(DeliveryRule.AVAILABILITY).build())
+				.shipmentSchedule(ShipmentScheduleSpec.builder().product("prod1").order("order1").orderLine("ol12").qtyOrdered(TEN).deliveryRule(DeliveryRule.AVAILABILITY).build())
+				.build());
+	}
+
+	@Test
+	public void getStockDetailsMatching_onlySameProduct()
+	{
+		final ImmutableList<OlAndSched> olAndScheds = setupTwoSchedulesForSameProduct();
+		final ShipmentScheduleQtyOnHandStorage storage = storageFactory.ofOlAndScheds(olAndScheds);
+
+		final List<ShipmentScheduleAvailableStockDetail> stockDetails = storage.getStockDetailsMatching(olAndScheds.get(0).getSched());
+		assertThat(ShipmentScheduleAvailableStockDetail.calculateQtyOnHandSum(stockDetails)).isEqualByComparingTo("4");
+	}
+
+	@Test
+	public void schedulesOfSameSegment_shareTheAllocatedStock()
+	{
+		final ImmutableList<OlAndSched> olAndScheds = setupTwoSchedulesForSameProduct();
+		final ShipmentScheduleQtyOnHandStorage storage = storageFactory.ofOlAndScheds(olAndScheds);
+
+		storage.getStockDetailsMatching(olAndScheds.get(0).getSched()).get(0).subtractQtyOnHand(ONE);
+
+		final List<ShipmentScheduleAvailableStockDetail> stockDetails = storage.getStockDetailsMatching(olAndScheds.get(1).getSched());
+		assertThat(ShipmentScheduleAvailableStockDetail.calculateQtyOnHandSum(stockDetails)).isEqualByComparingTo("3");
+	}
+
+	@Test
+	public void copyWithInitialQtyOnHand_doesNotContainAllocations()
+	{
+		final ImmutableList<OlAndSched> olAndScheds = setupTwoSchedulesForSameProduct();
+		final ShipmentScheduleQtyOnHandStorage storage = storageFactory.ofOlAndScheds(olAndScheds);
+		storage.getStockDetailsMatching(olAndScheds.get(0).getSched()).get(0).subtractQtyOnHand(ONE);
+
+		final ShipmentScheduleQtyOnHandStorage copy = storage.copyWithInitialQtyOnHand();
+
+		final List<ShipmentScheduleAvailableStockDetail> stockDetails = copy.getStockDetailsMatching(olAndScheds.get(0).getSched());
+		assertThat(ShipmentScheduleAvailableStockDetail.calculateQtyOnHandSum(stockDetails)).isEqualByComparingTo("4");
+	}
+}